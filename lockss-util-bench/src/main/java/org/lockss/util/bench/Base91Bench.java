@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import org.lockss.util.io.Base91;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Base91 encode and decode throughput of in-memory buffers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class Base91Bench {
+
+  @Param({"1024", "65536"})
+  int size;
+
+  Base91 b91;
+  byte[] raw;
+  byte[] encoded;
+  int encodedLen;
+  byte[] out;
+
+  @Setup
+  public void setup() {
+    b91 = new Base91();
+    raw = BenchData.bytes(size, 4);
+    // Encoding expands by at most 16/13, plus 2 at the end
+    out = new byte[size * 16 / 13 + 16];
+    int n = b91.encode(raw, raw.length, out);
+    // encEnd() writes at the start of its array
+    byte[] end = new byte[2];
+    int m = b91.encEnd(end);
+    encoded = Arrays.copyOf(out, n + m);
+    System.arraycopy(end, 0, encoded, n, m);
+    encodedLen = encoded.length;
+  }
+
+  @Benchmark
+  public int encode() {
+    int n = b91.encode(raw, raw.length, out);
+    b91.encReset();
+    return n;
+  }
+
+  @Benchmark
+  public int decode() {
+    int n = b91.decode(encoded, encodedLen, out);
+    b91.decReset();
+    return n;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.*;
+
+/**
+ * Deterministic test data shared by the benchmarks.
+ */
+public class BenchData {
+
+  static final String[] HOSTS = {
+    "www.example.com", "journals.example.org", "static.example-cdn.net",
+    "www.publisher.co.uk", "archive.example.edu",
+  };
+
+  static final String[] DIRS = {
+    "content", "doi", "toc", "action", "pdf", "supplemental", "css",
+    "images", "js", "issue", "vol", "lockss",
+  };
+
+  static final String[] EXTS = {
+    "", ".html", ".pdf", ".css", ".js", ".png", ".jpg", ".gif", ".xml",
+  };
+
+  /** Return n URLs of the shapes commonly seen when crawling journal
+   * sites, in random order */
+  public static List<String> urls(int n, long seed) {
+    Random rnd = new Random(seed);
+    List<String> res = new ArrayList<>(n);
+    for (int ix = 0; ix < n; ix++) {
+      StringBuilder sb = new StringBuilder("https://");
+      sb.append(HOSTS[rnd.nextInt(HOSTS.length)]);
+      int depth = 1 + rnd.nextInt(5);
+      for (int d = 0; d < depth; d++) {
+        sb.append('/');
+        if (rnd.nextInt(3) == 0) {
+          sb.append(rnd.nextInt(2000));
+        } else {
+          sb.append(DIRS[rnd.nextInt(DIRS.length)]);
+        }
+      }
+      sb.append(EXTS[rnd.nextInt(EXTS.length)]);
+      if (rnd.nextInt(8) == 0) {
+        sb.append("?format=").append(rnd.nextBoolean() ? "full" : "abstract");
+      }
+      res.add(sb.toString());
+    }
+    return res;
+  }
+
+  /**
+   * Crawl-rule-like pattern,value pairs of the sort found in plugins'
+   * URL priority and crawl rate maps.  Most are anchored host+path
+   * prefixes; some are extension or query patterns that must scan the
+   * whole URL.
+   */
+  public static List<String> crawlRulePatterns() {
+    List<String> res = new ArrayList<>();
+    int pri = 1;
+    for (String host : HOSTS) {
+      String qhost = host.replace(".", "\\.");
+      res.add("^https?://" + qhost + "/lockss/manifest\\.html$," + pri++);
+      res.add("^https?://" + qhost + "/toc/[0-9]+/[0-9]+," + pri++);
+      res.add("^https?://" + qhost + "/doi/(abs|full|pdf)/," + pri++);
+      res.add("^https?://" + qhost + "/action/showCitFormats\\?," + pri++);
+    }
+    res.add("\\.(css|js)(\\?.*)?$," + pri++);
+    res.add("\\.(png|jpe?g|gif)$," + pri++);
+    res.add("/supplemental/," + pri++);
+    res.add("\\?format=full$," + pri++);
+    return res;
+  }
+
+  /** Return n strings drawn from a vocabulary of the given size, each a
+   * distinct String instance */
+  public static String[] strings(int n, int vocabulary, long seed) {
+    Random rnd = new Random(seed);
+    String[] res = new String[n];
+    for (int ix = 0; ix < n; ix++) {
+      res[ix] = new String("value-" + rnd.nextInt(vocabulary));
+    }
+    return res;
+  }
+
+  /** Return n random bytes */
+  public static byte[] bytes(int n, long seed) {
+    byte[] res = new byte[n];
+    new Random(seed).nextBytes(res);
+    return res;
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.*;
+
+/**
+ * Entry point of benchmarks.jar.  Runs JMH with the given arguments,
+ * writing results in JSON to jmh-result.json unless a result format or
+ * file is specified, so that runs can be compared between releases,
+ * <i>eg</i>:
+ * <pre>
+ *   java -jar target/benchmarks.jar                 # all benchmarks
+ *   java -jar target/benchmarks.jar StringPool -rff 1.16.0.json
+ *   java -jar target/benchmarks.jar -h              # JMH options
+ * </pre>
+ */
+public class BenchMain {
+  public static final String DEFAULT_RESULT_FILE = "jmh-result.json";
+
+  public static void main(String[] args) throws Exception {
+    List<String> argList = new ArrayList<>(Arrays.asList(args));
+    if (!argList.contains("-rf")) {
+      argList.add("-rf");
+      argList.add("json");
+    }
+    if (!argList.contains("-rff")) {
+      argList.add("-rff");
+      argList.add(DEFAULT_RESULT_FILE);
+    }
+    org.openjdk.jmh.Main.main(argList.toArray(new String[0]));
+  }
+}
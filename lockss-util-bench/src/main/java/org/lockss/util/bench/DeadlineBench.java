@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.concurrent.TimeUnit;
+import org.lockss.util.time.Deadline;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Common Deadline operations.  earliest() and the accessors are
+ * synchronized, so they're also measured under contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DeadlineBench {
+
+  Deadline d1;
+  Deadline d2;
+
+  @Setup
+  public void setup() {
+    d1 = Deadline.in(60000);
+    d2 = Deadline.in(120000);
+  }
+
+  @Benchmark
+  public Deadline create() {
+    return Deadline.in(1000);
+  }
+
+  @Benchmark
+  public long remainingTime() {
+    return d1.getRemainingTime();
+  }
+
+  @Benchmark
+  public boolean expired() {
+    return d1.expired();
+  }
+
+  @Benchmark
+  public Deadline earliest() {
+    return Deadline.earliest(d1, d2);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public long remainingTimeContended() {
+    return d1.getRemainingTime();
+  }
+
+  @Benchmark
+  @Threads(8)
+  public Deadline earliestContended() {
+    return Deadline.earliest(d1, d2);
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.lockss.util.StringPool;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * StringPool.intern() and internMapValue() throughput, single-threaded
+ * and under contention.  Most lookups hit strings already in the pool,
+ * as they do when loading AU configs and TDBs.  The *Monitor benchmarks
+ * hold the pool's monitor around each call, as intern() used to, for
+ * comparison with the lock-free path at 32 threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StringPoolBench {
+
+  @Param({"1000", "100000"})
+  int vocabulary;
+
+  StringPool pool;
+  String[] strs;
+
+  @Setup
+  public void setup() {
+    pool = new StringPool("bench");
+    pool.setConfig(new StringPool.PoolConfig()
+                   .setMapKeys(Arrays.asList("journal_issn", "year")));
+    strs = BenchData.strings(1 << 16, vocabulary, 1);
+    for (String s : strs) {
+      pool.intern(s);
+    }
+  }
+
+  String next() {
+    return strs[ThreadLocalRandom.current().nextInt(strs.length)];
+  }
+
+  @Benchmark
+  @Threads(1)
+  public String intern() {
+    return pool.intern(next());
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String internContended() {
+    return pool.intern(next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String internContended32() {
+    return pool.intern(next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String internContended32Monitor() {
+    synchronized (pool) {
+      return pool.intern(next());
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String internMapValueContended() {
+    return pool.internMapValue("year", next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String internMapValueContended32() {
+    return pool.internMapValue("year", next());
+  }
+
+  @Benchmark
+  @Threads(32)
+  public String internMapValueContended32Monitor() {
+    synchronized (pool) {
+      return pool.internMapValue("year", next());
+    }
+  }
+
+  @Benchmark
+  @Threads(8)
+  public String internMapValueUnpooledKeyContended() {
+    return pool.internMapValue("base_url", next());
+  }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.bench;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import org.lockss.util.concurrent.stripedexecutor.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * StripedExecutorService submission throughput: tasks submitted from
+ * several threads, spread over a configurable number of stripes, each
+ * doing a trivial amount of work.  Measures the cost of submission and
+ * stripe bookkeeping rather than of the tasks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StripedExecutorBench {
+
+  // Tasks submitted per benchmark invocation
+  static final int BATCH = 1000;
+
+  @Param({"1", "16", "1024"})
+  int stripes;
+
+  StripedExecutorService executor;
+  Object[] stripeObjs;
+  final LongAdder done = new LongAdder();
+
+  @Setup
+  public void setup() {
+    executor = new StripedExecutorService(8);
+    stripeObjs = new Object[stripes];
+    for (int ix = 0; ix < stripes; ix++) {
+      stripeObjs[ix] = new Object();
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws InterruptedException {
+    executor.shutdown();
+    executor.awaitTermination(1, TimeUnit.MINUTES);
+  }
+
+  static class Task implements StripedRunnable {
+    final Object stripe;
+    final CountDownLatch latch;
+    final LongAdder done;
+
+    Task(Object stripe, CountDownLatch latch, LongAdder done) {
+      this.stripe = stripe;
+      this.latch = latch;
+      this.done = done;
+    }
+
+    @Override
+    public Object getStripe() {
+      return stripe;
+    }
+
+    @Override
+    public void run() {
+      done.increment();
+      latch.countDown();
+    }
+  }
+
+  /** Submit a batch of striped tasks and wait for them to complete */
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(BATCH)
+  public void submit() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(BATCH);
+    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+    for (int ix = 0; ix < BATCH; ix++) {
+      executor.execute(new Task(stripeObjs[rnd.nextInt(stripes)], latch, done));
+    }
+    latch.await();
+  }
+
+  /** Striped submission from many threads, where contention on stripe
+   * bookkeeping dominates */
+  @Benchmark
+  @Threads(16)
+  @OperationsPerInvocation(BATCH)
+  public void submitContended() throws InterruptedException {
+    submit();
+  }
+
+  /** Baseline: unstriped tasks, which go straight to the thread pool */
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(BATCH)
+  public void submitUnstriped() throws InterruptedException {
+    CountDownLatch latch = new CountDownLatch(BATCH);
+    for (int ix = 0; ix < BATCH; ix++) {
+      executor.execute(() -> {
+          done.increment();
+          latch.countDown();
+        });
+    }
+    latch.await();
+  }
+}
@@ -33,17 +33,32 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.regex.*;
 import org.apache.commons.collections4.map.*;
+import java.util.concurrent.atomic.LongAdder;
 import org.apache.commons.lang3.tuple.*;
 import org.lockss.log.*;
+import org.lockss.util.concurrent.ConcurrentLruMap;
 
 /** A "Map" whose element's LHS's are Patterns against which stringa
  * are matched, returning the RHS of the first element that
- * matches.  */
+ * matches.  Matching is performed by a {@link PatternMatchEngine}, which
+ * uses literal text extracted from the patterns to avoid running most of
+ * the regexps that can't match. */
 public abstract class AbstractPatternMap<T> {
   static L4JLogger log = L4JLogger.getLogger();
 
+  // Must not be modified after it's been used for matching; replace it
+  // instead
   protected Map<Pattern,T> patternMap;
 
+  // Built from patternMap when first needed
+  private volatile PatternMatchEngine<T> engine;
+
+  // Optional memo of match results.  Null if disabled.
+  private volatile MatchCache<T> matchCache;
+  private volatile int matchCacheSize = 0;
+  private final LongAdder matchCacheHits = new LongAdder();
+  private final LongAdder matchCacheMisses = new LongAdder();
+
   /** Parse the RHS string into the type appropriate for this map */
   protected abstract T parseRhs(String rhs);
 
@@ -129,6 +144,7 @@ public abstract class AbstractPatternMap<T> {
 	}
       }
     }
+    engine = new PatternMatchEngine<>(patternMap);
     return this;
   }
 
@@ -152,17 +168,121 @@ public abstract class AbstractPatternMap<T> {
    * satisfies the predicate) matches str.
    */
   public T getMatch(String str, T dfault, Predicate<T> valueFilter) {
-    for (Map.Entry<Pattern,T> ent : patternMap.entrySet()) {
-      Matcher m = ent.getKey().matcher(str);
-      if (valueFilter.test(ent.getValue()) && m.find()) {
-        log.debug2("getMatch(" + str + "): " + ent.getValue());
-        return ent.getValue();
+    PatternMatchEngine<T> eng = getEngine();
+    int ix = matchCacheSize > 0
+      ? cachedFirstMatch(eng, str, valueFilter)
+      : eng.firstMatch(str, valueFilter);
+    if (ix >= 0) {
+      T res = eng.getValue(ix);
+      if (log.isDebug2Enabled()) {
+        log.debug2("getMatch({}): {}", str, res);
       }
+      return res;
+    }
+    if (log.isDebug2Enabled()) {
+      log.debug2("getMatch({}): default: {}", str, dfault);
     }
-    log.debug2("getMatch(" + str + "): default: " + dfault);
     return dfault;
   }
 
+  /** Find the first match using the memo of each string's first
+   * unfiltered match.  If no pattern matches, none that satisfies the
+   * filter does; if the first match doesn't satisfy the filter the
+   * search continues from the pattern following it. */
+  private int cachedFirstMatch(PatternMatchEngine<T> eng, String str,
+                               Predicate<T> valueFilter) {
+    MatchCache<T> mc = matchCache;
+    if (mc == null || mc.engine != eng) {
+      synchronized (this) {
+        mc = matchCache;
+        if (mc == null || mc.engine != eng) {
+          if (matchCacheSize <= 0) {
+            // Disabled since the caller checked
+            return eng.firstMatch(str, valueFilter);
+          }
+          // New patterns, new cache
+          mc = new MatchCache<>(eng, matchCacheSize);
+          matchCache = mc;
+        }
+      }
+    }
+    Integer first = mc.map.get(str);
+    if (first != null) {
+      matchCacheHits.increment();
+    } else {
+      matchCacheMisses.increment();
+      first = eng.firstMatch(str, null);
+      mc.map.put(str, first);
+    }
+    if (first < 0 || valueFilter == null
+        || valueFilter.test(eng.getValue(first))) {
+      return first;
+    }
+    return eng.firstMatch(str, valueFilter, first + 1);
+  }
+
+  /** Memo of the index of the first pattern each string matches, or -1,
+   * valid only for the engine it was created with */
+  private static class MatchCache<T> {
+    final PatternMatchEngine<T> engine;
+    final ConcurrentLruMap<String,Integer> map;
+
+    MatchCache(PatternMatchEngine<T> engine, int size) {
+      this.engine = engine;
+      this.map = new ConcurrentLruMap<>(size);
+    }
+  }
+
+  /** Enable or disable memoization of match results.  If enabled, the
+   * most recently matched strings are remembered, along with the first
+   * pattern each one matches (or that none does), so that repeated
+   * lookups of the same string don't rerun the regexps.  Lookups with a
+   * value filter (or maxPri) also benefit, unless the first match is
+   * filtered out.  The cache is discarded if the patterns change.
+   * @param size the maximum number of strings to remember, or 0 to
+   * disable (the default)
+   */
+  public synchronized void setMatchCacheSize(int size) {
+    if (size < 0) {
+      throw new IllegalArgumentException("Cache size must not be negative");
+    }
+    if (size != matchCacheSize) {
+      matchCacheSize = size;
+      matchCache = null;
+    }
+  }
+
+  public int getMatchCacheSize() {
+    return matchCacheSize;
+  }
+
+  /** Return the number of lookups satisfied by the match cache */
+  public long getMatchCacheHits() {
+    return matchCacheHits.sum();
+  }
+
+  /** Return the number of lookups not satisfied by the match cache */
+  public long getMatchCacheMisses() {
+    return matchCacheMisses.sum();
+  }
+
+  /** Return the fraction of lookups satisfied by the match cache, or 0
+   * if there have been none */
+  public double getMatchCacheHitRate() {
+    long hits = matchCacheHits.sum();
+    long total = hits + matchCacheMisses.sum();
+    return total == 0 ? 0.0 : (double)hits / total;
+  }
+
+  private PatternMatchEngine<T> getEngine() {
+    PatternMatchEngine<T> eng = engine;
+    if (eng == null || !eng.isFor(patternMap)) {
+      eng = new PatternMatchEngine<>(patternMap);
+      engine = eng;
+    }
+    return eng;
+  }
+
   public boolean isEmpty() {
     return patternMap.isEmpty();
   }
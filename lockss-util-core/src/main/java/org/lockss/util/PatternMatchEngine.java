@@ -0,0 +1,543 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util;
+
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.regex.*;
+
+/**
+ * Finds the first of an ordered list of Patterns that a string matches
+ * (using {@link Matcher#find()}), with the same result as trying each in
+ * turn, but without running most of the regexps that can't match.
+ *
+ * Each regexp is examined for literal text that any match must contain:
+ * an anchored prefix (<code>^literal...</code>), which is checked with
+ * startsWith(), and the longest literal substring, which is looked up in
+ * an Aho-Corasick automaton built from all the patterns' substrings.  The
+ * string is scanned by the automaton at most once, the first time a
+ * pattern that needs it is reached, and only patterns whose required
+ * literals are present are matched in full.  Patterns from which no
+ * literal can be safely extracted (top-level alternation, flags, unusual
+ * constructs) are always matched in full.
+ *
+ * Immutable and thread-safe.
+ */
+final class PatternMatchEngine<T> {
+
+  private final Map<Pattern,T> source;
+  private final int sourceSize;
+  private final Pattern[] pats;
+  private final List<T> values;
+  // Literal prefix the string must start with, or null
+  private final String[] prefixes;
+  // True if the pattern's required substring must be found by the
+  // automaton
+  private final boolean[] needsHit;
+  // Null if no pattern has a required substring
+  private final AhoCorasick literals;
+
+  /** Build an engine for the patterns (in iteration order) and their
+   * values */
+  PatternMatchEngine(Map<Pattern,T> patternMap) {
+    source = patternMap;
+    sourceSize = patternMap.size();
+    int n = patternMap.size();
+    pats = new Pattern[n];
+    values = new ArrayList<>(n);
+    prefixes = new String[n];
+    needsHit = new boolean[n];
+    List<String> lits = new ArrayList<>();
+    List<Integer> ids = new ArrayList<>();
+    int ix = 0;
+    for (Map.Entry<Pattern,T> ent : patternMap.entrySet()) {
+      Pattern pat = ent.getKey();
+      pats[ix] = pat;
+      values.add(ent.getValue());
+      Literals req = pat.flags() == 0 ? requiredLiterals(pat.pattern()) : null;
+      if (req != null) {
+        prefixes[ix] = req.prefix;
+        if (req.substring != null && !req.substring.equals(req.prefix)) {
+          needsHit[ix] = true;
+          lits.add(req.substring);
+          ids.add(ix);
+        }
+      }
+      ix++;
+    }
+    literals = lits.isEmpty() ? null : new AhoCorasick(lits, ids);
+  }
+
+  /** Return true if this engine was built from the map */
+  boolean isFor(Map<Pattern,T> patternMap) {
+    return source == patternMap && sourceSize == patternMap.size();
+  }
+
+  int size() {
+    return pats.length;
+  }
+
+  T getValue(int ix) {
+    return values.get(ix);
+  }
+
+  /** Return the index of the first pattern whose value satisfies the
+   * filter and that the string matches, or -1 if none */
+  int firstMatch(String str, Predicate<T> valueFilter) {
+    return firstMatch(str, valueFilter, 0);
+  }
+
+  /** Return the index of the first pattern, starting at startIx, whose
+   * value satisfies the filter and that the string matches, or -1 if
+   * none */
+  int firstMatch(String str, Predicate<T> valueFilter, int startIx) {
+    BitSet hits = null;
+    for (int ix = startIx; ix < pats.length; ix++) {
+      if (valueFilter != null && !valueFilter.test(values.get(ix))) {
+        continue;
+      }
+      if (prefixes[ix] != null && !str.startsWith(prefixes[ix])) {
+        continue;
+      }
+      if (needsHit[ix]) {
+        if (hits == null) {
+          hits = literals.scan(str);
+        }
+        if (!hits.get(ix)) {
+          continue;
+        }
+      }
+      if (pats[ix].matcher(str).find()) {
+        return ix;
+      }
+    }
+    return -1;
+  }
+
+  /** Literal text that any match of a regexp must contain */
+  static final class Literals {
+    // The match must be at the start of the string and begin with this
+    final String prefix;
+    // The longest literal the match must contain
+    final String substring;
+
+    Literals(String prefix, String substring) {
+      this.prefix = prefix;
+      this.substring = substring;
+    }
+  }
+
+  /** Return the literal text that any match of the regexp (compiled
+   * without flags) must contain, or null if none can be determined.
+   * Conservative: constructs that aren't understood end the current
+   * literal run, or cause null to be returned if they might affect the
+   * meaning of the rest of the regexp. */
+  static Literals requiredLiterals(String re) {
+    int n = re.length();
+    int i = 0;
+    boolean anchored = n > 0 && re.charAt(0) == '^';
+    if (anchored) {
+      i = 1;
+    }
+    RunCollector runs = new RunCollector(anchored);
+    while (i < n) {
+      char c = re.charAt(i);
+      switch (c) {
+      case '\\':
+        if (i + 1 >= n) {
+          return null;
+        }
+        char e = re.charAt(i + 1);
+        if (e == 'Q') {
+          int end = re.indexOf("\\E", i + 2);
+          runs.append(end < 0 ? re.substring(i + 2) : re.substring(i + 2, end));
+          i = end < 0 ? n : end + 2;
+        } else if (!Character.isLetterOrDigit(e)) {
+          runs.append(e);
+          i += 2;
+        } else if (controlChar(e) >= 0) {
+          runs.append((char)controlChar(e));
+          i += 2;
+        } else {
+          i = skipEscape(re, i);
+          if (i < 0) {
+            return null;
+          }
+          runs.end();
+        }
+        break;
+      case '[':
+        i = skipClass(re, i);
+        if (i < 0) {
+          return null;
+        }
+        runs.end();
+        break;
+      case '(':
+        if (i + 2 < n && re.charAt(i + 1) == '?'
+            && "idmsuxUc-".indexOf(re.charAt(i + 2)) >= 0) {
+          // Inline flags may change the meaning of what follows
+          return null;
+        }
+        i = skipGroup(re, i);
+        if (i < 0) {
+          return null;
+        }
+        runs.end();
+        break;
+      case ')':
+      case '|':
+        return null;
+      case '*':
+      case '?':
+        runs.dropLast();
+        runs.end();
+        i = skipQuantifierSuffix(re, i + 1);
+        break;
+      case '+':
+        runs.end();
+        i = skipQuantifierSuffix(re, i + 1);
+        break;
+      case '{':
+        int close = re.indexOf('}', i);
+        if (close < 0 || i + 1 >= n || !Character.isDigit(re.charAt(i + 1))) {
+          return null;
+        }
+        if (re.charAt(i + 1) == '0') {
+          runs.dropLast();
+        }
+        runs.end();
+        i = skipQuantifierSuffix(re, close + 1);
+        break;
+      case '.':
+      case '$':
+      case '^':
+        runs.end();
+        i++;
+        break;
+      default:
+        runs.append(c);
+        i++;
+      }
+    }
+    runs.end();
+    if (runs.prefix == null && runs.longest == null) {
+      return null;
+    }
+    return new Literals(runs.prefix, runs.longest);
+  }
+
+  /** Accumulates runs of consecutive literal characters */
+  private static class RunCollector {
+    private final StringBuilder run = new StringBuilder();
+    // True while the current run starts at the anchored beginning
+    private boolean atStart;
+    private boolean lastIsLiteral = false;
+    String prefix;
+    String longest;
+
+    RunCollector(boolean anchored) {
+      atStart = anchored;
+    }
+
+    void append(char c) {
+      run.append(c);
+      lastIsLiteral = true;
+    }
+
+    void append(String s) {
+      if (!s.isEmpty()) {
+        run.append(s);
+        lastIsLiteral = true;
+      }
+    }
+
+    /** The last atom is optional; remove it if it's a literal */
+    void dropLast() {
+      if (lastIsLiteral) {
+        int len = run.length();
+        if (len >= 2 && Character.isLowSurrogate(run.charAt(len - 1))
+            && Character.isHighSurrogate(run.charAt(len - 2))) {
+          run.setLength(len - 2);
+        } else {
+          run.setLength(len - 1);
+        }
+      }
+    }
+
+    /** End the current run */
+    void end() {
+      if (run.length() > 0) {
+        String s = run.toString();
+        if (atStart) {
+          prefix = s;
+        }
+        if (longest == null || s.length() > longest.length()) {
+          longest = s;
+        }
+        run.setLength(0);
+      }
+      atStart = false;
+      lastIsLiteral = false;
+    }
+  }
+
+  private static int controlChar(char e) {
+    switch (e) {
+    case 't': return '\t';
+    case 'n': return '\n';
+    case 'r': return '\r';
+    case 'f': return '\f';
+    case 'a': return '\u0007';
+    case 'e': return '\u001B';
+    default: return -1;
+    }
+  }
+
+  /** Return the index following a non-literal escape sequence starting
+   * at i, or -1 if it isn't understood */
+  private static int skipEscape(String re, int i) {
+    int n = re.length();
+    char e = re.charAt(i + 1);
+    switch (e) {
+    case 'd': case 'D': case 'w': case 'W': case 's': case 'S':
+    case 'b': case 'B': case 'A': case 'G': case 'Z': case 'z':
+    case 'R': case 'X': case 'h': case 'H': case 'v': case 'V':
+      return i + 2;
+    case 'p': case 'P': case 'N': case 'x':
+      if (i + 2 < n && re.charAt(i + 2) == '{') {
+        int close = re.indexOf('}', i + 3);
+        return close < 0 ? -1 : close + 1;
+      }
+      return e == 'x' ? i + 4 : (e == 'N' ? -1 : i + 3);
+    case 'u':
+      return i + 6;
+    case 'c':
+      return i + 3;
+    case 'k':
+      int close = re.indexOf('>', i + 2);
+      return close < 0 ? -1 : close + 1;
+    case '0':
+      int j = i + 2;
+      while (j < n && j < i + 5 && re.charAt(j) >= '0' && re.charAt(j) <= '7') {
+        j++;
+      }
+      return j;
+    default:
+      if (e >= '1' && e <= '9') {
+        // Back reference
+        int k = i + 2;
+        while (k < n && Character.isDigit(re.charAt(k))) {
+          k++;
+        }
+        return k;
+      }
+      return -1;
+    }
+  }
+
+  /** Return the index following the character class starting at i, or
+   * -1 if it's unterminated */
+  private static int skipClass(String re, int i) {
+    int n = re.length();
+    int j = i + 1;
+    if (j < n && re.charAt(j) == '^') {
+      j++;
+    }
+    if (j < n && re.charAt(j) == ']') {
+      j++;
+    }
+    while (j < n) {
+      char c = re.charAt(j);
+      if (c == '\\') {
+        if (j + 1 < n && re.charAt(j + 1) == 'Q') {
+          int end = re.indexOf("\\E", j + 2);
+          if (end < 0) {
+            return -1;
+          }
+          j = end + 2;
+        } else {
+          j += 2;
+        }
+      } else if (c == '[') {
+        j = skipClass(re, j);
+        if (j < 0) {
+          return -1;
+        }
+      } else if (c == ']') {
+        return j + 1;
+      } else {
+        j++;
+      }
+    }
+    return -1;
+  }
+
+  /** Return the index following the group starting at i, or -1 if it's
+   * unbalanced */
+  private static int skipGroup(String re, int i) {
+    int n = re.length();
+    int depth = 0;
+    int j = i;
+    while (j < n) {
+      char c = re.charAt(j);
+      if (c == '\\') {
+        if (j + 1 < n && re.charAt(j + 1) == 'Q') {
+          int end = re.indexOf("\\E", j + 2);
+          if (end < 0) {
+            return -1;
+          }
+          j = end + 2;
+        } else {
+          j += 2;
+        }
+      } else if (c == '[') {
+        j = skipClass(re, j);
+        if (j < 0) {
+          return -1;
+        }
+      } else {
+        if (c == '(') {
+          depth++;
+        } else if (c == ')') {
+          if (--depth == 0) {
+            return j + 1;
+          }
+        }
+        j++;
+      }
+    }
+    return -1;
+  }
+
+  // Skip the lazy or possessive modifier of a quantifier
+  private static int skipQuantifierSuffix(String re, int i) {
+    if (i < re.length() && (re.charAt(i) == '?' || re.charAt(i) == '+')) {
+      return i + 1;
+    }
+    return i;
+  }
+
+  /** Aho-Corasick automaton that finds which of a set of literals occur
+   * in a string */
+  static final class AhoCorasick {
+    // Outgoing edges of each node, sorted by char
+    private final char[][] edgeChars;
+    private final int[][] edgeTargets;
+    private final int[] fail;
+    // Ids of the literals that end at each node, including via its
+    // failure links
+    private final int[][] outputs;
+
+    /**
+     * @param lits the literals
+     * @param ids the id reported for each literal
+     */
+    AhoCorasick(List<String> lits, List<Integer> ids) {
+      List<TreeMap<Character,Integer>> edges = new ArrayList<>();
+      List<List<Integer>> outs = new ArrayList<>();
+      edges.add(new TreeMap<>());
+      outs.add(new ArrayList<>());
+      for (int k = 0; k < lits.size(); k++) {
+        String lit = lits.get(k);
+        int node = 0;
+        for (int ix = 0; ix < lit.length(); ix++) {
+          char c = lit.charAt(ix);
+          Integer next = edges.get(node).get(c);
+          if (next == null) {
+            next = edges.size();
+            edges.add(new TreeMap<>());
+            outs.add(new ArrayList<>());
+            edges.get(node).put(c, next);
+          }
+          node = next;
+        }
+        outs.get(node).add(ids.get(k));
+      }
+      int size = edges.size();
+      fail = new int[size];
+      // Breadth-first, so a node's failure target is complete before the
+      // node is visited
+      Deque<Integer> queue = new ArrayDeque<>(edges.get(0).values());
+      while (!queue.isEmpty()) {
+        int node = queue.poll();
+        for (Map.Entry<Character,Integer> ent : edges.get(node).entrySet()) {
+          char c = ent.getKey();
+          int child = ent.getValue();
+          queue.add(child);
+          int f = fail[node];
+          while (f != 0 && !edges.get(f).containsKey(c)) {
+            f = fail[f];
+          }
+          Integer target = node == 0 ? null : edges.get(f).get(c);
+          fail[child] = target == null ? 0 : target;
+          outs.get(child).addAll(outs.get(fail[child]));
+        }
+      }
+      edgeChars = new char[size][];
+      edgeTargets = new int[size][];
+      outputs = new int[size][];
+      for (int node = 0; node < size; node++) {
+        TreeMap<Character,Integer> es = edges.get(node);
+        edgeChars[node] = new char[es.size()];
+        edgeTargets[node] = new int[es.size()];
+        int ix = 0;
+        for (Map.Entry<Character,Integer> ent : es.entrySet()) {
+          edgeChars[node][ix] = ent.getKey();
+          edgeTargets[node][ix] = ent.getValue();
+          ix++;
+        }
+        outputs[node] = outs.get(node).stream().mapToInt(x -> x).toArray();
+      }
+    }
+
+    private int step(int node, char c) {
+      int ix = Arrays.binarySearch(edgeChars[node], c);
+      return ix < 0 ? -1 : edgeTargets[node][ix];
+    }
+
+    /** Return the ids of the literals that occur in the string */
+    BitSet scan(String str) {
+      BitSet res = new BitSet();
+      int node = 0;
+      for (int ix = 0; ix < str.length(); ix++) {
+        char c = str.charAt(ix);
+        int next;
+        while ((next = step(node, c)) < 0 && node != 0) {
+          node = fail[node];
+        }
+        node = next < 0 ? 0 : next;
+        for (int id : outputs[node]) {
+          res.set(id);
+        }
+      }
+      return res;
+    }
+  }
+}
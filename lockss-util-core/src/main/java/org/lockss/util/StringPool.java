@@ -27,16 +27,31 @@ in this Software without prior written authorization from Stanford University.
 */
 
 package org.lockss.util;
+import java.lang.ref.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.Function;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.*;
 import java.util.regex.*;
 import org.lockss.log.*;
+import org.lockss.util.concurrent.ConcurrentLruMap;
 
 /**
  * Named intern() pools for Strings.  Similer to String.intern(), but use
  * of context-dependent pools should allow for smaller maps with less
  * waste.
+ *
+ * Interning doesn't lock: lookups and additions go directly to the
+ * concurrent map, and hit and miss counts are kept in LongAdders, so
+ * widely shared pools don't serialize the threads that use them.
+ *
+ * By default a pool only grows.  Pools fed from unbounded sources, such
+ * as crawl data, may instead be configured (see {@link PoolConfig}) to
+ * hold their strings weakly, so that entries disappear when the string
+ * is no longer referenced elsewhere, or to evict least recently used
+ * entries when the pool's estimated size exceeds a maximum.  Sizes are
+ * estimates, assuming compact (one byte per character) strings and a
+ * fixed per-entry overhead.
  */
 public class StringPool {
 //   static L4JLogger log = L4JLogger.getLogger();
@@ -159,17 +174,43 @@ public class StringPool {
   public static StringPool CRAWL_RULE_PATTERNS = new StringPool("Crawl rules");
 
 
+  /** Policies governing the retention of pool entries */
+  public enum Policy {
+    /** Entries are never removed */
+    UNBOUNDED,
+    /** An entry is removed when the pooled string is no longer
+     * referenced outside the pool */
+    WEAK,
+    /** Least recently used entries are removed when the estimated size
+     * of the pool exceeds the maximum bytes */
+    LRU
+  }
+
+  /** Default maximum estimated size of an LRU pool */
+  public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+
+  // Estimated overhead of a String object, excluding its array
+  static final int STRING_OVERHEAD = 24;
+  // Estimated overhead of a byte array
+  static final int ARRAY_OVERHEAD = 16;
+  // Estimated overhead of a map entry
+  static final int ENTRY_OVERHEAD = 48;
+
   private static Map<String,StringPool> pools;
 
   // These may be set before the pool exists
   private static Map<String,PoolConfig> poolConfigs;
 
   private String name;
-  private Map<String,String> map;
-  private boolean sealed = false;
-  private Set mapKeys = Collections.EMPTY_SET;
-  private Pattern keyPat;
-  private int hits = 0;
+  private volatile Store store;
+  private volatile Policy policy = Policy.UNBOUNDED;
+  private volatile boolean sealed = false;
+  private volatile Set mapKeys = Collections.EMPTY_SET;
+  private volatile Pattern keyPat;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder bytesSaved = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
 
   public StringPool(String name) {
     this(name, 20);
@@ -178,7 +219,7 @@ public class StringPool {
   /** Create a StringPool with a name and initial size */
   public StringPool(String name, int initialSize) {
     this.name = name;
-    map = new ConcurrentHashMap<String,String>(initialSize);
+    store = new UnboundedStore(initialSize);
     registerPool(name, this);
   }
 
@@ -220,6 +261,43 @@ public class StringPool {
   public void setConfig(PoolConfig config) {
     setMapKeys(config.getMapKeys());
     setKeyPattern(config.getKeyPattern());
+    if (config.getPolicy() != null) {
+      setPolicy(config.getPolicy(), config.getMaxBytes());
+    }
+  }
+
+  /** Change the retention policy.  Existing entries are copied to the
+   * new store, subject to its limit; strings added concurrently with the
+   * change may not be.
+   * @param policy the new policy
+   * @param maxBytes the maximum estimated size of an LRU pool
+   */
+  synchronized void setPolicy(Policy policy, long maxBytes) {
+    Store old = store;
+    if (policy == this.policy) {
+      if (old instanceof LruStore) {
+        ((LruStore)old).setMaxBytes(maxBytes);
+      }
+      return;
+    }
+    Store newStore;
+    switch (policy) {
+    case WEAK:
+      newStore = new WeakStore();
+      break;
+    case LRU:
+      newStore = new LruStore(maxBytes, evictions);
+      break;
+    default:
+      newStore = new UnboundedStore(old.size());
+    }
+    old.forEach((k, v) -> newStore.add(k, v));
+    store = newStore;
+    this.policy = policy;
+  }
+
+  public Policy getPolicy() {
+    return policy;
   }
 
   private StringPool setMapKeys(Collection<String> keys) {
@@ -248,17 +326,27 @@ public class StringPool {
     if (str == null) {
       return str;
     }
-    String res = map.get(str);
+    String res = store.get(str);
     if (res != null) {
-      hits++;
+      hits.increment();
+      if (res != str) {
+        // The caller's copy may now be discarded
+        bytesSaved.add(estimateBytes(res));
+      }
     }
     return res;
   }
 
+  // Add str -> val unless str is already present.  Return the value now
+  // associated with str.
+  private String add(String str, String val) {
+    return store.add(str, val);
+  }
+
   /** Return the instance of the string already in the pool, if any, else
    * add this instance and return it.
    * @param str the String to be interned.  If null, null is returned. */
-  public synchronized String intern(String str) {
+  public String intern(String str) {
     if (str == null) {
       return str;
     }
@@ -266,19 +354,25 @@ public class StringPool {
     if (res != null) {
       return res;
     }
+    return addMissed(str);
+  }
+
+  // Called after a failed lookup of str.  Add it unless sealed.
+  private String addMissed(String str) {
+    misses.increment();
     if (sealed) {
       return str;
     }
-    map.put(str, str);
-    return str;
+    // Another thread may have added an equal string since the lookup
+    return add(str, str);
   }
 
   /** Return the normalized instance of the string already in the
    * pool, if any, else add the normalized value and associate it with
    * both the unnormalized and normalized value.
    * @param str the String to be interned.  If null, null is returned. */
-  public synchronized String internNormalized(String str,
-                                              Function<String,String> fn) {
+  public String internNormalized(String str,
+                                Function<String,String> fn) {
     if (str == null) {
       return str;
     }
@@ -289,20 +383,22 @@ public class StringPool {
     String norm = fn.apply(str);
     res = lookup(norm);
     if (res != null) {
-      map.put(str, res);
-      return res;
+      return add(str, res);
     }
+    misses.increment();
     if (sealed) {
       return norm;
     }
-    map.put(str, norm);
+    // Add the normalized value first so that concurrent callers
+    // normalizing to the same string agree on the instance
+    res = add(norm, norm);
     if (!str.equals(norm)) {
-      map.put(norm, norm);
+      res = add(str, res);
     }
-    return norm;
+    return res;
   }
 
-  public synchronized ArrayList<String> internList(List<String> strs) {
+  public ArrayList<String> internList(List<String> strs) {
     ArrayList<String> res = new ArrayList(strs.size());
     for (String str : strs) {
       res.add(intern(str));
@@ -310,7 +406,7 @@ public class StringPool {
     return res;
   }
 
-  public synchronized Set<String> internSet(Set<String> set) {
+  public Set<String> internSet(Set<String> set) {
     Set<String> res = new HashSet<>();
     for (String val : set) {
       res.add(intern(val));
@@ -325,14 +421,18 @@ public class StringPool {
    * @return the interned value if the key is contained in the set of map
    * keys whose values should be interned, else the original value.
    */
-  public synchronized String internMapValue(String key, String val) {
+  public String internMapValue(String key, String val) {
+    if (val == null) {
+      return val;
+    }
     String res = lookup(val);
     if (res != null) {
       return res;
     }
     if (isInternable(key, val)) {
-      return intern(val);
+      return addMissed(val);
     } else {
+      misses.increment();
       return val;
     }
   }
@@ -353,27 +453,101 @@ public class StringPool {
    * entry the interned entry will be returned, else the argument.
    * Intended for contexts in which a predictable standard set of strings
    * appear as well as one-off strings that would needlessly fill the
-   * pool. */
+   * pool.  An intern() that is running concurrently with seal() may
+   * still add its string; later calls see the pool sealed. */
   public void seal() {
     sealed = true;
   }
 
-  private int sumStringChars() {
-    int res = 0;
-    for (String val : map.values()) {
-      res += val.length();
-    }
-    return res;
+  /** Return the estimated number of bytes occupied by a String */
+  static long estimateBytes(String str) {
+    return STRING_OVERHEAD + align8(ARRAY_OVERHEAD + str.length());
+  }
+
+  private static long align8(long n) {
+    return (n + 7) & ~7L;
+  }
+
+  /** Return the number of entries in the pool, including aliases added
+   * by {@link #internNormalized(String, Function)} */
+  public int size() {
+    return store.size();
+  }
+
+  /** Return the estimated number of bytes retained by the pool: its
+   * entries and the distinct strings they refer to */
+  public long getRetainedBytes() {
+    Set<String> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+    long[] res = {0};
+    store.forEach((k, v) -> {
+        res[0] += ENTRY_OVERHEAD;
+        if (seen.add(k)) {
+          res[0] += estimateBytes(k);
+        }
+        if (seen.add(v)) {
+          res[0] += estimateBytes(v);
+        }
+      });
+    return res[0];
+  }
+
+  /** Return the estimated number of bytes saved by deduplication: the
+   * total size of the strings for which a different, pooled instance
+   * was returned */
+  public long getBytesSaved() {
+    return bytesSaved.sum();
+  }
+
+  /** Return the number of entries evicted from an LRU pool */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  /** Return the number of lookups that found the string in the pool */
+  public long getHits() {
+    return hits.sum();
+  }
+
+  /** Return the number of lookups that didn't find the string in the
+   * pool, whether or not it was then added */
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public boolean isSealed() {
+    return sealed;
   }
 
   public String toString() {
-    return "[StringPool " + name + ", " + map.size() + " entries]";
+    return "[StringPool " + name + ", " + store.size() + " entries]";
   }
 
   public String toStats() {
-    return "[StringPool " + name + ", " + map.size() + " entries, " +
-      hits + " hits, " +
-      sumStringChars() + " total chars]";
+    StringBuilder sb = new StringBuilder();
+    sb.append("[StringPool ");
+    sb.append(name);
+    sb.append(", ");
+    sb.append(store.size());
+    sb.append(" entries, ");
+    sb.append(hits.sum());
+    sb.append(" hits, ");
+    sb.append(misses.sum());
+    sb.append(" misses, ");
+    sb.append(getRetainedBytes());
+    sb.append(" bytes retained, ");
+    sb.append(bytesSaved.sum());
+    sb.append(" bytes saved");
+    if (policy != Policy.UNBOUNDED) {
+      sb.append(", ");
+      sb.append(policy);
+      if (policy == Policy.LRU) {
+        sb.append(", ");
+        sb.append(evictions.sum());
+        sb.append(" evictions");
+      }
+    }
+    sb.append("]");
+    return sb.toString();
   }
 
   public static String allStats() {
@@ -388,6 +562,8 @@ public class StringPool {
   public static class PoolConfig {
     List<String> mapKeys;
     String keyPattern;
+    Policy policy;
+    long maxBytes = DEFAULT_MAX_BYTES;
 
     public PoolConfig setMapKeys(List<String> keys) {
       mapKeys = keys;
@@ -406,5 +582,202 @@ public class StringPool {
     public String getKeyPattern() {
       return keyPattern;
     }
+  
+    /** Set the retention policy.  If not set, the pool's policy is
+     * unchanged. */
+    public PoolConfig setPolicy(Policy policy) {
+      this.policy = policy;
+      return this;
+    }
+
+    public Policy getPolicy() {
+      return policy;
+    }
+
+    /** Set the maximum estimated size of an LRU pool */
+    public PoolConfig setMaxBytes(long maxBytes) {
+      this.maxBytes = maxBytes;
+      return this;
+    }
+
+    public long getMaxBytes() {
+      return maxBytes;
+    }
+  }
+
+  /** The map underlying a pool */
+  interface Store {
+    /** Return the value associated with str, or null */
+    String get(String str);
+
+    /** Associate str with val unless str is already present.  Return
+     * the value now associated with str. */
+    String add(String str, String val);
+
+    int size();
+
+    /** Call fn with each key and value */
+    void forEach(BiConsumer<String,String> fn);
+  }
+
+  /** Entries are never removed */
+  static class UnboundedStore implements Store {
+    private final ConcurrentHashMap<String,String> map;
+
+    UnboundedStore(int initialSize) {
+      map = new ConcurrentHashMap<>(initialSize);
+    }
+
+    public String get(String str) {
+      return map.get(str);
+    }
+
+    public String add(String str, String val) {
+      String res = map.putIfAbsent(str, val);
+      return res != null ? res : val;
+    }
+
+    public int size() {
+      return map.size();
+    }
+
+    public void forEach(BiConsumer<String,String> fn) {
+      map.forEach(fn);
+    }
+  }
+
+  /** Keys and values are held weakly.  An entry is removed once its key
+   * has been collected; an alias added by internNormalized() therefore
+   * lasts only as long as the unnormalized string. */
+  static class WeakStore implements Store {
+    private final ConcurrentHashMap<WeakKey,Reference<String>> map =
+      new ConcurrentHashMap<>();
+    private final ReferenceQueue<String> queue = new ReferenceQueue<>();
+
+    public String get(String str) {
+      expunge();
+      Reference<String> ref = map.get(new WeakKey(str, null));
+      return ref == null ? null : ref.get();
+    }
+
+    public String add(String str, String val) {
+      expunge();
+      WeakKey key = new WeakKey(str, queue);
+      // When interning (rather than aliasing) the key is the value
+      Reference<String> valRef =
+        val == str ? key : new WeakReference<>(val);
+      while (true) {
+        Reference<String> old = map.putIfAbsent(key, valRef);
+        if (old == null) {
+          return val;
+        }
+        String res = old.get();
+        if (res != null) {
+          return res;
+        }
+        // The value has been collected but the key hasn't
+        if (map.replace(key, old, valRef)) {
+          return val;
+        }
+      }
+    }
+
+    public int size() {
+      expunge();
+      return map.size();
+    }
+
+    public void forEach(BiConsumer<String,String> fn) {
+      map.forEach((k, v) -> {
+          String key = k.get();
+          String val = v.get();
+          if (key != null && val != null) {
+            fn.accept(key, val);
+          }
+        });
+    }
+
+    private void expunge() {
+      Reference<? extends String> ref;
+      while ((ref = queue.poll()) != null) {
+        map.remove(ref);
+      }
+    }
+  }
+
+  /** A weak reference to a String that's equal to another whose referent
+   * is equal */
+  static final class WeakKey extends WeakReference<String> {
+    private final int hash;
+
+    WeakKey(String str, ReferenceQueue<String> queue) {
+      super(str, queue);
+      hash = str.hashCode();
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof WeakKey)) {
+        return false;
+      }
+      String str = get();
+      return str != null && str.equals(((WeakKey)o).get());
+    }
+  }
+
+  // An alias added by internNormalized() holds its own key string, which
+  // must be counted as well as the value
+  static long entryWeight(String key, String val) {
+    long res = ENTRY_OVERHEAD + estimateBytes(val);
+    if (key != val) {
+      res += estimateBytes(key);
+    }
+    return res;
+  }
+
+  /** Least recently used entries are evicted when the estimated size
+   * exceeds the maximum */
+  static class LruStore implements Store {
+    private final ConcurrentLruMap<String,String> map;
+
+    LruStore(long maxBytes, LongAdder evictions) {
+      map = new ConcurrentLruMap<>(Integer.MAX_VALUE, maxBytes,
+                                   StringPool::entryWeight,
+                                   (k, v) -> evictions.increment());
+    }
+
+    void setMaxBytes(long maxBytes) {
+      map.setMaxWeight(maxBytes);
+    }
+
+    public String get(String str) {
+      return map.get(str);
+    }
+
+    public String add(String str, String val) {
+      String res = map.putIfAbsent(str, val);
+      return res != null ? res : val;
+    }
+
+    public int size() {
+      return map.size();
+    }
+
+    public void forEach(BiConsumer<String,String> fn) {
+      for (String key : map.keys()) {
+        String val = map.peek(key);
+        if (val != null) {
+          fn.accept(key, val);
+        }
+      }
+    }
   }
 }
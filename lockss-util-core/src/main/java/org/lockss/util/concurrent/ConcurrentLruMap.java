@@ -0,0 +1,573 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.concurrent;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.ToLongBiFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * A bounded, thread-safe map that evicts the least recently used entry
+ * when full.
+ * <p>
+ * Lookups don't lock: they read a {@link ConcurrentHashMap} and record the
+ * access in one of several small per-thread-striped buffers.  The
+ * recency order is a linked list that's only touched while holding a
+ * single lock, by writes and when a buffer fills, at which point all the
+ * recorded accesses are replayed into the list in a batch.  If the lock
+ * is busy when a buffer is full, further accesses recorded by that
+ * stripe are dropped until it's drained; this only makes the eviction
+ * order slightly less precise, never incorrect.  With a single thread
+ * the order is exactly LRU.
+ * <p>
+ * Writes are serialized by the lock, so the map is best suited to read-
+ * mostly use, such as caches.
+ * <p>
+ * Optionally, entries may be assigned a weight by a weigher function, in
+ * which case least recently used entries are also evicted while the total
+ * weight exceeds a maximum weight.  An entry's weight is computed when
+ * it's stored and must not change while it's in the map.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public class ConcurrentLruMap<K, V> {
+
+  static final int READ_BUFFER_SIZE = 32;
+  static final int NUM_READ_BUFFERS =
+      ceilingPowerOfTwo(Math.min(Runtime.getRuntime().availableProcessors(),
+                                 64));
+
+  private static final class Node<K, V> {
+    final K key;
+    volatile V value;
+    // Recency list links and membership, guarded by the lock
+    Node<K, V> prev;
+    Node<K, V> next;
+    boolean linked;
+    long weight;
+
+    Node(K key, V value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  private static final class ReadBuffer<K, V> {
+    final AtomicReferenceArray<Node<K, V>> slots =
+        new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+    final AtomicInteger writeIx = new AtomicInteger();
+  }
+
+  private final ConcurrentHashMap<K, Node<K, V>> map;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final ReadBuffer<K, V>[] readBuffers;
+
+  // Recency list: head is least recently used, tail most recently used
+  private Node<K, V> head;
+  private Node<K, V> tail;
+
+  private volatile int maxSize;
+  private volatile long maxWeight;
+  // Written only while holding the lock
+  private volatile long totalWeight;
+  private final ToLongBiFunction<? super K, ? super V> weigher;
+  private final BiConsumer<K, V> evictionListener;
+
+  /**
+   * Create a ConcurrentLruMap.
+   *
+   * @param maxSize the maximum number of entries
+   */
+  public ConcurrentLruMap(int maxSize) {
+    this(maxSize, null);
+  }
+
+  /**
+   * Create a ConcurrentLruMap.
+   *
+   * @param maxSize          the maximum number of entries
+   * @param evictionListener called with the key and value of each entry
+   *                         evicted to make room, or because the maximum
+   *                         size was reduced.  Not called for entries that
+   *                         are removed or replaced explicitly.  Called
+   *                         while holding the map's lock.
+   */
+  public ConcurrentLruMap(int maxSize, BiConsumer<K, V> evictionListener) {
+    this(maxSize, Long.MAX_VALUE, (ToLongBiFunction<K, V>)null,
+         evictionListener);
+  }
+
+  /**
+   * Create a ConcurrentLruMap whose entries are weighted.
+   *
+   * @param maxSize          the maximum number of entries
+   * @param maxWeight        the maximum total weight of the entries
+   * @param weigher          computes the (non-negative) weight of a value
+   *                         when it's stored.  If null, all entries have
+   *                         weight zero.
+   * @param evictionListener called with the key and value of each entry
+   *                         evicted to make room, or because the maximum
+   *                         size or weight was reduced.  Not called for
+   *                         entries that are removed or replaced
+   *                         explicitly.  Called while holding the map's
+   *                         lock.
+   */
+  public ConcurrentLruMap(int maxSize, long maxWeight,
+                          ToLongFunction<? super V> weigher,
+                          BiConsumer<K, V> evictionListener) {
+    this(maxSize, maxWeight,
+         weigher == null ? null
+         : (ToLongBiFunction<K, V>)(k, v) -> weigher.applyAsLong(v),
+         evictionListener);
+  }
+
+  /**
+   * Create a ConcurrentLruMap whose entries are weighted by both key and
+   * value.
+   *
+   * @param maxSize          the maximum number of entries
+   * @param maxWeight        the maximum total weight of the entries
+   * @param weigher          computes the (non-negative) weight of a key
+   *                         and value when they're stored.  If null, all
+   *                         entries have weight zero.
+   * @param evictionListener as for {@link #ConcurrentLruMap(int, long,
+   *                         ToLongFunction, BiConsumer)}
+   */
+  @SuppressWarnings("unchecked")
+  public ConcurrentLruMap(int maxSize, long maxWeight,
+                          ToLongBiFunction<? super K, ? super V> weigher,
+                          BiConsumer<K, V> evictionListener) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("maxWeight must not be negative");
+    }
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight;
+    this.weigher = weigher;
+    this.evictionListener = evictionListener;
+    this.map = new ConcurrentHashMap<>(Math.min(maxSize, 1 << 16));
+    this.readBuffers = new ReadBuffer[NUM_READ_BUFFERS];
+    for (int ix = 0; ix < readBuffers.length; ix++) {
+      readBuffers[ix] = new ReadBuffer<>();
+    }
+  }
+
+  /** Return the value mapped to the key, or null, and mark it as most
+   * recently used. */
+  public V get(K key) {
+    Node<K, V> node = map.get(key);
+    if (node == null) {
+      return null;
+    }
+    recordRead(node);
+    return node.value;
+  }
+
+  /** Return the value mapped to the key, or null, without affecting its
+   * recency. */
+  public V peek(K key) {
+    Node<K, V> node = map.get(key);
+    return node == null ? null : node.value;
+  }
+
+  public boolean containsKey(K key) {
+    return map.containsKey(key);
+  }
+
+  /** Return the number of entries */
+  public int size() {
+    return map.size();
+  }
+
+  public boolean isEmpty() {
+    return map.isEmpty();
+  }
+
+  public int maxSize() {
+    return maxSize;
+  }
+
+  /** Return the total weight of the entries */
+  public long weight() {
+    return totalWeight;
+  }
+
+  public long maxWeight() {
+    return maxWeight;
+  }
+
+  /**
+   * Map the key to the value, making it the most recently used entry, and
+   * evict least recently used entries if the map is over its maximum size
+   * or weight.  A value heavier than the maximum weight is rejected: it
+   * isn't stored, any previous mapping for the key is removed, no other
+   * entries are evicted, and the eviction listener is called for it.
+   *
+   * @return the previous value, or null
+   */
+  public V put(K key, V value) {
+    Objects.requireNonNull(value);
+    long weight = weigh(key, value);
+    lock.lock();
+    try {
+      drainReadBuffers();
+      if (weight > maxWeight) {
+        V old = remove(key);
+        reject(key, value);
+        return old;
+      }
+      Node<K, V> node = map.get(key);
+      V old = null;
+      if (node != null) {
+        old = node.value;
+        node.value = value;
+        totalWeight += weight - node.weight;
+        node.weight = weight;
+        moveToTail(node);
+      } else {
+        node = new Node<>(key, value);
+        node.weight = weight;
+        totalWeight += weight;
+        map.put(key, node);
+        linkTail(node);
+      }
+      evictExcess();
+      return old;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Map the key to the value, making it the most recently used entry,
+   * unless the key is already mapped, in which case the existing entry is
+   * marked as most recently used.  May evict, or reject a value that's
+   * too heavy, as {@link #put(Object, Object)} does.
+   *
+   * @return the existing value, or null if the value was stored or
+   * rejected
+   */
+  public V putIfAbsent(K key, V value) {
+    Objects.requireNonNull(value);
+    Node<K, V> node = map.get(key);
+    if (node != null) {
+      recordRead(node);
+      return node.value;
+    }
+    long weight = weigh(key, value);
+    lock.lock();
+    try {
+      drainReadBuffers();
+      node = map.get(key);
+      if (node != null) {
+        moveToTail(node);
+        return node.value;
+      }
+      if (weight > maxWeight) {
+        reject(key, value);
+        return null;
+      }
+      node = new Node<>(key, value);
+      node.weight = weight;
+      totalWeight += weight;
+      map.put(key, node);
+      linkTail(node);
+      evictExcess();
+      return null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Remove the mapping for the key.
+   * @return the removed value, or null */
+  public V remove(K key) {
+    lock.lock();
+    try {
+      Node<K, V> node = map.remove(key);
+      if (node == null) {
+        return null;
+      }
+      unlink(node);
+      totalWeight -= node.weight;
+      return node.value;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Remove all the entries for which the predicate is true.
+   * @return the number of entries removed */
+  public int removeIf(BiPredicate<? super K, ? super V> pred) {
+    lock.lock();
+    try {
+      int res = 0;
+      for (Iterator<Node<K, V>> iter = map.values().iterator();
+           iter.hasNext(); ) {
+        Node<K, V> node = iter.next();
+        if (pred.test(node.key, node.value)) {
+          iter.remove();
+          unlink(node);
+          totalWeight -= node.weight;
+          res++;
+        }
+      }
+      return res;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Remove all entries. */
+  public void clear() {
+    lock.lock();
+    try {
+      drainReadBuffers();
+      map.clear();
+      for (Node<K, V> node = head; node != null; ) {
+        Node<K, V> next = node.next;
+        node.prev = node.next = null;
+        node.linked = false;
+        node = next;
+      }
+      head = tail = null;
+      totalWeight = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Change the maximum size, evicting least recently used entries if
+   * necessary. */
+  public void setMaxSize(int maxSize) {
+    if (maxSize <= 0) {
+      throw new IllegalArgumentException("maxSize must be positive");
+    }
+    lock.lock();
+    try {
+      this.maxSize = maxSize;
+      drainReadBuffers();
+      evictExcess();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Change the maximum total weight, evicting least recently used
+   * entries if necessary. */
+  public void setMaxWeight(long maxWeight) {
+    if (maxWeight < 0) {
+      throw new IllegalArgumentException("maxWeight must not be negative");
+    }
+    lock.lock();
+    try {
+      this.maxWeight = maxWeight;
+      drainReadBuffers();
+      evictExcess();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Return the position of the key in recency order, 0 being the most
+   * recently used, or -1 if it's not present.  Takes time proportional to
+   * the position; intended for instrumentation.
+   */
+  public int recencyIndex(K key) {
+    if (!map.containsKey(key)) {
+      return -1;
+    }
+    lock.lock();
+    try {
+      drainReadBuffers();
+      int ix = 0;
+      for (Node<K, V> node = tail; node != null; node = node.prev, ix++) {
+        if (node.key.equals(key)) {
+          return ix;
+        }
+      }
+      return -1;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Return a snapshot of the keys, from least to most recently used. */
+  public List<K> keys() {
+    lock.lock();
+    try {
+      drainReadBuffers();
+      List<K> res = new ArrayList<>(map.size());
+      for (Node<K, V> node = head; node != null; node = node.next) {
+        res.add(node.key);
+      }
+      return res;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Return a weakly consistent view of the values, in no particular
+   * order. */
+  public Iterable<V> values() {
+    return () -> new Iterator<V>() {
+      final Iterator<Node<K, V>> iter = map.values().iterator();
+
+      public boolean hasNext() {
+        return iter.hasNext();
+      }
+
+      public V next() {
+        return iter.next().value;
+      }
+    };
+  }
+
+  // Record an access to the node.  Lossy if the buffer is full and can't
+  // be drained immediately.
+  private void recordRead(Node<K, V> node) {
+    ReadBuffer<K, V> buf =
+        readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+    int ix = buf.writeIx.getAndIncrement();
+    if (ix < READ_BUFFER_SIZE) {
+      buf.slots.lazySet(ix, node);
+      if (ix == READ_BUFFER_SIZE - 1) {
+        tryDrain();
+      }
+    } else {
+      tryDrain();
+    }
+  }
+
+  private void tryDrain() {
+    if (lock.tryLock()) {
+      try {
+        drainReadBuffers();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  // Replay recorded accesses into the recency list.  Must hold the lock.
+  private void drainReadBuffers() {
+    for (ReadBuffer<K, V> buf : readBuffers) {
+      int n = Math.min(buf.writeIx.get(), READ_BUFFER_SIZE);
+      for (int ix = 0; ix < n; ix++) {
+        Node<K, V> node = buf.slots.getAndSet(ix, null);
+        if (node != null && node.linked) {
+          moveToTail(node);
+        }
+      }
+      buf.writeIx.set(0);
+    }
+  }
+
+  private void evictExcess() {
+    while ((map.size() > maxSize || totalWeight > maxWeight)
+           && head != null) {
+      Node<K, V> victim = head;
+      unlink(victim);
+      map.remove(victim.key, victim);
+      totalWeight -= victim.weight;
+      if (evictionListener != null) {
+        evictionListener.accept(victim.key, victim.value);
+      }
+    }
+  }
+
+  // Storing it would only evict every other entry and then itself
+  private void reject(K key, V value) {
+    if (evictionListener != null) {
+      evictionListener.accept(key, value);
+    }
+  }
+
+  private long weigh(K key, V value) {
+    if (weigher == null) {
+      return 0;
+    }
+    long res = weigher.applyAsLong(key, value);
+    if (res < 0) {
+      throw new IllegalArgumentException("Negative weight: " + res);
+    }
+    return res;
+  }
+
+  private void linkTail(Node<K, V> node) {
+    node.prev = tail;
+    node.next = null;
+    if (tail != null) {
+      tail.next = node;
+    } else {
+      head = node;
+    }
+    tail = node;
+    node.linked = true;
+  }
+
+  private void unlink(Node<K, V> node) {
+    if (!node.linked) {
+      return;
+    }
+    if (node.prev != null) {
+      node.prev.next = node.next;
+    } else {
+      head = node.next;
+    }
+    if (node.next != null) {
+      node.next.prev = node.prev;
+    } else {
+      tail = node.prev;
+    }
+    node.prev = node.next = null;
+    node.linked = false;
+  }
+
+  private void moveToTail(Node<K, V> node) {
+    if (node != tail) {
+      unlink(node);
+      linkTail(node);
+    }
+  }
+
+  private static int ceilingPowerOfTwo(int n) {
+    return n <= 1 ? 1 : Integer.highestOneBit(n - 1) << 1;
+  }
+}
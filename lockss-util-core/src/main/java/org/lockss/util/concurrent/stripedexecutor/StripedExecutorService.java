@@ -50,6 +50,7 @@ package org.lockss.util.concurrent.stripedexecutor;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.*;
 
 /**
@@ -62,6 +63,14 @@ import java.util.concurrent.locks.*;
  * they will simply be passed onto the wrapped ExecutorService
  * directly.
  * <p/>
+ * Submission does not take a global lock.  Each stripe's
+ * SerialExecutor (its "lane") is created atomically in a
+ * ConcurrentHashMap and guards its own queue with its own monitor,
+ * so tasks for different stripes don't contend.  A lane that becomes
+ * empty is retired: it refuses further tasks and removes itself from
+ * the map, and a submitter that finds a retired lane simply creates a
+ * new one.
+ * <p/>
  * Idea inspired by Glenn McGregor on the Concurrency-interest
  * mailing list and using the SerialExecutor presented in the
  * Executor interface's JavaDocs.
@@ -78,33 +87,26 @@ public class StripedExecutorService extends AbstractExecutorService {
     private final ExecutorService executor;
 
     /**
-     * The lock prevents shutdown from being called in the middle
-     * of a submit.  It also guards the executors IdentityHashMap.
+     * The lock is used only to wait for and signal termination; it
+     * is not taken when submitting or running tasks.
      */
     private final ReentrantLock lock = new ReentrantLock();
 
     /**
      * This condition allows us to cleanly terminate this executor
-     * service.
+     * service.  It is signalled by shutdown() and, once shut down,
+     * whenever a SerialExecutor is retired.
      */
     private final Condition terminating = lock.newCondition();
 
     /**
-     * Whenever a new StripedObject is submitted to the pool, it
-     * is added to this IdentityHashMap.  As soon as the
-     * SerialExecutor is empty, the entry is removed from the map,
-     * in order to avoid a memory leak.
-     */
-    private final Map<Object, SerialExecutor> executors =
-        new HashMap<>();
-//            new IdentityHashMap<>();
-
-    /**
-     * CountDownLatch for each stripe, so can client can wait for
-     * stripe to drain
+     * Whenever a new StripedObject is submitted to the pool, a
+     * SerialExecutor is atomically added to this map.  As soon as
+     * the SerialExecutor is empty, it is retired and the entry is
+     * removed from the map, in order to avoid a memory leak.
      */
-    private final Map<Object, CountDownLatch> executorLatches =
-        new HashMap<>();
+    private final ConcurrentMap<Object, SerialExecutor> executors =
+        new ConcurrentHashMap<>();
 
     /**
      * The default submit() method creates a new FutureTask and
@@ -121,7 +123,16 @@ public class StripedExecutorService extends AbstractExecutorService {
      * Valid states are RUNNING and SHUTDOWN.  We rely on the
      * underlying executor service for the remaining states.
      */
-    private State state = State.RUNNING;
+    private volatile State state = State.RUNNING;
+
+    /**
+     * The number of submissions in progress.  The wrapped executor
+     * is shut down only once we're SHUTDOWN and there are neither
+     * SerialExecutors nor submissions in progress, so a submitter
+     * that got past checkPoolIsRunning() before shutdown() was
+     * called can still safely add a SerialExecutor.
+     */
+    private final AtomicInteger submitting = new AtomicInteger();
 
     private static enum State {
         RUNNING, SHUTDOWN
@@ -209,7 +220,7 @@ public class StripedExecutorService extends AbstractExecutorService {
      * RejectedExecutionException.
      */
     public <T> Future<T> submit(Runnable task, T result) {
-        lock.lock();
+        submitting.incrementAndGet();
         try {
             checkPoolIsRunning();
             if (isStripedObject(task)) {
@@ -218,7 +229,7 @@ public class StripedExecutorService extends AbstractExecutorService {
                 return executor.submit(task, result);
             }
         } finally {
-            lock.unlock();
+            endSubmit();
         }
     }
 
@@ -229,7 +240,7 @@ public class StripedExecutorService extends AbstractExecutorService {
      * RejectedExecutionException.
      */
     public <T> Future<T> submit(Callable<T> task) {
-        lock.lock();
+        submitting.incrementAndGet();
         try {
             checkPoolIsRunning();
             if (isStripedObject(task)) {
@@ -238,7 +249,7 @@ public class StripedExecutorService extends AbstractExecutorService {
                 return executor.submit(task);
             }
         } finally {
-            lock.unlock();
+            endSubmit();
         }
     }
 
@@ -247,7 +258,6 @@ public class StripedExecutorService extends AbstractExecutorService {
      * RUNNING.
      */
     private void checkPoolIsRunning() {
-        assert lock.isHeldByCurrentThread();
         if (state != State.RUNNING) {
             throw new RejectedExecutionException(
                     "executor not running");
@@ -264,28 +274,66 @@ public class StripedExecutorService extends AbstractExecutorService {
      * StripedObject and execute it with a SerialExecutor.  If no
      * StripedObject is set, we instead pass the command to the
      * wrapped ExecutorService directly.
+     * <p/>
+     * A task submitted concurrently with shutdown() may be either
+     * accepted or rejected with a RejectedExecutionException; an
+     * accepted task is run before the wrapped executor is shut down.
      */
     public void execute(Runnable command) {
-        lock.lock();
+        Object stripe = getStripe(command);
+        submitting.incrementAndGet();
         try {
             checkPoolIsRunning();
-            Object stripe = getStripe(command);
-            if (stripe != null) {
+            if (stripe == null) {
+                executor.execute(command);
+                return;
+            }
+            while (true) {
                 SerialExecutor ser_exec = executors.get(stripe);
                 if (ser_exec == null) {
-                    executors.put(stripe, ser_exec =
-                            new SerialExecutor(stripe));
-                    executorLatches.put(stripe, new CountDownLatch(1));
+                    ser_exec = executors.computeIfAbsent(stripe,
+                                                         SerialExecutor::new);
                 }
-                ser_exec.execute(command);
-            } else {
-                executor.execute(command);
+                if (ser_exec.offer(command)) {
+                    return;
+                }
+                // The lane was retired after we found it.  Make sure
+                // it's gone from the map (it removes itself, but may
+                // not have got that far yet), then try again with a
+                // fresh one.
+                executors.remove(stripe, ser_exec);
             }
         } finally {
-            lock.unlock();
+            endSubmit();
+        }
+    }
+
+    /**
+     * Called at the end of each submission.  If it was the last one
+     * in progress after shutdown(), the wrapped executor may now be
+     * shut down.
+     */
+    private void endSubmit() {
+        if (submitting.decrementAndGet() == 0 && state == State.SHUTDOWN) {
+            shutdownExecutorIfIdle();
         }
     }
 
+    /**
+     * Once we're SHUTDOWN, shuts down the wrapped executor if there
+     * are no SerialExecutors or submissions in progress, and wakes
+     * up threads waiting in awaitTermination().  The state, the map
+     * and the submission count are each checked after the others
+     * are updated, so whichever of shutdown(), the last submission
+     * or the last SerialExecutor finishes last sees them all idle.
+     */
+    private void shutdownExecutorIfIdle() {
+        if (submitting.get() == 0 && executors.isEmpty()) {
+            executor.shutdown();
+        }
+        signalTerminating();
+    }
+
     /**
      * We get the stripe object either from the Runnable if it
      * also implements StripedObject, or otherwise from the thread
@@ -304,19 +352,14 @@ public class StripedExecutorService extends AbstractExecutorService {
 
     /**
      * Shuts down the StripedExecutorService.  No more tasks will
-     * be submitted.  If the map of SerialExecutors is empty, we
-     * shut down the wrapped executor.
+     * be submitted.  If the map of SerialExecutors is empty and no
+     * submissions are in progress, we shut down the wrapped
+     * executor, otherwise the last SerialExecutor to be retired or
+     * the last submission to finish does so.
      */
     public void shutdown() {
-        lock.lock();
-        try {
-            state = State.SHUTDOWN;
-            if (executors.isEmpty()) {
-                executor.shutdown();
-            }
-        } finally {
-            lock.unlock();
-        }
+        state = State.SHUTDOWN;
+        shutdownExecutorIfIdle();
     }
 
     /**
@@ -326,18 +369,13 @@ public class StripedExecutorService extends AbstractExecutorService {
      * the shutdownNow method of the wrapped executor is called.
      */
     public List<Runnable> shutdownNow() {
-        lock.lock();
-        try {
-            shutdown();
-            List<Runnable> result = new ArrayList<>();
-            for (SerialExecutor ser_ex : executors.values()) {
-                ser_ex.tasks.drainTo(result);
-            }
-            result.addAll(executor.shutdownNow());
-            return result;
-        } finally {
-            lock.unlock();
+        shutdown();
+        List<Runnable> result = new ArrayList<>();
+        for (SerialExecutor ser_ex : executors.values()) {
+            ser_ex.drainTo(result);
         }
+        result.addAll(executor.shutdownNow());
+        return result;
     }
 
     /**
@@ -345,12 +383,7 @@ public class StripedExecutorService extends AbstractExecutorService {
      * called; false otherwise.
      */
     public boolean isShutdown() {
-        lock.lock();
-        try {
-            return state == State.SHUTDOWN;
-        } finally {
-            lock.unlock();
-        }
+        return state == State.SHUTDOWN;
     }
 
     /**
@@ -359,16 +392,11 @@ public class StripedExecutorService extends AbstractExecutorService {
      * ExecutorService has been terminated.
      */
     public boolean isTerminated() {
-        lock.lock();
-        try {
-            if (state == State.RUNNING) return false;
-            for (SerialExecutor executor : executors.values()) {
-                if (!executor.isEmpty()) return false;
-            }
-            return executor.isTerminated();
-        } finally {
-            lock.unlock();
+        if (state == State.RUNNING) return false;
+        for (SerialExecutor executor : executors.values()) {
+            if (!executor.isEmpty()) return false;
         }
+        return executor.isTerminated();
     }
 
     /**
@@ -377,43 +405,53 @@ public class StripedExecutorService extends AbstractExecutorService {
      */
     public boolean awaitTermination(long timeout, TimeUnit unit)
             throws InterruptedException {
+        long waitUntil = System.nanoTime() + unit.toNanos(timeout);
+        long remainingTime;
         lock.lock();
         try {
-            long waitUntil = System.nanoTime() + unit.toNanos(timeout);
-            long remainingTime;
             while ((remainingTime = waitUntil - System.nanoTime()) > 0
                     && !executors.isEmpty()) {
                 terminating.awaitNanos(remainingTime);
             }
-            if (remainingTime <= 0) return false;
-            if (executors.isEmpty()) {
-                return executor.awaitTermination(
-                        remainingTime, TimeUnit.NANOSECONDS);
-            }
-            return false;
+        } finally {
+            lock.unlock();
+        }
+        if (remainingTime <= 0) return false;
+        // Don't hold the lock here: the thread retiring the last
+        // SerialExecutor takes it to signal us, and the wrapped
+        // executor can't terminate until that thread is done.
+        return executor.awaitTermination(
+                remainingTime, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Wakes up threads waiting in awaitTermination().
+     */
+    private void signalTerminating() {
+        lock.lock();
+        try {
+            terminating.signalAll();
         } finally {
             lock.unlock();
         }
     }
 
     /**
-     * As soon as a SerialExecutor is empty, we remove it from the
-     * executors map.  We might thus remove the SerialExecutors
-     * more quickly than necessary, but at least we can avoid a
-     * memory leak.
+     * As soon as a SerialExecutor is empty, it is retired and we
+     * remove it from the executors map.  We might thus remove the
+     * SerialExecutors more quickly than necessary, but at least we
+     * can avoid a memory leak.  Termination waiters can only make
+     * progress once we're shut down (shutdown() itself signals
+     * them), so the lock is taken only in that case.
      */
     private void removeEmptySerialExecutor(Object stripe,
                                            SerialExecutor ser_ex) {
-        assert ser_ex == executors.get(stripe);
-        assert lock.isHeldByCurrentThread();
-        assert ser_ex.isEmpty();
-
-        executors.remove(stripe);
-        executorLatches.get(stripe).countDown();
-        executorLatches.remove(stripe);
-        terminating.signalAll();
-        if (state == State.SHUTDOWN && executors.isEmpty()) {
-            executor.shutdown();
+        assert ser_ex.isRetired();
+
+        executors.remove(stripe, ser_ex);
+        ser_ex.emptyLatch.countDown();
+        if (state == State.SHUTDOWN) {
+            shutdownExecutorIfIdle();
         }
     }
 
@@ -423,22 +461,14 @@ public class StripedExecutorService extends AbstractExecutorService {
      * @return true if the condition was met, false if interrupted.
      */
     public boolean waitForStripeToEmpty(Object stripe) {
-      CountDownLatch latch = null;
-      try {
-        lock.lock();
-        if (!executors.containsKey(stripe)) {
-          return true;
-        }
-        latch = executorLatches.get(stripe);
-      } finally {
-        lock.unlock();
+      SerialExecutor ser_ex = executors.get(stripe);
+      if (ser_ex == null) {
+        return true;
       }
-      if (latch != null) {
-        try {
-          latch.await();
-        } catch (InterruptedException e) {
-          return false;
-        }
+      try {
+        ser_ex.emptyLatch.await();
+      } catch (InterruptedException e) {
+        return false;
       }
       return true;
     }
@@ -448,15 +478,9 @@ public class StripedExecutorService extends AbstractExecutorService {
      * wrapped executor and the serial executors.
      */
     public String toString() {
-        lock.lock();
-        try {
-            return "StripedExecutorService: state=" + state + ", " +
-                    "executor=" + executor + ", " +
-                    "serialExecutors=" + executors;
-        } finally {
-            lock.unlock();
-        }
-
+        return "StripedExecutorService: state=" + state + ", " +
+                "executor=" + executor + ", " +
+                "serialExecutors=" + executors;
     }
 
     /**
@@ -471,18 +495,29 @@ public class StripedExecutorService extends AbstractExecutorService {
      * SerialExecutor is based on the construct with the same name
      * described in the {@link Executor} JavaDocs.  The difference
      * with our SerialExecutor is that it can be terminated.  It
-     * also removes itself automatically once the queue is empty.
+     * also retires and removes itself automatically once the queue
+     * is empty.  All its state is guarded by its own monitor.
      */
     private class SerialExecutor implements Executor {
         /**
          * The queue of unexecuted tasks.
          */
-        private final BlockingQueue<Runnable> tasks =
-                new LinkedBlockingQueue<>();
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
         /**
          * The runnable that we are currently busy with.
          */
         private Runnable active;
+        /**
+         * Set once the queue has drained.  A retired SerialExecutor
+         * accepts no more tasks; it is (or is about to be) removed
+         * from the map.
+         */
+        private boolean retired;
+        /**
+         * Counted down when this SerialExecutor is retired, so that
+         * clients can wait for the stripe to drain.
+         */
+        private final CountDownLatch emptyLatch = new CountDownLatch(1);
         /**
          * The stripe that this SerialExecutor was defined for.  It
          * is needed so that we can remove this executor from the
@@ -514,14 +549,29 @@ public class StripedExecutorService extends AbstractExecutorService {
             }
         }
 
+        /**
+         * Queues the task, throwing a RejectedExecutionException if
+         * this SerialExecutor has already been retired.
+         */
+        public void execute(final Runnable r) {
+            if (!offer(r)) {
+                throw new RejectedExecutionException(
+                        "SerialExecutor retired");
+            }
+        }
+
         /**
          * For every task that is executed, we add() a wrapper to
          * the queue of tasks that will run the current task and
          * then schedule the next task in the queue.
+         * @return false if this SerialExecutor has been retired, in
+         * which case the task was not queued.
          */
-        public void execute(final Runnable r) {
-            lock.lock();
-            try {
+        private boolean offer(final Runnable r) {
+            synchronized (this) {
+                if (retired) {
+                    return false;
+                }
                 tasks.add(new Runnable() {
                     public void run() {
                         try {
@@ -534,45 +584,60 @@ public class StripedExecutorService extends AbstractExecutorService {
                 if (active == null) {
                     scheduleNext();
                 }
-            } finally {
-                lock.unlock();
+                return true;
             }
         }
 
         /**
-         * Schedules the next task for this stripe.  Should only be
-         * called if active == null or if we are finished executing
-         * the currently active task.
+         * Schedules the next task for this stripe, or retires this
+         * SerialExecutor if there is none.  Should only be called
+         * if active == null or if we are finished executing the
+         * currently active task.  If the wrapped executor rejects
+         * the task, the queue is discarded, this SerialExecutor is
+         * retired and the exception is rethrown.
          */
         private void scheduleNext() {
-            lock.lock();
-            try {
+            RejectedExecutionException rejected = null;
+            synchronized (this) {
                 if ((active = tasks.poll()) != null) {
-                    executor.execute(active);
-                    terminating.signalAll();
-                } else {
-                    removeEmptySerialExecutor(stripe, this);
+                    try {
+                        executor.execute(active);
+                        return;
+                    } catch (RejectedExecutionException e) {
+                        rejected = e;
+                        active = null;
+                        tasks.clear();
+                    }
                 }
-            } finally {
-                lock.unlock();
+                retired = true;
+            }
+            removeEmptySerialExecutor(stripe, this);
+            if (rejected != null) {
+                throw rejected;
             }
         }
 
+        /**
+         * Moves the queued (not yet running) tasks to the list.
+         */
+        private synchronized void drainTo(List<Runnable> result) {
+            result.addAll(tasks);
+            tasks.clear();
+        }
+
         /**
          * Returns true if the list is empty and there is no task
          * currently executing.
          */
-        public boolean isEmpty() {
-            lock.lock();
-            try {
-                return active == null && tasks.isEmpty();
-            } finally {
-                lock.unlock();
-            }
+        public synchronized boolean isEmpty() {
+            return active == null && tasks.isEmpty();
+        }
+
+        private synchronized boolean isRetired() {
+            return retired;
         }
 
-        public String toString() {
-            assert lock.isHeldByCurrentThread();
+        public synchronized String toString() {
             return "SerialExecutor: active=" + active + ", " +
                     "tasks=" + tasks;
         }
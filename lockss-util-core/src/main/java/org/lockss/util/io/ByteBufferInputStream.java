@@ -0,0 +1,98 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/** InputStream that reads the remaining bytes of a ByteBuffer.  The
+ * stream reads from a duplicate of the buffer, so the buffer's position
+ * and limit aren't affected, and several streams may read the same
+ * buffer concurrently.  Supports mark() and reset(). */
+public class ByteBufferInputStream extends InputStream {
+  private final ByteBuffer buf;
+  private int mark;
+
+  public ByteBufferInputStream(ByteBuffer buf) {
+    this.buf = buf.duplicate();
+    this.mark = this.buf.position();
+  }
+
+  @Override
+  public int read() {
+    if (!buf.hasRemaining()) {
+      return -1;
+    }
+    return buf.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) {
+    if (len == 0) {
+      return 0;
+    }
+    if (!buf.hasRemaining()) {
+      return -1;
+    }
+    int n = Math.min(len, buf.remaining());
+    buf.get(b, off, n);
+    return n;
+  }
+
+  @Override
+  public long skip(long n) {
+    if (n <= 0) {
+      return 0;
+    }
+    int k = (int)Math.min(n, buf.remaining());
+    buf.position(buf.position() + k);
+    return k;
+  }
+
+  @Override
+  public int available() {
+    return buf.remaining();
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+    mark = buf.position();
+  }
+
+  @Override
+  public void reset() {
+    buf.position(mark);
+  }
+
+}
@@ -54,7 +54,6 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.time.FastDateFormat;
 import org.lockss.log.*;
-import org.lockss.util.CloseCallbackInputStream;
 import java.io.*;
 import java.lang.ref.*;
 
@@ -223,7 +222,8 @@ public class DeferredTempFileOutputStream extends ThresholdingOutputStream {
 
   /**
    * Return an InputStream open on the contents written to the
-   * OutputStream.
+   * OutputStream.  If the contents are in a file this is a {@link
+   * FileRegionInputStream}.
    *
    * @return An InputStream open on the data written to the OutputStream
    */
@@ -231,7 +231,7 @@ public class DeferredTempFileOutputStream extends ThresholdingOutputStream {
     if (isInMemory()) {
       return new ByteArrayInputStream(getData());
     } else {
-      return new BufferedInputStream(new FileInputStream(getFile()));
+      return new FileRegionInputStream(getFile());
     }
   }
 
@@ -246,16 +246,8 @@ public class DeferredTempFileOutputStream extends ThresholdingOutputStream {
     if (isInMemory()) {
       return new ByteArrayInputStream(getData());
     } else {
-      CloseCallbackInputStream.Callback cb =
-        new CloseCallbackInputStream.Callback() {
-          @Override
-          public void streamClosed(Object cookie) {
-            deleteTempFile();
-          }
-        };
-      return
-        new BufferedInputStream(new CloseCallbackInputStream(getInputStream(),
-                                                             cb, null));
+      return new FileRegionInputStream(getFile())
+        .setCloseAction(this::deleteTempFile);
     }
   }
 
@@ -0,0 +1,250 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.nio.file.StandardOpenOption;
+
+/** InputStream that reads a region of a file through a FileChannel.  It
+ * knows the file, position and number of bytes remaining, so consumers
+ * that recognize it can send the content without copying it through
+ * the heap; {@link #transferTo(OutputStream)} does so itself, using
+ * {@link FileChannel#transferTo(long, long, WritableByteChannel)}.
+ * Supports mark() and reset(). */
+public class FileRegionInputStream extends InputStream {
+  static final int BUFFER_SIZE = 8192;
+
+  private final File file;
+  private final FileChannel channel;
+  private final long end;
+  private long pos;			// position of next byte to return
+  private long mark;
+  private ByteBuffer buf;		// holds bytes starting at pos
+  private Runnable closeAction;
+  private boolean isClosed = false;
+
+  /** Create a stream that reads the entire file */
+  public FileRegionInputStream(File file) throws IOException {
+    this(file, 0, -1);
+  }
+
+  /** Create a stream that reads length bytes of the file starting at
+   * offset.  If length is negative, reads to the end of the file */
+  public FileRegionInputStream(File file, long offset, long length)
+      throws IOException {
+    if (offset < 0) {
+      throw new IllegalArgumentException("Negative offset: " + offset);
+    }
+    this.file = file;
+    this.channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+    long size = channel.size();
+    this.pos = Math.min(offset, size);
+    this.end = length < 0 ? size : Math.min(size, pos + length);
+    this.mark = pos;
+  }
+
+  /** Set an action to run after the stream is closed, <i>eg</i>, to
+   * delete a temp file */
+  public FileRegionInputStream setCloseAction(Runnable action) {
+    closeAction = action;
+    return this;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /** Return the file position of the next byte to be read */
+  public long getPosition() {
+    return pos;
+  }
+
+  /** Return the number of bytes remaining in the region */
+  public long getRemaining() {
+    return end - pos;
+  }
+
+  @Override
+  public int read() throws IOException {
+    if (!fill()) {
+      return -1;
+    }
+    pos++;
+    return buf.get() & 0xff;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    checkOpen();
+    if (len == 0) {
+      return 0;
+    }
+    if (pos >= end) {
+      return -1;
+    }
+    int n;
+    if (buf != null && buf.hasRemaining()) {
+      n = Math.min(len, buf.remaining());
+      buf.get(b, off, n);
+    } else if (len >= BUFFER_SIZE) {
+      // Large reads go directly into the caller's array
+      ByteBuffer bb = ByteBuffer.wrap(b, off, (int)Math.min(len, end - pos));
+      n = channel.read(bb, pos);
+      if (n < 0) {
+        return -1;
+      }
+    } else {
+      if (!fill()) {
+        return -1;
+      }
+      n = Math.min(len, buf.remaining());
+      buf.get(b, off, n);
+    }
+    pos += n;
+    return n;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    checkOpen();
+    if (n <= 0) {
+      return 0;
+    }
+    long k = Math.min(n, end - pos);
+    pos += k;
+    discardBuffer();
+    return k;
+  }
+
+  @Override
+  public int available() throws IOException {
+    checkOpen();
+    return (int)Math.min(end - pos, Integer.MAX_VALUE);
+  }
+
+  /** Write the remainder of the region to the OutputStream.  If it's a
+   * FileOutputStream the bytes are transferred between the channels
+   * directly, otherwise through a channel adapter on the stream. */
+  @Override
+  public long transferTo(OutputStream out) throws IOException {
+    checkOpen();
+    long start = pos;
+    // Deliver anything already buffered first
+    if (buf != null && buf.hasRemaining()) {
+      int n = buf.remaining();
+      out.write(buf.array(), buf.arrayOffset() + buf.position(), n);
+      pos += n;
+    }
+    discardBuffer();
+    WritableByteChannel target = (out instanceof FileOutputStream)
+      ? ((FileOutputStream)out).getChannel()
+      : Channels.newChannel(out);
+    while (pos < end) {
+      long n = channel.transferTo(pos, end - pos, target);
+      if (n <= 0) {
+        // File was truncated
+        break;
+      }
+      pos += n;
+    }
+    return pos - start;
+  }
+
+  @Override
+  public boolean markSupported() {
+    return true;
+  }
+
+  @Override
+  public void mark(int readlimit) {
+    mark = pos;
+  }
+
+  @Override
+  public void reset() throws IOException {
+    checkOpen();
+    pos = mark;
+    discardBuffer();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      buf = null;
+      try {
+        channel.close();
+      } finally {
+        if (closeAction != null) {
+          closeAction.run();
+        }
+      }
+    }
+  }
+
+  @Override
+  public String toString() {
+    return "[FileRegionInputStream: " + file + ", pos: " + pos +
+      ", end: " + end + "]";
+  }
+
+  /** Ensure the buffer has at least one byte; return false at end of
+   * region */
+  private boolean fill() throws IOException {
+    checkOpen();
+    if (buf != null && buf.hasRemaining()) {
+      return true;
+    }
+    if (pos >= end) {
+      return false;
+    }
+    if (buf == null) {
+      buf = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+    buf.clear();
+    buf.limit((int)Math.min(BUFFER_SIZE, end - pos));
+    int n = channel.read(buf, pos);
+    buf.flip();
+    return n > 0;
+  }
+
+  private void discardBuffer() {
+    if (buf != null) {
+      buf.clear().limit(0);
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    if (isClosed) {
+      throw new IOException("Stream closed");
+    }
+  }
+}
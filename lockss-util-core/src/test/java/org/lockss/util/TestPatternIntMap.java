@@ -115,4 +115,48 @@ public class TestPatternIntMap extends LockssTestCase5 {
     }
   }
 
+
+  @Test
+  public void testMatchCache() {
+    PatternIntMap pm = PatternIntMap.fromSpec("a.*b,5;b,3;c,1");
+    assertEquals(0, pm.getMatchCacheSize());
+    pm.getMatch("xab");
+    assertEquals(0, pm.getMatchCacheHits() + pm.getMatchCacheMisses());
+
+    pm.setMatchCacheSize(10);
+    assertEqualsInt(5, pm.getMatch("xab"));
+    assertEquals(0, pm.getMatchCacheHits());
+    assertEquals(1, pm.getMatchCacheMisses());
+    assertEqualsInt(5, pm.getMatch("xab"));
+    assertEquals(1, pm.getMatchCacheHits());
+    assertEquals(0.5, pm.getMatchCacheHitRate(), 0.0001);
+
+    // No match is remembered; the default comes from each call
+    assertEqualsInt(-1, pm.getMatch("zzz", -1));
+    assertEqualsInt(-2, pm.getMatch("zzz", -2));
+    assertEqualsInt(-2, pm.getMatch("zzz", -2, 4));
+    assertEquals(3, pm.getMatchCacheHits());
+
+    // maxPri excludes the first match; the next acceptable one is found
+    assertEqualsInt(3, pm.getMatch("xab", -1, 4));
+    assertEqualsInt(1, pm.getMatch("xabc", -1, 2));
+    assertEqualsInt(-1, pm.getMatch("xab", -1, 2));
+    assertEqualsInt(5, pm.getMatch("xab", -1, 5));
+    assertEqualsInt(5, pm.getMatch("xabc", -1));
+
+    // Bounded
+    for (int ix = 0; ix < 20; ix++) {
+      pm.getMatch("str" + ix);
+    }
+    long misses = pm.getMatchCacheMisses();
+    assertEqualsInt(5, pm.getMatch("xab"));
+    assertEquals(misses + 1, pm.getMatchCacheMisses());
+
+    pm.setMatchCacheSize(0);
+    long hits = pm.getMatchCacheHits();
+    pm.getMatch("xab");
+    pm.getMatch("xab");
+    assertEquals(hits, pm.getMatchCacheHits());
+  }
+
 }
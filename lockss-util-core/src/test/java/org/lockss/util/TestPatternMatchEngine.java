@@ -0,0 +1,178 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util;
+
+import java.util.*;
+import java.util.regex.*;
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+public class TestPatternMatchEngine extends LockssTestCase5 {
+
+  void assertLits(String expPrefix, String expSubstring, String re) {
+    PatternMatchEngine.Literals lits =
+      PatternMatchEngine.requiredLiterals(re);
+    if (expPrefix == null && expSubstring == null) {
+      assertNull(lits, re);
+      return;
+    }
+    assertNotNull(lits, re);
+    assertEquals(expPrefix, lits.prefix, re);
+    assertEquals(expSubstring, lits.substring, re);
+  }
+
+  @Test
+  public void testRequiredLiterals() {
+    assertLits(null, "abc", "abc");
+    assertLits("abc", "abc", "^abc");
+    assertLits("http", "://www.example.com/", "^https?://www\\.example\\.com/");
+    assertLits(null, ".pdf", "\\.pdf$");
+    assertLits(null, "/issue/", "/issue/[0-9]+/");
+    assertLits(null, "abc", "ab*abc");
+    assertLits(null, "abc", "a?abc");
+    assertLits(null, "ab", "abc{0,2}");
+    assertLits(null, "abc", "abc{1,2}");
+    assertLits(null, "abc", "abc+");
+    assertLits(null, "ab", "abc*?d");
+    assertLits(null, "bar", "(foo)?bar");
+    assertLits(null, "bar", "(?:foo|baz)bar");
+    assertLits(null, "foo", "foo\\d+baz");
+    assertLits(null, "bazz", "foo\\d+bazz");
+    assertLits(null, "x(y)", "\\Qx(y)\\E");
+    assertLits(null, "a]b", "a]b");
+    assertLits(null, "]ab", "[ab]]ab");
+    assertLits("a", "a\tbc", "^a\\x41a\tbc");
+    assertLits(null, "bcd", "a.bcd");
+    // No literal
+    assertLits(null, null, "");
+    assertLits(null, null, ".*");
+    assertLits(null, null, "[abc]+");
+    assertLits(null, null, "a*");
+    // Top-level alternation
+    assertLits(null, null, "abc|def");
+    // Inline flags
+    assertLits(null, null, "(?i)abc");
+    assertLits(null, null, "abc(?i)def");
+    // Unsupported escape
+    assertLits(null, null, "abc\\Ndef");
+  }
+
+  @Test
+  public void testAhoCorasick() {
+    PatternMatchEngine.AhoCorasick ac =
+      new PatternMatchEngine.AhoCorasick(ListUtil.list("he", "she", "his",
+                                                       "hers", "s"),
+                                         ListUtil.list(0, 1, 2, 3, 4));
+    assertEquals(bits(0, 1, 3, 4), ac.scan("ushers"));
+    assertEquals(bits(2, 4), ac.scan("this"));
+    assertEquals(bits(), ac.scan("xyz"));
+    assertEquals(bits(), ac.scan(""));
+  }
+
+  BitSet bits(int... ids) {
+    BitSet res = new BitSet();
+    for (int id : ids) {
+      res.set(id);
+    }
+    return res;
+  }
+
+  static final List<String> PATTERNS =
+    ListUtil.list("^https?://www\\.example\\.com/.*\\.pdf$",
+                  "/issue/[0-9]+/",
+                  "\\.css(\\?.*)?$",
+                  "ab*c",
+                  "(foo|bar)baz",
+                  "^http://(www\\.)?other\\.org/",
+                  "x{0,3}yz",
+                  "(?i)CASE",
+                  "\\Q.[lit]\\E",
+                  "issue",
+                  "[0-9]{4}/vol",
+                  "");
+
+  static final List<String> STRINGS =
+    ListUtil.list("https://www.example.com/a/b.pdf",
+                  "http://www.example.com/a/b.pdf?x",
+                  "http://host/issue/12/",
+                  "http://host/issue/a/",
+                  "http://host/style.css",
+                  "http://host/style.css?v=2",
+                  "ac", "abbbc", "xbarbaz", "foobaz", "bazfoo",
+                  "http://other.org/", "http://www.other.org/x",
+                  "https://other.org/", "yz", "xxxyz", "case", "CaSe",
+                  "a.[lit]b", "a.[litb", "2020/vol", "202/vol", "");
+
+  int naiveFirstMatch(List<Pattern> pats, String str, int startIx) {
+    for (int ix = startIx; ix < pats.size(); ix++) {
+      if (pats.get(ix).matcher(str).find()) {
+        return ix;
+      }
+    }
+    return -1;
+  }
+
+  // The engine returns the same first match as trying each pattern in
+  // turn, for each suffix of the pattern list
+  @Test
+  public void testSameAsSequential() {
+    for (int start = 0; start < PATTERNS.size(); start++) {
+      Map<Pattern,Integer> map = new LinkedHashMap<>();
+      List<Pattern> pats = new ArrayList<>();
+      for (int ix = start; ix < PATTERNS.size(); ix++) {
+        Pattern pat = Pattern.compile(PATTERNS.get(ix));
+        map.put(pat, ix - start);
+        pats.add(pat);
+      }
+      PatternMatchEngine<Integer> eng = new PatternMatchEngine<>(map);
+      assertTrue(eng.isFor(map));
+      for (String str : STRINGS) {
+        assertEquals(naiveFirstMatch(pats, str, 0),
+                     eng.firstMatch(str, null),
+                     "start: " + start + ", str: " + str);
+        // Filter out the first match; the next is found
+        int first = naiveFirstMatch(pats, str, 0);
+        if (first >= 0) {
+          assertEquals(naiveFirstMatch(pats, str, first + 1),
+                       eng.firstMatch(str, v -> v > first),
+                       "start: " + start + ", str: " + str);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testFlags() {
+    Map<Pattern,String> map = new LinkedHashMap<>();
+    map.put(Pattern.compile("abc", Pattern.CASE_INSENSITIVE), "ci");
+    PatternMatchEngine<String> eng = new PatternMatchEngine<>(map);
+    assertEquals(0, eng.firstMatch("xABCx", null));
+    assertEquals("ci", eng.getValue(0));
+  }
+}
@@ -31,6 +31,7 @@ package org.lockss.util;
 import junit.framework.TestCase;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import java.lang.reflect.*;
 import org.junit.jupiter.api.*;
 import org.lockss.log.*;
@@ -182,4 +183,177 @@ public class TestStringPool extends LockssTestCase5 {
                              .setMapKeys(ListUtil.list("key1", "key2")));
     assertSame(v2, pool.internMapValue("type", v2));
   }
+
+  @Test
+  public void testStats() {
+    StringPool pool = new StringPool("stats");
+    pool.intern("a");
+    pool.intern(new String("a"));
+    pool.intern("b");
+    pool.internNormalized("A", x -> x.toLowerCase());
+    assertEquals(2, pool.getHits());
+    assertEquals(2, pool.getMisses());
+    pool.seal();
+    assertTrue(pool.isSealed());
+    pool.intern("c");
+    assertEquals(3, pool.getMisses());
+    assertMatchesRE("3 entries, 2 hits, 3 misses", pool.toStats());
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    StringPool pool = new StringPool("concurrent");
+    int nThreads = 8;
+    int nStrs = 500;
+    ExecutorService exec =
+      Executors.newFixedThreadPool(nThreads);
+    List<Future<String[]>> futs = new ArrayList<>();
+    for (int t = 0; t < nThreads; t++) {
+      futs.add(exec.submit(() -> {
+            String[] res = new String[nStrs];
+            for (int ix = 0; ix < nStrs; ix++) {
+              res[ix] = pool.internNormalized(new String("S" + ix),
+                                              x -> x.toLowerCase());
+            }
+            return res;
+          }));
+    }
+    List<String[]> results = new ArrayList<>();
+    for (Future<String[]> fut : futs) {
+      results.add(fut.get(60, TimeUnit.SECONDS));
+    }
+    exec.shutdown();
+    // All threads got the same instance for each string
+    for (int ix = 0; ix < nStrs; ix++) {
+      String exp = results.get(0)[ix];
+      assertEquals("s" + ix, exp);
+      for (String[] res : results) {
+        assertSame(exp, res[ix]);
+      }
+    }
+    assertEquals(nThreads * nStrs, pool.getHits() + pool.getMisses());
+  }
+
+
+  @Test
+  public void testByteStats() {
+    StringPool pool = new StringPool("bytes");
+    assertEquals(48, StringPool.estimateBytes("abc"));
+    assertEquals(56, StringPool.estimateBytes("abcdefghi"));
+    String s1 = "abc";
+    pool.intern(s1);
+    assertEquals(48 + StringPool.ENTRY_OVERHEAD, pool.getRetainedBytes());
+    // Same instance saves nothing, a copy saves its size
+    pool.intern(s1);
+    assertEquals(0, pool.getBytesSaved());
+    assertSame(s1, pool.intern(new String("abc")));
+    assertEquals(48, pool.getBytesSaved());
+    // An alias retains the unnormalized key but not another copy of the
+    // value
+    pool.internNormalized("ABC", x -> x.toLowerCase());
+    assertEquals(2, pool.size());
+    assertEquals(2 * 48 + 2 * StringPool.ENTRY_OVERHEAD,
+                 pool.getRetainedBytes());
+    assertMatchesRE("bytes retained, 96 bytes saved]$", pool.toStats());
+  }
+
+  @Test
+  public void testLru() {
+    StringPool pool = new StringPool("lru");
+    long entryBytes =
+      StringPool.ENTRY_OVERHEAD + StringPool.estimateBytes("s00");
+    pool.intern("s00");
+    StringPool.setPoolConfig("lru",
+                             new StringPool.PoolConfig()
+                             .setPolicy(StringPool.Policy.LRU)
+                             .setMaxBytes(3 * entryBytes));
+    assertEquals(StringPool.Policy.LRU, pool.getPolicy());
+    // Existing entries were copied
+    assertEquals(1, pool.size());
+    String s01 = new String("s01");
+    assertSame(s01, pool.intern(s01));
+    pool.intern("s02");
+    pool.intern("s00");
+    pool.intern("s03");
+    assertEquals(3, pool.size());
+    assertEquals(1, pool.getEvictions());
+    assertTrue(pool.getRetainedBytes() <= 3 * entryBytes);
+    // s01 was least recently used
+    String s01a = new String("s01");
+    assertSame(s01a, pool.intern(s01a));
+    assertEquals(2, pool.getEvictions());
+    assertMatchesRE("LRU, 2 evictions", pool.toStats());
+
+    // Shrinking the limit evicts
+    pool.setConfig(new StringPool.PoolConfig()
+                   .setPolicy(StringPool.Policy.LRU)
+                   .setMaxBytes(entryBytes));
+    assertEquals(1, pool.size());
+    assertSame(s01a, pool.intern(new String("s01")));
+  }
+
+  // Aliases added by internNormalized() hold their own key strings, which
+  // must count against the limit
+  @Test
+  public void testLruAliases() {
+    StringPool pool = new StringPool("lrualias");
+    long max = 4000;
+    pool.setConfig(new StringPool.PoolConfig()
+                   .setPolicy(StringPool.Policy.LRU)
+                   .setMaxBytes(max));
+    for (int ix = 0; ix < 200; ix++) {
+      String norm = "value" + (ix % 10);
+      pool.internNormalized("SOME LONGER UNNORMALIZED ALIAS " + ix,
+                            x -> norm);
+    }
+    assertTrue(pool.getEvictions() > 0);
+    assertTrue(pool.getRetainedBytes() <= max,
+               "Retained " + pool.getRetainedBytes() + " > " + max);
+    assertEquals(StringPool.ENTRY_OVERHEAD + StringPool.estimateBytes("x"),
+                 StringPool.entryWeight("x", "x"));
+    assertEquals(StringPool.ENTRY_OVERHEAD + StringPool.estimateBytes("x")
+                 + StringPool.estimateBytes("X"),
+                 StringPool.entryWeight("X", "x"));
+  }
+
+  // Try to get unreachable objects collected until done is true.
+  // System.gc() may be disabled or lazy, so also churn through
+  // allocations to create memory pressure.  Returns done's final value.
+  static boolean awaitCollection(java.util.function.BooleanSupplier done) {
+    byte[][] churn = new byte[64][];
+    long end = System.currentTimeMillis() + 10000;
+    for (int ix = 0;
+         !done.getAsBoolean() && System.currentTimeMillis() < end;
+         ix++) {
+      if (ix % 64 == 0) {
+        System.gc();
+      }
+      churn[ix % churn.length] = new byte[1 << 20];
+    }
+    return done.getAsBoolean();
+  }
+
+  @Test
+  public void testWeak() throws Exception {
+    StringPool pool = new StringPool("weak");
+    pool.setConfig(new StringPool.PoolConfig()
+                   .setPolicy(StringPool.Policy.WEAK));
+    String keep = new String("keep");
+    assertSame(keep, pool.intern(keep));
+    assertSame(keep, pool.intern(new String("keep")));
+    assertSame(keep, pool.internNormalized(new String("KEEP"),
+                                         x -> x.toLowerCase()));
+    for (int ix = 0; ix < 100; ix++) {
+      pool.intern(new String("drop" + ix));
+    }
+    assertTrue(pool.size() > 1);
+    // Collection can't be forced; skip the rest if it doesn't happen
+    Assumptions.assumeTrue(awaitCollection(() -> pool.size() == 1),
+                           "Weakly referenced strings weren't collected");
+    assertEquals(1, pool.size());
+    assertSame(keep, pool.intern(new String("keep")));
+    String drop1 = new String("drop1");
+    assertSame(drop1, pool.intern(drop1));
+  }
+
 }
@@ -0,0 +1,220 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.concurrent;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.*;
+import org.lockss.util.ListUtil;
+import org.lockss.util.test.LockssTestCase5;
+
+public class TestConcurrentLruMap extends LockssTestCase5 {
+
+  @Test
+  public void testLru() {
+    List<String> evicted = new ArrayList<>();
+    ConcurrentLruMap<String,String> map =
+      new ConcurrentLruMap<>(3, (k, v) -> evicted.add(k));
+    assertNull(map.get("a"));
+    assertNull(map.put("a", "1"));
+    assertNull(map.put("b", "2"));
+    assertNull(map.put("c", "3"));
+    assertEquals(3, map.size());
+    assertEquals(ListUtil.list("a", "b", "c"), map.keys());
+    assertEquals("1", map.get("a"));
+    assertEquals(ListUtil.list("b", "c", "a"), map.keys());
+    assertEquals(0, map.recencyIndex("a"));
+    assertEquals(2, map.recencyIndex("b"));
+    assertEquals(-1, map.recencyIndex("x"));
+    // peek doesn't change order
+    assertEquals("2", map.peek("b"));
+    assertEquals(ListUtil.list("b", "c", "a"), map.keys());
+
+    map.put("d", "4");
+    assertEquals(ListUtil.list("b"), evicted);
+    assertFalse(map.containsKey("b"));
+    assertEquals(ListUtil.list("c", "a", "d"), map.keys());
+
+    // replace moves to MRU, doesn't evict
+    assertEquals("3", map.put("c", "33"));
+    assertEquals(ListUtil.list("a", "d", "c"), map.keys());
+    assertEquals(ListUtil.list("b"), evicted);
+
+    assertEquals("1", map.remove("a"));
+    assertNull(map.remove("a"));
+    assertEquals(ListUtil.list("d", "c"), map.keys());
+
+    map.put("e", "5");
+    map.put("f", "6");
+    assertEquals(ListUtil.list("b", "d"), evicted);
+    assertEquals(1, map.removeIf((k, v) -> v.equals("5")));
+    assertEquals(ListUtil.list("c", "f"), map.keys());
+
+    map.setMaxSize(1);
+    assertEquals(ListUtil.list("f"), map.keys());
+    assertEquals(ListUtil.list("b", "d", "c"), evicted);
+
+    map.clear();
+    assertTrue(map.isEmpty());
+    assertEmpty(map.keys());
+    map.put("g", "7");
+    assertEquals("7", map.get("g"));
+  }
+
+  @Test
+  public void testWeighted() {
+    List<String> evicted = new ArrayList<>();
+    ConcurrentLruMap<String,String> map =
+      new ConcurrentLruMap<>(10, 10, String::length, (k, v) -> evicted.add(k));
+    map.put("a", "xxx");
+    map.put("b", "xxxx");
+    map.put("c", "xx");
+    assertEquals(9, map.weight());
+    assertEquals(10, map.maxWeight());
+    map.get("a");
+    map.put("d", "xxx");
+    assertEquals(ListUtil.list("b"), evicted);
+    assertEquals(ListUtil.list("c", "a", "d"), map.keys());
+    assertEquals(8, map.weight());
+
+    // replacing with a heavier value can evict
+    assertEquals("xx", map.put("c", "xxxxx"));
+    assertEquals(ListUtil.list("b", "a"), evicted);
+    assertEquals(ListUtil.list("d", "c"), map.keys());
+    assertEquals(8, map.weight());
+
+    // a value heavier than the max is rejected, without evicting others
+    assertNull(map.put("e", "xxxxxxxxxxx"));
+    assertNull(map.putIfAbsent("e", "xxxxxxxxxxx"));
+    assertEquals(ListUtil.list("b", "a", "e", "e"), evicted);
+    assertEquals(ListUtil.list("d", "c"), map.keys());
+    assertEquals(8, map.weight());
+    // and replaces an existing mapping
+    assertEquals("xxxxx", map.put("c", "xxxxxxxxxxx"));
+    assertEquals(ListUtil.list("b", "a", "e", "e", "c"), evicted);
+    assertEquals(ListUtil.list("d"), map.keys());
+    assertEquals(3, map.weight());
+    map.remove("d");
+
+    map.put("f", "xx");
+    map.put("g", "xxx");
+    map.setMaxWeight(3);
+    assertEquals(ListUtil.list("g"), map.keys());
+    assertEquals(3, map.weight());
+    assertEquals("xxx", map.remove("g"));
+    assertEquals(0, map.weight());
+  }
+
+  @Test
+  public void testKeyWeighted() {
+    ConcurrentLruMap<String,String> map =
+      new ConcurrentLruMap<>(10, 10, (k, v) -> k.length() + v.length(), null);
+    map.put("aa", "xxx");
+    map.put("b", "xx");
+    assertEquals(8, map.weight());
+    map.put("cc", "x");
+    assertEquals(ListUtil.list("b", "cc"), map.keys());
+    assertEquals(6, map.weight());
+  }
+
+  @Test
+  public void testPutIfAbsent() {
+    List<String> evicted = new ArrayList<>();
+    ConcurrentLruMap<String,String> map =
+      new ConcurrentLruMap<>(2, (k, v) -> evicted.add(k));
+    assertNull(map.putIfAbsent("a", "1"));
+    assertNull(map.putIfAbsent("b", "2"));
+    assertEquals("1", map.putIfAbsent("a", "11"));
+    assertEquals("1", map.get("a"));
+    // existing entry became MRU
+    assertEquals(ListUtil.list("b", "a"), map.keys());
+    assertNull(map.putIfAbsent("c", "3"));
+    assertEquals(ListUtil.list("b"), evicted);
+    assertEquals(ListUtil.list("a", "c"), map.keys());
+  }
+
+  // Reads beyond the read buffer size are all accounted for in a single
+  // thread
+  @Test
+  public void testManyReads() {
+    int n = 10;
+    ConcurrentLruMap<Integer,Integer> map = new ConcurrentLruMap<>(n);
+    for (int ix = 0; ix < n; ix++) {
+      map.put(ix, ix);
+    }
+    for (int rep = 0; rep < ConcurrentLruMap.READ_BUFFER_SIZE * 3; rep++) {
+      map.get(rep % n);
+    }
+    List<Integer> exp = new ArrayList<>();
+    for (int ix = 0; ix < n; ix++) {
+      exp.add((ConcurrentLruMap.READ_BUFFER_SIZE * 3 + ix) % n);
+    }
+    assertEquals(exp, map.keys());
+  }
+
+  @Test
+  public void testConcurrent() throws Exception {
+    int max = 100;
+    AtomicInteger evictions = new AtomicInteger();
+    ConcurrentLruMap<Integer,Integer> map =
+      new ConcurrentLruMap<>(max, (k, v) -> evictions.incrementAndGet());
+    int nThreads = 8;
+    int nOps = 20000;
+    ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+    List<Future<?>> futs = new ArrayList<>();
+    for (int t = 0; t < nThreads; t++) {
+      int seed = t;
+      futs.add(exec.submit(() -> {
+	Random rnd = new Random(seed);
+	for (int ix = 0; ix < nOps; ix++) {
+	  int key = rnd.nextInt(max * 2);
+	  Integer val = map.get(key);
+	  if (val != null) {
+	    assertEquals(key, val.intValue());
+	  } else {
+	    map.put(key, key);
+	  }
+	  if (ix % 1000 == 0) {
+	    map.remove(rnd.nextInt(max * 2));
+	  }
+	}
+      }));
+    }
+    for (Future<?> fut : futs) {
+      fut.get(60, TimeUnit.SECONDS);
+    }
+    exec.shutdown();
+    assertTrue(map.size() <= max);
+    List<Integer> keys = map.keys();
+    assertEquals(map.size(), keys.size());
+    assertEquals(keys.size(), new HashSet<>(keys).size());
+    assertTrue(evictions.get() > 0);
+  }
+}
@@ -231,6 +231,78 @@ public class TestStripedExecutorService {
     }
 
 
+    @Test
+    public void testWaitForStripeToEmpty() throws InterruptedException {
+        StripedExecutorService pool = new StripedExecutorService();
+        Object stripe = new Object();
+        assertTrue(pool.waitForStripeToEmpty(stripe));
+        AtomicInteger actual = new AtomicInteger(0);
+        for (int i = 0; i < 10; i++) {
+            pool.submit(new TestRunnable(stripe, actual, i));
+        }
+        assertTrue(pool.waitForStripeToEmpty(stripe));
+        assertEquals(10, actual.intValue());
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertTrue(pool.isTerminated());
+    }
+
+    // Stripes repeatedly drain (retiring their SerialExecutor) and are
+    // resubmitted to, from several threads; tasks within a stripe must
+    // still never overlap.
+    @Test
+    public void testStripeChurn() throws Exception {
+        final StripedExecutorService pool = new StripedExecutorService(8);
+        final int nStripes = 4;
+        final Object[] stripeObjs = new Object[nStripes];
+        final AtomicInteger[] running = new AtomicInteger[nStripes];
+        for (int i = 0; i < nStripes; i++) {
+            stripeObjs[i] = new Object();
+            running[i] = new AtomicInteger(0);
+        }
+        final AtomicBoolean overlap = new AtomicBoolean(false);
+        final AtomicInteger done = new AtomicInteger(0);
+        ExecutorService producerPool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futs = new ArrayList<>();
+        for (int p = 0; p < 8; p++) {
+            futs.add(producerPool.submit(new Runnable() {
+                public void run() {
+                    ThreadLocalRandom rand = ThreadLocalRandom.current();
+                    for (int i = 0; i < 2000; i++) {
+                        final int ix = rand.nextInt(nStripes);
+                        pool.execute(new StripedRunnable() {
+                            public Object getStripe() {
+                                return stripeObjs[ix];
+                            }
+                            public void run() {
+                                if (running[ix].incrementAndGet() != 1) {
+                                    overlap.set(true);
+                                }
+                                running[ix].decrementAndGet();
+                                done.incrementAndGet();
+                            }
+                        });
+                    }
+                }
+            }));
+        }
+        for (Future<?> fut : futs) {
+            fut.get(1, TimeUnit.MINUTES);
+        }
+        producerPool.shutdown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+        assertFalse("Tasks in a stripe overlapped", overlap.get());
+        assertEquals(8 * 2000, done.get());
+        try {
+            pool.execute(new TestFastRunnable(stripeObjs[0],
+                                              new AtomicInteger(0), 0));
+            fail("Expected RejectedExecutionException after shutdown");
+        } catch (RejectedExecutionException e) {
+        }
+    }
+
+
     public static class TestRunnable implements StripedRunnable {
         private final Object stripe;
         private final AtomicInteger stripeSequence;
@@ -0,0 +1,88 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.io;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.*;
+import org.lockss.util.test.*;
+import org.apache.commons.io.IOUtils;
+
+public class TestByteBufferInputStream extends LockssTestCase5 {
+
+  ByteBuffer directBuf(String s) {
+    byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+    ByteBuffer buf = ByteBuffer.allocateDirect(bytes.length);
+    buf.put(bytes);
+    buf.flip();
+    return buf;
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    ByteBuffer buf = directBuf("12345678");
+    InputStream in = new ByteBufferInputStream(buf);
+    assertEquals(8, in.available());
+    assertEquals('1', in.read());
+    byte[] b = new byte[5];
+    assertEquals(5, in.read(b, 0, 5));
+    assertEquals("23456", new String(b, StandardCharsets.US_ASCII));
+    assertEquals(2, in.read(b, 0, 5));
+    assertEquals(-1, in.read(b, 0, 5));
+    assertEquals(-1, in.read());
+    assertEquals(0, in.available());
+    // Buffer itself is unaffected
+    assertEquals(0, buf.position());
+    assertEquals(8, buf.remaining());
+  }
+
+  @Test
+  public void testIndependentStreams() throws IOException {
+    ByteBuffer buf = directBuf("foobar");
+    InputStream in1 = new ByteBufferInputStream(buf);
+    InputStream in2 = new ByteBufferInputStream(buf);
+    assertEquals(3, in1.skip(3));
+    assertEquals("bar", IOUtils.toString(in1, StandardCharsets.US_ASCII));
+    assertEquals("foobar", IOUtils.toString(in2, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testMark() throws IOException {
+    InputStream in = new ByteBufferInputStream(directBuf("abcdef"));
+    assertTrue(in.markSupported());
+    in.read();
+    in.mark(100);
+    assertEquals('b', in.read());
+    assertEquals('c', in.read());
+    in.reset();
+    assertEquals("bcdef", IOUtils.toString(in, StandardCharsets.US_ASCII));
+  }
+
+}
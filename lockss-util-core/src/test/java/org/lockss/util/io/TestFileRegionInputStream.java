@@ -0,0 +1,136 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Permission is hereby granted, free of charge, to any person obtaining a copy
+of this software and associated documentation files (the "Software"), to deal
+in the Software without restriction, including without limitation the rights
+to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+copies of the Software, and to permit persons to whom the Software is
+furnished to do so, subject to the following conditions:
+
+The above copyright notice and this permission notice shall be included in
+all copies or substantial portions of the Software.
+
+THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+Except as contained in this notice, the name of Stanford University shall not
+be used in advertising or otherwise to promote the sale, use or other dealings
+in this Software without prior written authorization from Stanford University.
+
+*/
+
+package org.lockss.util.io;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.*;
+import org.lockss.util.test.*;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+
+public class TestFileRegionInputStream extends LockssTestCase5 {
+
+  File writeFile(String s) throws IOException {
+    File file = getTempFile("region", ".txt");
+    FileTestUtil.writeFile(file, s);
+    return file;
+  }
+
+  @Test
+  public void testRead() throws IOException {
+    File file = writeFile("0123456789");
+    FileRegionInputStream in = new FileRegionInputStream(file, 2, 6);
+    assertEquals(file, in.getFile());
+    assertEquals(2, in.getPosition());
+    assertEquals(6, in.getRemaining());
+    assertEquals(6, in.available());
+    assertEquals('2', in.read());
+    byte[] b = new byte[4];
+    assertEquals(4, in.read(b, 0, 4));
+    assertEquals("3456", new String(b, StandardCharsets.US_ASCII));
+    assertEquals(1, in.read(b, 0, 4));
+    assertEquals('7', b[0]);
+    assertEquals(-1, in.read(b, 0, 4));
+    assertEquals(-1, in.read());
+    assertEquals(0, in.getRemaining());
+    in.close();
+    assertThrows(IOException.class, () -> in.read());
+
+    // Region extending past EOF is truncated
+    assertEquals("89", IOUtils.toString(new FileRegionInputStream(file, 8, 10),
+                                        StandardCharsets.US_ASCII));
+    assertEquals("0123456789",
+                 IOUtils.toString(new FileRegionInputStream(file),
+                                  StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testLargeRead() throws IOException {
+    String s = StringUtils.repeat("abcdefghij", 3000);
+    File file = writeFile(s);
+    FileRegionInputStream in = new FileRegionInputStream(file);
+    assertEquals('a', in.read());
+    // Smaller than the buffer, larger than what's buffered
+    byte[] b = new byte[FileRegionInputStream.BUFFER_SIZE * 2];
+    int n = in.read(b, 0, 100);
+    assertEquals(100, n);
+    assertEquals(s.substring(1, 101), new String(b, 0, n, StandardCharsets.US_ASCII));
+    // Drain the buffer then read directly
+    StringBuilder sb = new StringBuilder(s.substring(0, 101));
+    while ((n = in.read(b, 0, b.length)) > 0) {
+      sb.append(new String(b, 0, n, StandardCharsets.US_ASCII));
+    }
+    assertEquals(s, sb.toString());
+  }
+
+  @Test
+  public void testMarkSkip() throws IOException {
+    FileRegionInputStream in = new FileRegionInputStream(writeFile("abcdef"));
+    assertTrue(in.markSupported());
+    in.read();
+    in.mark(100);
+    assertEquals('b', in.read());
+    assertEquals(2, in.skip(2));
+    assertEquals('e', in.read());
+    in.reset();
+    assertEquals("bcdef", IOUtils.toString(in, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testTransferTo() throws IOException {
+    File file = writeFile("0123456789");
+    FileRegionInputStream in = new FileRegionInputStream(file, 1, 8);
+    assertEquals('1', in.read());
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    assertEquals(7, in.transferTo(baos));
+    assertEquals("2345678", baos.toString(StandardCharsets.US_ASCII));
+    assertEquals(0, in.getRemaining());
+
+    File out = getTempFile("out", ".txt");
+    try (FileOutputStream fos = new FileOutputStream(out)) {
+      assertEquals(10, new FileRegionInputStream(file).transferTo(fos));
+    }
+    assertEquals("0123456789",
+                 FileUtils.readFileToString(out, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  public void testCloseAction() throws IOException {
+    File file = writeFile("abc");
+    FileRegionInputStream in = new FileRegionInputStream(file)
+      .setCloseAction(() -> file.delete());
+    assertEquals("abc", IOUtils.toString(in, StandardCharsets.US_ASCII));
+    assertTrue(file.exists());
+    in.close();
+    assertFalse(file.exists());
+  }
+
+}
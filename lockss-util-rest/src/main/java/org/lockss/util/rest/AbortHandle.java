@@ -0,0 +1,131 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import org.apache.hc.core5.concurrent.Cancellable;
+
+/**
+ * Allows the HTTP exchange made by a thread to be aborted from another
+ * thread, closing its connection rather than waiting for the response or
+ * reading the rest of the response body.  While a handle is bound to a
+ * thread, requests made through a {@link RestTransport} request factory
+ * are registered with it, and with any handle it was bound within.
+ * Requests made by RestTemplates with other request factories can't be
+ * aborted.
+ */
+class AbortHandle {
+  private static final ThreadLocal<AbortHandle> current = new ThreadLocal<>();
+
+  private AbortHandle parent;
+  private Cancellable request;
+  private boolean aborted = false;
+  private boolean finished = false;
+
+  /** Bind this handle to the current thread until the returned scope is
+   * closed */
+  Scope bind() {
+    parent = current.get();
+    current.set(this);
+    return new Scope(parent);
+  }
+
+  /** Register the request with the handles bound to the current thread */
+  static void register(Cancellable req) {
+    for (AbortHandle h = current.get(); h != null; h = h.parent) {
+      h.setRequest(req);
+    }
+  }
+
+  private void setRequest(Cancellable req) {
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      request = req;
+      if (!aborted) {
+        return;
+      }
+    }
+    req.cancel();
+  }
+
+  /**
+   * Abort the registered request, and any registered later.  Has no
+   * effect once {@link #finish()} has been called.
+   *
+   * @return true if the handle hadn't already finished
+   */
+  boolean abort() {
+    Cancellable req;
+    synchronized (this) {
+      if (finished) {
+        return false;
+      }
+      aborted = true;
+      req = request;
+    }
+    if (req != null) {
+      req.cancel();
+    }
+    return true;
+  }
+
+  /**
+   * Stop tracking the request; subsequent calls to {@link #abort()} have
+   * no effect.
+   *
+   * @return true if the handle was aborted before it finished
+   */
+  synchronized boolean finish() {
+    finished = true;
+    request = null;
+    return aborted;
+  }
+
+  synchronized boolean isAborted() {
+    return aborted;
+  }
+
+  /** Restores the previously bound handle when closed */
+  static class Scope implements AutoCloseable {
+    private final AbortHandle prev;
+
+    private Scope(AbortHandle prev) {
+      this.prev = prev;
+    }
+
+    @Override
+    public void close() {
+      if (prev == null) {
+        current.remove();
+      } else {
+        current.set(prev);
+      }
+    }
+  }
+}
@@ -0,0 +1,153 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import org.lockss.log.L4JLogger;
+import org.lockss.util.time.TimeBase;
+
+/**
+ * Circuit breaker for a REST service.  After {@code failureThreshold}
+ * consecutive failures the circuit opens, and requests are refused
+ * without being sent for {@code openDuration} milliseconds.  Then a
+ * single trial request is allowed (half-open); if it succeeds the
+ * circuit closes, otherwise it opens again.
+ */
+public class CircuitBreaker {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  public enum State {CLOSED, OPEN, HALF_OPEN}
+
+  private final String name;
+  private final int failureThreshold;
+  private final long openDuration;
+
+  private State state = State.CLOSED;
+  private int consecutiveFailures = 0;
+  private long openUntil = 0;
+  private boolean trialInFlight = false;
+  private long timesOpened = 0;
+  private long rejected = 0;
+
+  /**
+   * @param name             name of the service, for logging
+   * @param failureThreshold number of consecutive failures that opens the
+   *                         circuit
+   * @param openDuration     time in milliseconds the circuit stays open
+   *                         before a trial request is allowed
+   */
+  public CircuitBreaker(String name, int failureThreshold, long openDuration) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("Failure threshold must be at least 1");
+    }
+    this.name = name;
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+  }
+
+  /**
+   * Return true if a request may be sent.  If true is returned, the
+   * outcome must be reported with {@link #onSuccess()} or {@link
+   * #onFailure()}.
+   */
+  public synchronized boolean tryAcquire() {
+    switch (state) {
+    case CLOSED:
+      return true;
+    case OPEN:
+      if (TimeBase.nowMs() >= openUntil) {
+        log.debug("Circuit half-open: {}", name);
+        state = State.HALF_OPEN;
+        trialInFlight = true;
+        return true;
+      }
+      break;
+    case HALF_OPEN:
+      if (!trialInFlight) {
+        trialInFlight = true;
+        return true;
+      }
+      break;
+    }
+    rejected++;
+    return false;
+  }
+
+  /** Record a request that reached the service */
+  public synchronized void onSuccess() {
+    if (state != State.CLOSED) {
+      log.info("Circuit closed: {}", name);
+    }
+    state = State.CLOSED;
+    consecutiveFailures = 0;
+    trialInFlight = false;
+  }
+
+  /** Record a request that failed because the service is unavailable */
+  public synchronized void onFailure() {
+    consecutiveFailures++;
+    trialInFlight = false;
+    if (state == State.HALF_OPEN
+        || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+      if (state == State.CLOSED) {
+        log.warn("Circuit opened after {} failures: {}",
+                 consecutiveFailures, name);
+      }
+      state = State.OPEN;
+      openUntil = TimeBase.nowMs() + openDuration;
+      timesOpened++;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  public synchronized int getConsecutiveFailures() {
+    return consecutiveFailures;
+  }
+
+  /** Number of times the circuit has opened */
+  public synchronized long getTimesOpened() {
+    return timesOpened;
+  }
+
+  /** Number of requests refused while the circuit was open */
+  public synchronized long getRejected() {
+    return rejected;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public synchronized String toString() {
+    return "[CircuitBreaker: " + name + ", " + state + ", failures: "
+      + consecutiveFailures + "]";
+  }
+}
@@ -0,0 +1,663 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.exception.LockssRestCircuitOpenException;
+import org.lockss.util.rest.exception.LockssRestException;
+import org.lockss.util.rest.exception.LockssRestHttpException;
+import org.lockss.util.rest.exception.LockssRestNetworkException;
+import org.lockss.util.time.Deadline;
+import org.lockss.util.time.TimerUtil;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiPredicate;
+
+/**
+ * Determines how {@link RestUtil} makes a REST call: which failures are
+ * retried and after what backoff, whether to fail fast while a service is
+ * down (circuit breakers), and whether to hedge slow idempotent GETs by
+ * sending a second request.  All calls also honor the {@link Deadline} set
+ * for the current thread with {@link #withDeadline(Deadline)}.
+ * <p>
+ * A policy may be shared by several clients, in which case they share its
+ * circuit breakers and latency statistics, which are kept per service
+ * (scheme, host and port).  It's made pluggable with {@link
+ * RestBaseClient#setResiliencePolicy(ResiliencePolicy)} and {@code
+ * RestLockssRepository.setResiliencePolicy()}.  Clients without one use
+ * {@link #fixedBackoffs(long[])} with {@link
+ * RestUtil#DEFAULT_RETRY_BACKOFFS}.
+ */
+public class ResiliencePolicy {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  public static final long DEFAULT_INITIAL_BACKOFF = 250;
+  public static final long DEFAULT_MAX_BACKOFF = 10000;
+  public static final double DEFAULT_BACKOFF_MULTIPLIER = 2.0;
+  public static final int DEFAULT_MAX_RETRIES = 3;
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+  public static final long DEFAULT_OPEN_DURATION = 10000;
+  public static final long DEFAULT_HEDGE_DELAY = 1000;
+  public static final long DEFAULT_MIN_HEDGE_DELAY = 20;
+  public static final double DEFAULT_HEDGE_PERCENTILE = 0.95;
+
+  // Number of latency samples kept per service, and needed before the
+  // percentile is used as the hedge delay
+  static final int LATENCY_SAMPLES = 256;
+  static final int MIN_LATENCY_SAMPLES = 20;
+
+  // Max number of threads making hedged calls.  When all are busy, calls
+  // are made unhedged in the caller's thread.
+  static final int MAX_HEDGE_THREADS = 64;
+
+  /** Computes the delay before a retry */
+  @FunctionalInterface
+  public interface Backoff {
+    /**
+     * @param retry the number of retries already made
+     * @return the delay in milliseconds before the next retry, or a
+     * negative number if no more retries should be made
+     */
+    long getDelay(int retry);
+
+    /** Successive delays from a fixed array */
+    static Backoff fixed(long[] backoffs) {
+      long[] copy = backoffs.clone();
+      return retry -> retry < copy.length ? copy[retry] : -1;
+    }
+
+    /** Exponentially increasing delays with "full jitter": each delay is
+     * uniformly random between 0 and min(max, initial * multiplier^retry) */
+    static Backoff exponential(long initial, double multiplier, long max,
+                               int maxRetries) {
+      return retry -> {
+        if (retry >= maxRetries) {
+          return -1;
+        }
+        double ceil = Math.min(max, initial * Math.pow(multiplier, retry));
+        return (long)(ThreadLocalRandom.current().nextDouble() * ceil);
+      };
+    }
+  }
+
+  private Backoff backoff =
+    Backoff.exponential(DEFAULT_INITIAL_BACKOFF, DEFAULT_BACKOFF_MULTIPLIER,
+                        DEFAULT_MAX_BACKOFF, DEFAULT_MAX_RETRIES);
+  private BiPredicate<HttpMethod, LockssRestException> retryable =
+    ResiliencePolicy::isRetryable;
+
+  private boolean circuitBreakerEnabled = true;
+  private int failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+  private long openDuration = DEFAULT_OPEN_DURATION;
+
+  private boolean hedgingEnabled = false;
+  private long defaultHedgeDelay = DEFAULT_HEDGE_DELAY;
+  private long minHedgeDelay = DEFAULT_MIN_HEDGE_DELAY;
+  private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+
+  private final Map<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+  private final Map<String, LatencyTracker> latencies = new ConcurrentHashMap<>();
+
+  private final LongAdder retries = new LongAdder();
+  private final LongAdder hedges = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+
+  private static final ThreadLocal<Deadline> threadDeadline = new ThreadLocal<>();
+
+  private static volatile ExecutorService hedgeExecutor;
+  private static volatile ScheduledExecutorService deadlineTimer;
+
+  /** Create a policy with exponential backoff with jitter, circuit
+   * breakers enabled and hedging disabled. */
+  public ResiliencePolicy() {
+  }
+
+  /**
+   * Return a policy that behaves as RestUtil always has: connection
+   * failures are retried after successive delays from {@code backoffs},
+   * with no circuit breaker or hedging.
+   */
+  public static ResiliencePolicy fixedBackoffs(long[] backoffs) {
+    return new ResiliencePolicy()
+      .setBackoff(Backoff.fixed(backoffs))
+      .setRetryable((method, e) -> (e instanceof LockssRestNetworkException)
+                    && RestUtil.isRetryableException(e))
+      .setCircuitBreakerEnabled(false);
+  }
+
+  public ResiliencePolicy setBackoff(Backoff backoff) {
+    this.backoff = backoff;
+    return this;
+  }
+
+  /** Set the predicate that determines which failures are retried */
+  public ResiliencePolicy setRetryable(BiPredicate<HttpMethod, LockssRestException> retryable) {
+    this.retryable = retryable;
+    return this;
+  }
+
+  public ResiliencePolicy setCircuitBreakerEnabled(boolean enabled) {
+    this.circuitBreakerEnabled = enabled;
+    return this;
+  }
+
+  /**
+   * Set the circuit breaker parameters.  Circuit breakers created
+   * previously are unaffected.
+   *
+   * @param failureThreshold number of consecutive failures that opens a
+   *                         service's circuit
+   * @param openDuration     milliseconds before a trial request is allowed
+   */
+  public ResiliencePolicy setCircuitBreaker(int failureThreshold,
+                                            long openDuration) {
+    this.failureThreshold = failureThreshold;
+    this.openDuration = openDuration;
+    this.circuitBreakerEnabled = true;
+    return this;
+  }
+
+  /** If true, idempotent GETs that haven't completed after the hedge
+   * delay are sent again, and the first response is used. */
+  public ResiliencePolicy setHedgingEnabled(boolean enabled) {
+    this.hedgingEnabled = enabled;
+    return this;
+  }
+
+  /**
+   * Set the hedging parameters.
+   *
+   * @param percentile   the percentile of the service's recent successful
+   *                     GET latencies to use as the hedge delay
+   * @param defaultDelay the hedge delay to use until enough latencies have
+   *                     been recorded
+   * @param minDelay     the minimum hedge delay
+   */
+  public ResiliencePolicy setHedging(double percentile, long defaultDelay,
+                                     long minDelay) {
+    this.hedgePercentile = percentile;
+    this.defaultHedgeDelay = defaultDelay;
+    this.minHedgeDelay = minDelay;
+    this.hedgingEnabled = true;
+    return this;
+  }
+
+  /** Return the circuit breaker for the service at the URI, or null if
+   * circuit breakers are disabled */
+  public CircuitBreaker getCircuitBreaker(URI uri) {
+    if (!circuitBreakerEnabled) {
+      return null;
+    }
+    String key = serviceKey(uri);
+    return breakers.computeIfAbsent(key,
+                                    k -> new CircuitBreaker(k, failureThreshold,
+                                                            openDuration));
+  }
+
+  /** Number of retries made */
+  public long getRetries() {
+    return retries.sum();
+  }
+
+  /** Number of hedge requests sent */
+  public long getHedges() {
+    return hedges.sum();
+  }
+
+  /** Number of hedge requests whose response was used */
+  public long getHedgeWins() {
+    return hedgeWins.sum();
+  }
+
+  static String serviceKey(URI uri) {
+    return uri.getScheme() + "://" + uri.getHost() + ":" + uri.getPort();
+  }
+
+  /**
+   * Default retry predicate.  Failures to connect are retried for all
+   * methods, as the request wasn't sent.  For GET, HEAD and OPTIONS, other
+   * network errors and 502, 503 and 504 responses are also retried.
+   */
+  public static boolean isRetryable(HttpMethod method, LockssRestException e) {
+    return isRetryable(method, e, false);
+  }
+
+  /**
+   * Retry predicate that also retries PUT and DELETE after network errors
+   * other than connection failures, and after 502, 503 and 504 responses.
+   * The request may have been carried out, so use this (with {@link
+   * #setRetryable(BiPredicate)}) only for services whose PUT and DELETE
+   * operations can safely be repeated.
+   */
+  public static boolean isRetryableIdempotent(HttpMethod method,
+                                              LockssRestException e) {
+    return isRetryable(method, e, true);
+  }
+
+  private static boolean isRetryable(HttpMethod method, LockssRestException e,
+                                     boolean retryIdempotent) {
+    if (e instanceof LockssRestCircuitOpenException) {
+      return false;
+    }
+    if (e instanceof LockssRestNetworkException
+        && RestUtil.isRetryableException(e)) {
+      return true;
+    }
+    if (!(isSafe(method) || (retryIdempotent && isIdempotent(method)))) {
+      return false;
+    }
+    return e instanceof LockssRestNetworkException || isUnavailable(e);
+  }
+
+  static boolean isSafe(HttpMethod method) {
+    return method == HttpMethod.GET || method == HttpMethod.HEAD
+      || method == HttpMethod.OPTIONS;
+  }
+
+  static boolean isIdempotent(HttpMethod method) {
+    return isSafe(method) || method == HttpMethod.PUT
+      || method == HttpMethod.DELETE;
+  }
+
+  // True if the exception is a response indicating the service is down or
+  // overloaded
+  static boolean isUnavailable(LockssRestException e) {
+    if (e instanceof LockssRestHttpException) {
+      HttpStatusCode status = ((LockssRestHttpException)e).getHttpStatus();
+      if (status != null) {
+        int code = status.value();
+        return code == 502 || code == 503 || code == 504;
+      }
+    }
+    return false;
+  }
+
+  // True if the exception should count against the service's circuit
+  // breaker.  Other HTTP errors show that the service is up.
+  static boolean isServiceFailure(LockssRestException e) {
+    return e instanceof LockssRestNetworkException || isUnavailable(e);
+  }
+
+  /**
+   * Make the call according to this policy.
+   *
+   * @param uri       the request URI
+   * @param method    the request method
+   * @param operation the operation name, under which retries are
+   *                  recorded in {@link RestMetrics}
+   * @param hedgeable true if the call may be made twice concurrently,
+   *                  <i>ie</i>, it doesn't hold a connection after it
+   *                  returns
+   * @param call      a single attempt at the call
+   */
+  <T> T execute(URI uri, HttpMethod method, String operation,
+                boolean hedgeable, RestUtil.RestCall<T> call)
+      throws LockssRestException {
+    Deadline deadline = getDeadline();
+    CircuitBreaker breaker = getCircuitBreaker(uri);
+    boolean hedge = hedgingEnabled && hedgeable && method == HttpMethod.GET;
+    int retry = 0;
+    while (true) {
+      if (deadline != null && deadline.expired()) {
+        throw new LockssRestNetworkException("Deadline expired before "
+                                             + method + " " + uri);
+      }
+      if (breaker != null && !breaker.tryAcquire()) {
+        throw new LockssRestCircuitOpenException("Circuit open, not sending "
+                                                 + method + " " + uri);
+      }
+      long start = System.nanoTime();
+      try {
+        T res = hedge ? callHedged(uri, deadline, call)
+          : callWithDeadline(uri, method, deadline, call);
+        if (breaker != null) {
+          breaker.onSuccess();
+        }
+        if (method == HttpMethod.GET) {
+          getLatencyTracker(uri)
+            .record(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        }
+        return res;
+      } catch (RuntimeException e) {
+        // Don't leave a half-open circuit waiting for the trial's outcome
+        if (breaker != null) {
+          breaker.onFailure();
+        }
+        throw e;
+      } catch (LockssRestException e) {
+        if (breaker != null) {
+          if (isServiceFailure(e)) {
+            breaker.onFailure();
+          } else {
+            breaker.onSuccess();
+          }
+        }
+        long delay = retryable.test(method, e) ? backoff.getDelay(retry) : -1;
+        if (delay < 0) {
+          throw e;
+        }
+        if (deadline != null && deadline.getRemainingTime() <= delay) {
+          log.debug("Not retrying {} {}, deadline too soon", method, uri);
+          throw e;
+        }
+        retry++;
+        retries.increment();
+        RestMetrics.getInstance().recordRetry(operation);
+        log.debug("Retrying {} {} after waiting {}, due to {}",
+                  method, uri, delay, e.toString());
+        try {
+          TimerUtil.sleep(delay);
+        } catch (InterruptedException ie) {
+          // If interrupted, throw the last failure exception
+          throw e;
+        }
+      }
+    }
+  }
+
+  // Make the call in the current thread, aborting its exchange if the
+  // deadline expires first
+  private <T> T callWithDeadline(URI uri, HttpMethod method, Deadline deadline,
+                                 RestUtil.RestCall<T> call)
+      throws LockssRestException {
+    if (deadline == null) {
+      return call.call();
+    }
+    AbortHandle handle = new AbortHandle();
+    ScheduledFuture<?> timer =
+      getDeadlineTimer().schedule(handle::abort, deadline.getRemainingTime(),
+                                  TimeUnit.MILLISECONDS);
+    try (AbortHandle.Scope scope = handle.bind()) {
+      return call.call();
+    } catch (LockssRestException e) {
+      if (handle.isAborted()) {
+        throw new LockssRestNetworkException("Deadline expired during "
+                                             + method + " " + uri, e);
+      }
+      throw e;
+    } finally {
+      handle.finish();
+      timer.cancel(false);
+    }
+  }
+
+  // Make the call in a worker thread; if it hasn't completed after the
+  // hedge delay, make it again in another, and return the first success.
+  // No wait extends past the deadline, and the exchanges still in progress
+  // when this returns are aborted.
+  private <T> T callHedged(URI uri, Deadline deadline,
+                           RestUtil.RestCall<T> call)
+      throws LockssRestException {
+    long delay = getHedgeDelay(uri);
+    CompletionService<T> ecs =
+      new ExecutorCompletionService<>(getHedgeExecutor());
+    AbortHandle primaryHandle = new AbortHandle();
+    AbortHandle secondHandle = new AbortHandle();
+    Future<T> primary;
+    try {
+      primary = ecs.submit(hedgeTask(deadline, primaryHandle, call));
+    } catch (RejectedExecutionException e) {
+      log.debug2("Hedge threads busy, not hedging GET {}", uri);
+      return callWithDeadline(uri, HttpMethod.GET, deadline, call);
+    }
+    Future<T> second = null;
+    LockssRestException firstFailure = null;
+    try {
+      int outstanding = 1;
+      Future<T> done = ecs.poll(boundedWait(delay, deadline),
+                                TimeUnit.MILLISECONDS);
+      if (done == null && (deadline == null || !deadline.expired())) {
+        try {
+          second = ecs.submit(hedgeTask(deadline, secondHandle, call));
+          log.debug2("Hedging GET {} after {}ms", uri, delay);
+          hedges.increment();
+          outstanding++;
+        } catch (RejectedExecutionException e) {
+          log.debug2("Hedge threads busy, not hedging GET {}", uri);
+        }
+      }
+      while (outstanding > 0) {
+        if (done == null) {
+          done = deadline == null ? ecs.take()
+            : ecs.poll(deadline.getRemainingTime(), TimeUnit.MILLISECONDS);
+          if (done == null) {
+            throw new LockssRestNetworkException("Deadline expired during GET "
+                                                 + uri);
+          }
+        }
+        outstanding--;
+        try {
+          T res = done.get();
+          if (done == second) {
+            hedgeWins.increment();
+          }
+          return res;
+        } catch (ExecutionException e) {
+          LockssRestException lre = toLockssRestException(e.getCause());
+          if (firstFailure == null) {
+            firstFailure = lre;
+          }
+        }
+        done = null;
+      }
+      throw firstFailure;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new LockssRestNetworkException("Interrupted waiting for " + uri, e);
+    } finally {
+      // Interrupting the worker doesn't stop a blocking socket read, so
+      // also abort the exchange.  No effect on one that's finished.
+      primaryHandle.abort();
+      secondHandle.abort();
+      primary.cancel(true);
+      if (second != null) {
+        second.cancel(true);
+      }
+    }
+  }
+
+  private static <T> Callable<T> hedgeTask(Deadline deadline,
+                                           AbortHandle handle,
+                                           RestUtil.RestCall<T> call) {
+    return () -> {
+      try (DeadlineScope ds = withDeadline(deadline);
+           AbortHandle.Scope as = handle.bind()) {
+        return call.call();
+      } finally {
+        handle.finish();
+      }
+    };
+  }
+
+  // Return the time to wait, limited to the time remaining before the
+  // deadline
+  private static long boundedWait(long wait, Deadline deadline) {
+    return deadline == null ? wait
+      : Math.min(wait, deadline.getRemainingTime());
+  }
+
+  private static LockssRestException toLockssRestException(Throwable t) {
+    if (t instanceof LockssRestException) {
+      return (LockssRestException)t;
+    }
+    if (t instanceof RuntimeException) {
+      throw (RuntimeException)t;
+    }
+    if (t instanceof Error) {
+      throw (Error)t;
+    }
+    return new LockssRestNetworkException(t);
+  }
+
+  /** Return the delay after which a GET to the service at the URI is
+   * hedged */
+  long getHedgeDelay(URI uri) {
+    LatencyTracker tracker = latencies.get(serviceKey(uri));
+    long res = tracker == null ? -1 : tracker.percentile(hedgePercentile);
+    if (res < 0) {
+      res = defaultHedgeDelay;
+    }
+    return Math.max(res, minHedgeDelay);
+  }
+
+  private LatencyTracker getLatencyTracker(URI uri) {
+    return latencies.computeIfAbsent(serviceKey(uri),
+                                     k -> new LatencyTracker(LATENCY_SAMPLES));
+  }
+
+  private static ExecutorService getHedgeExecutor() {
+    if (hedgeExecutor == null) {
+      synchronized (ResiliencePolicy.class) {
+        if (hedgeExecutor == null) {
+          // Grows to MAX_HEDGE_THREADS, then rejects tasks rather than
+          // queueing them behind slow calls
+          hedgeExecutor =
+            new ThreadPoolExecutor(0, MAX_HEDGE_THREADS,
+                                   60, TimeUnit.SECONDS,
+                                   new SynchronousQueue<>(),
+                                   r -> {
+                                     Thread th = new Thread(r, "RestHedge");
+                                     th.setDaemon(true);
+                                     return th;
+                                   });
+        }
+      }
+    }
+    return hedgeExecutor;
+  }
+
+  private static ScheduledExecutorService getDeadlineTimer() {
+    if (deadlineTimer == null) {
+      synchronized (ResiliencePolicy.class) {
+        if (deadlineTimer == null) {
+          ScheduledThreadPoolExecutor exec =
+            new ScheduledThreadPoolExecutor(1, r -> {
+                Thread th = new Thread(r, "RestDeadline");
+                th.setDaemon(true);
+                return th;
+              });
+          // Most calls finish before their deadline; don't let the
+          // cancelled aborts accumulate in the queue
+          exec.setRemoveOnCancelPolicy(true);
+          deadlineTimer = exec;
+        }
+      }
+    }
+    return deadlineTimer;
+  }
+
+  /** The most recent latencies of successful calls to a service */
+  static class LatencyTracker {
+    private final long[] samples;
+    private int count = 0;
+    private int next = 0;
+
+    LatencyTracker(int size) {
+      samples = new long[size];
+    }
+
+    synchronized void record(long latency) {
+      samples[next] = latency;
+      next = (next + 1) % samples.length;
+      if (count < samples.length) {
+        count++;
+      }
+    }
+
+    /** Return the percentile (0.0 - 1.0) of the recorded latencies, or
+     * -1 if too few have been recorded */
+    long percentile(double p) {
+      long[] sorted;
+      synchronized (this) {
+        if (count < Math.min(MIN_LATENCY_SAMPLES, samples.length)) {
+          return -1;
+        }
+        sorted = Arrays.copyOf(samples, count);
+      }
+      Arrays.sort(sorted);
+      int ix = (int)Math.ceil(p * sorted.length) - 1;
+      return sorted[Math.max(0, Math.min(ix, sorted.length - 1))];
+    }
+  }
+
+  /**
+   * Set the deadline by which REST calls made by the current thread must
+   * complete, until the returned scope is closed.  Calls aren't started,
+   * and failures aren't retried, if the deadline has passed or would pass
+   * during the backoff.  If a deadline is already in effect, the earlier
+   * of the two applies.  Hedged requests inherit the deadline.  A call
+   * still in progress when the deadline passes is aborted, if its
+   * RestTemplate uses a {@link RestTransport} request factory.
+   * <pre>
+   *   try (ResiliencePolicy.DeadlineScope scope =
+   *          ResiliencePolicy.withDeadline(Deadline.in(5 * Constants.SECOND))) {
+   *     ...
+   *   }
+   * </pre>
+   *
+   * @param deadline the deadline, or null to leave the current one (if
+   *                 any) in effect
+   */
+  public static DeadlineScope withDeadline(Deadline deadline) {
+    Deadline prev = threadDeadline.get();
+    if (deadline != null) {
+      threadDeadline.set(prev == null ? deadline
+                         : Deadline.earliest(prev, deadline));
+    }
+    return new DeadlineScope(prev);
+  }
+
+  /** Return the deadline in effect for the current thread, or null */
+  public static Deadline getDeadline() {
+    return threadDeadline.get();
+  }
+
+  /** Restores the previous deadline when closed */
+  public static class DeadlineScope implements AutoCloseable {
+    private final Deadline prev;
+
+    private DeadlineScope(Deadline prev) {
+      this.prev = prev;
+    }
+
+    @Override
+    public void close() {
+      if (prev == null) {
+        threadDeadline.remove();
+      } else {
+        threadDeadline.set(prev);
+      }
+    }
+  }
+}
@@ -81,6 +81,9 @@ public class RestBaseClient<C extends RestBaseClient<?>> {
   private long readTimeout = defaultReadTimeout;
   private RestTemplate restTemplate;
 
+  // Governs retries, circuit breaking and hedging, if set
+  private ResiliencePolicy resiliencePolicy;
+
   protected RestBaseClient(final Class<C> selfClass) {
     this.self = selfClass.cast(this);
   }
@@ -102,6 +105,18 @@ public class RestBaseClient<C extends RestBaseClient<?>> {
     return self;
   }
 
+  /** Set the policy that governs retries, circuit breaking and hedging of
+   * calls that don't specify explicit retry backoffs.  If not set, the
+   * default retry backoffs are used. */
+  public C setResiliencePolicy(ResiliencePolicy policy) {
+    this.resiliencePolicy = policy;
+    return self;
+  }
+
+  public ResiliencePolicy getResiliencePolicy() {
+    return resiliencePolicy;
+  }
+
   private RestTemplate getRestTemplate() {
     if (this.restTemplate == null) {
       this.restTemplate = RestUtil.getRestTemplate(connectTimeout, readTimeout);
@@ -146,7 +161,7 @@ public class RestBaseClient<C extends RestBaseClient<?>> {
     return callRestService(pathQuery,
                            uriVariables, queryParams,
                            httpMethod, requestHeaders, body,
-                           responseType, exceptionMessage, null);
+                           responseType, exceptionMessage, (long[])null);
   }
 
   /**
@@ -166,8 +181,10 @@ public class RestBaseClient<C extends RestBaseClient<?>> {
    * @param exceptionMessage A String with the message to be returned with any
    *                         exception.
    * @param retryBackoffs    An array of longs specifying successive intervals
-   *                         to wait between successive retries.  If null or
-   *                         empty, no retries.
+   *                         to wait between successive retries.  If empty,
+   *                         no retries.  If null, the ResiliencePolicy, if
+   *                         any, determines retries, else the default
+   *                         backoffs are used.
    * @return a ResponseEntity<U> with the response from the REST service.
    * @throws LockssRestException if any problems arise in the call to the REST
    *                             service.
@@ -199,6 +216,11 @@ public class RestBaseClient<C extends RestBaseClient<?>> {
 
     // Make the REST call.
     log.trace("Calling RestUtil.callRestService");
+    if (retryBackoffs == null && resiliencePolicy != null) {
+      return RestUtil.callRestService(getRestTemplate(), uri, httpMethod,
+          new HttpEntity<T>(body, fullRequestHeaders), responseType,
+          exceptionMessage, resiliencePolicy);
+    }
     return RestUtil.callRestService(getRestTemplate(), uri, httpMethod,
 	new HttpEntity<T>(body, fullRequestHeaders), responseType,
         exceptionMessage, retryBackoffs);
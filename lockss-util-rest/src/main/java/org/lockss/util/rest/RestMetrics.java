@@ -0,0 +1,344 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import org.lockss.util.rest.exception.LockssRestException;
+import org.lockss.util.rest.exception.LockssRestHttpException;
+import org.springframework.http.HttpStatus;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-operation latency, throughput and error statistics for REST calls.
+ * Operations are keyed by name; RestUtil uses the client exception
+ * message passed to {@code callRestService()}, which identifies the
+ * operation (<i>eg</i>, "getNamespaces", "deleteArtifact").  Recording is
+ * lock-free, so it may be done on every call.
+ * <p>
+ * Latencies are kept in a log-linear histogram with 16 sub-buckets per
+ * power of two (relative error under 7%), from which percentiles are
+ * computed when a snapshot is taken.
+ */
+public class RestMetrics {
+
+  /** Status recorded for failures that produced no HTTP response */
+  public static final int NO_RESPONSE = 0;
+
+  private static final RestMetrics INSTANCE = new RestMetrics();
+
+  private final Map<String, OpMetrics> ops = new ConcurrentHashMap<>();
+
+  /** Return the metrics recorded by RestUtil */
+  public static RestMetrics getInstance() {
+    return INSTANCE;
+  }
+
+  private OpMetrics getOp(String operation) {
+    if (operation == null) {
+      operation = "";
+    }
+    OpMetrics res = ops.get(operation);
+    if (res == null) {
+      res = ops.computeIfAbsent(operation, k -> new OpMetrics());
+    }
+    return res;
+  }
+
+  /**
+   * Record a completed call.
+   *
+   * @param operation    the operation name
+   * @param latencyNanos the call's duration in nanoseconds
+   * @param bytesOut     the number of request body bytes, or negative if
+   *                     unknown
+   * @param bytesIn      the number of response body bytes, or negative if
+   *                     unknown
+   * @param status       the HTTP status, or {@link #NO_RESPONSE}
+   * @param isError      true if the call failed
+   */
+  public void recordCall(String operation, long latencyNanos,
+                         long bytesOut, long bytesIn,
+                         int status, boolean isError) {
+    OpMetrics op = getOp(operation);
+    op.calls.increment();
+    op.latency.record(TimeUnit.NANOSECONDS.toMicros(latencyNanos));
+    if (bytesOut > 0) {
+      op.bytesOut.add(bytesOut);
+    }
+    if (bytesIn > 0) {
+      op.bytesIn.add(bytesIn);
+    }
+    if (isError) {
+      op.errors.increment();
+      LongAdder cnt = op.errorsByStatus.get(status);
+      if (cnt == null) {
+        cnt = op.errorsByStatus.computeIfAbsent(status, k -> new LongAdder());
+      }
+      cnt.increment();
+    }
+  }
+
+  /** Record a call that failed with the exception */
+  public void recordFailure(String operation, long latencyNanos,
+                            long bytesOut, LockssRestException e) {
+    int status = NO_RESPONSE;
+    if (e instanceof LockssRestHttpException) {
+      HttpStatus httpStatus = ((LockssRestHttpException)e).getHttpStatus();
+      if (httpStatus != null) {
+        status = httpStatus.value();
+      }
+    }
+    recordCall(operation, latencyNanos, bytesOut, -1, status, true);
+  }
+
+  /** Record a retry of the operation */
+  public void recordRetry(String operation) {
+    getOp(operation).retries.increment();
+  }
+
+  /** Return a snapshot of the statistics of all operations, sorted by
+   * name */
+  public SortedMap<String, OpStats> snapshot() {
+    SortedMap<String, OpStats> res = new TreeMap<>();
+    for (Map.Entry<String, OpMetrics> ent : ops.entrySet()) {
+      res.put(ent.getKey(), ent.getValue().snapshot(ent.getKey()));
+    }
+    return res;
+  }
+
+  /** Return a snapshot of the operation's statistics, or null if none
+   * have been recorded */
+  public OpStats snapshot(String operation) {
+    OpMetrics op = ops.get(operation);
+    return op == null ? null : op.snapshot(operation);
+  }
+
+  /** Discard all statistics */
+  public void reset() {
+    ops.clear();
+  }
+
+  private static class OpMetrics {
+    final LongAdder calls = new LongAdder();
+    final LongAdder errors = new LongAdder();
+    final LongAdder retries = new LongAdder();
+    final LongAdder bytesIn = new LongAdder();
+    final LongAdder bytesOut = new LongAdder();
+    final Map<Integer, LongAdder> errorsByStatus = new ConcurrentHashMap<>();
+    final Histogram latency = new Histogram();
+
+    OpStats snapshot(String name) {
+      Map<Integer, Long> byStatus = new TreeMap<>();
+      for (Map.Entry<Integer, LongAdder> ent : errorsByStatus.entrySet()) {
+        byStatus.put(ent.getKey(), ent.getValue().sum());
+      }
+      return new OpStats(name, calls.sum(), errors.sum(), retries.sum(),
+                         bytesIn.sum(), bytesOut.sum(), byStatus,
+                         latency.snapshot());
+    }
+  }
+
+  /** Immutable statistics of an operation.  Latencies are in
+   * microseconds. */
+  public static class OpStats {
+    private final String name;
+    private final long calls;
+    private final long errors;
+    private final long retries;
+    private final long bytesIn;
+    private final long bytesOut;
+    private final Map<Integer, Long> errorsByStatus;
+    private final long[] buckets;
+    private final long latencyCount;
+    private final long latencySum;
+    private final long latencyMax;
+
+    OpStats(String name, long calls, long errors, long retries,
+            long bytesIn, long bytesOut, Map<Integer, Long> errorsByStatus,
+            Histogram.Snapshot latency) {
+      this.name = name;
+      this.calls = calls;
+      this.errors = errors;
+      this.retries = retries;
+      this.bytesIn = bytesIn;
+      this.bytesOut = bytesOut;
+      this.errorsByStatus = Collections.unmodifiableMap(errorsByStatus);
+      this.buckets = latency.buckets;
+      this.latencyCount = latency.count;
+      this.latencySum = latency.sum;
+      this.latencyMax = latency.max;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getRetries() {
+      return retries;
+    }
+
+    public long getBytesIn() {
+      return bytesIn;
+    }
+
+    public long getBytesOut() {
+      return bytesOut;
+    }
+
+    /** Return the number of errors for each HTTP status.  Failures with
+     * no response are counted under {@link #NO_RESPONSE}. */
+    public Map<Integer, Long> getErrorsByStatus() {
+      return errorsByStatus;
+    }
+
+    public long getMeanLatency() {
+      return latencyCount == 0 ? 0 : latencySum / latencyCount;
+    }
+
+    public long getMaxLatency() {
+      return latencyMax;
+    }
+
+    /** Return the latency at the percentile (0.0 - 1.0) */
+    public long getLatencyPercentile(double p) {
+      return Histogram.percentile(buckets, latencyCount, p, latencyMax);
+    }
+
+    public long getP50() {
+      return getLatencyPercentile(0.50);
+    }
+
+    public long getP99() {
+      return getLatencyPercentile(0.99);
+    }
+
+    public long getP999() {
+      return getLatencyPercentile(0.999);
+    }
+
+    @Override
+    public String toString() {
+      return "[" + name + ": calls: " + calls + ", errors: " + errors
+        + (errors > 0 ? " " + errorsByStatus : "")
+        + ", retries: " + retries
+        + ", in: " + bytesIn + ", out: " + bytesOut
+        + ", p50: " + getP50() + "us, p99: " + getP99()
+        + "us, p999: " + getP999() + "us, max: " + latencyMax + "us]";
+    }
+  }
+
+  /** Lock-free log-linear histogram of non-negative values */
+  static class Histogram {
+    static final int SUB_BITS = 4;
+    static final int SUB = 1 << SUB_BITS;
+    static final int NBUCKETS = (64 - SUB_BITS) * SUB;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(NBUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    static int bucketIndex(long v) {
+      if (v < SUB) {
+        return (int)Math.max(v, 0);
+      }
+      int shift = 63 - Long.numberOfLeadingZeros(v) - SUB_BITS;
+      int sub = (int)(v >>> shift) & (SUB - 1);
+      return (shift + 1) * SUB + sub;
+    }
+
+    /** Return the largest value that falls in the bucket */
+    static long bucketMax(int index) {
+      if (index < SUB) {
+        return index;
+      }
+      int shift = index / SUB - 1;
+      long sub = index % SUB;
+      return ((SUB + sub + 1) << shift) - 1;
+    }
+
+    void record(long v) {
+      buckets.incrementAndGet(bucketIndex(v));
+      count.increment();
+      sum.add(v);
+      max.accumulate(v);
+    }
+
+    Snapshot snapshot() {
+      long[] b = new long[NBUCKETS];
+      long n = 0;
+      for (int ix = 0; ix < NBUCKETS; ix++) {
+        b[ix] = buckets.get(ix);
+        n += b[ix];
+      }
+      return new Snapshot(b, n, sum.sum(), max.get());
+    }
+
+    static long percentile(long[] buckets, long count, double p, long max) {
+      if (count == 0) {
+        return 0;
+      }
+      long rank = (long)Math.ceil(p * count);
+      long seen = 0;
+      for (int ix = 0; ix < buckets.length; ix++) {
+        seen += buckets[ix];
+        if (seen >= rank) {
+          return Math.min(bucketMax(ix), max);
+        }
+      }
+      return max;
+    }
+
+    static class Snapshot {
+      final long[] buckets;
+      final long count;
+      final long sum;
+      final long max;
+
+      Snapshot(long[] buckets, long count, long sum, long max) {
+        this.buckets = buckets;
+        this.count = count;
+        this.sum = sum;
+        this.max = max;
+      }
+    }
+  }
+}
@@ -0,0 +1,359 @@
+/*
+
+Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+all rights reserved.
+
+Redistribution and use in source and binary forms, with or without modification,
+are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation and/or
+other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+(INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+(INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.util.rest;
+
+import java.io.IOException;
+import java.util.*;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.io.SocketConfig;
+import org.apache.hc.core5.pool.PoolStats;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.Constants;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Shared HTTP transport for REST clients.  Wraps a single Apache
+ * HttpClient with a pool of persistent (keep-alive) connections, so that
+ * all RestTemplates created by {@link RestUtil} reuse connections to the
+ * same service rather than opening a new one for each request.
+ * <p>
+ * Each RestTemplate gets its own request factory, carrying its connect
+ * and read timeouts, but all share the transport's connection pool.
+ * The pool limits, idle eviction and socket options are fixed when the
+ * transport is created; use {@link #setDefault(RestTransport)} to replace
+ * the default transport used by subsequently created RestTemplates.
+ */
+public class RestTransport {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  /** Default max number of pooled connections, over all routes */
+  public static final int DEFAULT_MAX_TOTAL = 200;
+  /** Default max number of pooled connections to a single route
+   * (scheme/host/port) */
+  public static final int DEFAULT_MAX_PER_ROUTE = 50;
+  /** Default interval after which idle connections are closed */
+  public static final long DEFAULT_IDLE_EVICT = 30 * Constants.SECOND;
+  /** Default keep-alive duration, used if the server doesn't specify one */
+  public static final long DEFAULT_KEEP_ALIVE = 60 * Constants.SECOND;
+  /** Default interval of inactivity after which a pooled connection is
+   * checked for staleness before being reused */
+  public static final long DEFAULT_VALIDATE_AFTER_INACTIVITY =
+    2 * Constants.SECOND;
+  /** Default max time to wait for a connection from the pool */
+  public static final long DEFAULT_CONNECTION_REQUEST_TIMEOUT =
+    30 * Constants.SECOND;
+  public static final boolean DEFAULT_TCP_NO_DELAY = true;
+  /** Default connect timeout for the pool, used by request factories
+   * that don't specify a different one; 0 means no timeout */
+  public static final long DEFAULT_CONNECT_TIMEOUT = 0;
+
+  private static RestTransport defaultTransport;
+
+  private final Config config;
+  private final PoolingHttpClientConnectionManager connMgr;
+  private final CloseableHttpClient httpClient;
+
+  /** Create a transport with the default configuration */
+  public RestTransport() {
+    this(new Config());
+  }
+
+  /** Create a transport with the specified configuration */
+  public RestTransport(Config config) {
+    this.config = config;
+    log.debug2("config = {}", config);
+
+    connMgr = PoolingHttpClientConnectionManagerBuilder.create()
+      .setMaxConnTotal(config.getMaxTotal())
+      .setMaxConnPerRoute(config.getMaxPerRoute())
+      .setDefaultSocketConfig(SocketConfig.custom()
+                              .setTcpNoDelay(config.isTcpNoDelay())
+                              .setSoKeepAlive(true)
+                              .build())
+      .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                  .setValidateAfterInactivity(TimeValue.ofMilliseconds(config.getValidateAfterInactivity()))
+                                  .setConnectTimeout(Timeout.ofMilliseconds(config.getConnectTimeout()))
+                                  .build())
+      .build();
+
+    httpClient = HttpClients.custom()
+      .setConnectionManager(connMgr)
+      // Honors the server's Keep-Alive header if present, else the
+      // connectionKeepAlive in the RequestConfig
+      .setKeepAliveStrategy(DefaultConnectionKeepAliveStrategy.INSTANCE)
+      .evictExpiredConnections()
+      .evictIdleConnections(TimeValue.ofMilliseconds(config.getIdleEvict()))
+      // Callers handle retries (see RestUtil.callRestService())
+      .disableAutomaticRetries()
+      .build();
+  }
+
+  /** Return the default transport, creating it if necessary */
+  public static synchronized RestTransport getDefault() {
+    if (defaultTransport == null) {
+      defaultTransport = new RestTransport();
+    }
+    return defaultTransport;
+  }
+
+  /** Replace the default transport.  RestTemplates already created
+   * continue to use the transport they were created with.
+   * @param transport the new default transport
+   */
+  public static synchronized void setDefault(RestTransport transport) {
+    defaultTransport = transport;
+  }
+
+  public Config getConfig() {
+    return config;
+  }
+
+  /**
+   * Return a ClientHttpRequestFactory that makes requests over this
+   * transport's connection pool with the specified timeouts.
+   *
+   * @param connectTimeout A long with the connection timeout in
+   *                       milliseconds; 0 means no timeout.
+   * @param readTimeout    A long with the read timeout in milliseconds; 0
+   *                       means no timeout.
+   * @return a ClientHttpRequestFactory
+   */
+  public ClientHttpRequestFactory getRequestFactory(long connectTimeout,
+                                                   long readTimeout) {
+    RequestConfig.Builder builder = RequestConfig.custom()
+      .setResponseTimeout(Timeout.ofMilliseconds(readTimeout))
+      .setConnectionRequestTimeout(Timeout.ofMilliseconds(config.getConnectionRequestTimeout()))
+      .setConnectionKeepAlive(TimeValue.ofMilliseconds(config.getKeepAlive()));
+    if (connectTimeout != config.getConnectTimeout()) {
+      setRequestConnectTimeout(builder, connectTimeout);
+    }
+    RequestConfig reqConfig = builder.build();
+
+    return new HttpComponentsClientHttpRequestFactory(httpClient) {
+      @Override
+      protected RequestConfig createRequestConfig(Object client) {
+        return reqConfig;
+      }
+
+      // Make the request abortable by the calling thread's AbortHandle
+      @Override
+      protected void postProcessHttpRequest(ClassicHttpRequest request) {
+        if (request instanceof Cancellable) {
+          AbortHandle.register((Cancellable)request);
+        }
+      }
+
+      @Override
+      public void destroy() {
+        // The HttpClient is shared; it's closed only by
+        // RestTransport.close()
+      }
+    };
+  }
+
+  // The connect timeout normally comes from the pool's ConnectionConfig,
+  // but RestTemplates sharing the pool may each have their own, and
+  // httpclient5 has no non-deprecated per-request equivalent of
+  // RequestConfig's connect timeout, which still overrides the pool's.
+  @SuppressWarnings("deprecation")
+  private static void setRequestConnectTimeout(RequestConfig.Builder builder,
+                                               long connectTimeout) {
+    builder.setConnectTimeout(Timeout.ofMilliseconds(connectTimeout));
+  }
+
+  /** Return the connection statistics for the whole pool */
+  public PoolStats getPoolStats() {
+    return connMgr.getTotalStats();
+  }
+
+  /** Return the connection statistics for each route (scheme/host/port)
+   * for which the pool holds or has requested connections */
+  public Map<String,PoolStats> getRoutePoolStats() {
+    Map<String,PoolStats> res = new TreeMap<>();
+    for (HttpRoute route : connMgr.getRoutes()) {
+      res.put(route.getTargetHost().toURI(), connMgr.getStats(route));
+    }
+    return res;
+  }
+
+  /** Number of connections currently in use */
+  public int getLeased() {
+    return getPoolStats().getLeased();
+  }
+
+  /** Number of requests waiting for a connection */
+  public int getPending() {
+    return getPoolStats().getPending();
+  }
+
+  /** Number of idle connections available for reuse */
+  public int getAvailable() {
+    return getPoolStats().getAvailable();
+  }
+
+  /** Close idle connections now, rather than waiting for the evictor */
+  public void closeIdle() {
+    connMgr.closeIdle(TimeValue.ZERO_MILLISECONDS);
+  }
+
+  /** Close all connections and release the HttpClient.  Requests made
+   * by RestTemplates using this transport will fail after this is
+   * called. */
+  public void close() {
+    try {
+      httpClient.close();
+    } catch (IOException e) {
+      log.warn("Error closing HttpClient", e);
+    }
+  }
+
+  public String toString() {
+    return "[RestTransport: " + getPoolStats() + "]";
+  }
+
+  /** RestTransport configuration.  Setters return this to allow
+   * chaining. */
+  public static class Config {
+    private int maxTotal = DEFAULT_MAX_TOTAL;
+    private int maxPerRoute = DEFAULT_MAX_PER_ROUTE;
+    private long idleEvict = DEFAULT_IDLE_EVICT;
+    private long keepAlive = DEFAULT_KEEP_ALIVE;
+    private long validateAfterInactivity = DEFAULT_VALIDATE_AFTER_INACTIVITY;
+    private long connectionRequestTimeout = DEFAULT_CONNECTION_REQUEST_TIMEOUT;
+    private boolean tcpNoDelay = DEFAULT_TCP_NO_DELAY;
+    private long connectTimeout = DEFAULT_CONNECT_TIMEOUT;
+
+    public int getMaxTotal() {
+      return maxTotal;
+    }
+
+    public Config setMaxTotal(int maxTotal) {
+      if (maxTotal < 1) {
+        throw new IllegalArgumentException("maxTotal must be at least 1");
+      }
+      this.maxTotal = maxTotal;
+      return this;
+    }
+
+    public int getMaxPerRoute() {
+      return maxPerRoute;
+    }
+
+    public Config setMaxPerRoute(int maxPerRoute) {
+      if (maxPerRoute < 1) {
+        throw new IllegalArgumentException("maxPerRoute must be at least 1");
+      }
+      this.maxPerRoute = maxPerRoute;
+      return this;
+    }
+
+    public long getIdleEvict() {
+      return idleEvict;
+    }
+
+    public Config setIdleEvict(long idleEvict) {
+      this.idleEvict = idleEvict;
+      return this;
+    }
+
+    public long getKeepAlive() {
+      return keepAlive;
+    }
+
+    public Config setKeepAlive(long keepAlive) {
+      this.keepAlive = keepAlive;
+      return this;
+    }
+
+    public long getValidateAfterInactivity() {
+      return validateAfterInactivity;
+    }
+
+    public Config setValidateAfterInactivity(long validateAfterInactivity) {
+      this.validateAfterInactivity = validateAfterInactivity;
+      return this;
+    }
+
+    public long getConnectionRequestTimeout() {
+      return connectionRequestTimeout;
+    }
+
+    public Config setConnectionRequestTimeout(long connectionRequestTimeout) {
+      this.connectionRequestTimeout = connectionRequestTimeout;
+      return this;
+    }
+
+    public boolean isTcpNoDelay() {
+      return tcpNoDelay;
+    }
+
+    public Config setTcpNoDelay(boolean tcpNoDelay) {
+      this.tcpNoDelay = tcpNoDelay;
+      return this;
+    }
+
+    public long getConnectTimeout() {
+      return connectTimeout;
+    }
+
+    /** Set the pool's default connect timeout, in milliseconds; 0 means
+     * no timeout */
+    public Config setConnectTimeout(long connectTimeout) {
+      this.connectTimeout = connectTimeout;
+      return this;
+    }
+
+    public String toString() {
+      return "[RestTransport.Config: maxTotal=" + maxTotal +
+        ", maxPerRoute=" + maxPerRoute +
+        ", idleEvict=" + idleEvict +
+        ", keepAlive=" + keepAlive +
+        ", validateAfterInactivity=" + validateAfterInactivity +
+        ", connectionRequestTimeout=" + connectionRequestTimeout +
+        ", connectTimeout=" + connectTimeout +
+        ", tcpNoDelay=" + tcpNoDelay + "]";
+    }
+  }
+}
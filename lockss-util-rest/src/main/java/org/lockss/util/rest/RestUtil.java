@@ -28,6 +28,7 @@
 package org.lockss.util.rest;
 
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.input.ProxyInputStream;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.lockss.log.L4JLogger;
 import org.lockss.util.io.DeferredTempFileOutputStream;
@@ -35,17 +36,20 @@ import org.lockss.util.lang.ExceptionUtil;
 import org.lockss.util.rest.exception.LockssRestException;
 import org.lockss.util.rest.exception.LockssRestHttpException;
 import org.lockss.util.rest.exception.LockssRestNetworkException;
+import org.lockss.util.rest.multipart.MultipartMessage;
 import org.lockss.util.rest.multipart.MultipartMessageHttpMessageConverter;
-import org.lockss.util.time.TimerUtil;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.http.converter.FormHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.http.converter.ResourceHttpMessageConverter;
 import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClientResponseException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponents;
@@ -57,7 +61,8 @@ import java.io.InputStream;
 import java.net.ConnectException;
 import java.net.URI;
 import java.net.UnknownHostException;
-import java.time.Duration;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
 
@@ -71,6 +76,10 @@ public class RestUtil {
     new long[] {1000L /*, 10000L*/};
   public static final long[] NO_RETRY_BACKOFFS = new long[] {};
 
+  // The policy used when neither a policy nor retry backoffs are supplied
+  private static final ResiliencePolicy DEFAULT_POLICY =
+    ResiliencePolicy.fixedBackoffs(DEFAULT_RETRY_BACKOFFS);
+
   /**
    * Performs a call to a REST service with the default retry backoffs
    *
@@ -99,7 +108,7 @@ public class RestUtil {
 	  throws LockssRestException {
     return callRestService(restTemplate, uri, method, requestEntity,
                            responseType, clientExceptionMessage,
-                           null);
+                           (long[])null);
   }
 
   /**
@@ -171,32 +180,167 @@ public class RestUtil {
     log.debug2("responseType = {}", responseType);
     log.debug2("clientExceptionMessage = {}", clientExceptionMessage);
 
-    if (retryBackoffs == null) {
-      retryBackoffs = DEFAULT_RETRY_BACKOFFS;
+    return callWithRetries(uri, method, clientExceptionMessage, retryBackoffs,
+                           () -> RestUtil.callRestServiceOnce(restTemplate,
+                                                              uri, method,
+                                                              requestEntity,
+                                                              responseType,
+                                                              clientExceptionMessage));
+  }
+
+  /**
+   * Performs a call to a REST service, with retries, circuit breaking and
+   * hedging determined by a {@link ResiliencePolicy}.
+   *
+   * @param restTemplate
+   *          A RestTemplate with the REST template to be used to access the
+   *          REST service.
+   * @param uri
+   *          A String with the URI of the request to the REST service.
+   * @param method
+   *          An HttpMethod with the method of the request to the REST service.
+   * @param requestEntity
+   *          An HttpEntity with the entity of the request to the REST service.
+   * @param responseType
+   *          A {@code Class<T>} with the expected type of the response to the
+   *          request to the REST service.
+   * @param clientExceptionMessage
+   *          A String with the message to be returned if there are errors.
+   * @param policy
+   *          The ResiliencePolicy to apply.  If null, the default retry
+   *          backoffs are used.
+   * @return a {@code ResponseEntity<T>} with the response to the request to the
+   *         REST service.
+   * @throws LockssRestException
+   *           if there are problems making the request to the REST service.
+   */
+  public static <T> ResponseEntity<T> callRestService(RestTemplate restTemplate,
+      URI uri, HttpMethod method, HttpEntity<?> requestEntity,
+      Class<T> responseType, String clientExceptionMessage,
+      ResiliencePolicy policy)
+          throws LockssRestException {
+
+    log.debug2("uri = {}", uri);
+    log.debug2("method = {}", method);
+    log.debug2("requestEntity = {}", requestEntity);
+    log.debug2("responseType = {}", responseType);
+    log.debug2("clientExceptionMessage = {}", clientExceptionMessage);
+
+    if (policy == null) {
+      policy = DEFAULT_POLICY;
     }
-    int retryIx = 0;
-    while (true) {
-      try {
-        return RestUtil.callRestServiceOnce(restTemplate, uri, method,
-                                            requestEntity, responseType,
-                                            clientExceptionMessage);
-      } catch (LockssRestNetworkException lrne) {
-        if (isRetryableException(lrne) &&
-            retryIx < retryBackoffs.length) {
-          long backoff = retryBackoffs[retryIx++];
-          log.debug("Retrying {} {} after waiting {}, due to {}",
-                    method, uri, backoff, lrne.toString());
-          try {
-            TimerUtil.sleep(backoff);
-          } catch (InterruptedException ie) {
-            // If interrupted, throw the last failure exception
-            throw lrne;
-          }
+    return policy.execute(uri, method, clientExceptionMessage,
+                          isHedgeable(responseType),
+                          () -> RestUtil.callRestServiceOnce(restTemplate,
+                                                             uri, method,
+                                                             requestEntity,
+                                                             responseType,
+                                                             clientExceptionMessage));
+  }
+
+  /**
+   * Buffered responses hold no connection, so may be hedged, unless the
+   * body itself owns a resource (a temp file or buffer behind a {@link
+   * Resource} or the parts of a {@link MultipartMessage}), which would be
+   * leaked if the losing attempt's result were discarded.
+   */
+  static boolean isHedgeable(Class<?> responseType) {
+    return responseType == null
+      || !(Resource.class.isAssignableFrom(responseType)
+           || MultipartMessage.class.isAssignableFrom(responseType));
+  }
+
+  /** A single attempt at a REST call, for use by {@link
+   * #callWithRetries(URI, HttpMethod, String, long[], RestCall)} and {@link
+   * ResiliencePolicy} */
+  @FunctionalInterface
+  interface RestCall<T> {
+    T call() throws LockssRestException;
+  }
+
+  /**
+   * Invokes the call, retrying retryable network errors after waiting
+   * successive intervals from retryBackoffs.
+   */
+  static <T> T callWithRetries(URI uri, HttpMethod method, String operation,
+                               long[] retryBackoffs, RestCall<T> call)
+      throws LockssRestException {
+    ResiliencePolicy policy = retryBackoffs == null ? DEFAULT_POLICY
+      : ResiliencePolicy.fixedBackoffs(retryBackoffs);
+    return policy.execute(uri, method, operation, false, call);
+  }
+
+  // Length of the request body, if it can be determined without
+  // serializing it, else -1
+  static long requestBodyLength(HttpEntity<?> entity) {
+    if (entity == null) {
+      return -1;
+    }
+    long len = entity.getHeaders().getContentLength();
+    if (len >= 0) {
+      return len;
+    }
+    return bodyLength(entity.getBody(), entity.getHeaders());
+  }
+
+  // Length of the response body from Content-Length, or from the
+  // converted body if it's a string or byte array, else -1.  A string's
+  // length is that of its encoding in the Content-Type charset.
+  static long responseBodyLength(HttpHeaders headers, Object body) {
+    long len = headers.getContentLength();
+    if (len >= 0) {
+      return len;
+    }
+    return bodyLength(body, headers);
+  }
+
+  private static long bodyLength(Object body, HttpHeaders headers) {
+    if (body instanceof byte[]) {
+      return ((byte[])body).length;
+    }
+    if (body instanceof String) {
+      return encodedLength((String)body, bodyCharset(headers));
+    }
+    return -1;
+  }
+
+  // The charset of the Content-Type, else UTF-8, the default for JSON
+  private static Charset bodyCharset(HttpHeaders headers) {
+    MediaType type = headers.getContentType();
+    Charset cs = type == null ? null : type.getCharset();
+    return cs != null ? cs : StandardCharsets.UTF_8;
+  }
+
+  // Number of bytes in the encoding of str; counted without encoding it
+  // for UTF-8 and single-byte charsets
+  static long encodedLength(String str, Charset cs) {
+    if (StandardCharsets.UTF_8.equals(cs)) {
+      long res = 0;
+      for (int ix = 0; ix < str.length(); ix++) {
+        char ch = str.charAt(ix);
+        if (ch < 0x80) {
+          res++;
+        } else if (ch < 0x800) {
+          res += 2;
+        } else if (Character.isHighSurrogate(ch)
+                   && ix + 1 < str.length()
+                   && Character.isLowSurrogate(str.charAt(ix + 1))) {
+          res += 4;
+          ix++;
+        } else if (Character.isSurrogate(ch)) {
+          // Unpaired surrogates are replaced with '?'
+          res++;
         } else {
-          throw lrne;
+          res += 3;
         }
       }
+      return res;
+    }
+    if (StandardCharsets.ISO_8859_1.equals(cs)
+        || StandardCharsets.US_ASCII.equals(cs)) {
+      return str.length();
     }
+    return str.getBytes(cs).length;
   }
 
   static boolean isRetryableException(Exception e) {
@@ -213,10 +357,40 @@ public class RestUtil {
 
 
 
+  /**
+   * Performs a single call to a REST service, recording its latency,
+   * size and outcome in {@link RestMetrics} under the name {@code
+   * clientExceptionMessage}.
+   */
   public static <T> ResponseEntity<T> callRestServiceOnce(RestTemplate restTemplate,
       URI uri, HttpMethod method, HttpEntity<?> requestEntity,
       Class<T> responseType, String clientExceptionMessage)
 	  throws LockssRestException {
+    long start = System.nanoTime();
+    long bytesOut = requestBodyLength(requestEntity);
+    try {
+      ResponseEntity<T> response =
+          callRestServiceOnce0(restTemplate, uri, method, requestEntity,
+                               responseType, clientExceptionMessage);
+      RestMetrics.getInstance()
+          .recordCall(clientExceptionMessage, System.nanoTime() - start,
+                      bytesOut,
+                      responseBodyLength(response.getHeaders(),
+                                         response.getBody()),
+                      response.getStatusCode().value(), false);
+      return response;
+    } catch (LockssRestException e) {
+      RestMetrics.getInstance()
+          .recordFailure(clientExceptionMessage, System.nanoTime() - start,
+                         bytesOut, e);
+      throw e;
+    }
+  }
+
+  private static <T> ResponseEntity<T> callRestServiceOnce0(RestTemplate restTemplate,
+      URI uri, HttpMethod method, HttpEntity<?> requestEntity,
+      Class<T> responseType, String clientExceptionMessage)
+	  throws LockssRestException {
 
     try {
       // Make the call to the REST service and get the response.
@@ -279,6 +453,294 @@ public class RestUtil {
     }
   }
 
+  /**
+   * Performs a call to a REST service, with the default retry backoffs,
+   * returning the response body as a stream that reads directly from the
+   * HTTP connection.  Unlike {@link #callRestService(RestTemplate, URI,
+   * HttpMethod, HttpEntity, Class, String)}, the body is neither converted
+   * nor buffered; the caller <b>must</b> close the returned stream, which
+   * releases the underlying connection.
+   *
+   * @param restTemplate
+   *          A RestTemplate whose request factory, interceptors and error
+   *          handler are used to make the request.
+   * @param uri
+   *          A URI with the URI of the request to the REST service.
+   * @param method
+   *          An HttpMethod with the method of the request to the REST service.
+   * @param requestHeaders
+   *          An HttpHeaders with the request headers, or null.
+   * @param clientExceptionMessage
+   *          A String with the message to be returned if there are errors.
+   * @return a {@code ResponseEntity<InputStream>} with the response headers,
+   *         status and live body stream (null if the response had no body).
+   * @throws LockssRestException
+   *           if there are problems making the request to the REST service.
+   */
+  public static ResponseEntity<InputStream> callRestServiceStreaming(
+      RestTemplate restTemplate, URI uri, HttpMethod method,
+      HttpHeaders requestHeaders, String clientExceptionMessage)
+      throws LockssRestException {
+    return callRestServiceStreaming(restTemplate, uri, method, requestHeaders,
+                                    clientExceptionMessage, (long[])null);
+  }
+
+  /**
+   * Performs a call to a REST service, returning the response body as a
+   * stream that reads directly from the HTTP connection.  The caller
+   * <b>must</b> close the returned stream.
+   *
+   * @param restTemplate
+   *          A RestTemplate whose request factory, interceptors and error
+   *          handler are used to make the request.
+   * @param uri
+   *          A URI with the URI of the request to the REST service.
+   * @param method
+   *          An HttpMethod with the method of the request to the REST service.
+   * @param requestHeaders
+   *          An HttpHeaders with the request headers, or null.
+   * @param clientExceptionMessage
+   *          A String with the message to be returned if there are errors.
+   * @param retryBackoffs
+   *          An array of longs specifying successive intervals
+   *          to wait between successive retries.  If empty, no retries.
+   * @return a {@code ResponseEntity<InputStream>} with the response headers,
+   *         status and live body stream (null if the response had no body).
+   * @throws LockssRestException
+   *           if there are problems making the request to the REST service.
+   */
+  public static ResponseEntity<InputStream> callRestServiceStreaming(
+      RestTemplate restTemplate, URI uri, HttpMethod method,
+      HttpHeaders requestHeaders, String clientExceptionMessage,
+      long[] retryBackoffs)
+      throws LockssRestException {
+
+    log.debug2("uri = {}", uri);
+    log.debug2("method = {}", method);
+    log.debug2("requestHeaders = {}", requestHeaders);
+    log.debug2("clientExceptionMessage = {}", clientExceptionMessage);
+
+    return callWithRetries(uri, method, clientExceptionMessage, retryBackoffs,
+                           () -> callRestServiceStreamingOnce(restTemplate,
+                                                              uri, method,
+                                                              requestHeaders,
+                                                              clientExceptionMessage));
+  }
+
+  /**
+   * Performs a call to a REST service, returning the response body as a
+   * stream that reads directly from the HTTP connection, with retries and
+   * circuit breaking determined by a {@link ResiliencePolicy}.  Streaming
+   * calls are never hedged.  The caller <b>must</b> close the returned
+   * stream.
+   *
+   * @param restTemplate
+   *          A RestTemplate whose request factory, interceptors and error
+   *          handler are used to make the request.
+   * @param uri
+   *          A URI with the URI of the request to the REST service.
+   * @param method
+   *          An HttpMethod with the method of the request to the REST service.
+   * @param requestHeaders
+   *          An HttpHeaders with the request headers, or null.
+   * @param clientExceptionMessage
+   *          A String with the message to be returned if there are errors.
+   * @param policy
+   *          The ResiliencePolicy to apply.  If null, the default retry
+   *          backoffs are used.
+   * @return a {@code ResponseEntity<InputStream>} with the response headers,
+   *         status and live body stream (null if the response had no body).
+   * @throws LockssRestException
+   *           if there are problems making the request to the REST service.
+   */
+  public static ResponseEntity<InputStream> callRestServiceStreaming(
+      RestTemplate restTemplate, URI uri, HttpMethod method,
+      HttpHeaders requestHeaders, String clientExceptionMessage,
+      ResiliencePolicy policy)
+      throws LockssRestException {
+
+    log.debug2("uri = {}", uri);
+    log.debug2("method = {}", method);
+    log.debug2("requestHeaders = {}", requestHeaders);
+    log.debug2("clientExceptionMessage = {}", clientExceptionMessage);
+
+    if (policy == null) {
+      policy = DEFAULT_POLICY;
+    }
+    return policy.execute(uri, method, clientExceptionMessage, false,
+                          () -> callRestServiceStreamingOnce(restTemplate,
+                                                             uri, method,
+                                                             requestHeaders,
+                                                             clientExceptionMessage));
+  }
+
+  // The latency recorded for streaming calls is the time until the
+  // response headers are received; bytes in is the declared
+  // Content-Length.
+  static ResponseEntity<InputStream> callRestServiceStreamingOnce(
+      RestTemplate restTemplate, URI uri, HttpMethod method,
+      HttpHeaders requestHeaders, String clientExceptionMessage)
+      throws LockssRestException {
+    long start = System.nanoTime();
+    try {
+      ResponseEntity<InputStream> response =
+          callRestServiceStreamingOnce0(restTemplate, uri, method,
+                                        requestHeaders, clientExceptionMessage);
+      RestMetrics.getInstance()
+          .recordCall(clientExceptionMessage, System.nanoTime() - start,
+                      -1, response.getHeaders().getContentLength(),
+                      response.getStatusCode().value(), false);
+      return response;
+    } catch (LockssRestException e) {
+      RestMetrics.getInstance()
+          .recordFailure(clientExceptionMessage, System.nanoTime() - start,
+                         -1, e);
+      throw e;
+    }
+  }
+
+  private static ResponseEntity<InputStream> callRestServiceStreamingOnce0(
+      RestTemplate restTemplate, URI uri, HttpMethod method,
+      HttpHeaders requestHeaders, String clientExceptionMessage)
+      throws LockssRestException {
+
+    AbortHandle handle = new AbortHandle();
+    ClientHttpResponse response = null;
+    boolean handedOff = false;
+
+    try (AbortHandle.Scope scope = handle.bind()) {
+      // Bypass RestTemplate#exchange(), which always closes the response
+      // (draining or buffering the body) before returning.  The template's
+      // request factory still supplies its connection pool and
+      // interceptors.
+      ClientHttpRequest request =
+          restTemplate.getRequestFactory().createRequest(uri, method);
+
+      if (requestHeaders != null) {
+        request.getHeaders().putAll(requestHeaders);
+      }
+
+      response = request.execute();
+
+      ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+      if (errorHandler.hasError(response)) {
+        errorHandler.handleError(uri, method, response);
+      }
+
+      HttpStatusCode statusCode = response.getStatusCode();
+      log.trace("statusCode = {}", statusCode);
+
+      if (!isSuccess(statusCode)) {
+        LockssRestHttpException lrhe =
+            new LockssRestHttpException(clientExceptionMessage);
+        lrhe.setHttpStatus(HttpStatus.valueOf(statusCode.value()));
+        lrhe.setHttpResponseHeaders(response.getHeaders());
+
+        log.trace("lrhe = {}", lrhe, (Exception) null);
+
+        throw lrhe;
+      }
+
+      InputStream body = response.getBody();
+      HttpHeaders responseHeaders = response.getHeaders();
+
+      if (body != null) {
+        // Closing the body releases the connection
+        body = new ResponseBodyInputStream(body, response, handle,
+                                           responseHeaders.getContentLength());
+      } else {
+        handle.finish();
+        response.close();
+      }
+
+      handedOff = true;
+      return new ResponseEntity<>(body, responseHeaders, statusCode);
+
+    } catch (LockssResponseErrorHandler.WrappedLockssRestHttpException e) {
+      LockssRestHttpException lrhe = e.getLRHE();
+      lrhe.setClientErrorMessage(clientExceptionMessage);
+      throw lrhe;
+
+    } catch (RestClientResponseException e) {
+      throw LockssRestHttpException.fromRestClientResponseException(e, restTemplate.getMessageConverters());
+
+    } catch (LockssRestException e) {
+      throw e;
+
+    } catch (IOException e) {
+      // Report the problem back to the caller.
+      LockssRestNetworkException lrne =
+          new LockssRestNetworkException("Client exception: " +
+              clientExceptionMessage + ": " + ExceptionUtils.getRootCauseMessage(e), e);
+
+      log.trace("lrne = {}", lrne);
+
+      throw lrne;
+
+    } finally {
+      if (!handedOff) {
+        handle.finish();
+        if (response != null) {
+          response.close();
+        }
+      }
+    }
+  }
+
+  /**
+   * Streaming response body that releases the connection when closed.  If
+   * it's closed before the end of the body has been read, the exchange is
+   * aborted and the connection discarded, rather than reading the rest of
+   * the body (which may be large, or slow to arrive) so that the
+   * connection can be reused.
+   */
+  private static class ResponseBodyInputStream extends ProxyInputStream {
+    private final ClientHttpResponse response;
+    private final AbortHandle handle;
+    private final long contentLength;
+    private long count = 0;
+    private boolean eof = false;
+
+    ResponseBodyInputStream(InputStream in, ClientHttpResponse response,
+                            AbortHandle handle, long contentLength) {
+      super(in);
+      this.response = response;
+      this.handle = handle;
+      this.contentLength = contentLength;
+    }
+
+    @Override
+    protected void afterRead(int n) {
+      if (n < 0) {
+        eof = true;
+      } else {
+        count += n;
+      }
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long res = super.skip(n);
+      count += res;
+      return res;
+    }
+
+    @Override
+    public void close() throws IOException {
+      try {
+        if (!eof && (contentLength < 0 || count < contentLength)) {
+          handle.abort();
+        }
+        handle.finish();
+        super.close();
+      } catch (IOException e) {
+        log.debug2("Error closing response body", e);
+      } finally {
+        response.close();
+      }
+    }
+  }
+
   /**
    * Provides the REST template to be used to make the call to a REST service
    * using the HttpComponentsClientHttpRequestFactory, default timeouts and not
@@ -303,16 +765,19 @@ public class RestUtil {
       log.warn("readTimeout < 1 sec: {}", readTimeout);
     }
 
+    // Timeouts are carried by the request factory, which makes requests
+    // over the shared, pooled RestTransport
     return new RestTemplateBuilder()
-        .setConnectTimeout(Duration.ofMillis(connectTimeout))
-        .setReadTimeout(Duration.ofMillis(readTimeout))
+        .requestFactory(() -> RestTransport.getDefault()
+            .getRequestFactory(connectTimeout, readTimeout))
         .errorHandler(new LockssResponseErrorHandler(new RestTemplate().getMessageConverters()));
   }
 
   /**
    * Provides the REST template to be used to make the call to a REST service
    * using the HttpComponentsClientHttpRequestFactory and not throwing
-   * exceptions.
+   * exceptions.  Connections are pooled in the default {@link
+   * RestTransport}.
    *
    * @param connectTimeout A long with the connection timeout in milliseconds.
    * @param readTimeout    A long with the read timeout in milliseconds.
@@ -321,22 +786,8 @@ public class RestUtil {
    */
   public static RestTemplate getRestTemplate(long connectTimeout,
       long readTimeout) {
-    log.debug2("connectTimeout = {}", connectTimeout);
-    log.debug2("readTimeout = {}", readTimeout);
-
-    if (connectTimeout > 0 && connectTimeout < 1000) {
-      log.warn("connectTimeout < 1 sec: {}", connectTimeout);
-    }
-    if (readTimeout > 0 && readTimeout < 1000) {
-      log.warn("readTimeout < 1 sec: {}", readTimeout);
-    }
-
-    RestTemplateBuilder builder = new RestTemplateBuilder()
-        .setConnectTimeout(Duration.ofMillis(connectTimeout))
-        .setReadTimeout(Duration.ofMillis(readTimeout))
-        .errorHandler(new LockssResponseErrorHandler(new RestTemplate().getMessageConverters()));
-
-    RestTemplate restTemplate =	builder.build();
+    RestTemplate restTemplate =
+        getRestTemplateBuilder(connectTimeout, readTimeout).build();
 
     log.debug2("restTemplate = {}", restTemplate);
     return restTemplate;
@@ -358,11 +809,9 @@ public class RestUtil {
             getResourceHttpMessageConverter(sizeThreshold, tmpDir) : msgConv)
         .toList();
 
-    RestTemplateBuilder builder = new RestTemplateBuilder()
-        .setConnectTimeout(Duration.ofMillis(connectTimeout))
-        .setReadTimeout(Duration.ofMillis(readTimeout))
-        .messageConverters(msgConverters)
-        .errorHandler(new LockssResponseErrorHandler(new RestTemplate().getMessageConverters()));
+    RestTemplateBuilder builder =
+        getRestTemplateBuilder(connectTimeout, readTimeout)
+        .messageConverters(msgConverters);
 
     return builder.build();
   }
@@ -30,6 +30,7 @@ package org.lockss.util.rest.multipart;
 import org.lockss.log.L4JLogger;
 import org.lockss.util.Constants;
 import org.lockss.util.rest.HttpResponseStatusAndHeaders;
+import org.lockss.util.rest.RestMetrics;
 import org.lockss.util.rest.RestUtil;
 import org.lockss.util.rest.exception.LockssRestException;
 import org.springframework.http.HttpEntity;
@@ -54,6 +55,9 @@ public class MultipartConnector {
 
   private final long DEFAULT_TIMEOUT = 60 * Constants.SECOND;
 
+  // RestMetrics operation name prefix for request()
+  public static final String METRICS_OP_PREFIX = "MultipartConnector.request ";
+
   private URI uri;
   private HttpHeaders requestHeaders;
   private MultiValueMap<String, Object> parts;
@@ -327,6 +331,10 @@ public class MultipartConnector {
     log.trace("requestHeaders = {}", requestHeaders.toSingleValueMap());
     log.trace("Making {} request to '{}'...", httpMethod, uri);
 
+    // Time the whole request, including parsing the response, in addition
+    // to the HTTP call recorded by RestUtil
+    String metricsOp = METRICS_OP_PREFIX + httpMethod;
+    long start = System.nanoTime();
     try {
       // Make the request to the REST service and get its response.
       ResponseEntity<MultipartMessage> response =
@@ -336,8 +344,16 @@ public class MultipartConnector {
       log.trace("response = {}", response);
 
       // Parse the response and return it.
-      return new MultipartResponse(response);
+      MultipartResponse res = new MultipartResponse(response);
+      RestMetrics.getInstance()
+          .recordCall(metricsOp, System.nanoTime() - start,
+                      -1,
+                      response.getHeaders().getContentLength(),
+                      response.getStatusCode().value(), false);
+      return res;
     } catch (LockssRestException lre) {
+      RestMetrics.getInstance()
+          .recordFailure(metricsOp, System.nanoTime() - start, -1, lre);
       log.debug2("Exception caught getting MultipartMessage object", lre);
       log.debug2("uri = {}", uri);
       log.debug2("requestHeaders = {}", requestHeaders.toSingleValueMap());
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.multipart;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import org.apache.commons.fileupload.FileItemHeaders;
+import org.apache.commons.fileupload.FileItemIterator;
+import org.apache.commons.fileupload.FileItemStream;
+import org.apache.commons.fileupload.FileUpload;
+import org.apache.commons.fileupload.FileUploadException;
+import org.apache.commons.fileupload.UploadContext;
+import org.apache.commons.io.IOUtils;
+import org.lockss.log.L4JLogger;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * Pull-based reader of a multipart body.  Unlike {@link MultipartMessage},
+ * which copies every part into a {@code DiskFileItem} before returning,
+ * parts are returned one at a time as they're reached in the underlying
+ * stream, and each part's content is read directly from that stream.
+ * Reading the next part skips whatever remains unread of the current one.
+ */
+public class StreamingMultipartReader implements Closeable {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  private final InputStream body;
+  private final FileItemIterator iter;
+  private boolean isClosed = false;
+
+  /**
+   * Constructor.
+   *
+   * @param contentType The Content-Type of the body, which must be a
+   *                    multipart type with a boundary parameter.
+   * @param contentLength The length of the body, or -1 if unknown.
+   * @param body The multipart body.
+   * @throws IOException if the preamble can't be read or the Content-Type
+   *                     isn't multipart.
+   */
+  public StreamingMultipartReader(MediaType contentType, long contentLength,
+                                  InputStream body)
+      throws IOException {
+    if (contentType == null) {
+      throw new IOException("Missing multipart Content-Type");
+    }
+    this.body = body;
+    try {
+      iter = new FileUpload().getItemIterator(new Context(contentType.toString(),
+                                                          contentLength, body));
+    } catch (FileUploadException e) {
+      throw new IOException("Couldn't parse multipart body", e);
+    }
+  }
+
+  /**
+   * Returns the next part, or null if there are no more parts.  The
+   * previous part's InputStream is no longer usable.
+   */
+  public Part nextPart() throws IOException {
+    if (isClosed) {
+      throw new IllegalStateException("Reader has been closed");
+    }
+    try {
+      if (!iter.hasNext()) {
+        return null;
+      }
+      FileItemStream item = iter.next();
+      Part res = new Part(item.getFieldName(), toHttpHeaders(item.getHeaders()),
+                          item.openStream());
+      log.trace("Next part: {}", res.getName());
+      return res;
+    } catch (FileUploadException e) {
+      throw new IOException("Couldn't parse multipart body", e);
+    }
+  }
+
+  /** Closes the underlying stream, abandoning any unread parts. */
+  @Override
+  public void close() throws IOException {
+    if (!isClosed) {
+      isClosed = true;
+      body.close();
+    }
+  }
+
+  private static HttpHeaders toHttpHeaders(FileItemHeaders fih) {
+    HttpHeaders res = new HttpHeaders();
+    if (fih != null) {
+      for (Iterator<String> names = fih.getHeaderNames(); names.hasNext(); ) {
+        String name = names.next();
+        fih.getHeaders(name).forEachRemaining(value -> res.add(name, value));
+      }
+    }
+    return res;
+  }
+
+  /** A single part: its name, headers and live content stream. */
+  public static class Part {
+    private final String name;
+    private final HttpHeaders headers;
+    private final InputStream inputStream;
+
+    Part(String name, HttpHeaders headers, InputStream inputStream) {
+      this.name = name;
+      this.headers = headers;
+      this.inputStream = inputStream;
+    }
+
+    /** Returns the name from the part's Content-Disposition. */
+    public String getName() {
+      return name;
+    }
+
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+
+    /** Returns the part's content, read directly from the multipart
+     * body.  Valid only until the next call to {@link #nextPart()}. */
+    public InputStream getInputStream() {
+      return inputStream;
+    }
+
+    /** Reads the remainder of the part's content into a byte array. */
+    public byte[] getBytes() throws IOException {
+      return IOUtils.toByteArray(inputStream);
+    }
+
+    @Override
+    public String toString() {
+      return "[Part: " + name + ", " + headers + "]";
+    }
+  }
+
+  /** Adapts the body to commons-fileupload's request abstraction. */
+  private static class Context implements UploadContext {
+    private final String contentType;
+    private final long contentLength;
+    private final InputStream body;
+
+    Context(String contentType, long contentLength, InputStream body) {
+      this.contentType = contentType;
+      this.contentLength = contentLength;
+      this.body = body;
+    }
+
+    @Override
+    public String getCharacterEncoding() {
+      return null;
+    }
+
+    @Override
+    public String getContentType() {
+      return contentType;
+    }
+
+    @Override
+    @Deprecated
+    public int getContentLength() {
+      return (int)Math.min(contentLength, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public long contentLength() {
+      return contentLength;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return body;
+    }
+  }
+}
@@ -0,0 +1,269 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo;
+
+import org.lockss.log.L4JLogger;
+import org.lockss.util.LockssUncheckedIOException;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.NamespacedAuid;
+import org.lockss.util.rest.repo.util.TaskExecutors;
+
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the latest committed artifacts in all the AUs in a
+ * namespace, or in all namespaces, whose artifacts are fetched by
+ * background threads.  Up to {@code concurrency} AUs are fetched at once;
+ * another is started when the consumer has received all the artifacts of
+ * one of them.  Fetched artifacts wait in bounded queues, so a fetching
+ * thread blocks when the consumer falls behind, and memory use is
+ * bounded by {@code concurrency * queueSize} artifacts.
+ * <p>
+ * In ordered mode the artifacts of each AU are returned in the order
+ * {@link LockssRepository#getArtifacts(String, String)} returns them,
+ * and the AUs in the order in which they're enumerated; each AU has its
+ * own queue, and AUs after the first are fetched ahead while the
+ * consumer works through the first.  In unordered mode the artifacts are
+ * returned in whatever order they arrive, through a single queue.
+ * <p>
+ * The spliterator doesn't split, as the concurrency is in fetching,
+ * which is I/O bound, rather than in processing.  It must be closed if
+ * not consumed to the end, to stop the fetching threads; {@link
+ * LockssRepository#streamArtifacts(String, int, boolean)} arranges this
+ * when the Stream is closed.  If it's abandoned, fetching is stopped
+ * when it's garbage collected.
+ */
+class ArtifactStreamSpliterator implements Spliterator<Artifact>, AutoCloseable {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  static final int DEFAULT_QUEUE_SIZE = 256;
+
+  private static final Cleaner cleaner = Cleaner.create();
+
+  // Queue element that marks the end of an AU's artifacts
+  private static class End {
+    final AuTask task;
+
+    End(AuTask task) {
+      this.task = task;
+    }
+  }
+
+  // Queue element that carries an exception thrown while fetching
+  private static class Failure {
+    final RuntimeException exception;
+
+    Failure(RuntimeException exception) {
+      this.exception = exception;
+    }
+  }
+
+  // An AU being fetched, and the queue it delivers to
+  private static class AuTask {
+    final NamespacedAuid au;
+    final BlockingQueue<Object> queue;
+
+    AuTask(NamespacedAuid au, BlockingQueue<Object> queue) {
+      this.au = au;
+      this.queue = queue;
+    }
+  }
+
+  private final LockssRepository repo;
+  private final String namespace;
+  private final int concurrency;
+  private final int queueSize;
+  private final boolean ordered;
+  private final ExecutorService executor;
+  private final Cleaner.Cleanable cleanable;
+  // Unordered mode only
+  private final BlockingQueue<Object> sharedQueue;
+
+  // AUs being fetched, in the order they were started
+  private final Deque<AuTask> active = new ArrayDeque<>();
+  private Iterator<String> namespaces;
+  private String curNamespace;
+  private Iterator<String> auids;
+  private boolean closed = false;
+
+  /**
+   * @param repo        the repository
+   * @param namespace   the namespace, or null for all namespaces
+   * @param concurrency the maximum number of AUs to fetch at once
+   * @param queueSize   the maximum number of artifacts to fetch ahead for
+   *                    each AU
+   * @param ordered     if true, return the artifacts in AU order
+   */
+  ArtifactStreamSpliterator(LockssRepository repo, String namespace,
+                            int concurrency, int queueSize,
+                            boolean ordered) {
+    if (concurrency < 1 || queueSize < 1) {
+      throw new IllegalArgumentException("Concurrency and queue size must be at least 1");
+    }
+    this.repo = repo;
+    this.namespace = namespace;
+    this.concurrency = concurrency;
+    this.queueSize = queueSize;
+    this.ordered = ordered;
+    this.sharedQueue =
+        ordered ? null : new LinkedBlockingQueue<>(concurrency * queueSize);
+    ExecutorService exec =
+        TaskExecutors.newBlockingTaskExecutor(concurrency, "ArtifactStream");
+    this.executor = exec;
+    this.cleanable = cleaner.register(this, exec::shutdownNow);
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super Artifact> action) {
+    while (!closed) {
+      startTasks();
+      if (active.isEmpty()) {
+        close();
+        return false;
+      }
+      BlockingQueue<Object> q =
+          ordered ? active.peekFirst().queue : sharedQueue;
+      Object item;
+      try {
+        item = q.take();
+      } catch (InterruptedException e) {
+        close();
+        Thread.currentThread().interrupt();
+        throw new CancellationException("Interrupted waiting for artifacts");
+      }
+      if (item instanceof Artifact) {
+        action.accept((Artifact) item);
+        return true;
+      } else if (item instanceof End) {
+        AuTask task = ((End) item).task;
+        log.debug2("Finished {}", task.au);
+        active.remove(task);
+      } else {
+        close();
+        throw ((Failure) item).exception;
+      }
+    }
+    return false;
+  }
+
+  // Start fetching AUs until the maximum number are active or there are
+  // no more
+  private void startTasks() {
+    while (active.size() < concurrency) {
+      NamespacedAuid au = nextAu();
+      if (au == null) {
+        return;
+      }
+      AuTask task = new AuTask(au, ordered
+          ? new LinkedBlockingQueue<>(queueSize) : sharedQueue);
+      active.addLast(task);
+      LockssRepository r = repo;
+      executor.execute(() -> fetch(r, task));
+    }
+  }
+
+  // Return the next AU, or null if there are no more
+  private NamespacedAuid nextAu() {
+    try {
+      if (namespaces == null) {
+        namespaces = namespace != null
+            ? Collections.singletonList(namespace).iterator()
+            : repo.getNamespaces().iterator();
+      }
+      while (auids == null || !auids.hasNext()) {
+        if (!namespaces.hasNext()) {
+          return null;
+        }
+        curNamespace = namespaces.next();
+        auids = repo.getAuIds(curNamespace).iterator();
+      }
+      return new NamespacedAuid(curNamespace, auids.next());
+    } catch (IOException e) {
+      close();
+      throw new LockssUncheckedIOException(e);
+    }
+  }
+
+  // Runs in a fetching thread.  Static so the task doesn't refer to the
+  // spliterator.
+  private static void fetch(LockssRepository repo, AuTask task) {
+    NamespacedAuid au = task.au;
+    BlockingQueue<Object> q = task.queue;
+    try {
+      try {
+        for (Artifact art : repo.getArtifacts(au.getNamespace(), au.getAuid())) {
+          q.put(art);
+        }
+        q.put(new End(task));
+      } catch (IOException e) {
+        q.put(new Failure(new LockssUncheckedIOException(e)));
+      } catch (RuntimeException e) {
+        if (!Thread.currentThread().isInterrupted()) {
+          q.put(new Failure(e));
+        }
+      }
+    } catch (InterruptedException e) {
+      log.debug2("Fetch of {} cancelled", au);
+    }
+  }
+
+  /** Stop fetching and discard any artifacts already fetched. */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      cleanable.clean();
+      active.clear();
+      if (sharedQueue != null) {
+        sharedQueue.clear();
+      }
+    }
+  }
+
+  @Override
+  public Spliterator<Artifact> trySplit() {
+    return null;
+  }
+
+  @Override
+  public long estimateSize() {
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+    return NONNULL | (ordered ? ORDERED : 0);
+  }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo;
+
+import org.lockss.util.rest.repo.LockssRepository.IncludeContent;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.model.AuSize;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variants of the most frequently used {@link
+ * LockssRepository} operations.  Each method returns immediately with a
+ * {@link CompletableFuture} that is completed with the result of the
+ * corresponding {@link LockssRepository} method, or completed
+ * exceptionally with the exception (usually an {@code IOException}) it
+ * threw.
+ * <p>
+ * Implementations may complete the future before returning, e.g., when
+ * the result is available from a cache.
+ */
+public interface AsyncLockssRepository {
+
+  /**
+   * Asynchronous {@link LockssRepository#addArtifact(ArtifactData)}.
+   *
+   * @param artifactData {@code ArtifactData} instance to add to the repository.
+   * @return A {@code CompletableFuture} of the newly added artifact.
+   */
+  CompletableFuture<Artifact> addArtifact(ArtifactData artifactData);
+
+  /**
+   * Asynchronous {@link LockssRepository#getArtifactData(Artifact,
+   * IncludeContent)}.
+   * <br>(See Reusability and release note in {@link ArtifactData})
+   *
+   * @param artifact       An artifact to retrieve from the repository.
+   * @param includeContent A {@link IncludeContent} indicating whether the
+   *                       artifact content should be included.
+   * @return A {@code CompletableFuture} of the {@code ArtifactData}.
+   */
+  CompletableFuture<ArtifactData> getArtifactData(Artifact artifact,
+                                                  IncludeContent includeContent);
+
+  /**
+   * Asynchronous {@link LockssRepository#commitArtifact(String, String)}.
+   *
+   * @param namespace    A {@code String} containing the namespace.
+   * @param artifactUuid A {@code String} with the UUID of the artifact to commit.
+   * @return A {@code CompletableFuture} of the committed artifact.
+   */
+  CompletableFuture<Artifact> commitArtifact(String namespace, String artifactUuid);
+
+  /**
+   * Asynchronous {@link LockssRepository#getArtifact(String, String, String)}.
+   *
+   * @param namespace A {@code String} containing the namespace.
+   * @param auid      A {@code String} containing the Archival Unit ID.
+   * @param url       A {@code String} containing a URL.
+   * @return A {@code CompletableFuture} of the latest version of the URL in
+   * the AU, or of null if none.
+   */
+  CompletableFuture<Artifact> getArtifact(String namespace, String auid, String url);
+
+  /**
+   * Asynchronous {@link LockssRepository#getArtifactVersion(String,
+   * String, String, Integer, boolean)}.
+   *
+   * @param namespace          A String with the namespace.
+   * @param auid               A String with the Archival Unit identifier.
+   * @param url                A String with the URL to be matched.
+   * @param version            An Integer with the version.
+   * @param includeUncommitted A boolean with the indication of whether an
+   *                           uncommitted artifact may be returned.
+   * @return A {@code CompletableFuture} of the artifact, or of null if none.
+   */
+  CompletableFuture<Artifact> getArtifactVersion(String namespace, String auid, String url,
+                                                 Integer version, boolean includeUncommitted);
+
+  /**
+   * Asynchronous {@link LockssRepository#auSize(String, String)}.
+   *
+   * @param namespace A {@code String} containing the namespace.
+   * @param auid      A {@code String} containing the Archival Unit ID.
+   * @return A {@code CompletableFuture} of the AU's size statistics.
+   */
+  CompletableFuture<AuSize> auSize(String namespace, String auid);
+}
@@ -0,0 +1,579 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo;
+
+import org.apache.commons.io.IOUtils;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.io.FileRegionInputStream;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.rest.repo.util.ImportStatusIterable;
+import org.lockss.util.rest.repo.util.TaskExecutors;
+import org.lockss.util.time.TimeBase;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Imports a set of WARC files into an AU with several concurrent calls to
+ * {@link LockssRepository#addArtifacts(String, String, InputStream,
+ * LockssRepository.ArchiveType, boolean, String)}.  Uncompressed WARC
+ * files larger than the split size are divided at record boundaries, so
+ * that a single large file is also imported in parallel; compressed
+ * files are imported whole.  The {@link ImportStatus}es of all the
+ * uploads are merged into a single iterator, and the offsets of those
+ * from a split file are adjusted to be relative to the start of the file.
+ * <p>
+ * Statuses wait in a bounded queue, so when the consumer falls behind,
+ * the upload threads block and stop reading the server's responses.  If
+ * an upload fails, a single {@code ERROR} status is returned for its
+ * segment and the other segments continue.
+ * <p>
+ * <pre>
+ *   BulkArchiveImporter importer =
+ *     new BulkArchiveImporter(repo, namespace, auid).setConcurrency(8);
+ *   try (BulkArchiveImporter.ImportRun run = importer.importWarcs(files)) {
+ *     for (ImportStatus status : run) {
+ *       ...
+ *     }
+ *     log.info("Done: {}", run.getProgress());
+ *   }
+ * </pre>
+ */
+public class BulkArchiveImporter {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  public static final int DEFAULT_CONCURRENCY = 4;
+  public static final int DEFAULT_QUEUE_SIZE = 1000;
+  public static final long DEFAULT_SPLIT_SIZE = 1024L * 1024 * 1024;
+
+  // Longest WARC header line we expect while looking for record
+  // boundaries
+  static final int MAX_HEADER_LINE = 64 * 1024;
+
+  private final LockssRepository repo;
+  private final String namespace;
+  private final String auid;
+  private int concurrency = DEFAULT_CONCURRENCY;
+  private int queueSize = DEFAULT_QUEUE_SIZE;
+  private long splitSize = DEFAULT_SPLIT_SIZE;
+  private boolean storeDuplicate = false;
+  private String excludeStatusPattern;
+
+  /**
+   * @param repo      the repository into which to import
+   * @param namespace the namespace of the artifacts
+   * @param auid      the AUID of the artifacts
+   */
+  public BulkArchiveImporter(LockssRepository repo, String namespace,
+                             String auid) {
+    this.repo = repo;
+    this.namespace = namespace;
+    this.auid = auid;
+  }
+
+  /** Set the maximum number of concurrent uploads */
+  public BulkArchiveImporter setConcurrency(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be at least 1");
+    }
+    this.concurrency = concurrency;
+    return this;
+  }
+
+  /** Set the maximum number of statuses waiting for the consumer */
+  public BulkArchiveImporter setQueueSize(int queueSize) {
+    if (queueSize < 1) {
+      throw new IllegalArgumentException("Queue size must be at least 1");
+    }
+    this.queueSize = queueSize;
+    return this;
+  }
+
+  /** Set the size above which uncompressed WARC files are split into
+   * multiple uploads.  0 disables splitting. */
+  public BulkArchiveImporter setSplitSize(long splitSize) {
+    this.splitSize = splitSize;
+    return this;
+  }
+
+  public BulkArchiveImporter setStoreDuplicate(boolean storeDuplicate) {
+    this.storeDuplicate = storeDuplicate;
+    return this;
+  }
+
+  public BulkArchiveImporter setExcludeStatusPattern(String excludeStatusPattern) {
+    this.excludeStatusPattern = excludeStatusPattern;
+    return this;
+  }
+
+  /**
+   * Start importing the WARC files.  Files whose names end with {@code
+   * .gz} are assumed to be compressed and aren't split.
+   *
+   * @param warcFiles the WARC files to import
+   * @return an {@link ImportRun}, which must be closed if it isn't
+   * iterated to the end
+   * @throws IOException if a file can't be read while looking for record
+   *                     boundaries
+   */
+  public ImportRun importWarcs(Collection<File> warcFiles) throws IOException {
+    List<Segment> segments = new ArrayList<>();
+    for (File file : warcFiles) {
+      segments.addAll(splitWarc(file));
+    }
+    log.debug("Importing {} WARCs in {} segments into {}/{}",
+              warcFiles.size(), segments.size(), namespace, auid);
+    return new ImportRun(segments);
+  }
+
+  /** A region of a WARC file that's uploaded in one request */
+  static class Segment {
+    final File file;
+    final long offset;
+    final long length;
+
+    Segment(File file, long offset, long length) {
+      this.file = file;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public String toString() {
+      return "[Segment: " + file + ", " + offset + "+" + length + "]";
+    }
+  }
+
+  /** Divide a WARC file into segments of at least splitSize bytes that
+   * begin and end at record boundaries.  If the file is compressed or its
+   * records can't be parsed it's returned as a single segment. */
+  List<Segment> splitWarc(File file) throws IOException {
+    long size = file.length();
+    Segment whole = new Segment(file, 0, size);
+    if (splitSize <= 0 || size <= splitSize
+        || file.getName().toLowerCase().endsWith(".gz")) {
+      return Collections.singletonList(whole);
+    }
+    List<Segment> res = new ArrayList<>();
+    try (FileRegionInputStream in = new FileRegionInputStream(file)) {
+      long segStart = 0;
+      while (true) {
+        // Skip the blank lines between records
+        long recStart;
+        String line;
+        do {
+          recStart = in.getPosition();
+          line = readLine(in);
+        } while (line != null && line.isEmpty());
+        if (line == null) {
+          break;
+        }
+        if (!line.startsWith("WARC/")) {
+          log.warn("Not splitting {}: no WARC record at {}", file, recStart);
+          return Collections.singletonList(whole);
+        }
+        if (recStart - segStart >= splitSize) {
+          res.add(new Segment(file, segStart, recStart - segStart));
+          segStart = recStart;
+        }
+        long contentLength = -1;
+        while ((line = readLine(in)) != null && !line.isEmpty()) {
+          if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+            contentLength = Long.parseLong(line.substring(15).trim());
+          }
+        }
+        if (contentLength < 0) {
+          log.warn("Not splitting {}: no Content-Length in record at {}",
+                   file, recStart);
+          return Collections.singletonList(whole);
+        }
+        IOUtils.skipFully(in, Math.min(contentLength, in.getRemaining()));
+      }
+      res.add(new Segment(file, segStart, size - segStart));
+    } catch (NumberFormatException e) {
+      log.warn("Not splitting {}: bad Content-Length", file, e);
+      return Collections.singletonList(whole);
+    } catch (HeaderLineTooLongException e) {
+      log.warn("Not splitting {}: WARC header line longer than {} bytes at {}",
+               file, MAX_HEADER_LINE, e.getPosition());
+      return Collections.singletonList(whole);
+    }
+    return res;
+  }
+
+  /** Thrown by readLine() when a line exceeds MAX_HEADER_LINE, so the
+   * file isn't split */
+  private static class HeaderLineTooLongException extends IOException {
+    private final long position;
+
+    HeaderLineTooLongException(long position) {
+      super("WARC header line too long at " + position);
+      this.position = position;
+    }
+
+    long getPosition() {
+      return position;
+    }
+  }
+
+  // Read a line terminated by LF or CRLF, without the terminator.  Returns
+  // null at EOF.  Throws HeaderLineTooLongException if the line is longer
+  // than MAX_HEADER_LINE.
+  private static String readLine(FileRegionInputStream in)
+      throws IOException {
+    long start = in.getPosition();
+    ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+    int ch;
+    while ((ch = in.read()) >= 0 && ch != '\n') {
+      if (line.size() >= MAX_HEADER_LINE) {
+        throw new HeaderLineTooLongException(start);
+      }
+      line.write(ch);
+    }
+    if (ch < 0 && line.size() == 0) {
+      return null;
+    }
+    String res = line.toString(StandardCharsets.ISO_8859_1);
+    return res.endsWith("\r") ? res.substring(0, res.length() - 1) : res;
+  }
+
+  /** Counts of the statuses and data processed so far, and the rates at
+   * which they're being processed */
+  public static class Progress {
+    private final int segments;
+    private final long segmentsDone;
+    private final long records;
+    private final long ok;
+    private final long duplicates;
+    private final long excluded;
+    private final long errors;
+    private final long bytes;
+    private final long elapsedMs;
+
+    Progress(int segments, long segmentsDone, long records, long ok,
+             long duplicates, long excluded, long errors, long bytes,
+             long elapsedMs) {
+      this.segments = segments;
+      this.segmentsDone = segmentsDone;
+      this.records = records;
+      this.ok = ok;
+      this.duplicates = duplicates;
+      this.excluded = excluded;
+      this.errors = errors;
+      this.bytes = bytes;
+      this.elapsedMs = elapsedMs;
+    }
+
+    /** Total number of segments to upload */
+    public int getSegments() {
+      return segments;
+    }
+
+    /** Number of segments whose upload has finished */
+    public long getSegmentsDone() {
+      return segmentsDone;
+    }
+
+    /** Number of statuses received */
+    public long getRecords() {
+      return records;
+    }
+
+    public long getOk() {
+      return ok;
+    }
+
+    public long getDuplicates() {
+      return duplicates;
+    }
+
+    public long getExcluded() {
+      return excluded;
+    }
+
+    /** Number of ERROR statuses, including failed segments */
+    public long getErrors() {
+      return errors;
+    }
+
+    /** Number of bytes in the segments whose upload has finished */
+    public long getBytes() {
+      return bytes;
+    }
+
+    public long getElapsedMs() {
+      return elapsedMs;
+    }
+
+    public double getRecordsPerSecond() {
+      return perSecond(records);
+    }
+
+    public double getBytesPerSecond() {
+      return perSecond(bytes);
+    }
+
+    public double getErrorsPerSecond() {
+      return perSecond(errors);
+    }
+
+    private double perSecond(long n) {
+      return elapsedMs <= 0 ? 0.0 : n * 1000.0 / elapsedMs;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("[Progress: %d/%d segments, %d records (%d ok, %d dup, %d excl, %d err), %d bytes, %.1f rec/s, %.0f B/s, %.2f err/s]",
+                           segmentsDone, segments, records, ok, duplicates,
+                           excluded, errors, bytes, getRecordsPerSecond(),
+                           getBytesPerSecond(), getErrorsPerSecond());
+    }
+  }
+
+  // Queue element that marks the exit of an upload thread, with the
+  // unexpected failure that ended it, if any
+  private static class WorkerDone {
+    private final Throwable failure;
+
+    WorkerDone(Throwable failure) {
+      this.failure = failure;
+    }
+  }
+
+  /**
+   * An import in progress.  Iterating returns the statuses of all the
+   * records in all the segments, in the order they arrive.  Closing it
+   * stops the uploads.  If an upload thread fails unexpectedly (other
+   * than by an upload failing), the run is closed and the iterator throws
+   * a {@link CompletionException}.
+   */
+  public class ImportRun implements Iterable<ImportStatus>, Closeable {
+    private final int nSegments;
+    private final Queue<Segment> pending;
+    private final BlockingQueue<Object> results;
+    private final ExecutorService executor;
+    private final Set<Closeable> inFlight = ConcurrentHashMap.newKeySet();
+    private final int nWorkers;
+    private final long startTime = TimeBase.nowMs();
+
+    private final LongAdder segmentsDone = new LongAdder();
+    private final LongAdder records = new LongAdder();
+    private final LongAdder ok = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder excluded = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+
+    private volatile boolean closed = false;
+    private boolean isUsed = false;
+    private int workersDone = 0;
+    private ImportStatus next;
+
+    private ImportRun(List<Segment> segments) {
+      this.nSegments = segments.size();
+      this.pending = new ConcurrentLinkedQueue<>(segments);
+      this.results = new LinkedBlockingQueue<>(queueSize);
+      this.nWorkers = Math.min(concurrency, nSegments);
+      this.executor =
+          TaskExecutors.newBlockingTaskExecutor(Math.max(nWorkers, 1),
+                                                "BulkArchiveImporter");
+      for (int ix = 0; ix < nWorkers; ix++) {
+        executor.execute(this::runWorker);
+      }
+      executor.shutdown();
+    }
+
+    /** Return a snapshot of the progress counters */
+    public Progress getProgress() {
+      return new Progress(nSegments, segmentsDone.sum(), records.sum(),
+                          ok.sum(), duplicates.sum(), excluded.sum(),
+                          errors.sum(), bytes.sum(),
+                          TimeBase.nowMs() - startTime);
+    }
+
+    // Runs in an upload thread: import segments until there are no more
+    private void runWorker() {
+      Throwable failure = null;
+      try {
+        Segment seg;
+        while (!closed && (seg = pending.poll()) != null) {
+          importSegment(seg);
+        }
+      } catch (InterruptedException e) {
+        log.debug2("Import cancelled");
+      } catch (Throwable t) {
+        log.error("Upload thread failed", t);
+        failure = t;
+      } finally {
+        // The consumer counts these to know when all the uploads are done
+        if (!closed) {
+          try {
+            results.put(new WorkerDone(failure));
+          } catch (InterruptedException e) {
+            log.debug2("Import cancelled");
+          }
+        }
+      }
+    }
+
+    private void importSegment(Segment seg) throws InterruptedException {
+      log.debug2("Importing {}", seg);
+      ImportStatusIterable statuses = null;
+      try (InputStream in =
+           new FileRegionInputStream(seg.file, seg.offset, seg.length)) {
+        statuses = repo.addArtifacts(namespace, auid, in,
+                                     LockssRepository.ArchiveType.WARC,
+                                     storeDuplicate, excludeStatusPattern);
+        inFlight.add(statuses);
+        if (closed) {
+          return;
+        }
+        for (ImportStatus status : statuses) {
+          if (status.getOffset() != null) {
+            status.setOffset(status.getOffset() + seg.offset);
+          }
+          count(status);
+          results.put(status);
+        }
+        bytes.add(seg.length);
+      } catch (IOException | RuntimeException e) {
+        if (closed) {
+          return;
+        }
+        log.error("Import of {} failed", seg, e);
+        ImportStatus status = new ImportStatus()
+            .warcId(seg.file.getName())
+            .offset(seg.offset)
+            .status(ImportStatus.StatusEnum.ERROR)
+            .statusMessage("Import of segment failed: " + e);
+        count(status);
+        results.put(status);
+      } finally {
+        segmentsDone.increment();
+        if (statuses != null) {
+          inFlight.remove(statuses);
+          IOUtils.closeQuietly(statuses);
+        }
+      }
+    }
+
+    private void count(ImportStatus status) {
+      records.increment();
+      ImportStatus.StatusEnum st = status.getStatus();
+      if (st == null) {
+        return;
+      }
+      switch (st) {
+      case OK:
+        ok.increment();
+        break;
+      case DUPLICATE:
+        duplicates.increment();
+        break;
+      case EXCLUDED:
+        excluded.increment();
+        break;
+      case ERROR:
+        errors.increment();
+        break;
+      }
+    }
+
+    @Override
+    public Iterator<ImportStatus> iterator() {
+      synchronized (this) {
+        if (isUsed) {
+          throw new IllegalStateException("Cannot use this iterator more than once");
+        }
+        isUsed = true;
+      }
+      return new Iterator<ImportStatus>() {
+        @Override
+        public boolean hasNext() {
+          return advance();
+        }
+
+        @Override
+        public ImportStatus next() {
+          if (!advance()) {
+            throw new NoSuchElementException();
+          }
+          ImportStatus res = next;
+          next = null;
+          return res;
+        }
+      };
+    }
+
+    private boolean advance() {
+      while (next == null) {
+        if (closed || workersDone >= nWorkers) {
+          return false;
+        }
+        Object item;
+        try {
+          item = results.take();
+        } catch (InterruptedException e) {
+          close();
+          Thread.currentThread().interrupt();
+          throw new CancellationException("Interrupted waiting for import status");
+        }
+        if (item instanceof WorkerDone) {
+          Throwable failure = ((WorkerDone) item).failure;
+          if (failure != null) {
+            close();
+            throw new CompletionException("Upload thread failed", failure);
+          }
+          workersDone++;
+        } else {
+          next = (ImportStatus) item;
+        }
+      }
+      return true;
+    }
+
+    /** Stop the uploads and discard any statuses not yet consumed */
+    @Override
+    public void close() {
+      if (!closed) {
+        closed = true;
+        executor.shutdownNow();
+        for (Closeable c : inFlight) {
+          IOUtils.closeQuietly(c);
+        }
+        results.clear();
+      }
+    }
+  }
+}
@@ -39,7 +39,12 @@ import org.lockss.util.time.Deadline;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The LOCKSS Repository API:
@@ -231,6 +236,62 @@ public interface LockssRepository extends Ready {
    */
   Iterable<Artifact> getArtifacts(String namespace, String auid) throws IOException;
 
+  /**
+   * The number of AUs whose artifacts are fetched at once by {@link
+   * #streamArtifacts(String)}.
+   */
+  int DEFAULT_STREAM_CONCURRENCY = 8;
+
+  /**
+   * Returns a {@code Stream} of the committed artifacts of the latest
+   * version of all URLs in all AUs in a namespace, or in all namespaces.
+   * Equivalent to {@code streamArtifacts(namespace,
+   * DEFAULT_STREAM_CONCURRENCY, false)}.
+   *
+   * @param namespace A {code String} containing the namespace, or null
+   *                  for all namespaces.
+   * @return A {@code Stream<Artifact>}, which should be closed if it isn't
+   * consumed to the end.
+   * @see #streamArtifacts(String, int, boolean)
+   */
+  default Stream<Artifact> streamArtifacts(String namespace) {
+    return streamArtifacts(namespace, DEFAULT_STREAM_CONCURRENCY, false);
+  }
+
+  /**
+   * Returns a {@code Stream} of the committed artifacts of the latest
+   * version of all URLs in all AUs in a namespace, or in all namespaces.
+   * The AUs are enumerated with {@link #getNamespaces()} and {@link
+   * #getAuIds(String)}, and the artifacts of up to {@code concurrency} AUs
+   * are fetched at once with {@link #getArtifacts(String, String)}, by
+   * background threads.  Fetching stays a bounded distance ahead of the
+   * consumer of the stream.
+   * <p>
+   * The stream is sequential; the concurrency is in fetching.  If it isn't
+   * consumed to the end it should be closed (e.g., with
+   * try-with-resources) to stop fetching promptly.  An {@code
+   * IOException} thrown while fetching is rethrown to the consumer,
+   * wrapped in a {@link org.lockss.util.LockssUncheckedIOException}.
+   *
+   * @param namespace   A {code String} containing the namespace, or null
+   *                    for all namespaces.
+   * @param concurrency The maximum number of AUs to fetch at once.
+   * @param ordered     If true, the artifacts are returned in AU
+   *                    enumeration order, and within each AU in the order
+   *                    returned by {@link #getArtifacts(String, String)}.
+   *                    If false, they're returned in the order they
+   *                    arrive, which keeps more of the fetching threads
+   *                    busy.
+   * @return A {@code Stream<Artifact>}.
+   */
+  default Stream<Artifact> streamArtifacts(String namespace, int concurrency,
+                                           boolean ordered) {
+    ArtifactStreamSpliterator spliter =
+        new ArtifactStreamSpliterator(this, namespace, concurrency,
+            ArtifactStreamSpliterator.DEFAULT_QUEUE_SIZE, ordered);
+    return StreamSupport.stream(spliter, false).onClose(spliter::close);
+  }
+
   /**
    * Returns the committed artifacts of all versions of all URLs, from a specified Archival Unit and namespace.
    *
@@ -329,6 +390,37 @@ public interface LockssRepository extends Ready {
                        String url)
       throws IOException;
 
+  /**
+   * Returns the artifacts of the latest versions of a collection of URLs,
+   * from a specified Archival Unit and namespace.  Implementations may
+   * perform the lookups in bulk or concurrently; this default
+   * implementation calls {@link #getArtifact(String, String, String)} for
+   * each URL.
+   *
+   * @param namespace A {@code String} containing the namespace.
+   * @param auid       A {@code String} containing the Archival Unit ID.
+   * @param urls       A {@code Collection<String>} of URLs.
+   * @return A {@code Map} from each URL in {@code urls} to the {@code
+   * Artifact} of its latest version, in iteration order of {@code urls}.
+   * URLs with no artifact in the AU are not present in the map.
+   * @throws IOException
+   */
+  default Map<String, Artifact> getArtifacts(String namespace,
+                                             String auid,
+                                             Collection<String> urls)
+      throws IOException {
+    Map<String, Artifact> res = new LinkedHashMap<>();
+    for (String url : urls) {
+      if (!res.containsKey(url)) {
+        Artifact art = getArtifact(namespace, auid, url);
+        if (art != null) {
+          res.put(url, art);
+        }
+      }
+    }
+    return res;
+  }
+
   /**
    * Returns the artifact with the specified artifact UUID.
    *
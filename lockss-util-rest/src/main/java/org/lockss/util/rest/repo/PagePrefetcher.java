@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo;
+
+import org.lockss.log.L4JLogger;
+
+import java.lang.ref.Cleaner;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Fetches successive pages of a paginated REST result in a background
+ * thread, staying up to {@code depth} pages ahead of the consumer.  Used
+ * by the repository iterators to overlap the REST round trip and JSON
+ * parse of page N+1 with the consumption of page N.
+ * <p>
+ * The fetcher must not refer to the object that owns the prefetcher,
+ * otherwise that object can never be garbage collected while the
+ * prefetch thread is blocked.  If the owner is registered with {@link
+ * #cancelWhenUnreachable(Object)}, prefetching is cancelled when an
+ * abandoned iterator is collected.
+ */
+class PagePrefetcher<T> implements AutoCloseable {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  private static final Cleaner cleaner = Cleaner.create();
+
+  private static final ExecutorService executor =
+      Executors.newCachedThreadPool(r -> {
+        Thread th = new Thread(r, "PagePrefetcher");
+        th.setDaemon(true);
+        return th;
+      });
+
+  /** One page of results and the token to use to fetch the next page
+   * (null if this is the last page). */
+  static class Page<T> {
+    final List<T> items;
+    final String continuationToken;
+
+    Page(List<T> items, String continuationToken) {
+      this.items = items;
+      this.continuationToken = continuationToken;
+    }
+  }
+
+  /** Fetches the page identified by the continuation token (null for the
+   * first page).  Failures are reported by throwing an unchecked
+   * exception, which is rethrown to the consumer. */
+  @FunctionalInterface
+  interface PageFetcher<T> {
+    Page<T> fetchPage(String continuationToken);
+  }
+
+  // Queue element: a page or the exception thrown while fetching one
+  private static class Result<T> {
+    final Page<T> page;
+    final Throwable exception;
+
+    Result(Page<T> page, Throwable exception) {
+      this.page = page;
+      this.exception = exception;
+    }
+  }
+
+  private final BlockingQueue<Result<T>> queue;
+  private final Future<?> future;
+  private Cleaner.Cleanable cleanable;
+  private boolean done = false;
+
+  /**
+   * Start prefetching.
+   *
+   * @param fetcher    Fetches each page.
+   * @param startToken The continuation token of the first page to fetch,
+   *                   or null to start at the beginning.
+   * @param depth      The maximum number of pages to fetch ahead of the
+   *                   consumer.
+   */
+  PagePrefetcher(PageFetcher<T> fetcher, String startToken, int depth) {
+    if (depth < 1) {
+      throw new IllegalArgumentException("Prefetch depth must be at least 1");
+    }
+    queue = new LinkedBlockingQueue<>(depth);
+    BlockingQueue<Result<T>> q = queue;
+    future = executor.submit(() -> run(fetcher, startToken, q));
+  }
+
+  // Static so the task doesn't refer to this PagePrefetcher
+  private static <T> void run(PageFetcher<T> fetcher, String token,
+                              BlockingQueue<Result<T>> q) {
+    try {
+      do {
+        Page<T> page = fetcher.fetchPage(token);
+        q.put(new Result<>(page, null));
+        token = page.continuationToken;
+      } while (token != null && !Thread.currentThread().isInterrupted());
+    } catch (InterruptedException e) {
+      log.debug2("Prefetch cancelled");
+    } catch (Throwable e) {
+      if (!Thread.currentThread().isInterrupted()) {
+        // The consumer may still be taking pages queued before the
+        // error, so wait for room rather than drop it, which would
+        // leave the consumer waiting forever for the next page
+        try {
+          q.put(new Result<>(null, e));
+        } catch (InterruptedException ie) {
+          log.debug2("Prefetch cancelled");
+        }
+      }
+    }
+  }
+
+  /** Arrange for prefetching to be cancelled when owner becomes
+   * unreachable. */
+  PagePrefetcher<T> cancelWhenUnreachable(Object owner) {
+    Future<?> fut = future;
+    cleanable = cleaner.register(owner, () -> fut.cancel(true));
+    return this;
+  }
+
+  /**
+   * Return the next page, waiting for it to be fetched if necessary.
+   * Must not be called after the page with a null continuation token has
+   * been returned.
+   *
+   * @throws RuntimeException the exception thrown by the fetcher.
+   * @throws Error the error thrown by the fetcher.
+   */
+  Page<T> nextPage() {
+    if (done) {
+      throw new IllegalStateException("No more pages");
+    }
+    Result<T> res;
+    try {
+      res = queue.take();
+    } catch (InterruptedException e) {
+      close();
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Interrupted waiting for page");
+    }
+    if (res.exception != null) {
+      done = true;
+      if (res.exception instanceof Error) {
+        throw (Error)res.exception;
+      }
+      if (res.exception instanceof RuntimeException) {
+        throw (RuntimeException)res.exception;
+      }
+      // Only possible if the fetcher sneakily throws a checked exception
+      throw new UndeclaredThrowableException(res.exception);
+    }
+    if (res.page.continuationToken == null) {
+      done = true;
+    }
+    return res.page;
+  }
+
+  /** Stop prefetching and discard any pages already fetched. */
+  @Override
+  public void close() {
+    done = true;
+    future.cancel(true);
+    queue.clear();
+    if (cleanable != null) {
+      cleanable.clean();
+    }
+  }
+}
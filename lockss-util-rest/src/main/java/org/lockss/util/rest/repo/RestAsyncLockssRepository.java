@@ -0,0 +1,238 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo;
+
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.LockssRepository.IncludeContent;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.model.AuSize;
+import org.lockss.util.rest.repo.util.ArtifactCache;
+import org.lockss.util.rest.repo.util.TaskExecutors;
+
+import java.io.IOException;
+import java.util.concurrent.*;
+
+/**
+ * {@link AsyncLockssRepository} facade for a {@link RestLockssRepository}.
+ * <p>
+ * Lookups that can be satisfied by the repository's {@link ArtifactCache}
+ * are performed synchronously in the calling thread and return an
+ * already-completed future.  Everything else runs on an executor, by
+ * default one that starts a virtual thread per request (or, on JVMs
+ * without virtual threads, a fixed-size thread pool).  The number of
+ * REST requests in progress at once is bounded by {@code maxInFlight};
+ * requests beyond that wait, without occupying a platform thread if
+ * virtual threads are available, until one completes.
+ */
+public class RestAsyncLockssRepository implements AsyncLockssRepository {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  public static final int DEFAULT_MAX_IN_FLIGHT = 100;
+
+  private final RestLockssRepository repo;
+  private final ExecutorService executor;
+  private final boolean ownsExecutor;
+  private final Semaphore inFlight;
+  private final int maxInFlight;
+
+  /**
+   * Create an async facade using the default executor and in-flight limit.
+   *
+   * @param repo The {@link RestLockssRepository} to wrap.
+   */
+  public RestAsyncLockssRepository(RestLockssRepository repo) {
+    this(repo, null, DEFAULT_MAX_IN_FLIGHT);
+  }
+
+  /**
+   * Create an async facade.
+   *
+   * @param repo        The {@link RestLockssRepository} to wrap.
+   * @param executor    The {@link ExecutorService} on which to run REST
+   *                    requests, or null to use the default.  An executor
+   *                    supplied by the caller is not shut down by {@link
+   *                    #shutdown()}.
+   * @param maxInFlight The maximum number of REST requests in progress at
+   *                    once.
+   */
+  public RestAsyncLockssRepository(RestLockssRepository repo,
+                                   ExecutorService executor,
+                                   int maxInFlight) {
+    if (repo == null) {
+      throw new IllegalArgumentException("Null repository");
+    }
+    if (maxInFlight < 1) {
+      throw new IllegalArgumentException("maxInFlight must be at least 1");
+    }
+    this.repo = repo;
+    this.maxInFlight = maxInFlight;
+    this.inFlight = new Semaphore(maxInFlight);
+    if (executor != null) {
+      this.executor = executor;
+      this.ownsExecutor = false;
+    } else {
+      this.executor =
+          TaskExecutors.newBlockingTaskExecutor(maxInFlight,
+                                                "AsyncLockssRepository");
+      this.ownsExecutor = true;
+    }
+  }
+
+  /** A repository operation that may throw IOException */
+  @FunctionalInterface
+  interface RepoCall<T> {
+    T call() throws IOException;
+  }
+
+  /**
+   * Run the call on the executor, limiting the number running at once to
+   * maxInFlight.  The future is completed exceptionally with the
+   * exception thrown by the call, unwrapped.
+   */
+  <T> CompletableFuture<T> submit(RepoCall<T> call) {
+    CompletableFuture<T> res = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        if (res.isDone()) {
+          // Cancelled before it started
+          return;
+        }
+        try {
+          inFlight.acquire();
+        } catch (InterruptedException e) {
+          res.completeExceptionally(e);
+          return;
+        }
+        try {
+          res.complete(call.call());
+        } catch (Throwable t) {
+          res.completeExceptionally(t);
+        } finally {
+          inFlight.release();
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      res.completeExceptionally(e);
+    }
+    return res;
+  }
+
+  private ArtifactCache cache() {
+    return repo.getArtifactCache();
+  }
+
+  @Override
+  public CompletableFuture<Artifact> addArtifact(ArtifactData artifactData) {
+    return submit(() -> repo.addArtifact(artifactData));
+  }
+
+  @Override
+  public CompletableFuture<ArtifactData> getArtifactData(Artifact artifact,
+                                                         IncludeContent includeContent) {
+    if (artifact != null) {
+      boolean needInputStream = (includeContent != IncludeContent.NEVER);
+      ArtifactData cached =
+          cache().getArtifactData(artifact.getNamespace(), artifact.getUuid(),
+                                  needInputStream);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+    }
+    return submit(() -> repo.getArtifactData(artifact, includeContent));
+  }
+
+  @Override
+  public CompletableFuture<Artifact> commitArtifact(String namespace, String artifactUuid) {
+    return submit(() -> repo.commitArtifact(namespace, artifactUuid));
+  }
+
+  @Override
+  public CompletableFuture<Artifact> getArtifact(String namespace, String auid, String url) {
+    if (auid != null && url != null) {
+      Artifact cached = cache().getLatest(namespace, auid, url);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+      if (cache().isLatestNotFound(namespace, auid, url)) {
+        return CompletableFuture.completedFuture(null);
+      }
+    }
+    return submit(() -> repo.getArtifact(namespace, auid, url));
+  }
+
+  @Override
+  public CompletableFuture<Artifact> getArtifactVersion(String namespace, String auid, String url,
+                                                        Integer version,
+                                                        boolean includeUncommitted) {
+    if (auid != null && url != null && version != null) {
+      Artifact cached = cache().get(namespace, auid, url, version);
+      if (cached != null) {
+        return CompletableFuture.completedFuture(cached);
+      }
+      // As in RestLockssRepository, a negative result doesn't preclude
+      // an uncommitted artifact
+      if (!includeUncommitted
+          && cache().isNotFound(namespace, auid, url, version)) {
+        return CompletableFuture.completedFuture(null);
+      }
+    }
+    return submit(() -> repo.getArtifactVersion(namespace, auid, url, version,
+                                                includeUncommitted));
+  }
+
+  @Override
+  public CompletableFuture<AuSize> auSize(String namespace, String auid) {
+    return submit(() -> repo.auSize(namespace, auid));
+  }
+
+  /** Return the wrapped repository */
+  public RestLockssRepository getRepository() {
+    return repo;
+  }
+
+  public int getMaxInFlight() {
+    return maxInFlight;
+  }
+
+  /** Return the number of REST requests currently in progress */
+  public int getInFlight() {
+    return maxInFlight - inFlight.availablePermits();
+  }
+
+  /** Shut down the executor, if it was created by this object.  Requests
+   * already submitted are allowed to complete. */
+  public void shutdown() {
+    if (ownsExecutor) {
+      executor.shutdown();
+    }
+  }
+}
@@ -35,6 +35,7 @@ import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.commons.collections4.IteratorUtils;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.NotImplementedException;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.HttpException;
@@ -49,6 +50,7 @@ import org.lockss.util.jms.JmsFactory;
 import org.lockss.util.jms.JmsProducer;
 import org.lockss.util.jms.JmsUtil;
 import org.lockss.util.rest.LockssResponseErrorHandler;
+import org.lockss.util.rest.ResiliencePolicy;
 import org.lockss.util.rest.RestUtil;
 import org.lockss.util.rest.exception.LockssRestException;
 import org.lockss.util.rest.exception.LockssRestHttpException;
@@ -73,6 +75,7 @@ import javax.jms.MessageListener;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.net.URI;
 import java.net.URL;
 import java.time.Instant;
@@ -81,6 +84,8 @@ import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.TemporalAccessor;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * REST client implementation of the LOCKSS Repository API; makes REST
@@ -99,6 +104,27 @@ public class RestLockssRepository implements LockssRepository {
   public static final boolean DEFAULT_USE_MULTIPART_ENDPOINT = false;
   private boolean useMultipartEndpoint = DEFAULT_USE_MULTIPART_ENDPOINT;
 
+  // If true, ArtifactData content streams read directly from the HTTP
+  // connection rather than from a copy buffered in memory or a temp file,
+  // unless the caller asks for a replayable body
+  public static final boolean DEFAULT_STREAM_ARTIFACT_DATA = false;
+  private boolean streamArtifactData = DEFAULT_STREAM_ARTIFACT_DATA;
+
+  // Max number of concurrent lookups issued by the batch getArtifacts()
+  public static final int DEFAULT_BATCH_LOOKUP_CONCURRENCY = 16;
+  private int batchLookupConcurrency = DEFAULT_BATCH_LOOKUP_CONCURRENCY;
+  private ThreadPoolExecutor batchLookupExecutor;
+
+  // Page size (limit) and read-ahead depth of artifact and AUID iterators.
+  // A null page size uses the service's default.
+  public static final int DEFAULT_ITERATOR_PREFETCH_DEPTH = 0;
+  private Integer iteratorPageSize = null;
+  private int iteratorPrefetchDepth = DEFAULT_ITERATOR_PREFETCH_DEPTH;
+
+  // Governs retries, circuit breaking and hedging of REST calls.  Null
+  // uses RestUtil's default retry backoffs.
+  private ResiliencePolicy resiliencePolicy = null;
+
   // These must match the LOCKSS Repository swagger specification:
   public static final String MULTIPART_ARTIFACT_PROPS = "artifactProps";
   public static final String MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER = "httpResponseHeader";
@@ -299,7 +325,7 @@ public class RestLockssRepository implements LockssRepository {
               HttpMethod.POST,
               multipartEntity,
               // TODO: Change this to Artifact and remove OjectMapper below
-              String.class, "addArtifact");
+              String.class, "addArtifact", resiliencePolicy);
 
       // Handle response
       checkStatusOk(response);
@@ -377,7 +403,8 @@ public class RestLockssRepository implements LockssRepository {
               RestUtil.getRestUri(archivesEndpoint, null, queryParams),
               HttpMethod.POST,
               new HttpEntity<>(parts, getInitializedHttpHeaders()),
-              Resource.class, "Error calling remote addArtifacts() over REST");
+              Resource.class, "Error calling remote addArtifacts() over REST",
+              resiliencePolicy);
 
       checkStatusOk(response);
 
@@ -416,6 +443,24 @@ public class RestLockssRepository implements LockssRepository {
   @Override
   public ArtifactData getArtifactData(Artifact artifact, IncludeContent includeContent)
       throws IOException {
+    return getArtifactData(artifact, includeContent, !streamArtifactData);
+  }
+
+  /**
+   * Retrieves an artifact from a remote REST LOCKSS Repository server.
+   *
+   * @param artifact The {@link Artifact} of the {@link ArtifactData} to return.
+   * @param includeContent A {@link IncludeContent} indicating whether the artifact content should be included in the
+   *                       {@link ArtifactData} returned by this method.
+   * @param replayable If true, the content is buffered in memory or a temp file, so it remains readable after the
+   *                   connection is released.  If false, the content stream reads directly from the HTTP connection.
+   *                   See {@link #setStreamArtifactData(boolean)}.
+   * @return The {@link ArtifactData} of the {@link Artifact}.
+   * @throws IOException
+   */
+  public ArtifactData getArtifactData(Artifact artifact, IncludeContent includeContent,
+                                      boolean replayable)
+      throws IOException {
 
     if (artifact == null) {
       throw new IllegalArgumentException("Null artifact");
@@ -432,7 +477,8 @@ public class RestLockssRepository implements LockssRepository {
     }
 
     if (useMultipartEndpoint) {
-      return getArtifactDataByMultipart(namespace, artifactUuid, includeContent);
+      return getArtifactDataByMultipart(namespace, artifactUuid, includeContent,
+          replayable);
     }
 
     try {
@@ -443,79 +489,92 @@ public class RestLockssRepository implements LockssRepository {
       requestHeaders.setAccept(ListUtil.list(APPLICATION_HTTP_RESPONSE, MediaType.APPLICATION_JSON));
 
       // Make the request to the REST service and get its response
-      ResponseEntity<InputStreamResource> response = RestUtil.callRestService(
-          restTemplate,
+      ResponseEntity<InputStream> response = getArtifactDataStream(
           endpoint,
-          HttpMethod.GET,
-          new HttpEntity<>(requestHeaders),
-          InputStreamResource.class,
-          "REST client error: getArtifactData()");
+          requestHeaders,
+          "REST client error: getArtifactData()",
+          replayable);
 
-      checkStatusOk(response);
+      checkStreamingStatusOk(response);
 
       // Transform HTTP response stream in REST response body to ArtifactData
-      Resource body = response.getBody();
+      InputStream responseBodyStream = response.getBody();
       HttpHeaders responseHeaders = response.getHeaders();
 
-      boolean receivedOnlyHeaders =
-          responseHeaders.containsKey(ArtifactConstants.INCLUDES_CONTENT) &&
-          responseHeaders.getFirst(ArtifactConstants.INCLUDES_CONTENT).equals("false");
-
-      boolean receivedResourceType =
-          responseHeaders.containsKey(ArtifactConstants.ARTIFACT_DATA_TYPE) &&
-          responseHeaders.getFirst(ArtifactConstants.ARTIFACT_DATA_TYPE).equals("resource");
+      try {
+        boolean receivedOnlyHeaders =
+            responseHeaders.containsKey(ArtifactConstants.INCLUDES_CONTENT) &&
+            responseHeaders.getFirst(ArtifactConstants.INCLUDES_CONTENT).equals("false");
 
-      InputStream responseBodyStream = body.getInputStream();
+        boolean receivedResourceType =
+            responseHeaders.containsKey(ArtifactConstants.ARTIFACT_DATA_TYPE) &&
+            responseHeaders.getFirst(ArtifactConstants.ARTIFACT_DATA_TYPE).equals("resource");
 
-      ArtifactData result;
+        ArtifactData result;
 
-      try {
-        if (receivedOnlyHeaders) {
-          HttpResponse httpResponse = ArtifactDataUtil.getHttpResponseFromStream(responseBodyStream);
+        try {
+          if (receivedOnlyHeaders) {
+            HttpResponse httpResponse;
+            try {
+              httpResponse = ArtifactDataUtil.getHttpResponseFromStream(responseBodyStream);
+            } finally {
+              // Nothing more to read; release the connection
+              IOUtils.closeQuietly(responseBodyStream);
+            }
 
-          result = new ArtifactData()
-              .setHttpStatus(httpResponse.getStatusLine())
-              .setHttpHeaders(ArtifactDataUtil.transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()));
+            result = new ArtifactData()
+                .setHttpStatus(httpResponse.getStatusLine())
+                .setHttpHeaders(ArtifactDataUtil.transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()));
 
-          if (receivedResourceType)
-            result.setHttpStatus(null);
+            if (receivedResourceType)
+              result.setHttpStatus(null);
 
-        } else if (receivedResourceType) {
-          HttpResponse httpResponse = ArtifactDataUtil.getHttpResponseFromStream(responseBodyStream);
+          } else if (receivedResourceType) {
+            HttpResponse httpResponse = ArtifactDataUtil.getHttpResponseFromStream(responseBodyStream);
 
-          result = new ArtifactData()
-              .setHttpHeaders(ArtifactDataUtil.transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()))
-              .setInputStream(httpResponse.getEntity().getContent());
-        } else {
-          result = new ArtifactData()
-              .setResponseInputStream(responseBodyStream);
+            result = new ArtifactData()
+                .setHttpHeaders(ArtifactDataUtil.transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()))
+                .setInputStream(httpResponse.getEntity().getContent());
+          } else {
+            result = new ArtifactData()
+                .setResponseInputStream(responseBodyStream);
+          }
+        } catch (HttpException e) {
+          IOUtils.closeQuietly(responseBodyStream);
+          throw new LockssRestHttpException("Malformed HTTP response in REST response body");
         }
-      } catch (HttpException e) {
-        throw new LockssRestHttpException("Malformed HTTP response in REST response body");
-      }
 
-      // Populate ArtifactData properties from Artifact
-      result
-          .setIdentifier(artifact.getIdentifier())
-          .setContentLength(artifact.getContentLength())
-          .setContentDigest(artifact.getContentDigest());
+        if (!replayable && !receivedOnlyHeaders) {
+          // Ensure release() closes the connection even if the content
+          // stream is never obtained
+          result.setClosableInputStream(responseBodyStream);
+        }
 
-      // FIXME: Instances of Artifact from RestLockssRepository don't have a meaningful storage URL
-      //        at this time and probably never will but if it has one, set it on the ArtifactData.
-      if (artifact.getStorageUrl() != null) {
-          result.setStorageUrl(URI.create(artifact.getStorageUrl()));
-      }
+        // Populate ArtifactData properties from Artifact
+        result
+            .setIdentifier(artifact.getIdentifier())
+            .setContentLength(artifact.getContentLength())
+            .setContentDigest(artifact.getContentDigest());
 
-      String storeDate = responseHeaders.getFirst(ArtifactConstants.ARTIFACT_STORE_DATE_KEY);
-      if (!(storeDate == null || storeDate.isEmpty())) {
-        TemporalAccessor t = DateTimeFormatter.ISO_INSTANT.parse(storeDate);
-        result.setStoreDate(ZonedDateTime.ofInstant(Instant.from(t), ZoneOffset.UTC).toInstant().toEpochMilli());
-      }
+        // FIXME: Instances of Artifact from RestLockssRepository don't have a meaningful storage URL
+        //        at this time and probably never will but if it has one, set it on the ArtifactData.
+        if (artifact.getStorageUrl() != null) {
+            result.setStorageUrl(URI.create(artifact.getStorageUrl()));
+        }
 
-      // Add to artifact data cache
-      artCache.putArtifactData(namespace, artifactUuid, result);
+        String storeDate = responseHeaders.getFirst(ArtifactConstants.ARTIFACT_STORE_DATE_KEY);
+        if (!(storeDate == null || storeDate.isEmpty())) {
+          TemporalAccessor t = DateTimeFormatter.ISO_INSTANT.parse(storeDate);
+          result.setStoreDate(ZonedDateTime.ofInstant(Instant.from(t), ZoneOffset.UTC).toInstant().toEpochMilli());
+        }
 
-      return result;
+        // Add to artifact data cache
+        return putArtifactDataInCache(namespace, artifactUuid, result, replayable);
+      } catch (Throwable t) {
+        // Release the connection or temp file
+        IOUtils.closeQuietly(responseBodyStream);
+        throw t;
+      }
     } catch (LockssRestHttpException e) {
       checkArtIdError(e, artifactUuid, "Artifact not found");
       log.error("Could not get artifact data", e);
@@ -528,6 +587,17 @@ public class RestLockssRepository implements LockssRepository {
 
   public ArtifactData getArtifactDataByPayload(Artifact artifact, IncludeContent includeContent)
       throws IOException {
+    return getArtifactDataByPayload(artifact, includeContent, !streamArtifactData);
+  }
+
+  /**
+   * Like {@link #getArtifactDataByPayload(Artifact, IncludeContent)}, but
+   * with a per-call choice of whether the content is buffered.  See
+   * {@link #getArtifactData(Artifact, IncludeContent, boolean)}.
+   */
+  public ArtifactData getArtifactDataByPayload(Artifact artifact, IncludeContent includeContent,
+                                               boolean replayable)
+      throws IOException {
 
     if (artifact == null) {
       throw new IllegalArgumentException("Null artifact");
@@ -551,64 +621,71 @@ public class RestLockssRepository implements LockssRepository {
       requestHeaders.setAccept(ListUtil.list(MediaType.ALL, MediaType.APPLICATION_JSON));
 
       // Make the request to the REST service and get its response
-      ResponseEntity<Resource> response = RestUtil.callRestService(
-          restTemplate,
+      ResponseEntity<InputStream> response = getArtifactDataStream(
           endpoint,
-          HttpMethod.GET,
-          new HttpEntity<>(requestHeaders),
-          Resource.class,
-          "REST client error: getArtifactDataByPayload()");
+          requestHeaders,
+          "REST client error: getArtifactDataByPayload()",
+          replayable);
 
-      checkStatusOk(response);
+      checkStreamingStatusOk(response);
 
       // Transform HTTP response stream in REST response body to ArtifactData
-      Resource body = response.getBody();
+      InputStream responseBodyStream = response.getBody();
       HttpHeaders responseHeaders = response.getHeaders();
 
-      boolean receivedOnlyHeaders =
-          responseHeaders.containsKey(ArtifactConstants.INCLUDES_CONTENT) &&
-              responseHeaders.getFirst(ArtifactConstants.INCLUDES_CONTENT).equals("false");
+      try {
+        boolean receivedOnlyHeaders =
+            responseHeaders.containsKey(ArtifactConstants.INCLUDES_CONTENT) &&
+                responseHeaders.getFirst(ArtifactConstants.INCLUDES_CONTENT).equals("false");
 
-      HttpHeaders artifactHeaders = new HttpHeaders();
+        HttpHeaders artifactHeaders = new HttpHeaders();
 
-      if (responseHeaders.getContentType() != null) {
-        artifactHeaders.setContentType(responseHeaders.getContentType());
-      }
+        if (responseHeaders.getContentType() != null) {
+          artifactHeaders.setContentType(responseHeaders.getContentType());
+        }
 
-      artifactHeaders.setContentLength(responseHeaders.getContentLength());
-      artifactHeaders.set(ArtifactConstants.ARTIFACT_DIGEST_KEY,
-          responseHeaders.getFirst(ArtifactConstants.ARTIFACT_DIGEST_KEY));
+        artifactHeaders.setContentLength(responseHeaders.getContentLength());
+        artifactHeaders.set(ArtifactConstants.ARTIFACT_DIGEST_KEY,
+            responseHeaders.getFirst(ArtifactConstants.ARTIFACT_DIGEST_KEY));
 
-      ArtifactData result = new ArtifactData()
-          .setHttpHeaders(artifactHeaders);
+        ArtifactData result = new ArtifactData()
+            .setHttpHeaders(artifactHeaders);
 
-      if (!receivedOnlyHeaders) {
-        InputStream responseBodyStream = body.getInputStream();
-        result.setInputStream(responseBodyStream);
-      }
-
-      // Populate ArtifactData properties from Artifact
-      result
-          .setIdentifier(artifact.getIdentifier())
-          .setContentLength(artifact.getContentLength())
-          .setContentDigest(artifact.getContentDigest());
+        if (!receivedOnlyHeaders) {
+          result.setInputStream(responseBodyStream);
+          if (!replayable) {
+            result.setClosableInputStream(responseBodyStream);
+          }
+        } else {
+          // Nothing to read; release the connection
+          IOUtils.closeQuietly(responseBodyStream);
+        }
 
-      // FIXME: Instances of Artifact from RestLockssRepository don't have a meaningful storage URL
-      //        at this time and probably never will but if it has one, set it on the ArtifactData.
-      if (artifact.getStorageUrl() != null) {
-        result.setStorageUrl(URI.create(artifact.getStorageUrl()));
-      }
+        // Populate ArtifactData properties from Artifact
+        result
+            .setIdentifier(artifact.getIdentifier())
+            .setContentLength(artifact.getContentLength())
+            .setContentDigest(artifact.getContentDigest());
 
-      String storeDate = responseHeaders.getFirst(ArtifactConstants.ARTIFACT_STORE_DATE_KEY);
-      if (!(storeDate == null || storeDate.isEmpty())) {
-        TemporalAccessor t = DateTimeFormatter.ISO_INSTANT.parse(storeDate);
-        result.setStoreDate(ZonedDateTime.ofInstant(Instant.from(t), ZoneOffset.UTC).toInstant().toEpochMilli());
-      }
+        // FIXME: Instances of Artifact from RestLockssRepository don't have a meaningful storage URL
+        //        at this time and probably never will but if it has one, set it on the ArtifactData.
+        if (artifact.getStorageUrl() != null) {
+          result.setStorageUrl(URI.create(artifact.getStorageUrl()));
+        }
 
-      // Add to artifact data cache
-      artCache.putArtifactData(namespace, artifactUuid, result);
+        String storeDate = responseHeaders.getFirst(ArtifactConstants.ARTIFACT_STORE_DATE_KEY);
+        if (!(storeDate == null || storeDate.isEmpty())) {
+          TemporalAccessor t = DateTimeFormatter.ISO_INSTANT.parse(storeDate);
+          result.setStoreDate(ZonedDateTime.ofInstant(Instant.from(t), ZoneOffset.UTC).toInstant().toEpochMilli());
+        }
 
-      return result;
+        // Add to artifact data cache
+        return putArtifactDataInCache(namespace, artifactUuid, result, replayable);
+      } catch (Throwable t) {
+        // Release the connection or temp file
+        IOUtils.closeQuietly(responseBodyStream);
+        throw t;
+      }
     } catch (LockssRestHttpException e) {
       checkArtIdError(e, artifactUuid, "Artifact not found");
       log.error("Could not get artifact data", e);
@@ -619,8 +696,74 @@ public class RestLockssRepository implements LockssRepository {
     }
   }
 
+  /**
+   * Makes a GET request for artifact data and returns the response with
+   * its body as an {@code InputStream}.  Unless a replayable body is
+   * requested the stream reads directly from the HTTP connection, which
+   * is released when the stream is closed; otherwise the body has already
+   * been copied to memory or a temp file, and can be read after the
+   * connection is released.
+   */
+  private ResponseEntity<InputStream> getArtifactDataStream(URI endpoint,
+                                                            HttpHeaders requestHeaders,
+                                                            String clientExceptionMessage,
+                                                            boolean replayable)
+      throws IOException {
+
+    if (!replayable) {
+      return RestUtil.callRestServiceStreaming(restTemplate, endpoint,
+          HttpMethod.GET, requestHeaders, clientExceptionMessage, resiliencePolicy);
+    }
+
+    ResponseEntity<InputStreamResource> response = RestUtil.callRestService(
+        restTemplate,
+        endpoint,
+        HttpMethod.GET,
+        new HttpEntity<>(requestHeaders),
+        InputStreamResource.class,
+        clientExceptionMessage, resiliencePolicy);
+
+    Resource body = response.getBody();
+
+    return new ResponseEntity<>(body == null ? null : body.getInputStream(),
+        response.getHeaders(), response.getStatusCode());
+  }
+
+  /**
+   * Adds an ArtifactData to the artifact data cache, unless it's backed by
+   * a live HTTP stream, which would pin a pooled connection for as long as
+   * the entry remained in the cache.  Content small enough for the
+   * content cache is read (releasing the connection) and cached in either
+   * case.
+   *
+   * @return the ArtifactData to return to the caller, which is a
+   * replacement for ad if its content was cached
+   */
+  private ArtifactData putArtifactDataInCache(String namespace, String artifactUuid,
+                                              ArtifactData ad, boolean replayable)
+      throws IOException {
+    if (!replayable && ad.hasContentInputStream()
+        && !artCache.isContentCacheable(ad)) {
+      return ad;
+    }
+    return artCache.putArtifactData(namespace, artifactUuid, ad);
+  }
+
   public ArtifactData getArtifactDataByMultipart(String namespace, String artifactUuid, IncludeContent includeContent)
     throws IOException {
+    return getArtifactDataByMultipart(namespace, artifactUuid, includeContent,
+        !streamArtifactData);
+  }
+
+  /**
+   * Like {@link #getArtifactDataByMultipart(String, String,
+   * IncludeContent)}, but with a per-call choice of whether the content is
+   * buffered.  See {@link #getArtifactData(Artifact, IncludeContent,
+   * boolean)}.
+   */
+  public ArtifactData getArtifactDataByMultipart(String namespace, String artifactUuid, IncludeContent includeContent,
+                                                 boolean replayable)
+    throws IOException {
     if (artifactUuid == null) {
       throw new IllegalArgumentException("Null artifact UUID");
     }
@@ -646,6 +789,24 @@ public class RestLockssRepository implements LockssRepository {
           // Order matters! We expect a multipart response if success or JSON error message otherwise
           ListUtil.list(MediaType.MULTIPART_FORM_DATA, MediaType.APPLICATION_JSON));
 
+      if (!replayable) {
+        // Parse the multipart response as it arrives; the payload part
+        // is read directly from the connection
+        ResponseEntity<InputStream> response = RestUtil.callRestServiceStreaming(
+            restTemplate,
+            artifactEndpoint,
+            HttpMethod.GET,
+            requestHeaders,
+            "REST client error: getArtifactDataByMultipart()", resiliencePolicy);
+
+        checkStreamingStatusOk(response);
+
+        ArtifactData result = ArtifactDataUtil.fromStreamingMultipartResponse(response);
+
+        // Add to artifact data cache
+        return putArtifactDataInCache(namespace, artifactUuid, result, replayable);
+      }
+
       // Make the request to the REST service and get its response
       ResponseEntity<MultipartMessage> response = RestUtil.callRestService(
           restTemplate,
@@ -653,7 +814,7 @@ public class RestLockssRepository implements LockssRepository {
           HttpMethod.GET,
           new HttpEntity<>(requestHeaders),
           MultipartMessage.class,
-          "REST client error: getArtifactDataByMultipart()");
+          "REST client error: getArtifactDataByMultipart()", resiliencePolicy);
 
       checkStatusOk(response);
 
@@ -661,9 +822,7 @@ public class RestLockssRepository implements LockssRepository {
       ArtifactData result = ArtifactDataUtil.fromTransportResponseEntity(response);
 
       // Add to artifact data cache
-      artCache.putArtifactData(namespace, artifactUuid, result);
-
-      return result;
+      return artCache.putArtifactData(namespace, artifactUuid, result);
 
     } catch (LockssRestHttpException e) {
       checkArtIdError(e, artifactUuid, "Artifact not found");
@@ -707,7 +866,7 @@ public class RestLockssRepository implements LockssRepository {
               HttpMethod.PUT,
               new HttpEntity<>(EMPTY_MULTIPART_MAP, headers),
               String.class,
-              "commitArtifact client error");
+              "commitArtifact client error", resiliencePolicy);
       checkStatusOk(response);
 
       ObjectMapper mapper = new ObjectMapper();
@@ -736,7 +895,7 @@ public class RestLockssRepository implements LockssRepository {
    */
   public void deleteArtifact(Artifact artifact) throws IOException {
     artCache.invalidateArtifact(ArtifactCache.InvalidateOp.Delete,
-        artifact.makeKey());
+        ArtifactKey.of(artifact));
     deleteArtifact(artifact.getNamespace(), artifact.getUuid());
   }
 
@@ -762,7 +921,7 @@ public class RestLockssRepository implements LockssRepository {
               artifactEndpoint(namespace, artifactUuid),
               HttpMethod.DELETE,
               new HttpEntity<>(null, headers),
-              Void.class, "deleteArtifact");
+              Void.class, "deleteArtifact", resiliencePolicy);
 
       checkStatusOk(response);
       HttpStatusCode statusCode = response.getStatusCode();
@@ -826,7 +985,7 @@ public class RestLockssRepository implements LockssRepository {
               new HttpEntity<>(null,
                   getInitializedHttpHeaders()),
               String.class,
-              "getNamespaces");
+              "getNamespaces", resiliencePolicy);
       checkStatusOk(response);
 
       ObjectMapper mapper = new ObjectMapper();
@@ -858,7 +1017,8 @@ public class RestLockssRepository implements LockssRepository {
 
     try {
       return IteratorUtils.asIterable(
-          new RestLockssRepositoryAuidIterator(restTemplate, builder, authHeaderValue));
+          new RestLockssRepositoryAuidIterator(restTemplate, builder, authHeaderValue,
+              iteratorPageSize, iteratorPrefetchDepth));
 
     } catch (LockssUncheckedIOException e) {
       // Re-throw wrapped checked IOException
@@ -874,7 +1034,32 @@ public class RestLockssRepository implements LockssRepository {
    */
   private Iterator<Artifact> getArtifactIterator(UriComponentsBuilder builder) throws IOException {
     return new RestLockssRepositoryArtifactIterator(restTemplate, builder,
-        authHeaderValue);
+        authHeaderValue, iteratorPageSize, iteratorPrefetchDepth);
+  }
+
+  /**
+   * GETs a page of artifacts and decodes it directly from the response
+   * stream.
+   *
+   * @param endpoint A {@code URI} containing a REST endpoint that returns a page of artifacts.
+   * @param clientExceptionMessage A {@code String} identifying the operation, for errors.
+   * @return The {@code ArtifactPageInfo}.
+   */
+  private ArtifactPageInfo getArtifactPage(URI endpoint, String clientExceptionMessage)
+      throws IOException {
+    ResponseEntity<InputStream> response =
+        RestUtil.callRestServiceStreaming(restTemplate,
+            endpoint,
+            HttpMethod.GET,
+            getInitializedHttpHeaders(),
+            clientExceptionMessage, resiliencePolicy);
+
+    // The body is read directly from a pooled connection, which must be
+    // released even if the response is rejected
+    try (InputStream body = response.getBody()) {
+      checkStatusOk(response);
+      return JsonPageReader.readArtifactPage(body);
+    }
   }
 
   /**
@@ -885,21 +1070,8 @@ public class RestLockssRepository implements LockssRepository {
    */
   private Iterator<Artifact> getArtifacts(URI endpoint) throws IOException {
     try {
-      ResponseEntity<String> response =
-          RestUtil.callRestService(restTemplate,
-              endpoint,
-              HttpMethod.GET,
-              new HttpEntity<>(null,
-                  getInitializedHttpHeaders()),
-              String.class,
-              "getArtifacts");
-      checkStatusOk(response);
-
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-          false);
-      List<Artifact> result = mapper.readValue((String) response.getBody(),
-          ArtifactPageInfo.class).getArtifacts();
+      List<Artifact> result =
+          getArtifactPage(endpoint, "getArtifacts").getArtifacts();
       return result.iterator();
 
     } catch (LockssRestHttpException e) {
@@ -1125,6 +1297,10 @@ public class RestLockssRepository implements LockssRepository {
     if (cached != null) {
       return cached;
     }
+    if (artCache.isLatestNotFound(namespace, auid, url)) {
+      return null;
+    }
+    long invGen = artCache.getInvalidationGeneration();
 
     String endpoint = String.format("%s/aus/%s/artifacts", repositoryUrl, auid);
 
@@ -1137,22 +1313,9 @@ public class RestLockssRepository implements LockssRepository {
     }
 
     try {
-      ResponseEntity<String> response =
-          RestUtil.callRestService(restTemplate,
-              builder.build().encode().toUri(),
-              HttpMethod.GET,
-              new HttpEntity<>(null,
-                  getInitializedHttpHeaders()),
-              String.class,
-              "getArtifact");
-
-      checkStatusOk(response);
-
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-          false);
-      List<Artifact> artifacts = mapper.readValue(response.getBody(),
-          ArtifactPageInfo.class).getArtifacts();
+      List<Artifact> artifacts =
+          getArtifactPage(builder.build().encode().toUri(), "getArtifact")
+              .getArtifacts();
 
       if (!artifacts.isEmpty()) {
         if (artifacts.size() > 1) {
@@ -1173,10 +1336,13 @@ public class RestLockssRepository implements LockssRepository {
         return res;
       }
       // No artifact found
+      artCache.putLatestNotFound(namespace, auid, url, invGen);
       return null;
 
     } catch (LockssRestHttpException e) {
-      if (!e.getHttpStatus().equals(HttpStatus.NOT_FOUND)) {
+      if (e.getHttpStatus().equals(HttpStatus.NOT_FOUND)) {
+        artCache.putLatestNotFound(namespace, auid, url, invGen);
+      } else {
         log.error("Could not fetch artifact", e);
       }
       return null;
@@ -1186,6 +1352,115 @@ public class RestLockssRepository implements LockssRepository {
     }
   }
 
+  /**
+   * Returns the artifacts of the latest versions of a collection of URLs,
+   * from a specified Archival Unit and namespace.  URLs found in the
+   * ArtifactCache are satisfied from it; the remaining lookups are issued
+   * concurrently (up to {@link #setBatchLookupConcurrency(int)} at once,
+   * across all callers) and their results are added to the cache.
+   *
+   * @param namespace A {@code String} containing the namespace.
+   * @param auid       A {@code String} containing the Archival Unit ID.
+   * @param urls       A {@code Collection<String>} of URLs.
+   * @return A {@code Map} from each URL in {@code urls} to the {@code
+   * Artifact} of its latest version, in iteration order of {@code urls}.
+   * URLs with no artifact in the AU are not present in the map.
+   * @throws IOException if any of the lookups fails
+   */
+  @Override
+  public Map<String, Artifact> getArtifacts(String namespace, String auid,
+                                            Collection<String> urls)
+      throws IOException {
+    if (auid == null || urls == null) {
+      throw new IllegalArgumentException("Null AUID or URLs");
+    }
+
+    Map<String, Artifact> found = new HashMap<>();
+    Set<String> misses = new LinkedHashSet<>();
+    for (String url : urls) {
+      if (url == null) {
+        throw new IllegalArgumentException("Null URL");
+      }
+      if (found.containsKey(url) || misses.contains(url)) {
+        continue;
+      }
+      Artifact cached = artCache.getLatest(namespace, auid, url);
+      if (cached != null) {
+        found.put(url, cached);
+      } else if (!artCache.isLatestNotFound(namespace, auid, url)) {
+        misses.add(url);
+      }
+    }
+    log.debug2("getArtifacts: {} URLs, {} cached, {} to fetch",
+               urls.size(), found.size(), misses.size());
+
+    if (misses.size() == 1 || batchLookupConcurrency <= 1) {
+      for (String url : misses) {
+        Artifact art = getArtifact(namespace, auid, url);
+        if (art != null) {
+          found.put(url, art);
+        }
+      }
+    } else if (!misses.isEmpty()) {
+      // No bulk lookup endpoint; issue the lookups concurrently over the
+      // pooled connections.  getArtifact() caches each result.
+      ExecutorService executor = getBatchLookupExecutor();
+      Map<String, Future<Artifact>> futures = new LinkedHashMap<>();
+      try {
+        for (String url : misses) {
+          futures.put(url,
+                      executor.submit(() -> getArtifact(namespace, auid, url)));
+        }
+        for (Map.Entry<String, Future<Artifact>> ent : futures.entrySet()) {
+          Artifact art = ent.getValue().get();
+          if (art != null) {
+            found.put(ent.getKey(), art);
+          }
+        }
+      } catch (InterruptedException e) {
+        throw new InterruptedIOException("Interrupted during batch artifact lookup");
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException) {
+          throw (IOException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        }
+        throw new IOException("Batch artifact lookup failed", cause);
+      } finally {
+        // Abandon any lookups still pending after a failure
+        for (Future<Artifact> fut : futures.values()) {
+          fut.cancel(true);
+        }
+      }
+    }
+
+    Map<String, Artifact> res = new LinkedHashMap<>();
+    for (String url : urls) {
+      Artifact art = found.get(url);
+      if (art != null) {
+        res.put(url, art);
+      }
+    }
+    return res;
+  }
+
+  private synchronized ExecutorService getBatchLookupExecutor() {
+    if (batchLookupExecutor == null) {
+      batchLookupExecutor =
+          new ThreadPoolExecutor(batchLookupConcurrency, batchLookupConcurrency,
+                                 60, TimeUnit.SECONDS,
+                                 new LinkedBlockingQueue<>(),
+                                 r -> {
+                                   Thread th = new Thread(r, "RepoBatchLookup");
+                                   th.setDaemon(true);
+                                   return th;
+                                 });
+      batchLookupExecutor.allowCoreThreadTimeOut(true);
+    }
+    return batchLookupExecutor;
+  }
+
   /**
    * Returns the artifact of a given version of a URL, from a specified Archival Unit and namespace.
    *
@@ -1209,6 +1484,13 @@ public class RestLockssRepository implements LockssRepository {
     if (cached != null) {
       return cached;
     }
+    // A negative result for committed artifacts doesn't preclude an
+    // uncommitted one, so they're used only if includeUncommitted is false
+    if (!includeUncommitted
+        && artCache.isNotFound(namespace, auid, url, version)) {
+      return null;
+    }
+    long invGen = artCache.getInvalidationGeneration();
 
     String endpoint = String.format("%s/aus/%s/artifacts", repositoryUrl, auid);
 
@@ -1225,21 +1507,9 @@ public class RestLockssRepository implements LockssRepository {
     }
 
     try {
-      ResponseEntity<String> response =
-          RestUtil.callRestService(restTemplate,
-              builder.build().encode().toUri(),
-              HttpMethod.GET,
-              new HttpEntity<>(null,
-                  getInitializedHttpHeaders()),
-              String.class,
-              "getArtifactVersion");
-      checkStatusOk(response);
-
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-          false);
-      List<Artifact> artifacts = mapper.readValue((String) response.getBody(),
-          ArtifactPageInfo.class).getArtifacts();
+      List<Artifact> artifacts =
+          getArtifactPage(builder.build().encode().toUri(), "getArtifactVersion")
+              .getArtifacts();
 
       if (!artifacts.isEmpty()) {
         // Warn if the server returned more than one artifact
@@ -1260,8 +1530,20 @@ public class RestLockssRepository implements LockssRepository {
       }
 
       // No artifact found
+      if (!includeUncommitted) {
+        artCache.putNotFound(namespace, auid, url, version, invGen);
+      }
       return null;
 
+    } catch (LockssRestHttpException e) {
+      if (e.getHttpStatus().equals(HttpStatus.NOT_FOUND)) {
+        if (!includeUncommitted) {
+          artCache.putNotFound(namespace, auid, url, version, invGen);
+        }
+      } else {
+        log.error("Could not fetch versioned artifact", e);
+      }
+      return null;
     } catch (LockssRestException e) {
       log.error("Could not fetch versioned artifact", e);
       return null;
@@ -1308,7 +1590,7 @@ public class RestLockssRepository implements LockssRepository {
               HttpMethod.PUT,
               new HttpEntity<>(null, headers),
               String.class,
-              "startBulk");
+              "startBulk", resiliencePolicy);
       checkStatusOk(response);
     } catch (LockssRestException e) {
       log.error("Could not start bulk for: {}", auid, e);
@@ -1345,7 +1627,7 @@ public class RestLockssRepository implements LockssRepository {
             new HttpEntity<>(null,
                 getInitializedHttpHeaders()),
             String.class,
-            "auSize");
+            "auSize", resiliencePolicy);
 
     checkStatusOk(response);
 
@@ -1377,7 +1659,7 @@ public class RestLockssRepository implements LockssRepository {
               new HttpEntity<>(null,
                   getInitializedHttpHeaders()),
               String.class,
-              "repoInfo");
+              "repoInfo", resiliencePolicy);
 
       checkStatusOk(response);
 
@@ -1407,7 +1689,7 @@ public class RestLockssRepository implements LockssRepository {
               new HttpEntity<>(null,
                   getInitializedHttpHeaders()),
               String.class,
-              "repoInfo");
+              "repoInfo", resiliencePolicy);
 
       checkStatusOk(response);
 
@@ -1427,6 +1709,18 @@ public class RestLockssRepository implements LockssRepository {
     checkStatusOk(resp.getStatusCode());
   }
 
+  /** Like {@link #checkStatusOk(ResponseEntity)}, but closes the
+   * response body, which may hold a pooled connection, if the status
+   * isn't OK. */
+  private void checkStreamingStatusOk(ResponseEntity<InputStream> resp) {
+    try {
+      checkStatusOk(resp);
+    } catch (RuntimeException e) {
+      IOUtils.closeQuietly(resp.getBody());
+      throw e;
+    }
+  }
+
   private void checkStatusOk(HttpStatusCode statusCode) {
     if (!statusCode.is2xxSuccessful()) {
       throw new RuntimeException("Shouldn't happen: RestUtil returned non-200 result");
@@ -1468,8 +1762,16 @@ public class RestLockssRepository implements LockssRepository {
   public static final String REST_ARTIFACT_CACHE_MSG_ACTION_ECHO = "Echo";
   public static final String REST_ARTIFACT_CACHE_MSG_ACTION_ECHO_RESP =
       "EchoResp";
+  public static final String REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACTS =
+      "InvalidateArts";
   public static final String REST_ARTIFACT_CACHE_MSG_OP = "InvalidateOp";
   public static final String REST_ARTIFACT_CACHE_MSG_KEY = "ArtifactKey";
+  // Newline-separated artifact keys in an InvalidateArts message
+  public static final String REST_ARTIFACT_CACHE_MSG_KEYS = "ArtifactKeys";
+  public static final String REST_ARTIFACT_CACHE_MSG_KEYS_SEPARATOR = "\n";
+
+  // Max number of invalidate messages applied to the cache in one batch
+  public static final int DEFAULT_INVALIDATE_BATCH_SIZE = 1000;
 
   // Artifact cache.  Disable by default; our client will enable if
   // desired
@@ -1483,6 +1785,17 @@ public class RestLockssRepository implements LockssRepository {
   boolean invalidateCheckCompleted = false;
   Deadline invCheckDeadline;
 
+  // Invalidate messages are queued by the JMS delivery thread and applied
+  // to the cache in batches by a single drainer thread, so that a storm
+  // of messages doesn't contend with cache readers for each one.
+  private final Queue<Map<String, String>> invalidateQueue =
+      new ConcurrentLinkedQueue<>();
+  private final AtomicBoolean invalidateDrainScheduled = new AtomicBoolean();
+  private ThreadPoolExecutor invalidateExecutor;
+  private int invalidateBatchSize = DEFAULT_INVALIDATE_BATCH_SIZE;
+  private int invalidateAuCollapseThreshold =
+      ArtifactCache.DEFAULT_AU_COLLAPSE_THRESHOLD;
+
   /**
    * Enable the ArtifactCache
    *
@@ -1588,6 +1901,57 @@ public class RestLockssRepository implements LockssRepository {
   }
 
 
+  /**
+   * Return a map message that invalidates several artifacts at once.  The
+   * listener treats it the same as a sequence of {@value
+   * #REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACT} messages.
+   *
+   * @param op   the operation that caused the invalidation
+   * @param keys the artifact key strings, as returned by {@link
+   *             Artifact#makeKey()}
+   * @return the message map, suitable for {@link JmsProducer#sendMap(Map)}
+   */
+  public static Map<String, Object> makeInvalidateArtifactsMessage(
+      ArtifactCache.InvalidateOp op, Collection<String> keys) {
+    Map<String, Object> map = new HashMap<>();
+    map.put(REST_ARTIFACT_CACHE_MSG_ACTION,
+        REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACTS);
+    map.put(REST_ARTIFACT_CACHE_MSG_OP, op.toString());
+    map.put(REST_ARTIFACT_CACHE_MSG_KEYS,
+        String.join(REST_ARTIFACT_CACHE_MSG_KEYS_SEPARATOR, keys));
+    return map;
+  }
+
+  /**
+   * Set the maximum number of queued invalidate messages applied to the
+   * ArtifactCache in one batch.
+   */
+  public RestLockssRepository setInvalidateBatchSize(int size) {
+    if (size < 1) {
+      throw new IllegalArgumentException("Batch size must be at least 1");
+    }
+    this.invalidateBatchSize = size;
+    return this;
+  }
+
+  public int getInvalidateBatchSize() {
+    return invalidateBatchSize;
+  }
+
+  /**
+   * Set the number of distinct artifact keys in one AU, within a batch of
+   * invalidate messages, above which the entire AU is invalidated rather
+   * than each artifact.
+   */
+  public RestLockssRepository setInvalidateAuCollapseThreshold(int threshold) {
+    this.invalidateAuCollapseThreshold = threshold;
+    return this;
+  }
+
+  public int getInvalidateAuCollapseThreshold() {
+    return invalidateAuCollapseThreshold;
+  }
+
   /**
    * @return the ArtifactCache
    */
@@ -1603,6 +1967,107 @@ public class RestLockssRepository implements LockssRepository {
     this.useMultipartEndpoint = useMultipartEndpoint;
   }
 
+  /**
+   * If true, {@link #getArtifactData(Artifact, IncludeContent)}, {@link
+   * #getArtifactDataByPayload(Artifact, IncludeContent)} and {@link
+   * #getArtifactDataByMultipart(String, String, IncludeContent)} return an
+   * ArtifactData whose content stream reads directly from the HTTP
+   * connection; the connection is held until the stream is closed or the
+   * ArtifactData is released.  If false (the default), the content is
+   * first buffered in memory or in a temp file, so it remains readable
+   * after the connection is released.  ArtifactData backed by a live
+   * stream is not stored in the artifact data cache.  This is only the
+   * default; the overloads taking a {@code replayable} argument choose
+   * per call.
+   */
+  public RestLockssRepository setStreamArtifactData(boolean streamArtifactData) {
+    this.streamArtifactData = streamArtifactData;
+    return this;
+  }
+
+  public boolean isStreamArtifactData() {
+    return streamArtifactData;
+  }
+
+  /**
+   * Set the maximum number of lookups that {@link #getArtifacts(String,
+   * String, Collection)} issues concurrently.  The limit is shared by all
+   * callers.  1 causes lookups to be performed sequentially in the calling
+   * thread.
+   */
+  public synchronized RestLockssRepository setBatchLookupConcurrency(int concurrency) {
+    if (concurrency < 1) {
+      throw new IllegalArgumentException("Concurrency must be at least 1");
+    }
+    if (batchLookupExecutor != null) {
+      if (concurrency > batchLookupConcurrency) {
+        batchLookupExecutor.setMaximumPoolSize(concurrency);
+        batchLookupExecutor.setCorePoolSize(concurrency);
+      } else {
+        batchLookupExecutor.setCorePoolSize(concurrency);
+        batchLookupExecutor.setMaximumPoolSize(concurrency);
+      }
+    }
+    this.batchLookupConcurrency = concurrency;
+    return this;
+  }
+
+  public int getBatchLookupConcurrency() {
+    return batchLookupConcurrency;
+  }
+
+  /**
+   * Set the number of artifacts or AUIDs requested in each page by the
+   * iterators returned by the enumeration methods.
+   *
+   * @param pageSize the page size, or null to use the service's default
+   */
+  public RestLockssRepository setIteratorPageSize(Integer pageSize) {
+    if (pageSize != null && pageSize < 1) {
+      throw new IllegalArgumentException("Page size must be at least 1");
+    }
+    this.iteratorPageSize = pageSize;
+    return this;
+  }
+
+  public Integer getIteratorPageSize() {
+    return iteratorPageSize;
+  }
+
+  /**
+   * Set the number of pages that the iterators returned by the
+   * enumeration methods fetch in the background ahead of the page being
+   * consumed.  0 (the default) fetches each page only when the previous
+   * one is exhausted.
+   */
+  public RestLockssRepository setIteratorPrefetchDepth(int depth) {
+    if (depth < 0) {
+      throw new IllegalArgumentException("Prefetch depth cannot be negative");
+    }
+    this.iteratorPrefetchDepth = depth;
+    return this;
+  }
+
+  public int getIteratorPrefetchDepth() {
+    return iteratorPrefetchDepth;
+  }
+
+  /**
+   * Set the policy that governs retries, circuit breaking and hedging of
+   * calls to the repository service.  The paged enumeration iterators
+   * continue to use the default retry backoffs.
+   *
+   * @param policy the policy, or null to use the default retry backoffs
+   */
+  public RestLockssRepository setResiliencePolicy(ResiliencePolicy policy) {
+    this.resiliencePolicy = policy;
+    return this;
+  }
+
+  public ResiliencePolicy getResiliencePolicy() {
+    return resiliencePolicy;
+  }
+
   //
   // This is here, rather than in ArtifactCache, to make ArtifactCache
   // independent of the particular notification mechanism.
@@ -1611,49 +2076,159 @@ public class RestLockssRepository implements LockssRepository {
     @Override
     public void onMessage(Message message) {
       try {
-        Map<String, String> msgMap =
-            (Map<String, String>) JmsUtil.convertMessage(message);
-        String action = msgMap.get(REST_ARTIFACT_CACHE_MSG_ACTION);
-        String key = msgMap.get(REST_ARTIFACT_CACHE_MSG_KEY);
-        log.debug2("Received Artifact cache notification: {} key: {}",
-            action, key);
-        if (action != null) {
-          switch (action) {
-            case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACT:
-              artCache.invalidateArtifact(msgOp(msgMap.get(REST_ARTIFACT_CACHE_MSG_OP)),
-                  key);
-              break;
-            case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU:
-              artCache.invalidateAu(msgOp(msgMap.get(REST_ARTIFACT_CACHE_MSG_OP)),
-                  key);
-              break;
-            case REST_ARTIFACT_CACHE_MSG_ACTION_FLUSH:
-              log.debug("Flushing Artifact cache");
-              artCache.flush();
-              break;
-            case REST_ARTIFACT_CACHE_MSG_ACTION_ECHO_RESP:
-              if (repositoryUrl.toString().equals(key)) {
-                invalidateCheckCompleted = true;
-                if (invCheckDeadline != null) {
-                  invCheckDeadline.expire();
-                }
-                log.debug("invalidateCheckCompleted");
-              }
-              break;
-            case REST_ARTIFACT_CACHE_MSG_ACTION_ECHO:
-              // expected, ignore
-              break;
-            default:
-              log.warn("Unknown message action: {}", action);
-          }
-        }
+        handleCacheMessage(
+            (Map<String, String>) JmsUtil.convertMessage(message));
       } catch (JMSException | RuntimeException e) {
         log.error("Malformed Artifact cache message: {}", message, e);
       }
     }
   }
 
-  ArtifactCache.InvalidateOp msgOp(String op) throws IllegalArgumentException {
+  /**
+   * Handle a cache message.  Echo responses are handled immediately;
+   * invalidations are queued to be applied in a batch.
+   */
+  void handleCacheMessage(Map<String, String> msgMap) {
+    String action = msgMap.get(REST_ARTIFACT_CACHE_MSG_ACTION);
+    if (log.isDebug2Enabled()) {
+      log.debug2("Received Artifact cache notification: {} key: {}",
+          action, msgMap.get(REST_ARTIFACT_CACHE_MSG_KEY));
+    }
+    if (action == null) {
+      return;
+    }
+    switch (action) {
+      case REST_ARTIFACT_CACHE_MSG_ACTION_ECHO_RESP:
+        if (repositoryUrl.toString().equals(
+            msgMap.get(REST_ARTIFACT_CACHE_MSG_KEY))) {
+          invalidateCheckCompleted = true;
+          if (invCheckDeadline != null) {
+            invCheckDeadline.expire();
+          }
+          log.debug("invalidateCheckCompleted");
+        }
+        break;
+      case REST_ARTIFACT_CACHE_MSG_ACTION_ECHO:
+        // expected, ignore
+        break;
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACT:
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACTS:
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU:
+      case REST_ARTIFACT_CACHE_MSG_ACTION_FLUSH:
+        invalidateQueue.add(msgMap);
+        if (invalidateDrainScheduled.compareAndSet(false, true)) {
+          getInvalidateExecutor().execute(this::drainInvalidateQueue);
+        }
+        break;
+      default:
+        log.warn("Unknown message action: {}", action);
+    }
+  }
+
+  private synchronized ExecutorService getInvalidateExecutor() {
+    if (invalidateExecutor == null) {
+      invalidateExecutor =
+          new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                                 new LinkedBlockingQueue<>(),
+                                 r -> {
+                                   Thread th = new Thread(r, "RepoCacheInvalidate");
+                                   th.setDaemon(true);
+                                   return th;
+                                 });
+      invalidateExecutor.allowCoreThreadTimeOut(true);
+    }
+    return invalidateExecutor;
+  }
+
+  /**
+   * Apply the queued invalidate messages to the cache, in batches of up
+   * to invalidateBatchSize, until the queue is empty.
+   */
+  void drainInvalidateQueue() {
+    while (true) {
+      try {
+        ArtifactCache.Invalidations inv =
+            new ArtifactCache.Invalidations(invalidateAuCollapseThreshold);
+        Map<String, String> msgMap;
+        int n = 0;
+        while (n < invalidateBatchSize
+               && (msgMap = invalidateQueue.poll()) != null) {
+          n++;
+          try {
+            addInvalidation(inv, msgMap);
+          } catch (RuntimeException e) {
+            log.error("Malformed Artifact cache message: {}", msgMap, e);
+          }
+        }
+        if (!inv.isEmpty()) {
+          log.debug2("Applying {} cache invalidations", inv.size());
+          artCache.invalidate(inv);
+        }
+      } catch (RuntimeException e) {
+        log.error("Error applying Artifact cache invalidations", e);
+      }
+      if (invalidateQueue.isEmpty()) {
+        invalidateDrainScheduled.set(false);
+        // A message may have been queued after the check but before the
+        // flag was cleared, by a thread that saw the flag still set.
+        if (invalidateQueue.isEmpty()
+            || !invalidateDrainScheduled.compareAndSet(false, true)) {
+          return;
+        }
+      }
+    }
+  }
+
+  /** Add the invalidation(s) in a cache message to a batch */
+  static void addInvalidation(ArtifactCache.Invalidations inv,
+                              Map<String, String> msgMap) {
+    String action = msgMap.get(REST_ARTIFACT_CACHE_MSG_ACTION);
+    String key = msgMap.get(REST_ARTIFACT_CACHE_MSG_KEY);
+    switch (action) {
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACT:
+        msgOp(msgMap.get(REST_ARTIFACT_CACHE_MSG_OP));
+        inv.addArtifact(key);
+        break;
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACTS:
+        msgOp(msgMap.get(REST_ARTIFACT_CACHE_MSG_OP));
+        String keys = msgMap.get(REST_ARTIFACT_CACHE_MSG_KEYS);
+        if (keys != null) {
+          for (String k : StringUtils.split(keys,
+                                            REST_ARTIFACT_CACHE_MSG_KEYS_SEPARATOR)) {
+            inv.addArtifact(k);
+          }
+        }
+        break;
+      case REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU:
+        msgOp(msgMap.get(REST_ARTIFACT_CACHE_MSG_OP));
+        inv.addAu(null, key);
+        break;
+      case REST_ARTIFACT_CACHE_MSG_ACTION_FLUSH:
+        inv.addFlush();
+        break;
+      default:
+        log.warn("Unknown message action: {}", action);
+    }
+  }
+
+  /**
+   * Wait until all queued invalidate messages have been applied to the
+   * cache.  For testing.
+   *
+   * @return true if the queue drained before the timeout
+   */
+  boolean awaitInvalidations(long timeout) throws InterruptedException {
+    Deadline dl = Deadline.in(timeout);
+    while (!dl.expired()) {
+      if (invalidateQueue.isEmpty() && !invalidateDrainScheduled.get()) {
+        return true;
+      }
+      Thread.sleep(10);
+    }
+    return false;
+  }
+
+  static ArtifactCache.InvalidateOp msgOp(String op) throws IllegalArgumentException {
     return Enum.valueOf(ArtifactCache.InvalidateOp.class, op);
   }
 
@@ -31,18 +31,20 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package org.lockss.util.rest.repo;
 
-import com.fasterxml.jackson.databind.DeserializationFeature;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import org.lockss.log.L4JLogger;
 import org.lockss.util.LockssUncheckedIOException;
 import org.lockss.util.rest.RestUtil;
 import org.lockss.util.rest.exception.LockssRestException;
 import org.lockss.util.rest.exception.LockssRestHttpException;
 import org.lockss.util.rest.repo.model.AuidPageInfo;
+import org.lockss.util.rest.repo.util.JsonPageReader;
 import org.springframework.http.*;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -54,7 +56,8 @@ import java.util.NoSuchElementException;
  * 
  * @author Fernando García-Loygorri
  */
-public class RestLockssRepositoryAuidIterator implements Iterator<String> {
+public class RestLockssRepositoryAuidIterator
+implements Iterator<String>, AutoCloseable {
   private final static L4JLogger log = L4JLogger.getLogger();
 
   // The REST service template.
@@ -77,6 +80,9 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
   // Continuation token for the REST service request.
   private String continuationToken = null;
 
+  // Fetches pages ahead of the consumer, if prefetching is enabled.
+  private PagePrefetcher<String> prefetcher = null;
+
   /**
    * Constructor with default batch size and no Authorization header.
    * 
@@ -130,6 +136,26 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
    */
   public RestLockssRepositoryAuidIterator(RestTemplate restTemplate,
       UriComponentsBuilder builder, String authHeaderValue, Integer limit) {
+    this(restTemplate, builder, authHeaderValue, limit, 0);
+  }
+
+  /**
+   * Full constructor with read-ahead.
+   * 
+   * @param restTemplate    A RestTemplate with the REST service template.
+   * @param builder         An UriComponentsBuilder with the REST service URI
+   *                        builder.
+   * @param authHeaderValue A String with the Authorization header to be used
+   *                        when calling the REST service.
+   * @param limit           An Integer with the number of auids to request on
+   *                        each REST service request.
+   * @param prefetchDepth   An int with the number of batches to fetch in the
+   *                        background ahead of the one being consumed, or 0
+   *                        to fetch each batch only when it is needed.
+   */
+  public RestLockssRepositoryAuidIterator(RestTemplate restTemplate,
+      UriComponentsBuilder builder, String authHeaderValue, Integer limit,
+      int prefetchDepth) {
 
     // Validation.
     if (restTemplate == null) {
@@ -146,6 +172,10 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
       throw new IllegalArgumentException("Limit must be at least 1");
     }
 
+    if (prefetchDepth < 0) {
+      throw new IllegalArgumentException("Prefetch depth cannot be negative");
+    }
+
     // Initialization.
     this.restTemplate = restTemplate;
 
@@ -156,6 +186,17 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
     this.builder = builder;
     this.authHeaderValue = authHeaderValue;
 
+    if (prefetchDepth > 0) {
+      // The page fetcher must not refer to this iterator, so that an
+      // abandoned iterator can be collected and its prefetching cancelled.
+      UriComponentsBuilder prefetchBuilder = builder.cloneBuilder();
+      String auth = authHeaderValue;
+      prefetcher = new PagePrefetcher<String>(token ->
+	  fetchPage(restTemplate, prefetchBuilder, auth, token),
+	  null, prefetchDepth)
+	  .cancelWhenUnreachable(this);
+    }
+
     fillAuidBuffer();
   }
 
@@ -221,6 +262,70 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
   private void fillAuidBuffer() {
     log.debug2("Invoked");
 
+    PagePrefetcher.Page<String> page = null;
+
+    // Check whether batches are being fetched in the background.
+    if (prefetcher != null) {
+      try {
+	// Yes: Get the next batch from the prefetcher, waiting if necessary.
+	page = prefetcher.nextPage();
+      } catch (RuntimeException | Error e) {
+	// Stop prefetching, so that a retry fetches the same batch again,
+	// as it would without prefetching.
+	prefetcher.close();
+	prefetcher = null;
+	throw e;
+      }
+    } else {
+      // No: Fetch the next batch now.
+      page = fetchPage(restTemplate, builder, authHeaderValue,
+	  continuationToken);
+    }
+
+    auidBuffer = page.items;
+    continuationToken = page.continuationToken;
+
+    // Release the prefetcher once the last batch has been received.
+    if (isLastBatch() && prefetcher != null) {
+      prefetcher.close();
+      prefetcher = null;
+    }
+
+    // Create the iterator to the list of auids to be provided.
+    auidBufferIterator = auidBuffer.iterator();
+    log.debug2("Done");
+  }
+
+  /**
+   * Stops any background fetching of batches.  The iterator returns no
+   * more auids than those already buffered.
+   */
+  @Override
+  public void close() {
+    if (prefetcher != null) {
+      prefetcher.close();
+      prefetcher = null;
+      continuationToken = null;
+    }
+  }
+
+  /**
+   * Fetches a batch of auids from the REST service.
+   *
+   * @param restTemplate      A RestTemplate with the REST service template.
+   * @param builder           An UriComponentsBuilder with the REST service
+   *                          URI builder.
+   * @param authHeaderValue   A String with the Authorization header, or null.
+   * @param continuationToken A String with the continuation token of the
+   *                          batch, or null for the first batch.
+   * @return a Page with the auids and the continuation token of the next
+   *         batch.
+   */
+  static PagePrefetcher.Page<String> fetchPage(RestTemplate restTemplate,
+      UriComponentsBuilder builder, String authHeaderValue,
+      String continuationToken) {
+    log.debug2("continuationToken = {}", continuationToken);
+
     // Check whether a previous response provided a continuation token.
     if (continuationToken != null) {
       // Yes: Incorporate it to the next request.
@@ -231,34 +336,28 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
     URI uri = builder.build().encode().toUri();
     log.trace("uri = {}", uri);
 
-    // Build the HttpEntity to include in the request to the REST service.
-    HttpEntity<Void> httpEntity = null;
+    // Build the HTTP headers to include in the request to the REST service.
+    HttpHeaders httpHeaders = new HttpHeaders();
 
     // Check whether there is an Authorization header to be used when calling
     // the REST service.
     if (authHeaderValue != null) {
       // Yes: Set up the HTTP headers.
-      HttpHeaders httpHeaders = new HttpHeaders();
       httpHeaders.set("Authorization", authHeaderValue);
-      httpEntity = new HttpEntity<>(null, httpHeaders);
     }
 
-    ResponseEntity<String> response = null;
+    ResponseEntity<InputStream> response = null;
 
     try {
-      // Make the request and get the response.
-      response = RestUtil.callRestService(restTemplate, uri, HttpMethod.GET,
-          httpEntity, String.class, "fillAuidBuffer");
+      // Make the request and get the response, whose body is read directly
+      // from the connection.
+      response = RestUtil.callRestServiceStreaming(restTemplate, uri,
+          HttpMethod.GET, httpHeaders, "fillAuidBuffer");
     } catch (LockssRestHttpException e) {
       if (e.getHttpStatus().equals(HttpStatus.NOT_FOUND)) {
         log.trace("Could not fetch auids: Exception caught", e);
-        auidBuffer = new ArrayList<String>();
-        continuationToken = null;
-        auidBufferIterator = auidBuffer.iterator();
-        log.debug2("Done");
-
         // Q: Should this throw a LRSE instead?
-        return;
+        return new PagePrefetcher.Page<>(new ArrayList<String>(), null);
       }
 
       log.error("Could not fetch auids: Exception caught", e);
@@ -269,50 +368,29 @@ public class RestLockssRepositoryAuidIterator implements Iterator<String> {
       throw new LockssUncheckedIOException(e);
     }
 
-    // Determine the response status.
-    HttpStatusCode statusCode = response.getStatusCode();
-    HttpStatus status = HttpStatus.valueOf(statusCode.value());
-    log.trace("status = {}", status);
-
-    // Check whether the response status indicates success.
-    if (status.is2xxSuccessful()) {
-      // Yes: Initialize the response body parser.
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES,
-	  false);
-
-      try {
-	// Get the returned auid page information.
-	log.trace("response.getBody() = {}", (String)response.getBody());
-
-	AuidPageInfo api =
-	    mapper.readValue((String)response.getBody(), AuidPageInfo.class);
-	log.trace("api = {}", api);
-
-	// Get the auids in the response.
-	auidBuffer = api.getAuids();
-	log.trace("auidBuffer = {}", auidBuffer);
-
-	// Get the continuation token in the response.
-	continuationToken = api.getPageInfo().getContinuationToken();
-	log.trace("continuationToken = {}", continuationToken);
-      } catch (Exception e) {
-	// Report the problem.
-	log.error("Could not fetch auids: Exception caught", e);
-	auidBuffer = new ArrayList<String>();
-	continuationToken = null;
-      }
-    } else {
-      // No: Report the problem.
-      log.error("Could not fetch auids: REST service status: {} {}",
-	  status.toString(), status.getReasonPhrase());
-      auidBuffer = new ArrayList<String>();
-      continuationToken = null;
+    try {
+      // Decode the returned page information from the response stream.
+      AuidPageInfo api = JsonPageReader.readAuidPage(response.getBody());
+      log.trace("api = {}", api);
+
+      // Get the auids in the response.
+      List<String> auids = api.getAuids();
+      log.trace("auids = {}", auids);
+
+      // Get the continuation token in the response.
+      String nextToken =
+	  api.getPageInfo() == null ? null : api.getPageInfo().getContinuationToken();
+      log.trace("nextToken = {}", nextToken);
+
+      return new PagePrefetcher.Page<>(auids, nextToken);
+    } catch (JsonProcessingException e) {
+      // Report the problem.
+      log.error("Could not fetch auids: Exception caught", e);
+      return new PagePrefetcher.Page<>(new ArrayList<String>(), null);
+    } catch (IOException e) {
+      log.error("Could not fetch auids: Exception caught", e);
+      throw new LockssUncheckedIOException(e);
     }
-
-    // Create the iterator to the list of auids to be provided.
-    auidBufferIterator = auidBuffer.iterator();
-    log.debug2("Done");
   }
 
   /**
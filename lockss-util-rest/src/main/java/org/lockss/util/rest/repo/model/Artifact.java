@@ -38,8 +38,6 @@ import org.lockss.log.L4JLogger;
 import org.lockss.util.StringPool;
 
 import java.io.Serializable;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 /**
  * LOCKSS repository Artifact
@@ -424,17 +422,15 @@ public class Artifact implements Serializable {
 	return Artifact.makeLatestKey(getNamespace(), getAuid(), getUri());
     }
 
-    // matches ":<ver>" at the end
-    static Pattern LATEST_VER_PATTERN = Pattern.compile(":[^:]+$");
-
     /** Return a String that uniquely identifies "the latest committed
      * version of the Artifact with the specified key" */
     public static String makeLatestKey(String key) {
-	Matcher m1 = LATEST_VER_PATTERN.matcher(key);
-	if (m1.find()) {
-	    return m1.replaceAll(":-1");
+	// replace the non-empty ":<ver>" at the end
+	int ix = key.lastIndexOf(':');
+	if (ix < 0 || ix == key.length() - 1) {
+	    return null;
 	}
-	return null;
+	return key.substring(0, ix) + ":-1";
     }
 
   public Artifact copyOf() {
@@ -42,6 +42,7 @@ import org.lockss.log.L4JLogger;
 import org.lockss.util.CloseCallbackInputStream;
 import org.lockss.util.LockssUncheckedIOException;
 import org.lockss.util.io.EofRememberingInputStream;
+import org.lockss.util.io.FileRegionInputStream;
 import org.lockss.util.rest.repo.util.ArtifactDataUtil;
 import org.springframework.http.HttpHeaders;
 
@@ -284,6 +285,29 @@ public class ArtifactData implements Comparable<ArtifactData>, AutoCloseable {
     return this;
   }
 
+  /**
+   * If this artifact's content is an unused {@link FileRegionInputStream},
+   * returns it and marks the content stream as used, so the caller can
+   * send the content directly from the file.  Returns null, leaving the
+   * content stream untouched, if the content isn't file-backed or a digest
+   * is to be computed on read.  The returned stream is closed when this
+   * ArtifactData is released; {@link #getBytesRead()} is not available.
+   *
+   * @return A {@code FileRegionInputStream} or null
+   */
+  public synchronized FileRegionInputStream getContentFileRegion() {
+    if (inputStreamUsed || isResponseStream || isComputeDigestOnRead
+        || !(origInputStream instanceof FileRegionInputStream)) {
+      return null;
+    }
+    FileRegionInputStream res = (FileRegionInputStream)origInputStream;
+    if (closableInputStream == null) {
+      closableInputStream = res;
+    }
+    inputStreamUsed = true;
+    return res;
+  }
+
   private void parseResponseStream() throws IOException {
     if (!isResponseStream) {
       throw new IllegalStateException("Cannot parse stream as HTTP response");
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo.model;
+
+import java.util.Objects;
+
+/**
+ * Immutable key identifying a version of an artifact, or the latest
+ * version, by (namespace, auid, uri, version).  Used as the key in
+ * {@link org.lockss.util.rest.repo.util.ArtifactCache}.  Holds references
+ * to the component strings rather than copying them, and computes its
+ * hash once.  {@link #toString()} returns the same string as {@link
+ * Artifact#makeKey(String, String, String, int)}, which is the form
+ * used in cache invalidate messages; {@link #fromString(String)} parses
+ * it.
+ */
+public final class ArtifactKey {
+
+  /** The version number that signifies the latest version */
+  public static final int LATEST = -1;
+
+  private final String namespace;
+  private final String auid;
+  private final String uri;
+  private final int version;
+  // Hash of the namespace, auid and uri
+  private final int baseHash;
+  private final int hash;
+
+  private ArtifactKey(String namespace, String auid, String uri,
+                      int version, int baseHash) {
+    this.namespace = namespace;
+    this.auid = Objects.requireNonNull(auid, "auid");
+    this.uri = Objects.requireNonNull(uri, "uri");
+    this.version = version;
+    this.baseHash = baseHash;
+    this.hash = 31 * baseHash + version;
+  }
+
+  private static int baseHash(String namespace, String auid, String uri) {
+    return (31 * Objects.hashCode(namespace) + auid.hashCode()) * 31
+        + uri.hashCode();
+  }
+
+  /** Return the key for a version of an artifact */
+  public static ArtifactKey of(String namespace, String auid, String uri,
+                               int version) {
+    return new ArtifactKey(namespace, auid, uri, version,
+                           baseHash(namespace, auid, uri));
+  }
+
+  /** Return the key for the latest version of an artifact */
+  public static ArtifactKey latest(String namespace, String auid,
+                                   String uri) {
+    return of(namespace, auid, uri, LATEST);
+  }
+
+  /** Return the key for the Artifact's version */
+  public static ArtifactKey of(Artifact art) {
+    return of(art.getNamespace(), art.getAuid(), art.getUri(),
+              art.getVersion());
+  }
+
+  /** Return the key for the latest version of the Artifact */
+  public static ArtifactKey latestOf(Artifact art) {
+    return latest(art.getNamespace(), art.getAuid(), art.getUri());
+  }
+
+  /**
+   * Parse a key string as returned by {@link #toString()} or {@link
+   * Artifact#makeKey(String, String, String, int)}.  The namespace and
+   * auid must not contain colons; the uri may.
+   *
+   * @param key the key string
+   * @return the ArtifactKey, or null if the string isn't a valid key
+   */
+  public static ArtifactKey fromString(String key) {
+    if (key == null) {
+      return null;
+    }
+    int i1 = key.indexOf(':');
+    int i2 = i1 < 0 ? -1 : key.indexOf(':', i1 + 1);
+    int i3 = key.lastIndexOf(':');
+    if (i2 < 0 || i3 <= i2) {
+      return null;
+    }
+    int version;
+    try {
+      version = Integer.parseInt(key.substring(i3 + 1));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    String ns = key.substring(0, i1);
+    return of("null".equals(ns) ? null : ns,
+              key.substring(i1 + 1, i2),
+              key.substring(i2 + 1, i3),
+              version);
+  }
+
+  /** Return the key for the latest version of this key's artifact.
+   * Doesn't rehash the strings. */
+  public ArtifactKey toLatest() {
+    if (version == LATEST) {
+      return this;
+    }
+    return new ArtifactKey(namespace, auid, uri, LATEST, baseHash);
+  }
+
+  public boolean isLatest() {
+    return version == LATEST;
+  }
+
+  /** Return true if this key belongs to the AU.
+   * @param namespace the namespace, or null to match any namespace
+   * @param auid the auid
+   */
+  public boolean isInAu(String namespace, String auid) {
+    return this.auid.equals(auid)
+        && (namespace == null || namespace.equals(this.namespace));
+  }
+
+  public String getNamespace() {
+    return namespace;
+  }
+
+  public String getAuid() {
+    return auid;
+  }
+
+  public String getUri() {
+    return uri;
+  }
+
+  public int getVersion() {
+    return version;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof ArtifactKey)) {
+      return false;
+    }
+    ArtifactKey other = (ArtifactKey) o;
+    return hash == other.hash
+        && version == other.version
+        && uri.equals(other.uri)
+        && auid.equals(other.auid)
+        && Objects.equals(namespace, other.namespace);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  /** Return the key in the form used in cache invalidate messages */
+  @Override
+  public String toString() {
+    return Artifact.makeKey(namespace, auid, uri, version);
+  }
+}
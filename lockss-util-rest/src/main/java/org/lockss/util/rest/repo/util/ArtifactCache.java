@@ -28,18 +28,32 @@ in this Software without prior written authorization from Stanford University.
 
 package org.lockss.util.rest.repo.util;
 
-import org.apache.commons.collections4.map.LRUMap;
 import org.lockss.log.L4JLogger;
+import org.lockss.util.concurrent.ConcurrentLruMap;
+import org.lockss.util.io.ByteBufferInputStream;
 import org.lockss.util.rest.repo.model.Artifact;
 import org.lockss.util.rest.repo.model.ArtifactData;
-
+import org.lockss.util.rest.repo.model.ArtifactKey;
+import org.lockss.util.time.TimeBase;
+import org.lockss.util.time.TimeUtil;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
  * Caches recently referenced Artifacts.  Artifacts are keyed by
- * (namespace, auid, url, version).  The latest version, when known, is
- * stored under the key (namespace, auid, url, -1).  Two caches are
+ * (namespace, auid, url, version) ({@link ArtifactKey}).  The latest
+ * version, when known, is stored under the key (namespace, auid, url,
+ * -1).  Two caches are
  * employed: one for requests for a specific Artifact version, the other
  * for the results of iterations.  Otherwise, every non-trivial iteration
  * would flush all other Artifacts from the cache.  If an Artifact
@@ -52,23 +66,71 @@ import java.util.*;
  * LockssRepository doesn't guarantee uniqueness anyway.
  *
  * Separately caches recently used ArtifactData, keyed by namespace +
- * artifact UUID.
+ * artifact UUID.  Optionally, the content of small ArtifactData is read
+ * into (off-heap) memory when it's stored, and kept in a content cache
+ * bounded by total bytes rather than number of entries.  Each hit in the
+ * content cache returns a new ArtifactData whose InputStream reads the
+ * stored content, so frequently re-read artifacts need not be fetched
+ * again.  The content cache is disabled by default; see {@link
+ * #setContentLimits(long, long)}.
+ *
+ * Also caches negative results: keys of Artifacts that were looked up
+ * and not found, for a limited time.  These are removed when an Artifact
+ * with the key is stored in the cache, and by the same invalidations
+ * that remove Artifacts, so an Artifact added or committed by this or
+ * another client is visible as soon as the corresponding invalidate
+ * message has been received, as with other cached Artifacts.  The TTL
+ * bounds the staleness if a message is lost.
+ *
+ * Lookups don't lock; see {@link ConcurrentLruMap}.  Operations that
+ * modify the cache are serialized so that the two Artifact maps remain
+ * consistent with each other and with a per-AU index of their keys,
+ * which allows AU invalidation and per-AU statistics in time
+ * proportional to the number of entries for the AU.
  */
 public class ArtifactCache {
   private final static L4JLogger log = L4JLogger.getLogger();
 
+  /** Default maximum total bytes in the content cache.  0 disables it. */
+  public static final long DEFAULT_MAX_CONTENT_BYTES = 0;
+  /** Default size of the largest artifact whose content will be cached */
+  public static final long DEFAULT_MAX_CONTENT_ITEM_SIZE = 64 * 1024;
+  /** Default maximum number of negative results.  0 disables them. */
+  public static final int DEFAULT_MAX_NOT_FOUND_SIZE = 1000;
+  /** Default time a negative result remains valid */
+  public static final long DEFAULT_NOT_FOUND_TTL = TimeUtil.MINUTE;
+
   int maxArtSize;
   int maxArtDataSize;
+  long maxContentBytes = DEFAULT_MAX_CONTENT_BYTES;
+  long maxContentItemSize = DEFAULT_MAX_CONTENT_ITEM_SIZE;
+  int maxNotFoundSize = DEFAULT_MAX_NOT_FOUND_SIZE;
+  long notFoundTtl = DEFAULT_NOT_FOUND_TTL;
 
   // Artifact key -> Artifact
-  LRUMap<String,Artifact> artMap;
-  LRUMap<String,Artifact> artIterMap;
+  volatile ConcurrentLruMap<ArtifactKey,Artifact> artMap;
+  volatile ConcurrentLruMap<ArtifactKey,Artifact> artIterMap;
 
   // Artifact ID -> ArtifactData
-  LRUMap<String,ArtifactData> artDataMap;
+  volatile ConcurrentLruMap<DataKey,ArtifactData> artDataMap;
+
+  // Artifact ID -> content, bounded by total bytes.  Null if disabled.
+  volatile ConcurrentLruMap<DataKey,CachedContent> contentMap;
+
+  // Artifact key -> negative result.  Null if disabled.
+  volatile ConcurrentLruMap<ArtifactKey,NotFound> notFoundMap;
+
+  // Incremented by each invalidation, so that a negative result from a
+  // lookup that was in progress when the invalidation was received can
+  // be discarded.  Written only while synchronized.
+  private volatile long invalidationGen = 0;
+
+  // AUID -> keys in artMap and artIterMap, respectively.  Guarded by this.
+  AuKeyIndex artIndex;
+  AuKeyIndex artIterIndex;
 
   Stats stats = new Stats();
-  private boolean isInstrumented = false;
+  private volatile boolean isInstrumented = false;
 
   /** Create and enable the cache */
   public ArtifactCache(int maxArtSize, int maxArtDataSize) {
@@ -84,19 +146,57 @@ public class ArtifactCache {
   public synchronized ArtifactCache enable(boolean enable) {
     if (enable) {
       if (artMap == null) {
-	artMap = new LRUMap<>(maxArtSize);
-	artIterMap = new LRUMap<>(maxArtSize);
-	artDataMap = new ArtifactDataReleasingLRUMap(maxArtDataSize);
+	artIndex = new AuKeyIndex();
+	artIterIndex = new AuKeyIndex();
+	artIterMap = makeArtMap(maxArtSize, artIterIndex);
+	artDataMap = makeArtDataMap(maxArtDataSize);
+	contentMap = makeContentMap(maxContentBytes);
+	notFoundMap = makeNotFoundMap(maxNotFoundSize);
 	stats.setSizes(maxArtSize, maxArtDataSize);
+	stats.setMaxContentBytes(maxContentBytes);
+	// Set last; its non-nullness signifies enabled
+	artMap = makeArtMap(maxArtSize, artIndex);
       }
     } else {
       artMap = null;
       artIterMap = null;
       artDataMap = null;
+      contentMap = null;
+      notFoundMap = null;
+      artIndex = null;
+      artIterIndex = null;
     }
     return this;
   }
 
+  /** Evicted Artifacts are removed from the index */
+  private static ConcurrentLruMap<ArtifactKey,Artifact> makeArtMap(int maxSize,
+								   AuKeyIndex index) {
+    return new ConcurrentLruMap<>(maxSize, (key, art) -> index.remove(key));
+  }
+
+  /** For now, ArtifactData.release() is called when items exit the
+   * cache */
+  private static ConcurrentLruMap<DataKey,ArtifactData> makeArtDataMap(int maxSize) {
+    return new ConcurrentLruMap<>(maxSize, (key, ad) -> ad.release());
+  }
+
+  /** The content map is bounded only by the total size of the content */
+  private static ConcurrentLruMap<DataKey,CachedContent> makeContentMap(long maxBytes) {
+    if (maxBytes <= 0) {
+      return null;
+    }
+    return new ConcurrentLruMap<>(Integer.MAX_VALUE, maxBytes,
+				  CachedContent::size, null);
+  }
+
+  private static ConcurrentLruMap<ArtifactKey,NotFound> makeNotFoundMap(int maxSize) {
+    if (maxSize <= 0) {
+      return null;
+    }
+    return new ConcurrentLruMap<>(maxSize);
+  }
+
   /** Return true if the cache is enabled.
    * @return true if the cache is enabled.
    */
@@ -104,7 +204,7 @@ public class ArtifactCache {
     return artMap != null;
   }
 
-  /** Enable LRUMap usage histograms, which show the recency of cache hit
+  /** Enable cache usage histograms, which show the recency of cache hit
    * items but take extra time to compute at each access */
   public void enableInstrumentation(boolean enable) {
     isInstrumented = enable;
@@ -116,24 +216,26 @@ public class ArtifactCache {
 
   /** Internal get; return the Artifact stored under the key, or null if
    * none */
-  private synchronized Artifact get(String key) {
-    if (artMap == null) return null;
-    if (!updateHist(stats.artHist, artMap, key)) {
-      updateHist(stats.artIterHist, artIterMap, key);
+  private Artifact get(ArtifactKey key) {
+    ConcurrentLruMap<ArtifactKey,Artifact> map = artMap;
+    ConcurrentLruMap<ArtifactKey,Artifact> iterMap = artIterMap;
+    if (map == null || iterMap == null) return null;
+    if (!updateHist(stats.artHist, map, key)) {
+      updateHist(stats.artIterHist, iterMap, key);
     }
     boolean isIterMap = false;
-    Artifact res = artMap.get(key);
+    Artifact res = map.get(key);
     if (res == null) {
-      res = artIterMap.get(key);;
+      res = iterMap.get(key);
       isIterMap = true;
     }
     if (res == null) {
-      stats.cacheMisses++;
+      stats.cacheMisses.increment();
     } else if (isIterMap) {
-      stats.cacheIterHits++;
+      stats.cacheIterHits.increment();
       log.trace("get({} (iter)): {}", key, res);
     } else {
-      stats.cacheHits++;
+      stats.cacheHits.increment();
       log.trace("get({}): {}", key, res);
     }
     return res;
@@ -144,7 +246,7 @@ public class ArtifactCache {
    * @return cached Artifact or null if not found in cache.
    */
   public Artifact get(Artifact protoArt) {
-    return get(protoArt.makeKey());
+    return get(ArtifactKey.of(protoArt));
   }
 
   /** Return a cached latest-version Artifact with the namespace, auid and
@@ -157,7 +259,7 @@ public class ArtifactCache {
    */
   public Artifact getLatest(String namespace, String auid, String url) {
     // "latest"
-    return get(Artifact.makeLatestKey(namespace, auid, url));
+    return get(ArtifactKey.latest(namespace, auid, url));
   }
 
   /** Return a cached Artifact with the namespace, auid, url and version.
@@ -168,7 +270,34 @@ public class ArtifactCache {
    * @return cached Artifact or null if not found in cache.
    */
   public Artifact get(String namespace, String auid, String url, int version) {
-    return get(Artifact.makeKey(namespace, auid, url, version));
+    return get(ArtifactKey.of(namespace, auid, url, version));
+  }
+
+  // Store or remove in artMap or artIterMap, maintaining its index.
+  // Must be called from a synchronized method.
+
+  private void artPut(ArtifactKey key, Artifact art) {
+    artMap.put(key, art);
+    artIndex.add(key);
+  }
+
+  private void artIterPut(ArtifactKey key, Artifact art) {
+    artIterMap.put(key, art);
+    artIterIndex.add(key);
+  }
+
+  private void artRemove(ArtifactKey key) {
+    Artifact old = artMap.remove(key);
+    if (old != null) {
+      artIndex.remove(key);
+    }
+  }
+
+  private void artIterRemove(ArtifactKey key) {
+    Artifact old = artIterMap.remove(key);
+    if (old != null) {
+      artIterIndex.remove(key);
+    }
   }
 
   /** Internal store
@@ -176,21 +305,23 @@ public class ArtifactCache {
    * @param art Artifact
    * @return the Artifact
    */
-  private synchronized Artifact put(String key, Artifact art) {
+  private synchronized Artifact put(ArtifactKey key, Artifact art) {
     if (artMap == null) {
       return art;
     }
+    notFoundRemove(key);
+    notFoundRemove(key.toLatest());
     // If it's already in the iter map, put new one there.  (Not checking
     // for this would defeat having a separate iter map in any case where
     // an iteration calls getArtifact() on each Artifact returned by the
     // iterator.)
     if (artIterMap.containsKey(key)) {
-      artIterMap.put(key, art);
+      artIterPut(key, art);
     } else {
-      artMap.put(key, art);
+      artPut(key, art);
     }
     log.trace("put({}, {})", key, art);
-    stats.cacheStores++;
+    stats.cacheStores.increment();
     return art;
   }
 
@@ -199,7 +330,7 @@ public class ArtifactCache {
    * @return the Artifact
    */
   public Artifact put(Artifact art) {
-    return put(art.makeKey(), art);
+    return put(ArtifactKey.of(art), art);
   }
 
   /** Store the Artifact in the cache.
@@ -211,11 +342,11 @@ public class ArtifactCache {
     if (!art.getCommitted()) {
       throw new IllegalStateException("putLatest() called with uncommitted Artifact: " + art);
     }
-    String latestKey = art.makeLatestKey();
+    ArtifactKey latestKey = ArtifactKey.latestOf(art);
     if (artIterMap.containsKey(latestKey)) {
-      artIterMap.put(latestKey, art);
+      artIterPut(latestKey, art);
     } else {
-      artMap.put(latestKey, art);
+      artPut(latestKey, art);
     }
     // Store under version
     put(art);
@@ -231,17 +362,19 @@ public class ArtifactCache {
     if (!art.getCommitted()) {
       throw new IllegalStateException("putLatest() called with uncommitted Artifact: " + art);
     }
-    String key = art.makeKey();
-    String latestKey = art.makeLatestKey();
+    ArtifactKey key = ArtifactKey.of(art);
+    ArtifactKey latestKey = key.toLatest();
+    notFoundRemove(key);
+    notFoundRemove(latestKey);
     // if already in artMap, leave it there,
     if (artMap.containsKey(key)) {
-      artMap.put(key, art);
-      artMap.put(latestKey, art);
-      artIterMap.remove(key);
-      artIterMap.remove(latestKey);
+      artPut(key, art);
+      artPut(latestKey, art);
+      artIterRemove(key);
+      artIterRemove(latestKey);
     } else {
-      artIterMap.put(key, art);
-      artIterMap.put(latestKey, art);
+      artIterPut(key, art);
+      artIterPut(latestKey, art);
     }
     return art;
   }
@@ -249,21 +382,51 @@ public class ArtifactCache {
   /** Delete all cache entries. */
   public synchronized void flush() {
     if (artMap == null) return;
+    invalidationGen++;
     artMap.clear();
     artIterMap.clear();
-    stats.cacheFlushes++;
+    artIndex.clear();
+    artIterIndex.clear();
+    if (notFoundMap != null) {
+      notFoundMap.clear();
+    }
+    stats.cacheFlushes.increment();
   }
 
   public enum InvalidateOp {Commit, Delete};
 
+  /** Remove Artifact from the cache.
+   * @param op an InvalidateOp reflecting the operation that caused the
+   * invalidation.  (Not currently used.)
+   * @param key the artifact key string, as returned by {@link
+   * Artifact#makeKey()}
+   */
+  public void invalidateArtifact(InvalidateOp op, String key) {
+    ArtifactKey akey = ArtifactKey.fromString(key);
+    if (akey == null) {
+      log.warn("Ignoring invalidate of malformed artifact key: {}", key);
+      return;
+    }
+    invalidateArtifact(op, akey);
+  }
+
   /** Remove Artifact from the cache.
    * @param op an InvalidateOp reflecting the operation that caused the
    * invalidation.  (Not currently used.)
    * @param key the artifact key
    */
-  public synchronized void invalidateArtifact(InvalidateOp op, String key) {
+  public synchronized void invalidateArtifact(InvalidateOp op,
+					      ArtifactKey key) {
     if (artMap == null) return;
-    String latestKey = Artifact.makeLatestKey(key);
+    invalidationGen++;
+    removeArtifact(key);
+  }
+
+  // Must be called from a synchronized method.
+  private void removeArtifact(ArtifactKey key) {
+    ArtifactKey latestKey = key.toLatest();
+    notFoundRemove(key);
+    notFoundRemove(latestKey);
 
     // Be conservative and always remove the latest version of this
     // artifact.  The circumstances in which this could unnecessarily
@@ -273,11 +436,11 @@ public class ArtifactCache {
 
     if (artMap.containsKey(key) || artMap.containsKey(latestKey) ||
 	artIterMap.containsKey(key) || artIterMap.containsKey(latestKey)) {
-      artMap.remove(key);
-      artMap.remove(latestKey);
-      artIterMap.remove(key);
-      artIterMap.remove(latestKey);
-      stats.cacheInvalidates++;
+      artRemove(key);
+      artRemove(latestKey);
+      artIterRemove(key);
+      artIterRemove(latestKey);
+      stats.cacheInvalidates.increment();
     }
   }
 
@@ -286,28 +449,396 @@ public class ArtifactCache {
    * invalidation.  (Not currently used.)
    * @param auid the auid
    */
-  public synchronized void invalidateAu(InvalidateOp op, String auid) {
-    log.debug("Invalidating {}", auid);
+  public void invalidateAu(InvalidateOp op, String auid) {
+    invalidateAu(op, null, auid);
+  }
+
+  /** Remove all Artifacts in an AU in a namespace from the cache.
+   * @param op an InvalidateOp reflecting the operation that caused the
+   * invalidation.  (Not currently used.)
+   * @param namespace the namespace, or null for all namespaces
+   * @param auid the auid
+   */
+  public synchronized void invalidateAu(InvalidateOp op, String namespace,
+					String auid) {
+    log.debug("Invalidating {} in {}", auid,
+	      namespace == null ? "all namespaces" : namespace);
     if (artMap == null) return;
-    List<String> toDel = new ArrayList<>();
-    for (Map.Entry<String,Artifact> ent : artMap.entrySet()) {
-      Artifact art = ent.getValue();
-      if (auid.equals(art.getAuid())) {
-        toDel.add(ent.getKey());
+    invalidationGen++;
+    removeAu(namespace, auid);
+  }
+
+  // Must be called from a synchronized method.
+  private void removeAu(String namespace, String auid) {
+    for (ArtifactKey key : artIndex.getKeys(namespace, auid)) {
+      artRemove(key);
+    }
+    for (ArtifactKey key : artIterIndex.getKeys(namespace, auid)) {
+      artIterRemove(key);
+    }
+    if (notFoundMap != null) {
+      // Bounded and small, so not worth indexing
+      notFoundMap.removeIf((k, nf) -> k.isInAu(namespace, auid));
+    }
+  }
+
+  /** Apply a batch of invalidations under a single acquisition of the
+   * cache lock.  See {@link Invalidations}.
+   * @param inv the invalidations
+   */
+  public synchronized void invalidate(Invalidations inv) {
+    if (artMap == null || inv.isEmpty()) return;
+    stats.cacheInvalidateBatches.increment();
+    if (inv.flush) {
+      log.debug("Flushing Artifact cache (batch of {})", inv.size());
+      flush();
+      return;
+    }
+    invalidationGen++;
+    Map<String,Set<String>> aus = inv.getAus();
+    for (Map.Entry<String,Set<String>> ent : aus.entrySet()) {
+      String auid = ent.getKey();
+      Set<String> nss = ent.getValue();
+      if (nss.contains(null)) {
+	log.debug("Invalidating {} in all namespaces", auid);
+	removeAu(null, auid);
+      } else {
+	for (String ns : nss) {
+	  log.debug("Invalidating {} in {}", auid, ns);
+	  removeAu(ns, auid);
+	}
+      }
+    }
+    for (ArtifactKey key : inv.keys) {
+      if (!Invalidations.isCovered(aus, key)) {
+	removeArtifact(key);
       }
     }
-    for (String key : toDel) {
-      artMap.remove(key);
+  }
+
+  /** Default number of keys in one AU, in a batch of invalidations,
+   * above which the AU is invalidated as a whole */
+  public static final int DEFAULT_AU_COLLAPSE_THRESHOLD = 50;
+
+  /** Accumulates invalidations to be applied together by {@link
+   * #invalidate(Invalidations)}.  Duplicate keys are coalesced, keys in
+   * an AU that is being invalidated are subsumed by it, a flush subsumes
+   * everything, and when more than a threshold number of keys in one
+   * (namespace, AU) are added the whole AU is invalidated instead.
+   * Collapsing to AU invalidation may remove cache entries that didn't
+   * need to be removed; that's always safe.  Not thread-safe. */
+  public static class Invalidations {
+    private final int auCollapseThreshold;
+    private boolean flush = false;
+    // AUID -> namespaces to invalidate; a null namespace means all
+    private final Map<String,Set<String>> aus = new HashMap<>();
+    private final Set<ArtifactKey> keys = new HashSet<>();
+    private int size = 0;
+
+    public Invalidations() {
+      this(DEFAULT_AU_COLLAPSE_THRESHOLD);
+    }
+
+    /**
+     * @param auCollapseThreshold the number of distinct keys in one
+     * (namespace, AU) above which the AU is invalidated as a whole
+     */
+    public Invalidations(int auCollapseThreshold) {
+      this.auCollapseThreshold = auCollapseThreshold;
+    }
+
+    /** Add a flush of the entire cache */
+    public Invalidations addFlush() {
+      size++;
+      flush = true;
+      return this;
     }
-    toDel.clear();
-    for (Map.Entry<String,Artifact> ent : artIterMap.entrySet()) {
-      Artifact art = ent.getValue();
-      if (auid.equals(art.getAuid())) {
-        toDel.add(ent.getKey());
+
+    /** Add an AU invalidation.
+     * @param namespace the namespace, or null for all namespaces
+     * @param auid the auid
+     */
+    public Invalidations addAu(String namespace, String auid) {
+      size++;
+      aus.computeIfAbsent(auid, k -> new HashSet<>()).add(namespace);
+      return this;
+    }
+
+    /** Add an artifact invalidation */
+    public Invalidations addArtifact(ArtifactKey key) {
+      size++;
+      keys.add(key);
+      return this;
+    }
+
+    /** Add an artifact invalidation.
+     * @param key the artifact key string, as returned by {@link
+     * Artifact#makeKey()}
+     * @return true if the key was well-formed
+     */
+    public boolean addArtifact(String key) {
+      ArtifactKey akey = ArtifactKey.fromString(key);
+      if (akey == null) {
+	log.warn("Ignoring invalidate of malformed artifact key: {}", key);
+	return false;
+      }
+      addArtifact(akey);
+      return true;
+    }
+
+    /** Return the number of invalidations that have been added,
+     * including duplicates */
+    public int size() {
+      return size;
+    }
+
+    public boolean isEmpty() {
+      return size == 0;
+    }
+
+    boolean isFlush() {
+      return flush;
+    }
+
+    /** Return the AU invalidations, including those that result from
+     * collapsing keys, with any namespace subsumed by the null (all)
+     * namespace removed */
+    Map<String,Set<String>> getAus() {
+      Map<String,Set<String>> res = new HashMap<>();
+      for (Map.Entry<String,Set<String>> ent : aus.entrySet()) {
+	res.put(ent.getKey(), new HashSet<>(ent.getValue()));
+      }
+      if (keys.size() > auCollapseThreshold) {
+	Map<String,Map<String,Integer>> counts = new HashMap<>();
+	for (ArtifactKey key : keys) {
+	  counts.computeIfAbsent(key.getAuid(), k -> new HashMap<>())
+	    .merge(key.getNamespace(), 1, Integer::sum);
+	}
+	for (Map.Entry<String,Map<String,Integer>> ent : counts.entrySet()) {
+	  for (Map.Entry<String,Integer> nsEnt : ent.getValue().entrySet()) {
+	    if (nsEnt.getValue() > auCollapseThreshold) {
+	      res.computeIfAbsent(ent.getKey(), k -> new HashSet<>())
+		.add(nsEnt.getKey());
+	    }
+	  }
+	}
       }
+      for (Set<String> nss : res.values()) {
+	if (nss.contains(null)) {
+	  nss.retainAll(Collections.singleton(null));
+	}
+      }
+      return res;
+    }
+
+    /** Return the keys that aren't subsumed by an AU invalidation */
+    Set<ArtifactKey> getArtifactKeys() {
+      Map<String,Set<String>> aus = getAus();
+      Set<ArtifactKey> res = new HashSet<>();
+      for (ArtifactKey key : keys) {
+	if (!isCovered(aus, key)) {
+	  res.add(key);
+	}
+      }
+      return res;
+    }
+
+    static boolean isCovered(Map<String,Set<String>> aus, ArtifactKey key) {
+      Set<String> nss = aus.get(key.getAuid());
+      return nss != null
+	&& (nss.contains(null) || nss.contains(key.getNamespace()));
+    }
+  }
+
+  // Negative results
+
+  /** Return the current invalidation generation, to be passed to {@link
+   * #putLatestNotFound(String, String, String, long)} or {@link
+   * #putNotFound(String, String, String, int, long)}.  Must be called
+   * before the lookup is started. */
+  public long getInvalidationGeneration() {
+    return invalidationGen;
+  }
+
+  /** Return true if a recent lookup of the latest version of the
+   * artifact found nothing.
+   * @param namespace
+   * @param auid
+   * @param url
+   */
+  public boolean isLatestNotFound(String namespace, String auid, String url) {
+    return isNotFound(ArtifactKey.latest(namespace, auid, url));
+  }
+
+  /** Return true if a recent lookup of the artifact version found
+   * nothing.
+   * @param namespace
+   * @param auid
+   * @param url
+   * @param version
+   */
+  public boolean isNotFound(String namespace, String auid, String url,
+			    int version) {
+    return isNotFound(ArtifactKey.of(namespace, auid, url, version));
+  }
+
+  /** Record that a lookup of the latest version of the artifact found
+   * nothing.
+   * @param namespace
+   * @param auid
+   * @param url
+   * @param invalidationGen the value of {@link
+   * #getInvalidationGeneration()} before the lookup was started.  If
+   * there has been an invalidation since then, the result is discarded.
+   */
+  public void putLatestNotFound(String namespace, String auid, String url,
+				long invalidationGen) {
+    putNotFound(ArtifactKey.latest(namespace, auid, url), invalidationGen);
+  }
+
+  /** Record that a lookup of the artifact version found nothing.
+   * @param namespace
+   * @param auid
+   * @param url
+   * @param version
+   * @param invalidationGen the value of {@link
+   * #getInvalidationGeneration()} before the lookup was started.  If
+   * there has been an invalidation since then, the result is discarded.
+   */
+  public void putNotFound(String namespace, String auid, String url,
+			  int version, long invalidationGen) {
+    putNotFound(ArtifactKey.of(namespace, auid, url, version),
+		invalidationGen);
+  }
+
+  private boolean isNotFound(ArtifactKey key) {
+    ConcurrentLruMap<ArtifactKey,NotFound> map = notFoundMap;
+    if (map == null) return false;
+    NotFound nf = map.get(key);
+    if (nf == null) return false;
+    if (TimeBase.nowMs() >= nf.expiration) {
+      log.trace("isNotFound({}): expired", key);
+      return false;
+    }
+    log.trace("isNotFound({}): true", key);
+    stats.notFoundHits.increment();
+    return true;
+  }
+
+  private synchronized void putNotFound(ArtifactKey key, long gen) {
+    if (notFoundMap == null) return;
+    // Discard if invalidated or found by another lookup while this
+    // lookup was in progress
+    if (gen != invalidationGen ||
+	artMap.containsKey(key) || artIterMap.containsKey(key)) {
+      log.trace("putNotFound({}): stale, discarding", key);
+      return;
     }
-    for (String key : toDel) {
-      artIterMap.remove(key);
+    notFoundMap.put(key, new NotFound(TimeBase.nowMs() + notFoundTtl));
+    log.trace("putNotFound({})", key);
+    stats.notFoundStores.increment();
+  }
+
+  // Must be called from a synchronized method.
+  private void notFoundRemove(ArtifactKey key) {
+    if (notFoundMap != null && key != null) {
+      notFoundMap.remove(key);
+    }
+  }
+
+  /** A negative result */
+  static class NotFound {
+    final long expiration;
+
+    NotFound(long expiration) {
+      this.expiration = expiration;
+    }
+  }
+
+  /** Return the number of cache entries (in both the Artifact and
+   * iterator caches) for an AU.
+   * @param namespace the namespace, or null for all namespaces
+   * @param auid the auid
+   */
+  public synchronized int getAuEntryCount(String namespace, String auid) {
+    if (artMap == null) return 0;
+    return artIndex.count(namespace, auid) + artIterIndex.count(namespace, auid);
+  }
+
+  /** Return the AUIDs that have entries in the cache */
+  public synchronized Set<String> getCachedAuids() {
+    if (artMap == null) return Collections.emptySet();
+    Set<String> res = new HashSet<>(artIndex.getAuids());
+    res.addAll(artIterIndex.getAuids());
+    return res;
+  }
+
+  /** Index of the keys in an Artifact map by AUID and namespace.  Not
+   * thread-safe. */
+  static class AuKeyIndex {
+    // AUID -> namespace -> keys
+    private final Map<String,Map<String,Set<ArtifactKey>>> auMap =
+      new HashMap<>();
+
+    void add(ArtifactKey key) {
+      auMap.computeIfAbsent(key.getAuid(), k -> new HashMap<>())
+	.computeIfAbsent(key.getNamespace(), k -> new HashSet<>())
+	.add(key);
+    }
+
+    void remove(ArtifactKey key) {
+      Map<String,Set<ArtifactKey>> nsMap = auMap.get(key.getAuid());
+      if (nsMap == null) return;
+      Set<ArtifactKey> keys = nsMap.get(key.getNamespace());
+      if (keys == null) return;
+      keys.remove(key);
+      if (keys.isEmpty()) {
+	nsMap.remove(key.getNamespace());
+	if (nsMap.isEmpty()) {
+	  auMap.remove(key.getAuid());
+	}
+      }
+    }
+
+    /** Return a copy of the keys for the AU, in all namespaces if
+     * namespace is null */
+    List<ArtifactKey> getKeys(String namespace, String auid) {
+      Map<String,Set<ArtifactKey>> nsMap = auMap.get(auid);
+      if (nsMap == null) return Collections.emptyList();
+      List<ArtifactKey> res = new ArrayList<>();
+      if (namespace != null) {
+	Set<ArtifactKey> keys = nsMap.get(namespace);
+	if (keys != null) {
+	  res.addAll(keys);
+	}
+      } else {
+	for (Set<ArtifactKey> keys : nsMap.values()) {
+	  res.addAll(keys);
+	}
+      }
+      return res;
+    }
+
+    int count(String namespace, String auid) {
+      Map<String,Set<ArtifactKey>> nsMap = auMap.get(auid);
+      if (nsMap == null) return 0;
+      if (namespace != null) {
+	Set<ArtifactKey> keys = nsMap.get(namespace);
+	return keys == null ? 0 : keys.size();
+      }
+      int res = 0;
+      for (Set<ArtifactKey> keys : nsMap.values()) {
+	res += keys.size();
+      }
+      return res;
+    }
+
+    Set<String> getAuids() {
+      return auMap.keySet();
+    }
+
+    void clear() {
+      auMap.clear();
     }
   }
 
@@ -355,23 +886,6 @@ public class ArtifactCache {
     }
   }
 
-  /** For now, ArtifactData.release() is called when items exit the
-   * cache */
-  static class ArtifactDataReleasingLRUMap
-    extends LRUMap<String, ArtifactData> {
-
-    ArtifactDataReleasingLRUMap(int maxSize) {
-      super(maxSize);
-    }
-
-    @Override
-    protected boolean removeLRU(LinkEntry<String, ArtifactData> entry) {
-      ArtifactData ad = entry.getValue();
-      ad.release();
-      return true;
-    }
-  }
-
   /**
    * Sets max cache size.
    * @param newArtSize the new size for the Artifact cache
@@ -383,18 +897,12 @@ public class ArtifactCache {
     }
     if (artMap != null) {
       if (artMap.maxSize() != newArtSize) {
-	LRUMap<String,Artifact> newMap = new LRUMap<>(newArtSize);
-	newMap.putAll(artMap);
-	artMap = newMap;
+	artMap.setMaxSize(newArtSize);
+	artIterMap.setMaxSize(newArtSize);
 	stats.setArtSize(newArtSize);
-	LRUMap<String,Artifact> newIterMap = new LRUMap<>(newArtSize);
-	newIterMap.putAll(artIterMap);
-	artIterMap = newIterMap;
       }
       if (artDataMap.maxSize() != newArtDataSize) {
-	LRUMap<String,ArtifactData> newDataMap = new LRUMap<>(newArtDataSize);
-	newDataMap.putAll(artDataMap);
-	artDataMap = newDataMap;
+	artDataMap.setMaxSize(newArtDataSize);
 	stats.setArtDataSize(newArtDataSize);
       }
     }
@@ -403,32 +911,155 @@ public class ArtifactCache {
     maxArtDataSize = newArtDataSize;
   }
 
+  /**
+   * Sets the content cache limits.
+   * @param newMaxBytes the maximum total size of the cached content, or 0
+   * to disable the content cache
+   * @param newMaxItemSize the size of the largest artifact whose content
+   * will be cached.  Content larger than newMaxBytes isn't cached even if
+   * this is larger.
+   */
+  public synchronized void setContentLimits(long newMaxBytes,
+					    long newMaxItemSize) {
+    if (newMaxBytes < 0 || newMaxItemSize < 0) {
+      throw new IllegalArgumentException("Negative content cache size");
+    }
+    if (artMap != null) {
+      if (newMaxBytes == 0) {
+	contentMap = null;
+      } else if (contentMap == null) {
+	contentMap = makeContentMap(newMaxBytes);
+      } else {
+	contentMap.setMaxWeight(newMaxBytes);
+      }
+      if (newMaxItemSize < maxContentItemSize && contentMap != null) {
+	contentMap.removeIf((k, cc) -> cc.size() > newMaxItemSize);
+      }
+    }
+    stats.setMaxContentBytes(newMaxBytes);
+    // Set these even if diabled, so they're right when enabled
+    maxContentBytes = newMaxBytes;
+    maxContentItemSize = newMaxItemSize;
+  }
+
+  /**
+   * Sets the negative result cache limits.
+   * @param newMaxSize the maximum number of negative results, or 0 to
+   * disable caching them
+   * @param newTtl the time a negative result remains valid
+   */
+  public synchronized void setNotFoundLimits(int newMaxSize, long newTtl) {
+    if (newMaxSize < 0 || newTtl < 0) {
+      throw new IllegalArgumentException("Negative not found cache size or TTL");
+    }
+    if (artMap != null) {
+      if (newMaxSize == 0) {
+	notFoundMap = null;
+      } else if (notFoundMap == null) {
+	notFoundMap = makeNotFoundMap(newMaxSize);
+      } else {
+	notFoundMap.setMaxSize(newMaxSize);
+      }
+    }
+    // Set these even if diabled, so they're right when enabled
+    maxNotFoundSize = newMaxSize;
+    notFoundTtl = newTtl;
+  }
+
+  /** Return the total size of the content in the content cache */
+  public long getContentBytes() {
+    ConcurrentLruMap<DataKey,CachedContent> map = contentMap;
+    return map == null ? 0 : map.weight();
+  }
+
+  /** Return true if the content of the ArtifactData would be stored in
+   * the content cache by {@link #putArtifactData(String, String,
+   * ArtifactData)}: the content cache is enabled, the ArtifactData has
+   * an unused InputStream, and its content length is known and no larger
+   * than the maximum item size, the maximum total content size (or the
+   * largest possible buffer).  Content that turns out to be longer than
+   * its content length is not cached.
+   * @param ad the ArtifactData
+   */
+  public boolean isContentCacheable(ArtifactData ad) {
+    return contentMap != null
+      && ad.hasContentInputStream()
+      && ad.hasContentLength()
+      && ad.getContentLength() <= maxContentItemSize
+      && ad.getContentLength() <= maxContentBytes
+      && ad.getContentLength() <= Integer.MAX_VALUE;
+  }
+
   // ArtifactData cache
 
   /** Store the ArtifactData in the cache.  If there is already one there,
    * do not replace it if it has a content InputStream and the new one
-   * doesn't.
+   * doesn't.  If the content is cacheable (see {@link
+   * #isContentCacheable(ArtifactData)}), it's read from the
+   * ArtifactData's InputStream into the content cache, and a new
+   * ArtifactData whose InputStream reads the cached content is returned
+   * in place of the argument.
    * @param namespace
    * @param artifactUuid
-   * @return the ArtifactData that is now in the cache
+   * @return the ArtifactData that is now in the cache, or a replacement
+   * for ad if its content was cached
+   * @throws IOException if the content is cacheable but couldn't be read
    */
-  public synchronized ArtifactData putArtifactData(String namespace,
-						   String artifactUuid,
-						   ArtifactData ad) {
+  public ArtifactData putArtifactData(String namespace,
+				      String artifactUuid,
+				      ArtifactData ad)
+      throws IOException {
     if (artDataMap == null) {
       return ad;
     }
-    String key = artifactDataKey(namespace, artifactUuid);
-    ArtifactData old = artDataMap.get(key);
+    DataKey key = new DataKey(namespace, artifactUuid);
+    if (ad.hasContentInputStream() && ad.hasContentLength()) {
+      stats.dataBytesFetched.add(ad.getContentLength());
+    }
+    if (contentMap != null && ad.hasContentInputStream()) {
+      if (isContentCacheable(ad)) {
+	// Read the content without holding the cache lock; only storing
+	// it needs to be synchronized.
+	try {
+	  CachedContent cc = CachedContent.fromArtifactData(ad);
+	  putContent(key, cc);
+	  log.trace("putArtifactData({}, {}): cached {} bytes",
+		    key, ad, cc.size());
+	  return cc.newArtifactData();
+	} catch (ContentLengthExceededException e) {
+	  log.debug("Not caching content longer than its length: {}", key);
+	  ad = e.getUncachedArtifactData();
+	}
+      }
+      stats.contentTooLarge.increment();
+    }
+    return putArtifactData(key, ad);
+  }
+
+  private synchronized void putContent(DataKey key, CachedContent cc) {
+    ConcurrentLruMap<DataKey,CachedContent> map = contentMap;
+    if (map != null) {
+      map.put(key, cc);
+      stats.contentCacheStores.increment();
+    }
+  }
+
+  private synchronized ArtifactData putArtifactData(DataKey key,
+						    ArtifactData ad) {
+    ConcurrentLruMap<DataKey,ArtifactData> map = artDataMap;
+    if (map == null) {
+      return ad;
+    }
+    ArtifactData old = map.get(key);
     if (old != null && old.hasContentInputStream()
 	&& !ad.hasContentInputStream()) {
       log.trace("Not replacing unused ArtifactData with a used one: {}", key);
       return old;
     }
-    artDataMap.put(key, ad);
+    map.put(key, ad);
     ad.setAutoRelease(true);
     log.trace("putArtifactData({}, {})", key, ad);
-    stats.dataCacheStores++;
+    stats.dataCacheStores.increment();
     return ad;
   }
 
@@ -440,30 +1071,180 @@ public class ArtifactCache {
    * @return cached ArtifactDate or null if not found or if an InputStream
    * is requred and not available.
    */
-  public synchronized ArtifactData getArtifactData(String namespace,
-						   String artifactUuid,
-						   boolean needInputStream) {
-    if (artDataMap == null) return null;
-    String key = artifactDataKey(namespace, artifactUuid);
-    updateHist(stats.artDataHist, artDataMap, key);
-    ArtifactData res = artDataMap.get(key);
+  public ArtifactData getArtifactData(String namespace,
+				      String artifactUuid,
+				      boolean needInputStream) {
+    ConcurrentLruMap<DataKey,ArtifactData> map = artDataMap;
+    if (map == null) return null;
+    DataKey key = new DataKey(namespace, artifactUuid);
+    ConcurrentLruMap<DataKey,CachedContent> cmap = contentMap;
+    if (cmap != null) {
+      CachedContent cc = cmap.get(key);
+      if (cc != null) {
+	stats.dataCacheHits.increment();
+	stats.contentCacheHits.increment();
+	stats.contentBytesHit.add(cc.size());
+	log.trace("getArtifactData({}): content hit", key);
+	return cc.newArtifactData();
+      }
+    }
+    updateHist(stats.artDataHist, map, key);
+    ArtifactData res = map.get(key);
     if (res != null && needInputStream && !res.hasContentInputStream()) {
       if (!res.hadAnInputStream()) {
-	stats.refetchedForContent++;
+	stats.refetchedForContent.increment();
       }
       res = null;
     }
     if (res == null) {
-      stats.dataCacheMisses++;
+      stats.dataCacheMisses.increment();
     } else {
-      stats.dataCacheHits++;
+      stats.dataCacheHits.increment();
       log.trace("getArtifactData({}): {}", key, res);
     }
     return res;
   }
 
-  private static String artifactDataKey(String namespace, String artifactUuid) {
-    return namespace + "|" + artifactUuid;
+  /** ArtifactData key: namespace + artifact UUID */
+  static final class DataKey {
+    private final String namespace;
+    private final String uuid;
+    private final int hash;
+
+    DataKey(String namespace, String uuid) {
+      this.namespace = namespace;
+      this.uuid = uuid;
+      this.hash = 31 * Objects.hashCode(namespace) + Objects.hashCode(uuid);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof DataKey)) return false;
+      DataKey other = (DataKey)o;
+      return hash == other.hash
+	&& Objects.equals(uuid, other.uuid)
+	&& Objects.equals(namespace, other.namespace);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public String toString() {
+      return namespace + "|" + uuid;
+    }
+  }
+
+  /** The content of an ArtifactData, held in a direct ByteBuffer, along
+   * with a copy of its metadata. */
+  static class CachedContent {
+    private final ArtifactData proto;
+    private final ByteBuffer content;
+
+    private CachedContent(ArtifactData proto, ByteBuffer content) {
+      this.proto = proto;
+      this.content = content;
+    }
+
+    /** Read and release the content of the ArtifactData, directly into
+     * a direct buffer sized from its content length.  No more than that
+     * is read: if the stream turns out to be longer, the content isn't
+     * cached.
+     * @throws ContentLengthExceededException if the stream is longer than
+     * the content length.  It holds an ArtifactData whose InputStream
+     * reads the entire content.
+     */
+    static CachedContent fromArtifactData(ArtifactData ad)
+	throws IOException {
+      ByteBuffer buf =
+	ByteBuffer.allocateDirect(Math.toIntExact(ad.getContentLength()));
+      InputStream in = ad.getInputStream();
+      boolean handedOff = false;
+      try {
+	ReadableByteChannel chan = Channels.newChannel(in);
+	while (buf.hasRemaining()) {
+	  if (chan.read(buf) < 0) {
+	    break;
+	  }
+	}
+	if (!buf.hasRemaining()) {
+	  int next = in.read();
+	  if (next >= 0) {
+	    // Put back what's been read in front of the rest of the stream
+	    buf.flip();
+	    InputStream whole =
+	      new SequenceInputStream(Collections.enumeration(Arrays.asList(
+		  new ByteBufferInputStream(buf),
+		  new ByteArrayInputStream(new byte[] {(byte)next}),
+		  in)));
+	    handedOff = true;
+	    throw new ContentLengthExceededException(copyArtifactData(ad,
+								      whole));
+	  }
+	}
+      } finally {
+	if (!handedOff) {
+	  in.close();
+	}
+      }
+      buf.flip();
+      return new CachedContent(copyArtifactData(ad, null),
+			       buf.asReadOnlyBuffer());
+    }
+
+    long size() {
+      return content.remaining();
+    }
+
+    /** Return a new ArtifactData whose InputStream reads the content */
+    ArtifactData newArtifactData() throws IOException {
+      ArtifactData res =
+	copyArtifactData(proto, new ByteBufferInputStream(content));
+      res.setAutoRelease(true);
+      return res;
+    }
+
+    private static ArtifactData copyArtifactData(ArtifactData ad,
+						 InputStream in)
+	throws IOException {
+      HttpHeaders headers = new HttpHeaders();
+      headers.putAll(ad.getHttpHeaders());
+      ArtifactData res = new ArtifactData()
+	.setIdentifier(ad.getIdentifier())
+	.setHttpHeaders(headers)
+	.setHttpStatus(ad.getHttpStatus())
+	.setStorageUrl(ad.getStorageUrl())
+	.setInputStream(in);
+      if (ad.hasContentLength()) {
+	res.setContentLength(ad.getContentLength());
+      }
+      res.setContentDigest(ad.getContentDigest());
+      res.setCollectionDate(ad.getCollectionDate());
+      res.setStoreDate(ad.getStoreDate());
+      res.setIsCommitted(ad.isCommitted());
+      return res;
+    }
+  }
+
+  /** Thrown by {@link CachedContent#fromArtifactData(ArtifactData)} if
+   * the content is longer than its content length. */
+  static class ContentLengthExceededException extends IOException {
+    private final ArtifactData uncached;
+
+    ContentLengthExceededException(ArtifactData uncached) {
+      super("Content longer than Content-Length: "
+	    + uncached.getContentLength());
+      this.uncached = uncached;
+    }
+
+    /** Return an ArtifactData whose InputStream reads the entire
+     * content */
+    ArtifactData getUncachedArtifactData() {
+      return uncached;
+    }
   }
 
   /** Update the histogram of positions in the cache where a hit was found.
@@ -474,20 +1255,14 @@ public class ArtifactCache {
    * @param the key being looked up in the map
    * @return true iff the key was found an the historgram updated
    */
-  private boolean updateHist(int[] hist,
-			     LRUMap<String,? extends Object> map,
-			     String key) {
+  private <K> boolean updateHist(int[] hist,
+				 ConcurrentLruMap<K,? extends Object> map,
+				 K key) {
     if (isInstrumented()) {
-      if (map.containsKey(key)) {
-	int ix = 0;
-	String mapkey = map.lastKey();
-	do {
-	  if (mapkey.equals(key)) {
-	    updateHist(hist, map.maxSize(), ix);
-	    return true;
-	  }
-	  ix++;
-	} while ((mapkey = map.previousKey(mapkey)) != null);
+      int ix = map.recencyIndex(key);
+      if (ix >= 0) {
+	updateHist(hist, map.maxSize(), ix);
+	return true;
       }
     }
     return false;
@@ -496,7 +1271,9 @@ public class ArtifactCache {
   private void updateHist(int[] hist, int max, int val) {
     int ix = val * hist.length / max;
     log.trace("updateHist({}, {}): {}", max, val, ix);
-    hist[ix]++;
+    synchronized (hist) {
+      hist[ix]++;
+    }
   }
 
   /** Return a Stats object describing the hit & miss statistics, and
@@ -507,22 +1284,33 @@ public class ArtifactCache {
 
   public static class Stats {
     private int maxArtSize = 0;
-    private int cacheHits = 0;
-    private int cacheIterHits = 0;
-    private int cacheMisses = 0;
-    private int cacheStores = 0;
-    private int cacheInvalidates = 0;
-    private int cacheFlushes = 0;
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheIterHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder cacheStores = new LongAdder();
+    private final LongAdder cacheInvalidates = new LongAdder();
+    private final LongAdder cacheFlushes = new LongAdder();
+    private final LongAdder cacheInvalidateBatches = new LongAdder();
     private int[] artHist;
     private int[] artIterHist;
 
     private int maxArtDataSize = 0;
-    private int dataCacheHits = 0;
-    private int dataCacheMisses = 0;
-    private int dataCacheStores = 0;
-    private int refetchedForContent = 0;
+    private final LongAdder dataCacheHits = new LongAdder();
+    private final LongAdder dataCacheMisses = new LongAdder();
+    private final LongAdder dataCacheStores = new LongAdder();
+    private final LongAdder refetchedForContent = new LongAdder();
     private int[] artDataHist;
 
+    private long maxContentBytes = 0;
+    private final LongAdder contentCacheHits = new LongAdder();
+    private final LongAdder contentCacheStores = new LongAdder();
+    private final LongAdder contentTooLarge = new LongAdder();
+    private final LongAdder contentBytesHit = new LongAdder();
+    private final LongAdder dataBytesFetched = new LongAdder();
+
+    private final LongAdder notFoundHits = new LongAdder();
+    private final LongAdder notFoundStores = new LongAdder();
+
     public void setSizes(int maxArtSize, int maxArtDataSize) {
       setArtSize(maxArtSize);
       setArtDataSize(maxArtDataSize);
@@ -539,44 +1327,105 @@ public class ArtifactCache {
       this.maxArtDataSize = maxArtDataSize;
     }
 
+    public void setMaxContentBytes(long maxContentBytes) {
+      this.maxContentBytes = maxContentBytes;
+    }
+
     public int getCacheHits() {
-      return cacheHits;
+      return cacheHits.intValue();
     }
 
     public int getCacheIterHits() {
-      return cacheIterHits;
+      return cacheIterHits.intValue();
     }
 
     public int getCacheMisses() {
-      return cacheMisses;
+      return cacheMisses.intValue();
     }
 
     public int getCacheStores() {
-      return cacheStores;
+      return cacheStores.intValue();
     }
 
     public int getCacheInvalidates() {
-      return cacheInvalidates;
+      return cacheInvalidates.intValue();
     }
 
     public int getCacheFlushes() {
-      return cacheFlushes;
+      return cacheFlushes.intValue();
+    }
+
+    public int getCacheInvalidateBatches() {
+      return cacheInvalidateBatches.intValue();
     }
 
     public int getDataCacheHits() {
-      return dataCacheHits;
+      return dataCacheHits.intValue();
     }
 
     public int getDataCacheMisses() {
-      return dataCacheMisses;
+      return dataCacheMisses.intValue();
     }
 
     public int getDataCacheStores() {
-      return dataCacheStores;
+      return dataCacheStores.intValue();
     }
 
     public int getRefetchedForContent() {
-      return refetchedForContent;
+      return refetchedForContent.intValue();
+    }
+
+    /** Number of ArtifactData cache hits that were satisfied from the
+     * content cache */
+    public int getContentCacheHits() {
+      return contentCacheHits.intValue();
+    }
+
+    public int getContentCacheStores() {
+      return contentCacheStores.intValue();
+    }
+
+    /** Number of ArtifactData whose content wasn't cached because it
+     * was too large or of unknown length */
+    public int getContentTooLarge() {
+      return contentTooLarge.intValue();
+    }
+
+    /** Total bytes of content returned from the content cache */
+    public long getContentBytesHit() {
+      return contentBytesHit.longValue();
+    }
+
+    /** Total bytes of content of the ArtifactData stored in the cache,
+     * i.e., fetched from the repository */
+    public long getDataBytesFetched() {
+      return dataBytesFetched.longValue();
+    }
+
+    /** Number of lookups satisfied by a negative result */
+    public int getNotFoundHits() {
+      return notFoundHits.intValue();
+    }
+
+    public int getNotFoundStores() {
+      return notFoundStores.intValue();
+    }
+
+    /** Fraction of ArtifactData lookups that were hits */
+    public double getDataCacheHitRatio() {
+      return ratio(dataCacheHits.longValue(),
+		   dataCacheHits.longValue() + dataCacheMisses.longValue());
+    }
+
+    /** Fraction of the content bytes returned by ArtifactData lookups
+     * that came from the content cache */
+    public double getDataCacheByteHitRatio() {
+      return ratio(contentBytesHit.longValue(),
+		   contentBytesHit.longValue() + dataBytesFetched.longValue());
+    }
+
+    private static double ratio(long num, long denom) {
+      return denom == 0 ? 0.0 : (double)num / denom;
     }
 
     public int getMaxArtSize() {
@@ -587,6 +1436,10 @@ public class ArtifactCache {
       return maxArtDataSize;
     }
 
+    public long getMaxContentBytes() {
+      return maxContentBytes;
+    }
+
     public int[] getArtHist() {
       return artHist;
     }
@@ -603,11 +1456,11 @@ public class ArtifactCache {
   // for unit tests
 
   boolean containsKey(String key) {
-    return artMap.containsKey(key);
+    return artMap.containsKey(ArtifactKey.fromString(key));
   }
 
   boolean containsIterKey(String key) {
-    return artIterMap.containsKey(key);
+    return artIterMap.containsKey(ArtifactKey.fromString(key));
   }
 
 }
@@ -34,6 +34,8 @@ package org.lockss.util.rest.repo.util;
 
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.UnsynchronizedByteArrayOutputStream;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.http.*;
@@ -47,8 +49,10 @@ import org.apache.http.message.BasicLineFormatter;
 import org.apache.http.message.BasicStatusLine;
 import org.apache.http.util.CharArrayBuffer;
 import org.lockss.log.L4JLogger;
+import org.lockss.util.io.FileRegionInputStream;
 import org.lockss.util.rest.multipart.MultipartMessage;
 import org.lockss.util.rest.multipart.MultipartResponse;
+import org.lockss.util.rest.multipart.StreamingMultipartReader;
 import org.lockss.util.rest.repo.LockssRepository;
 import org.lockss.util.rest.repo.RestLockssRepository;
 import org.lockss.util.rest.repo.model.Artifact;
@@ -73,6 +77,12 @@ import java.util.*;
 public class ArtifactDataUtil {
     private final static L4JLogger log = L4JLogger.getLogger();
 
+  // Reads the artifact properties part of a multipart response.  Shared,
+  // as it's immutable and thread-safe.
+  private static final ObjectReader artifactPropsReader = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+      .readerFor(ArtifactProperties.class);
+
   /** Return a SessionOutputBuffer with a UTF-8 encoder, bound to the
    * OutputStream */
   public static SessionOutputBufferImpl getSessionOutputBuffer(OutputStream os) {
@@ -215,19 +225,29 @@ public class ArtifactDataUtil {
 
     public static byte[] getHttpResponseHeader(HttpResponse response) throws IOException {
         try (UnsynchronizedByteArrayOutputStream headerStream = new UnsynchronizedByteArrayOutputStream()) {
+            writeHttpResponseHeader(response, headerStream);
+            return headerStream.toByteArray();
+        }
+    }
 
-            // Create a new SessionOutputBuffer from the OutputStream
-          SessionOutputBufferImpl outputBuffer =
-              getSessionOutputBuffer(headerStream);
-
-            // Write the HTTP response header
-            writeHttpResponseHeader(response, outputBuffer);
+    /**
+     * Writes a {@code HttpResponse} object's HTTP status and headers to an {@code OutputStream}.
+     * @param response
+     *          A {@code HttpResponse} whose HTTP status and headers will be written to the {@code OutputStream}.
+     * @param output
+     *          The {@code OutputStream} to write to.
+     * @throws IOException
+     */
+    public static void writeHttpResponseHeader(HttpResponse response, OutputStream output) throws IOException {
+        // Create a new SessionOutputBuffer from the OutputStream
+        SessionOutputBufferImpl outputBuffer =
+            getSessionOutputBuffer(output);
 
-            // Flush anything remaining in the buffer
-            outputBuffer.flush();
+        // Write the HTTP response header
+        writeHttpResponseHeader(response, outputBuffer);
 
-            return headerStream.toByteArray();
-        }
+        // Flush anything remaining in the buffer
+        outputBuffer.flush();
     }
 
     /**
@@ -340,10 +360,8 @@ public class ArtifactDataUtil {
         httpResponse.setHeaders(
             transformHttpHeadersToHeaderArray(artifactData.getHttpHeaders()));
 
-        byte[] header = ArtifactDataUtil.getHttpResponseHeader(httpResponse);
-
-        // Create resource containing HTTP status byte array
-        Resource resource = new NamedByteArrayResource(artifactUuid, header);
+        // Create resource that writes the HTTP status and headers directly to the request
+        Resource resource = new HttpResponseHeaderResource(artifactUuid, httpResponse);
 
         // Add artifact headers multipart
         parts.add(RestLockssRepository.MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER,
@@ -390,9 +408,18 @@ public class ArtifactDataUtil {
       partHeaders.setContentDispositionFormData(
           RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD, RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD);
 
-      // Artifact content
-//      InputStreamResource resource = new NamedInputStreamResource(artifactUuid, artifactData.getInputStream());
-      InputStreamResource resource = new InputStreamResource(artifactData.getInputStream());
+      // Artifact content.  If it's backed by a file, send it directly from the file with a known length.
+      FileRegionInputStream region = artifactData.getContentFileRegion();
+      Resource resource;
+      if (region != null) {
+        if (!artifactData.hasContentLength()) {
+          partHeaders.setContentLength(region.getRemaining());
+        }
+        resource = new FileRegionResource(artifactUuid, region);
+      } else {
+//      resource = new NamedInputStreamResource(artifactUuid, artifactData.getInputStream());
+        resource = new InputStreamResource(artifactData.getInputStream());
+      }
 
       // Assemble content part and add to multiparts map
       parts.add(RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD,
@@ -625,10 +652,6 @@ public class ArtifactDataUtil {
 
   public static ArtifactData fromTransportResponseEntity(ResponseEntity<MultipartMessage> response) throws IOException {
     try {
-      // For JSON object parsing
-      ObjectMapper mapper = new ObjectMapper();
-      mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
-
       // Assemble ArtifactData object from multipart response parts
       MultipartResponse multipartMessage = new MultipartResponse(response);
       LinkedHashMap<String, MultipartResponse.Part> parts = multipartMessage.getParts();
@@ -637,26 +660,7 @@ public class ArtifactDataUtil {
       //// Set artifact repository properties
       {
         MultipartResponse.Part part = parts.get(RestLockssRepository.MULTIPART_ARTIFACT_PROPS);
-
-        ArtifactProperties props = mapper.readValue(part.getInputStream(), ArtifactProperties.class);
-
-        // Set ArtifactIdentifier
-        ArtifactIdentifier id = buildArtifactIdentifier(props);
-
-        result.setIdentifier(id);
-
-        // Set misc. artifact properties
-        result.setContentLength(props.getContentLength());
-        result.setContentDigest(props.getContentDigest());
-
-        long collectionDate = props.getCollectionDate() == null ?
-            -1 : props.getCollectionDate();
-
-        long storeDate = props.getStoreDate() == null ?
-            -1 : props.getStoreDate();
-
-        result.setCollectionDate(collectionDate);
-        result.setStoreDate(storeDate);
+        setArtifactProperties(result, part.getInputStream());
       }
 
       //// Set artifact HTTP response status and headers
@@ -665,18 +669,7 @@ public class ArtifactDataUtil {
 
         // Parse header part body into HttpHeaders object
         if (part != null) {
-          try {
-            HttpResponse httpResponse =
-                getHttpResponseFromStream(part.getInputStream());
-
-            // Set HTTP status
-            result.setHttpStatus(httpResponse.getStatusLine());
-
-            // Set HTTP headers
-            result.setHttpHeaders(transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()));
-          } catch (HttpException e) {
-            throw new IOException("Error parsing HTTP response header part", e);
-          }
+          setHttpResponseHeader(result, part.getInputStream());
         }
       }
 
@@ -686,21 +679,7 @@ public class ArtifactDataUtil {
 
         if (part != null) {
           result.setInputStream(part.getInputStream());
-
-          // Set artifact's Content-Type to value of X-Lockss-Content-Type if present,
-          // otherwise use value of Content-Type
-          HttpHeaders partHeaders = part.getHeaders();
-
-          String contentType = partHeaders.getFirst(ArtifactConstants.X_LOCKSS_CONTENT_TYPE);
-
-          // Fallback
-//          if (StringUtils.isEmpty(contentType)) {
-//            contentType = partHeaders.getFirst(HttpHeaders.CONTENT_TYPE);
-//          }
-
-          if (!StringUtils.isEmpty(contentType)) {
-            result.getHttpHeaders().set(HttpHeaders.CONTENT_TYPE, contentType);
-          }
+          setPayloadContentType(result, part.getHeaders());
         }
       }
 
@@ -711,4 +690,123 @@ public class ArtifactDataUtil {
       throw new IOException("Error processing multipart response");
     }
   }
+
+  /**
+   * Builds an ArtifactData from a multipart artifact response without
+   * buffering the payload.  The artifact properties and HTTP response
+   * header parts are parsed as they're reached; the payload part, which
+   * the server sends last, becomes the ArtifactData's content stream and
+   * reads directly from the response body.  Releasing the ArtifactData
+   * closes the response body.
+   *
+   * @param response A {@code ResponseEntity<InputStream>} whose body is the
+   *                 unread multipart response.
+   * @return An {@code ArtifactData} whose content, if any, is a live stream.
+   * @throws IOException if the response can't be parsed.
+   */
+  public static ArtifactData fromStreamingMultipartResponse(ResponseEntity<InputStream> response)
+      throws IOException {
+    InputStream body = response.getBody();
+    if (body == null) {
+      throw new IOException("Empty multipart response");
+    }
+    HttpHeaders headers = response.getHeaders();
+    StreamingMultipartReader reader = null;
+    boolean hasPayload = false;
+    try {
+      // Throws if the multipart Content-Type is missing or malformed
+      reader = new StreamingMultipartReader(headers.getContentType(),
+                                            headers.getContentLength(), body);
+      ArtifactData result = new ArtifactData();
+      boolean hasProps = false;
+      StreamingMultipartReader.Part part;
+      while ((part = reader.nextPart()) != null) {
+        String name = part.getName();
+        if (RestLockssRepository.MULTIPART_ARTIFACT_PROPS.equals(name)) {
+          setArtifactProperties(result, part.getInputStream());
+          hasProps = true;
+        } else if (RestLockssRepository.MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER.equals(name)) {
+          setHttpResponseHeader(result, part.getInputStream());
+        } else if (RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD.equals(name)) {
+          if (!hasProps) {
+            throw new IOException("Payload part precedes artifact properties part");
+          }
+          setPayloadContentType(result, part.getHeaders());
+          result.setInputStream(part.getInputStream());
+          result.setClosableInputStream(body);
+          hasPayload = true;
+          break;
+        } else {
+          log.debug2("Ignoring unknown part: {}", name);
+        }
+      }
+      if (!hasProps) {
+        throw new IOException("Missing artifact properties part");
+      }
+      return result;
+    } catch (IOException e) {
+      log.error("Could not process streaming multipart response into ArtifactData object", e);
+      throw new IOException("Error processing multipart response", e);
+    } finally {
+      if (!hasPayload) {
+        // Nothing more to read; release the connection.  The reader is
+        // null if it couldn't be created.
+        IOUtils.closeQuietly(reader);
+        IOUtils.closeQuietly(body);
+      }
+    }
+  }
+
+  private static void setArtifactProperties(ArtifactData result, InputStream is)
+      throws IOException {
+    ArtifactProperties props = artifactPropsReader.readValue(is);
+
+    // Set ArtifactIdentifier
+    ArtifactIdentifier id = buildArtifactIdentifier(props);
+
+    result.setIdentifier(id);
+
+    // Set misc. artifact properties
+    result.setContentLength(props.getContentLength());
+    result.setContentDigest(props.getContentDigest());
+
+    long collectionDate = props.getCollectionDate() == null ?
+        -1 : props.getCollectionDate();
+
+    long storeDate = props.getStoreDate() == null ?
+        -1 : props.getStoreDate();
+
+    result.setCollectionDate(collectionDate);
+    result.setStoreDate(storeDate);
+  }
+
+  private static void setHttpResponseHeader(ArtifactData result, InputStream is)
+      throws IOException {
+    try {
+      HttpResponse httpResponse = getHttpResponseFromStream(is);
+
+      // Set HTTP status
+      result.setHttpStatus(httpResponse.getStatusLine());
+
+      // Set HTTP headers
+      result.setHttpHeaders(transformHeaderArrayToHttpHeaders(httpResponse.getAllHeaders()));
+    } catch (HttpException e) {
+      throw new IOException("Error parsing HTTP response header part", e);
+    }
+  }
+
+  private static void setPayloadContentType(ArtifactData result, HttpHeaders partHeaders) {
+    // Set artifact's Content-Type to value of X-Lockss-Content-Type if present,
+    // otherwise use value of Content-Type
+    String contentType = partHeaders.getFirst(ArtifactConstants.X_LOCKSS_CONTENT_TYPE);
+
+    // Fallback
+//    if (StringUtils.isEmpty(contentType)) {
+//      contentType = partHeaders.getFirst(HttpHeaders.CONTENT_TYPE);
+//    }
+
+    if (!StringUtils.isEmpty(contentType)) {
+      result.getHttpHeaders().set(HttpHeaders.CONTENT_TYPE, contentType);
+    }
+  }
 }
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo.util;
+
+import org.lockss.util.io.FileRegionInputStream;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.InputStream;
+
+/**
+ * A one-time use resource whose content is a region of a file.
+ *
+ * Unlike {@code InputStreamResource}, the content length is known, so the part's Content-Length can be sent, and
+ * Spring's resource converter copies the content with {@link InputStream#transferTo(java.io.OutputStream)}, which
+ * {@link FileRegionInputStream} implements by transferring directly from the file's channel.
+ */
+public class FileRegionResource extends AbstractResource {
+    private final String name;
+    private final FileRegionInputStream stream;
+    private boolean read = false;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *          A {@code String} containing the name of this resource.
+     * @param stream
+     *          The {@code FileRegionInputStream} of this resource.
+     */
+    public FileRegionResource(String name, FileRegionInputStream stream) {
+        this.name = name;
+        this.stream = stream;
+    }
+
+    /**
+     * This implementation always returns {@code true}.  The default implementation would open (and so use up) the
+     * stream to check.
+     */
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    /**
+     * This implementation always returns {@code true}, as the stream can be read only once.
+     */
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    /**
+     * Returns the number of bytes remaining in the file region.
+     */
+    @Override
+    public long contentLength() {
+        return stream.getRemaining();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        if (read) {
+            throw new IllegalStateException("FileRegionResource has already been read - " +
+                "do not use FileRegionResource if a stream needs to be read multiple times");
+        }
+        read = true;
+        return stream;
+    }
+
+    /**
+     * Returns the filename of this resource.
+     *
+     * @return A {@code String} containing the filename of this resource.
+     */
+    @Override
+    public String getFilename() {
+        return name;
+    }
+
+    /**
+     * Returns a description of this resource.
+     *
+     * @return A {@code String} containing a description of this resource.
+     */
+    @Override
+    public String getDescription() {
+        return "File region resource [" + name + ", " + stream + "]";
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo.util;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.apache.http.HttpResponse;
+import org.springframework.core.io.AbstractResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * A resource whose content is the serialized status line and headers of an {@code HttpResponse}.
+ *
+ * When the resource is copied with {@link InputStream#transferTo(OutputStream)}, as Spring's resource converter
+ * does, the header is written straight to the output rather than first being rendered into a byte array.
+ */
+public class HttpResponseHeaderResource extends AbstractResource {
+    private final String name;
+    private final HttpResponse response;
+
+    /**
+     * Constructor.
+     *
+     * @param name
+     *          A {@code String} containing the name of this resource.
+     * @param response
+     *          The {@code HttpResponse} whose status and headers are the content of this resource.
+     */
+    public HttpResponseHeaderResource(String name, HttpResponse response) {
+        this.name = name;
+        this.response = response;
+    }
+
+    /**
+     * The length isn't known until the header is written.
+     */
+    @Override
+    public long contentLength() {
+        return -1;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new HeaderInputStream();
+    }
+
+    /**
+     * Returns the filename of this resource.
+     *
+     * @return A {@code String} containing the filename of this resource.
+     */
+    @Override
+    public String getFilename() {
+        return name;
+    }
+
+    /**
+     * Returns a description of this resource.
+     *
+     * @return A {@code String} containing a description of this resource.
+     */
+    @Override
+    public String getDescription() {
+        return "HTTP response header resource [" + name + "]";
+    }
+
+    /**
+     * Writes the header directly in {@link #transferTo(OutputStream)}; the other read methods render it into
+     * a byte array on first use.
+     */
+    private class HeaderInputStream extends InputStream {
+        private InputStream rendered;
+
+        private InputStream rendered() throws IOException {
+            if (rendered == null) {
+                rendered = new ByteArrayInputStream(ArtifactDataUtil.getHttpResponseHeader(response));
+            }
+            return rendered;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return rendered().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return rendered().read(b, off, len);
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            if (rendered != null) {
+                return rendered.transferTo(out);
+            }
+            rendered = InputStream.nullInputStream();
+            CountingOutputStream cos = new CountingOutputStream(out);
+            ArtifactDataUtil.writeHttpResponseHeader(response, cos);
+            return cos.getByteCount();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+
+Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.util.rest.repo.util;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactPageInfo;
+import org.lockss.util.rest.repo.model.AuidPageInfo;
+import org.lockss.util.rest.repo.model.PageInfo;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes pages of artifacts or AUIDs from the repository service
+ * directly from the response stream.  The page items
+ * are read one at a time into the result list, so the response body never
+ * exists in memory as a String.  The readers are pre-configured and
+ * shared, as they're immutable and thread-safe.
+ */
+public class JsonPageReader {
+
+  private static final ObjectMapper mapper = new ObjectMapper()
+      .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+  private static final ObjectReader artifactReader =
+      mapper.readerFor(Artifact.class);
+  private static final ObjectReader stringReader =
+      mapper.readerFor(String.class);
+  private static final ObjectReader pageInfoReader =
+      mapper.readerFor(PageInfo.class);
+
+  /**
+   * Read an {@link ArtifactPageInfo} from a stream, which is closed.  A
+   * null stream (a response with no body) is an empty page.
+   */
+  public static ArtifactPageInfo readArtifactPage(InputStream in)
+      throws IOException {
+    List<Artifact> artifacts = new ArrayList<>();
+    PageInfo pageInfo = readPage(in, "artifacts", artifactReader, artifacts);
+    return new ArtifactPageInfo().artifacts(artifacts).pageInfo(pageInfo);
+  }
+
+  /**
+   * Read an {@link AuidPageInfo} from a stream, which is closed.  A null
+   * stream (a response with no body) is an empty page.
+   */
+  public static AuidPageInfo readAuidPage(InputStream in)
+      throws IOException {
+    List<String> auids = new ArrayList<>();
+    PageInfo pageInfo = readPage(in, "auids", stringReader, auids);
+    return new AuidPageInfo().auids(auids).pageInfo(pageInfo);
+  }
+
+  /**
+   * Parse a page object, adding the elements of the array named
+   * itemsField to items, and return its pageInfo.  Other fields are
+   * skipped.
+   */
+  private static <T> PageInfo readPage(InputStream in, String itemsField,
+                                       ObjectReader itemReader, List<T> items)
+      throws IOException {
+    PageInfo pageInfo = null;
+    if (in == null) {
+      return pageInfo;
+    }
+    try (JsonParser parser = mapper.getFactory().createParser(in)) {
+      expect(parser, parser.nextToken(), JsonToken.START_OBJECT);
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        JsonToken tok = parser.nextToken();
+        if (tok == JsonToken.VALUE_NULL) {
+          continue;
+        }
+        if (itemsField.equals(field)) {
+          expect(parser, tok, JsonToken.START_ARRAY);
+          for (JsonToken itemTok = parser.nextToken();
+               itemTok != JsonToken.END_ARRAY;
+               itemTok = parser.nextToken()) {
+            if (itemTok == null) {
+              throw new JsonParseException(parser, "Truncated " + itemsField);
+            }
+            items.add(itemReader.readValue(parser));
+          }
+        } else if ("pageInfo".equals(field)) {
+          pageInfo = pageInfoReader.readValue(parser);
+        } else {
+          parser.skipChildren();
+        }
+      }
+      expect(parser, parser.currentToken(), JsonToken.END_OBJECT);
+    }
+    return pageInfo;
+  }
+
+  private static void expect(JsonParser parser, JsonToken actual,
+                             JsonToken expected)
+      throws JsonParseException {
+    if (actual != expected) {
+      throw new JsonParseException(parser,
+                                    "Expected " + expected + " but found " +
+                                    actual);
+    }
+  }
+}
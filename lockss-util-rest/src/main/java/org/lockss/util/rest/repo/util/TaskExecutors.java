@@ -0,0 +1,73 @@
+/*
+
+Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.util.rest.repo.util;
+
+import org.lockss.log.L4JLogger;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Creates executors for tasks that spend most of their time blocked on
+ * REST calls.
+ */
+public class TaskExecutors {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  private TaskExecutors() {
+  }
+
+  /**
+   * Return an executor that runs each task in a virtual thread if the JVM
+   * supports them, else a fixed pool of daemon threads.
+   *
+   * @param nThreads   the number of threads in the fallback pool
+   * @param threadName the name of the fallback pool's threads
+   * @return the ExecutorService
+   */
+  public static ExecutorService newBlockingTaskExecutor(int nThreads,
+                                                        String threadName) {
+    try {
+      Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) m.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      log.debug2("Virtual threads not available, using thread pool");
+      return Executors.newFixedThreadPool(nThreads, r -> {
+        Thread th = new Thread(r, threadName);
+        th.setDaemon(true);
+        return th;
+      });
+    }
+  }
+}
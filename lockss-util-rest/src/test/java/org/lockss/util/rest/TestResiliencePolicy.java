@@ -0,0 +1,385 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.*;
+import org.lockss.util.rest.exception.*;
+import org.lockss.util.test.LockssTestCase5;
+import org.lockss.util.time.Deadline;
+import org.lockss.util.time.TimeBase;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Test class for org.lockss.util.rest.ResiliencePolicy and CircuitBreaker.
+ */
+public class TestResiliencePolicy extends LockssTestCase5 {
+
+  static final URI URI1 = URI.create("http://host1:1234/foo");
+  static final URI URI2 = URI.create("http://host2:1234/foo");
+
+  @After
+  public void tearDown() {
+    TimeBase.setReal();
+  }
+
+  LockssRestNetworkException connectFailure() {
+    return new LockssRestNetworkException("conn",
+                                          new ConnectException("refused"));
+  }
+
+  LockssRestNetworkException readTimeout() {
+    return new LockssRestNetworkException("read",
+                                          new SocketTimeoutException("slow"));
+  }
+
+  LockssRestHttpException httpError(HttpStatus status) {
+    LockssRestHttpException e = new LockssRestHttpException("http");
+    e.setHttpStatus(status);
+    return e;
+  }
+
+  // Returns a call that throws the given exceptions in turn, then returns
+  // "ok"
+  RestUtil.RestCall<String> failing(AtomicInteger count,
+                                    LockssRestException... excs) {
+    return () -> {
+      int n = count.getAndIncrement();
+      if (n < excs.length) {
+        throw excs[n];
+      }
+      return "ok";
+    };
+  }
+
+  @Test
+  public void testBackoff() {
+    ResiliencePolicy.Backoff fixed =
+      ResiliencePolicy.Backoff.fixed(new long[] {10, 20});
+    assertEquals(10, fixed.getDelay(0));
+    assertEquals(20, fixed.getDelay(1));
+    assertTrue(fixed.getDelay(2) < 0);
+
+    ResiliencePolicy.Backoff exp =
+      ResiliencePolicy.Backoff.exponential(100, 2.0, 300, 4);
+    for (int rep = 0; rep < 100; rep++) {
+      assertTrue(exp.getDelay(0) <= 100);
+      assertTrue(exp.getDelay(1) <= 200);
+      assertTrue(exp.getDelay(2) <= 300);
+      assertTrue(exp.getDelay(3) <= 300);
+      assertTrue(exp.getDelay(3) >= 0);
+    }
+    assertTrue(exp.getDelay(4) < 0);
+  }
+
+  @Test
+  public void testIsRetryable() {
+    assertTrue(ResiliencePolicy.isRetryable(HttpMethod.POST, connectFailure()));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.POST, readTimeout()));
+    assertTrue(ResiliencePolicy.isRetryable(HttpMethod.GET, readTimeout()));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.PUT,
+                                             httpError(HttpStatus.SERVICE_UNAVAILABLE)));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.DELETE, readTimeout()));
+    assertTrue(ResiliencePolicy.isRetryable(HttpMethod.PUT, connectFailure()));
+    assertTrue(ResiliencePolicy.isRetryable(HttpMethod.HEAD, readTimeout()));
+    assertTrue(ResiliencePolicy.isRetryableIdempotent(HttpMethod.PUT,
+                                                      httpError(HttpStatus.SERVICE_UNAVAILABLE)));
+    assertTrue(ResiliencePolicy.isRetryableIdempotent(HttpMethod.DELETE,
+                                                      readTimeout()));
+    assertFalse(ResiliencePolicy.isRetryableIdempotent(HttpMethod.POST,
+                                                       readTimeout()));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.POST,
+                                             httpError(HttpStatus.SERVICE_UNAVAILABLE)));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.GET,
+                                             httpError(HttpStatus.NOT_FOUND)));
+    assertFalse(ResiliencePolicy.isRetryable(HttpMethod.GET,
+                                             new LockssRestCircuitOpenException("open")));
+  }
+
+  @Test
+  public void testRetries() throws Exception {
+    ResiliencePolicy policy = new ResiliencePolicy()
+      .setBackoff(ResiliencePolicy.Backoff.fixed(new long[] {1, 1}));
+    AtomicInteger count = new AtomicInteger();
+    assertEquals("ok",
+                 policy.execute(URI1, HttpMethod.GET, "op", false,
+                                failing(count, readTimeout(),
+                                        httpError(HttpStatus.BAD_GATEWAY))));
+    assertEquals(3, count.get());
+    assertEquals(2, policy.getRetries());
+
+    // Non-idempotent request isn't retried after a read timeout
+    count.set(0);
+    LockssRestNetworkException e = readTimeout();
+    assertSame(e, assertThrows(LockssRestNetworkException.class,
+                               () -> policy.execute(URI1, HttpMethod.POST, "op", false,
+                                                    failing(count, e))));
+    assertEquals(1, count.get());
+
+    // Retries exhausted
+    count.set(0);
+    assertThrows(LockssRestNetworkException.class,
+                 () -> policy.execute(URI1, HttpMethod.GET, "op", false,
+                                      failing(count, readTimeout(),
+                                              readTimeout(), readTimeout())));
+    assertEquals(3, count.get());
+  }
+
+  @Test
+  public void testFixedBackoffs() throws Exception {
+    ResiliencePolicy policy =
+      ResiliencePolicy.fixedBackoffs(new long[] {1});
+    assertNull(policy.getCircuitBreaker(URI1));
+    AtomicInteger count = new AtomicInteger();
+    assertEquals("ok", policy.execute(URI1, HttpMethod.GET, "op", false,
+                                      failing(count, connectFailure())));
+    assertEquals(2, count.get());
+    // Legacy behavior retries only connection failures
+    count.set(0);
+    assertThrows(LockssRestNetworkException.class,
+                 () -> policy.execute(URI1, HttpMethod.GET, "op", false,
+                                      failing(count, readTimeout())));
+    assertEquals(1, count.get());
+  }
+
+  @Test
+  public void testCircuitBreaker() throws Exception {
+    TimeBase.setSimulated(1000);
+    CircuitBreaker cb = new CircuitBreaker("svc", 2, 100);
+    assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+    assertTrue(cb.tryAcquire());
+    cb.onFailure();
+    assertTrue(cb.tryAcquire());
+    cb.onSuccess();
+    assertEquals(0, cb.getConsecutiveFailures());
+    cb.onFailure();
+    cb.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+    assertFalse(cb.tryAcquire());
+    assertEquals(1, cb.getRejected());
+    TimeBase.step(100);
+    // One trial allowed
+    assertTrue(cb.tryAcquire());
+    assertEquals(CircuitBreaker.State.HALF_OPEN, cb.getState());
+    assertFalse(cb.tryAcquire());
+    // Trial failure reopens
+    cb.onFailure();
+    assertEquals(CircuitBreaker.State.OPEN, cb.getState());
+    assertEquals(2, cb.getTimesOpened());
+    assertFalse(cb.tryAcquire());
+    TimeBase.step(100);
+    assertTrue(cb.tryAcquire());
+    cb.onSuccess();
+    assertEquals(CircuitBreaker.State.CLOSED, cb.getState());
+    assertTrue(cb.tryAcquire());
+  }
+
+  @Test
+  public void testCircuitBreakerPolicy() throws Exception {
+    TimeBase.setSimulated(1000);
+    ResiliencePolicy policy = new ResiliencePolicy()
+      .setBackoff(ResiliencePolicy.Backoff.fixed(new long[0]))
+      .setCircuitBreaker(3, 1000);
+    AtomicInteger count = new AtomicInteger();
+    RestUtil.RestCall<String> down = failing(count, readTimeout(),
+                                             readTimeout(), readTimeout(),
+                                             readTimeout());
+    for (int ix = 0; ix < 3; ix++) {
+      assertThrows(LockssRestNetworkException.class,
+                   () -> policy.execute(URI1, HttpMethod.GET, "op", false, down));
+    }
+    assertEquals(3, count.get());
+    assertThrows(LockssRestCircuitOpenException.class,
+                 () -> policy.execute(URI1, HttpMethod.GET, "op", false, down));
+    assertEquals(3, count.get());
+    // Other services unaffected
+    assertEquals("ok", policy.execute(URI2, HttpMethod.GET, "op", false,
+                                      () -> "ok"));
+    // 4xx errors mean the service is up
+    assertEquals(CircuitBreaker.State.CLOSED,
+                 policy.getCircuitBreaker(URI2).getState());
+    AtomicInteger count2 = new AtomicInteger();
+    for (int ix = 0; ix < 5; ix++) {
+      count2.set(0);
+      assertThrows(LockssRestHttpException.class,
+                   () -> policy.execute(URI2, HttpMethod.GET, "op", false,
+                                        failing(count2,
+                                                httpError(HttpStatus.NOT_FOUND))));
+    }
+    assertEquals(CircuitBreaker.State.CLOSED,
+                 policy.getCircuitBreaker(URI2).getState());
+
+    TimeBase.step(1000);
+    count.set(4);
+    assertEquals("ok", policy.execute(URI1, HttpMethod.GET, "op", false, down));
+    assertEquals(CircuitBreaker.State.CLOSED,
+                 policy.getCircuitBreaker(URI1).getState());
+  }
+
+  @Test
+  public void testDeadline() throws Exception {
+    ResiliencePolicy policy = new ResiliencePolicy()
+      .setBackoff(ResiliencePolicy.Backoff.fixed(new long[] {5000}));
+    assertNull(ResiliencePolicy.getDeadline());
+    Deadline d1 = Deadline.in(1000);
+    try (ResiliencePolicy.DeadlineScope s1 = ResiliencePolicy.withDeadline(d1)) {
+      assertSame(d1, ResiliencePolicy.getDeadline());
+      // Later deadline doesn't extend the earlier one
+      try (ResiliencePolicy.DeadlineScope s2 =
+           ResiliencePolicy.withDeadline(Deadline.in(10000))) {
+        assertSame(d1, ResiliencePolicy.getDeadline());
+      }
+      assertSame(d1, ResiliencePolicy.getDeadline());
+
+      // Backoff would exceed deadline; no retry
+      AtomicInteger count = new AtomicInteger();
+      assertThrows(LockssRestNetworkException.class,
+                   () -> policy.execute(URI1, HttpMethod.GET, "op", false,
+                                        failing(count, readTimeout())));
+      assertEquals(1, count.get());
+    }
+    assertNull(ResiliencePolicy.getDeadline());
+
+    try (ResiliencePolicy.DeadlineScope s =
+         ResiliencePolicy.withDeadline(Deadline.in(0))) {
+      AtomicInteger count = new AtomicInteger();
+      assertThrows(LockssRestNetworkException.class,
+                   () -> policy.execute(URI1, HttpMethod.GET, "op", false,
+                                        failing(count)));
+      assertEquals(0, count.get());
+    }
+  }
+
+  @Test
+  public void testHedging() throws Exception {
+    ResiliencePolicy policy = new ResiliencePolicy()
+      .setBackoff(ResiliencePolicy.Backoff.fixed(new long[0]))
+      .setHedging(0.95, 10, 10);
+    assertEquals(10, policy.getHedgeDelay(URI1));
+    // First request hangs, hedge request succeeds
+    CountDownLatch hang = new CountDownLatch(1);
+    AtomicInteger count = new AtomicInteger();
+    RestUtil.RestCall<String> call = () -> {
+      if (count.getAndIncrement() == 0) {
+        try {
+          hang.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+          throw new LockssRestNetworkException("interrupted");
+        }
+        return "slow";
+      }
+      return "fast";
+    };
+    try {
+      assertEquals("fast", policy.execute(URI1, HttpMethod.GET, "op", true, call));
+    } finally {
+      hang.countDown();
+    }
+    assertEquals(2, count.get());
+    assertEquals(1, policy.getHedges());
+    assertEquals(1, policy.getHedgeWins());
+
+    // Not hedged if not hedgeable or not a GET
+    count.set(0);
+    CountDownLatch hang2 = new CountDownLatch(1);
+    new Thread(() -> {
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+      }
+      hang2.countDown();
+    }).start();
+    assertEquals("ok", policy.execute(URI1, HttpMethod.POST, "op", true, () -> {
+          count.incrementAndGet();
+          try {
+            hang2.await(10, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+          }
+          return "ok";
+        }));
+    assertEquals(1, count.get());
+    assertEquals(1, policy.getHedges());
+  }
+
+  @Test
+  public void testHedgingDeadline() throws Exception {
+    ResiliencePolicy policy = new ResiliencePolicy()
+      .setBackoff(ResiliencePolicy.Backoff.fixed(new long[0]))
+      .setHedging(0.95, 10, 10);
+    // Both requests hang; the wait for them ends at the deadline
+    CountDownLatch hang = new CountDownLatch(1);
+    AtomicInteger count = new AtomicInteger();
+    RestUtil.RestCall<String> call = () -> {
+      count.incrementAndGet();
+      try {
+        hang.await(10, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        throw new LockssRestNetworkException("interrupted");
+      }
+      return "slow";
+    };
+    long start = System.currentTimeMillis();
+    try (ResiliencePolicy.DeadlineScope s =
+         ResiliencePolicy.withDeadline(Deadline.in(200))) {
+      LockssRestNetworkException e =
+        assertThrows(LockssRestNetworkException.class,
+                     () -> policy.execute(URI1, HttpMethod.GET, "op", true, call));
+      assertMatchesRE("Deadline expired", e.getMessage());
+    } finally {
+      hang.countDown();
+    }
+    assertTrue(System.currentTimeMillis() - start < 5000);
+    assertEquals(2, count.get());
+  }
+
+  @Test
+  public void testLatencyTracker() {
+    ResiliencePolicy.LatencyTracker tracker =
+      new ResiliencePolicy.LatencyTracker(100);
+    for (int ix = 1; ix < ResiliencePolicy.MIN_LATENCY_SAMPLES; ix++) {
+      tracker.record(ix);
+    }
+    assertEquals(-1, tracker.percentile(0.95));
+    for (int ix = ResiliencePolicy.MIN_LATENCY_SAMPLES; ix <= 100; ix++) {
+      tracker.record(ix);
+    }
+    assertEquals(95, tracker.percentile(0.95));
+    assertEquals(50, tracker.percentile(0.50));
+    // Ring wraps; oldest samples replaced
+    for (int ix = 0; ix < 100; ix++) {
+      tracker.record(1000);
+    }
+    assertEquals(1000, tracker.percentile(0.50));
+  }
+}
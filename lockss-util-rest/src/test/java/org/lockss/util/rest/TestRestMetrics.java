@@ -0,0 +1,136 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import org.junit.*;
+import org.lockss.util.rest.exception.*;
+import org.lockss.util.test.LockssTestCase5;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+/**
+ * Test class for org.lockss.util.rest.RestMetrics.
+ */
+public class TestRestMetrics extends LockssTestCase5 {
+
+  static final long US = 1000;
+
+  @Test
+  public void testBuckets() {
+    for (long v : new long[] {0, 1, 15, 16, 17, 31, 32, 100, 1000, 12345,
+                              1L << 40, Long.MAX_VALUE}) {
+      int ix = RestMetrics.Histogram.bucketIndex(v);
+      assertTrue(ix < RestMetrics.Histogram.NBUCKETS);
+      assertTrue(RestMetrics.Histogram.bucketMax(ix) >= v);
+      if (ix > 0) {
+        assertTrue(RestMetrics.Histogram.bucketMax(ix - 1) < v);
+      }
+    }
+    // Relative error within a bucket is < 1/16
+    int ix = RestMetrics.Histogram.bucketIndex(1000000);
+    assertTrue(RestMetrics.Histogram.bucketMax(ix) - 1000000 < 1000000 / 16);
+  }
+
+  @Test
+  public void testRecord() {
+    RestMetrics metrics = new RestMetrics();
+    assertNull(metrics.snapshot("op1"));
+    for (int ix = 1; ix <= 1000; ix++) {
+      metrics.recordCall("op1", ix * US, 10, 100, 200, false);
+    }
+    LockssRestHttpException e = new LockssRestHttpException("op1");
+    e.setHttpStatus(HttpStatus.NOT_FOUND);
+    metrics.recordFailure("op1", 5 * US, 10, e);
+    metrics.recordFailure("op1", 5 * US, -1,
+                          new LockssRestNetworkException("op1"));
+    metrics.recordRetry("op1");
+    metrics.recordCall("op2", 7 * US, -1, -1, 200, false);
+
+    RestMetrics.OpStats stats = metrics.snapshot("op1");
+    assertEquals("op1", stats.getName());
+    assertEquals(1002, stats.getCalls());
+    assertEquals(2, stats.getErrors());
+    assertEquals(1, stats.getRetries());
+    assertEquals(100000, stats.getBytesIn());
+    assertEquals(10010, stats.getBytesOut());
+    Map<Integer,Long> exp = new HashMap<>();
+    exp.put(404, 1L);
+    exp.put(RestMetrics.NO_RESPONSE, 1L);
+    assertEquals(exp, stats.getErrorsByStatus());
+    assertEquals(1000, stats.getMaxLatency());
+    assertApprox(500, stats.getP50());
+    assertApprox(990, stats.getP99());
+    assertApprox(999, stats.getP999());
+
+    SortedMap<String,RestMetrics.OpStats> all = metrics.snapshot();
+    assertEquals(Arrays.asList("op1", "op2"), new ArrayList<>(all.keySet()));
+    assertEquals(7, all.get("op2").getP50());
+    metrics.reset();
+    assertTrue(metrics.snapshot().isEmpty());
+  }
+
+  void assertApprox(long exp, long actual) {
+    assertTrue(actual >= exp && actual <= exp + exp / 16,
+               "Expected ~" + exp + " but was " + actual);
+  }
+
+  @Test
+  public void testBodyLength() {
+    HttpHeaders headers = new HttpHeaders();
+    assertEquals(-1, RestUtil.requestBodyLength(null));
+    assertEquals(3, RestUtil.requestBodyLength(new HttpEntity<>(new byte[3])));
+    assertEquals(-1, RestUtil.requestBodyLength(new HttpEntity<>(headers)));
+    headers.setContentLength(42);
+    assertEquals(42, RestUtil.requestBodyLength(new HttpEntity<>("foo", headers)));
+    assertEquals(42, RestUtil.responseBodyLength(headers, null));
+    assertEquals(3, RestUtil.responseBodyLength(new HttpHeaders(), "foo"));
+
+    // Strings are counted in bytes of the Content-Type charset, default
+    // UTF-8
+    String str = "{\"n\":\"caf\u00e9 \u20ac \ud83d\ude00\"}";
+    assertEquals(str.getBytes(StandardCharsets.UTF_8).length,
+                 RestUtil.responseBodyLength(new HttpHeaders(), str));
+    HttpHeaders latin1 = new HttpHeaders();
+    latin1.setContentType(new MediaType("text", "plain",
+                                        StandardCharsets.ISO_8859_1));
+    assertEquals(5, RestUtil.requestBodyLength(new HttpEntity<>("caf\u00e9!", latin1)));
+    HttpHeaders utf16 = new HttpHeaders();
+    utf16.setContentType(new MediaType("text", "plain",
+                                       StandardCharsets.UTF_16BE));
+    assertEquals(8, RestUtil.responseBodyLength(utf16, "caf\u00e9"));
+    for (String s : new String[] {"", "abc", "\u00e9\u0800\uffff",
+                                  "\ud83d\ude00x", "x\ud83d", "\ude00y"}) {
+      assertEquals(s.getBytes(StandardCharsets.UTF_8).length,
+                   RestUtil.encodedLength(s, StandardCharsets.UTF_8), s);
+    }
+  }
+}
@@ -0,0 +1,156 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest;
+
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+import org.junit.*;
+import org.mockserver.junit.*;
+import org.mockserver.client.*;
+import static org.mockserver.model.HttpRequest.*;
+import static org.mockserver.model.HttpResponse.*;
+import org.mockserver.model.Header;
+import org.apache.hc.core5.pool.PoolStats;
+import org.springframework.http.*;
+import org.springframework.web.client.RestTemplate;
+
+import org.lockss.log.*;
+import org.lockss.util.rest.exception.LockssRestNetworkException;
+import org.lockss.util.time.Deadline;
+import org.lockss.util.test.*;
+
+/**
+ * Test class for org.lockss.util.rest.RestTransport.
+ */
+public class TestRestTransport extends LockssTestCase5 {
+  private static L4JLogger log = L4JLogger.getLogger();
+
+  // injected by the MockServerRule
+  private MockServerClient msClient;
+
+  int port;
+
+  @Rule
+  public MockServerRule msRule = new MockServerRule(this);
+
+  @Before
+  public void getPort() {
+    port = msRule.getPort();
+  }
+
+  @Test
+  public void testConfig() {
+    RestTransport.Config conf = new RestTransport.Config();
+    assertEquals(RestTransport.DEFAULT_MAX_TOTAL, conf.getMaxTotal());
+    assertEquals(RestTransport.DEFAULT_MAX_PER_ROUTE, conf.getMaxPerRoute());
+    assertTrue(conf.isTcpNoDelay());
+    assertEquals(RestTransport.DEFAULT_CONNECT_TIMEOUT, conf.getConnectTimeout());
+    conf.setMaxTotal(10).setMaxPerRoute(3).setConnectTimeout(5000);
+    assertEquals(10, conf.getMaxTotal());
+    assertEquals(3, conf.getMaxPerRoute());
+    assertEquals(5000, conf.getConnectTimeout());
+    assertThrows(IllegalArgumentException.class, () -> conf.setMaxTotal(0));
+    assertThrows(IllegalArgumentException.class, () -> conf.setMaxPerRoute(0));
+  }
+
+  @Test
+  public void testConnectionReuse() throws Exception {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath("/foo"))
+      .respond(response()
+	       .withStatusCode(200)
+	       .withHeaders(new Header("Content-Type", "text/plain"))
+	       .withBody("body"));
+
+    RestTransport transport =
+      new RestTransport(new RestTransport.Config().setMaxPerRoute(2));
+    try {
+      RestTemplate template = new RestTemplate(transport.getRequestFactory(5000, 5000));
+      URI uri = URI.create("http://localhost:" + port + "/foo");
+
+      for (int ix = 0; ix < 5; ix++) {
+	ResponseEntity<String> resp =
+	  RestUtil.callRestService(template, uri, HttpMethod.GET, null,
+				   String.class, "bar");
+	assertEquals("body", resp.getBody());
+      }
+      PoolStats stats = transport.getPoolStats();
+      log.debug("stats: {}", stats);
+      assertEquals(0, stats.getLeased());
+      assertEquals(0, stats.getPending());
+      // Sequential requests should have reused a single connection
+      assertEquals(1, stats.getAvailable());
+      assertEquals(1, transport.getRoutePoolStats().size());
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Test
+  public void testDeadlineAbortsExchange() throws Exception {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath("/slow"))
+      .respond(response()
+	       .withStatusCode(200)
+	       .withBody("body")
+	       .withDelay(TimeUnit.SECONDS, 10));
+
+    RestTransport transport = new RestTransport();
+    try {
+      RestTemplate template =
+	new RestTemplate(transport.getRequestFactory(5000, 30000));
+      URI uri = URI.create("http://localhost:" + port + "/slow");
+      long start = System.currentTimeMillis();
+      try (ResiliencePolicy.DeadlineScope s =
+	   ResiliencePolicy.withDeadline(Deadline.in(300))) {
+	LockssRestNetworkException e =
+	  assertThrows(LockssRestNetworkException.class,
+		       () -> RestUtil.callRestService(template, uri,
+						      HttpMethod.GET, null,
+						      String.class, "slow"));
+	assertMatchesRE("Deadline expired", e.getMessage());
+      }
+      // Aborted at the deadline, not after the response delay
+      assertTrue(System.currentTimeMillis() - start < 5000);
+      assertEquals(0, transport.getLeased());
+    } finally {
+      transport.close();
+    }
+  }
+
+  @Test
+  public void testDefault() {
+    RestTransport def = RestTransport.getDefault();
+    assertNotNull(def);
+    assertSame(def, RestTransport.getDefault());
+  }
+}
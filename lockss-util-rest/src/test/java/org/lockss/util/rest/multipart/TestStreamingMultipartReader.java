@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.multipart;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.*;
+import org.lockss.util.test.LockssTestCase5;
+import org.springframework.http.MediaType;
+
+/**
+ * Test class for org.lockss.util.rest.multipart.StreamingMultipartReader.
+ */
+public class TestStreamingMultipartReader extends LockssTestCase5 {
+
+  static final String BOUNDARY = "xyzzy-boundary";
+  static final MediaType CONTENT_TYPE =
+    MediaType.parseMediaType("multipart/form-data; boundary=" + BOUNDARY);
+
+  /** Builds a multipart/form-data body from alternating name, content
+   * pairs */
+  static String makeBody(String... nameContent) {
+    StringBuilder sb = new StringBuilder();
+    for (int ix = 0; ix < nameContent.length; ix += 2) {
+      sb.append("--").append(BOUNDARY).append("\r\n");
+      sb.append("Content-Disposition: form-data; name=\"")
+        .append(nameContent[ix]).append("\"\r\n");
+      sb.append("X-Part-Index: ").append(ix / 2).append("\r\n\r\n");
+      sb.append(nameContent[ix + 1]).append("\r\n");
+    }
+    sb.append("--").append(BOUNDARY).append("--\r\n");
+    return sb.toString();
+  }
+
+  static class TrackingInputStream extends FilterInputStream {
+    boolean isClosed = false;
+
+    TrackingInputStream(String s) {
+      super(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Override
+    public void close() throws IOException {
+      isClosed = true;
+      super.close();
+    }
+  }
+
+  @Test
+  public void testParts() throws Exception {
+    TrackingInputStream body =
+      new TrackingInputStream(makeBody("one", "first part",
+                                       "two", "",
+                                       "three", "third\r\npart"));
+    StreamingMultipartReader reader =
+      new StreamingMultipartReader(CONTENT_TYPE, -1, body);
+
+    StreamingMultipartReader.Part part = reader.nextPart();
+    assertEquals("one", part.getName());
+    assertEquals("0", part.getHeaders().getFirst("X-Part-Index"));
+    assertEquals("first part",
+                 new String(part.getBytes(), StandardCharsets.UTF_8));
+
+    part = reader.nextPart();
+    assertEquals("two", part.getName());
+    assertEquals(0, part.getBytes().length);
+
+    part = reader.nextPart();
+    assertEquals("three", part.getName());
+    assertEquals("2", part.getHeaders().getFirst("X-Part-Index"));
+    assertInputStreamMatchesString("third\r\npart", part.getInputStream());
+
+    assertNull(reader.nextPart());
+    assertFalse(body.isClosed);
+    reader.close();
+    assertTrue(body.isClosed);
+    assertThrows(IllegalStateException.class, () -> reader.nextPart());
+  }
+
+  @Test
+  public void testSkipUnreadPart() throws Exception {
+    StreamingMultipartReader reader =
+      new StreamingMultipartReader(CONTENT_TYPE, -1,
+                                   new TrackingInputStream(makeBody("a", "aaaaaaaa",
+                                                                    "b", "bb")));
+    StreamingMultipartReader.Part part = reader.nextPart();
+    assertEquals("a", part.getName());
+    assertEquals('a', part.getInputStream().read());
+    // Moving on skips the rest of the part
+    part = reader.nextPart();
+    assertEquals("b", part.getName());
+    assertInputStreamMatchesString("bb", part.getInputStream());
+    assertNull(reader.nextPart());
+  }
+
+  @Test
+  public void testNotMultipart() throws Exception {
+    assertThrows(IOException.class,
+                 () -> new StreamingMultipartReader(MediaType.TEXT_PLAIN, -1,
+                                                    new TrackingInputStream("foo")));
+    assertThrows(IOException.class,
+                 () -> new StreamingMultipartReader(null, -1,
+                                                    new TrackingInputStream("foo")));
+  }
+}
@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.lockss.util.rest.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.apache.commons.io.IOUtils;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.RestMetrics;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.LockssRepository.IncludeContent;
+
+import java.io.File;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-test harness for {@link RestLockssRepository}.  Starts a {@link
+ * RepositoryStub} and drives a RestLockssRepository against it from
+ * several threads for a fixed time, then reports throughput, latency
+ * percentiles and the allocation rate of the client threads.
+ * <p>
+ * Each operation looks up an artifact by URL and reads its content, the
+ * access pattern of a poll or a replay; a configurable fraction instead
+ * enumerate all the AU's artifacts.  Artifacts are chosen with a skew (by
+ * default 80% of accesses go to 20% of the artifacts) so that the
+ * artifact cache has something to do.
+ * <p>
+ * Run from the test classpath with {@code name=value} arguments
+ * corresponding to the {@link Config} setters, <i>eg</i>:
+ * <pre>
+ *   java -cp ... org.lockss.util.rest.repo.RepositoryLoadHarness \
+ *     concurrency=16 cache=true multipart=true duration=30000 out=run.json
+ * </pre>
+ * The stub runs in the same JVM, so absolute numbers include its CPU
+ * use; compare runs made on the same machine with the same settings.
+ */
+public class RepositoryLoadHarness {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  public static final String OP_FETCH = "fetch";
+  public static final String OP_ENUMERATE = "enumerate";
+
+  /** Load test parameters */
+  public static class Config {
+    int numArtifacts = 1000;
+    long maxContentSize = 4 * 1024 * 1024;
+    int pageSize = 100;
+    int concurrency = 8;
+    long warmup = 5000;
+    long duration = 20000;
+    boolean cache = false;
+    boolean multipart = false;
+    boolean stream = false;
+    double enumerateFraction = 0.01;
+    double hotFraction = 0.2;
+    double hotProbability = 0.8;
+    long seed = 1;
+
+    public Config setNumArtifacts(int numArtifacts) {
+      this.numArtifacts = numArtifacts;
+      return this;
+    }
+
+    public Config setMaxContentSize(long maxContentSize) {
+      this.maxContentSize = maxContentSize;
+      return this;
+    }
+
+    /** Enumeration page size requested by the client */
+    public Config setPageSize(int pageSize) {
+      this.pageSize = pageSize;
+      return this;
+    }
+
+    public Config setConcurrency(int concurrency) {
+      this.concurrency = concurrency;
+      return this;
+    }
+
+    /** Milliseconds to run before measuring */
+    public Config setWarmup(long warmup) {
+      this.warmup = warmup;
+      return this;
+    }
+
+    /** Milliseconds to measure */
+    public Config setDuration(long duration) {
+      this.duration = duration;
+      return this;
+    }
+
+    /** Enable the client's artifact cache */
+    public Config setCache(boolean cache) {
+      this.cache = cache;
+      return this;
+    }
+
+    /** Use the multipart artifact endpoint rather than the response
+     * endpoint */
+    public Config setMultipart(boolean multipart) {
+      this.multipart = multipart;
+      return this;
+    }
+
+    /** Stream artifact content from the connection rather than buffering
+     * it */
+    public Config setStream(boolean stream) {
+      this.stream = stream;
+      return this;
+    }
+
+    public Config setEnumerateFraction(double enumerateFraction) {
+      this.enumerateFraction = enumerateFraction;
+      return this;
+    }
+
+    /** Fraction of artifacts that receive hotProbability of accesses */
+    public Config setHotFraction(double hotFraction) {
+      this.hotFraction = hotFraction;
+      return this;
+    }
+
+    public Config setHotProbability(double hotProbability) {
+      this.hotProbability = hotProbability;
+      return this;
+    }
+
+    public Config setSeed(long seed) {
+      this.seed = seed;
+      return this;
+    }
+
+    /** Set a parameter from a {@code name=value} string */
+    public Config set(String arg) {
+      int pos = arg.indexOf('=');
+      if (pos < 0) {
+        throw new IllegalArgumentException("Expected name=value: " + arg);
+      }
+      String name = arg.substring(0, pos);
+      String val = arg.substring(pos + 1);
+      switch (name) {
+      case "numArtifacts": return setNumArtifacts(Integer.parseInt(val));
+      case "maxContentSize": return setMaxContentSize(Long.parseLong(val));
+      case "pageSize": return setPageSize(Integer.parseInt(val));
+      case "concurrency": return setConcurrency(Integer.parseInt(val));
+      case "warmup": return setWarmup(Long.parseLong(val));
+      case "duration": return setDuration(Long.parseLong(val));
+      case "cache": return setCache(Boolean.parseBoolean(val));
+      case "multipart": return setMultipart(Boolean.parseBoolean(val));
+      case "stream": return setStream(Boolean.parseBoolean(val));
+      case "enumerateFraction":
+        return setEnumerateFraction(Double.parseDouble(val));
+      case "hotFraction": return setHotFraction(Double.parseDouble(val));
+      case "hotProbability": return setHotProbability(Double.parseDouble(val));
+      case "seed": return setSeed(Long.parseLong(val));
+      default:
+        throw new IllegalArgumentException("Unknown parameter: " + name);
+      }
+    }
+
+    Map<String, Object> toMap() {
+      Map<String, Object> res = new LinkedHashMap<>();
+      res.put("numArtifacts", numArtifacts);
+      res.put("maxContentSize", maxContentSize);
+      res.put("pageSize", pageSize);
+      res.put("concurrency", concurrency);
+      res.put("warmup", warmup);
+      res.put("duration", duration);
+      res.put("cache", cache);
+      res.put("multipart", multipart);
+      res.put("stream", stream);
+      res.put("enumerateFraction", enumerateFraction);
+      res.put("hotFraction", hotFraction);
+      res.put("hotProbability", hotProbability);
+      res.put("seed", seed);
+      return res;
+    }
+  }
+
+  /** Results of a run */
+  public static class Result {
+    final Config config;
+    final long elapsedMs;
+    final long bytesRead;
+    final long allocatedBytes;
+    final SortedMap<String, RestMetrics.OpStats> ops;
+    final SortedMap<String, RestMetrics.OpStats> restCalls;
+
+    Result(Config config, long elapsedMs, long bytesRead, long allocatedBytes,
+           SortedMap<String, RestMetrics.OpStats> ops,
+           SortedMap<String, RestMetrics.OpStats> restCalls) {
+      this.config = config;
+      this.elapsedMs = elapsedMs;
+      this.bytesRead = bytesRead;
+      this.allocatedBytes = allocatedBytes;
+      this.ops = ops;
+      this.restCalls = restCalls;
+    }
+
+    /** Stats of the harness operations ({@link #OP_FETCH}, {@link
+     * #OP_ENUMERATE}) */
+    public SortedMap<String, RestMetrics.OpStats> getOps() {
+      return ops;
+    }
+
+    /** Stats of the individual REST calls, from {@link RestMetrics} */
+    public SortedMap<String, RestMetrics.OpStats> getRestCalls() {
+      return restCalls;
+    }
+
+    public long getTotalOps() {
+      long res = 0;
+      for (RestMetrics.OpStats s : ops.values()) {
+        res += s.getCalls();
+      }
+      return res;
+    }
+
+    public long getTotalErrors() {
+      long res = 0;
+      for (RestMetrics.OpStats s : ops.values()) {
+        res += s.getErrors();
+      }
+      return res;
+    }
+
+    public double getOpsPerSec() {
+      return getTotalOps() * 1000.0 / elapsedMs;
+    }
+
+    /** Content bytes read per second */
+    public double getBytesPerSec() {
+      return bytesRead * 1000.0 / elapsedMs;
+    }
+
+    /** Bytes allocated per second by the client threads */
+    public double getAllocationRate() {
+      return allocatedBytes * 1000.0 / elapsedMs;
+    }
+
+    public double getAllocatedPerOp() {
+      long n = getTotalOps();
+      return n == 0 ? 0 : (double)allocatedBytes / n;
+    }
+
+    public Map<String, Object> toMap() {
+      Map<String, Object> res = new LinkedHashMap<>();
+      res.put("config", config.toMap());
+      res.put("elapsedMs", elapsedMs);
+      res.put("ops", getTotalOps());
+      res.put("errors", getTotalErrors());
+      res.put("opsPerSec", getOpsPerSec());
+      res.put("bytesPerSec", getBytesPerSec());
+      res.put("allocatedBytesPerSec", getAllocationRate());
+      res.put("allocatedBytesPerOp", getAllocatedPerOp());
+      res.put("operations", statsMap(ops));
+      res.put("restCalls", statsMap(restCalls));
+      return res;
+    }
+
+    private static Map<String, Object> statsMap(Map<String, RestMetrics.OpStats> stats) {
+      Map<String, Object> res = new LinkedHashMap<>();
+      for (RestMetrics.OpStats s : stats.values()) {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("calls", s.getCalls());
+        m.put("errors", s.getErrors());
+        m.put("errorsByStatus", s.getErrorsByStatus());
+        m.put("retries", s.getRetries());
+        m.put("bytesIn", s.getBytesIn());
+        m.put("meanUs", s.getMeanLatency());
+        m.put("p50Us", s.getP50());
+        m.put("p99Us", s.getP99());
+        m.put("p999Us", s.getP999());
+        m.put("maxUs", s.getMaxLatency());
+        res.put(s.getName(), m);
+      }
+      return res;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format("%d ops in %d ms: %.1f ops/s, %.2f MB/s read, "
+                              + "%.2f MB/s allocated (%.0f bytes/op), %d errors%n",
+                              getTotalOps(), elapsedMs, getOpsPerSec(),
+                              getBytesPerSec() / 1e6,
+                              getAllocationRate() / 1e6,
+                              getAllocatedPerOp(), getTotalErrors()));
+      for (RestMetrics.OpStats s : ops.values()) {
+        sb.append("  ").append(s).append(System.lineSeparator());
+      }
+      sb.append("REST calls:").append(System.lineSeparator());
+      for (RestMetrics.OpStats s : restCalls.values()) {
+        sb.append("  ").append(s).append(System.lineSeparator());
+      }
+      return sb.toString();
+    }
+  }
+
+  private final Config config;
+
+  public RepositoryLoadHarness(Config config) {
+    this.config = config;
+  }
+
+  /** Start a stub, run the load test against it and return the results */
+  public Result run() throws Exception {
+    try (RepositoryStub stub =
+         new RepositoryStub(config.numArtifacts, config.maxContentSize,
+                            config.pageSize, config.seed).start()) {
+      return run(stub);
+    }
+  }
+
+  Result run(RepositoryStub stub) throws Exception {
+    RestLockssRepository repo =
+      new RestLockssRepository(new URL(stub.getUrl()), null, null);
+    repo.setUseMultipartEndpoint(config.multipart);
+    repo.setStreamArtifactData(config.stream);
+    repo.setIteratorPageSize(config.pageSize);
+    if (config.cache) {
+      // Enable the cache directly; invalidation messages are irrelevant
+      // to a read-only workload
+      repo.getArtifactCache().enable(true);
+    }
+
+    List<Artifact> arts = stub.getArtifacts();
+    RestMetrics opMetrics = new RestMetrics();
+    LongAdder bytesRead = new LongAdder();
+    LongAdder allocated = new LongAdder();
+
+    long start = System.currentTimeMillis();
+    long measureStart = start + config.warmup;
+    long end = measureStart + config.duration;
+    CountDownLatch measuring = new CountDownLatch(config.concurrency);
+
+    ExecutorService exec = Executors.newFixedThreadPool(config.concurrency);
+    List<Future<?>> futs = new ArrayList<>();
+    for (int t = 0; t < config.concurrency; t++) {
+      long seed = config.seed * 31 + t;
+      futs.add(exec.submit(() -> {
+        Random rnd = new Random(seed);
+        boolean measure = false;
+        long allocStart = 0;
+        long now;
+        while ((now = System.currentTimeMillis()) < end) {
+          if (!measure && now >= measureStart) {
+            measure = true;
+            measuring.countDown();
+            allocStart = threadAllocatedBytes();
+          }
+          String op;
+          long opStart = System.nanoTime();
+          long nBytes = 0;
+          boolean error = false;
+          if (rnd.nextDouble() < config.enumerateFraction) {
+            op = OP_ENUMERATE;
+            try {
+              Iterator<Artifact> iter =
+                repo.getArtifacts(RepositoryStub.NAMESPACE,
+                                  RepositoryStub.AUID).iterator();
+              while (iter.hasNext()) {
+                iter.next();
+              }
+            } catch (Exception e) {
+              log.warn("enumerate failed", e);
+              error = true;
+            }
+          } else {
+            op = OP_FETCH;
+            Artifact target = arts.get(pick(rnd, arts.size()));
+            try {
+              nBytes = fetch(repo, target);
+            } catch (Exception e) {
+              log.warn("fetch failed: {}", target.getUri(), e);
+              error = true;
+            }
+          }
+          if (measure) {
+            opMetrics.recordCall(op, System.nanoTime() - opStart,
+                                 -1, nBytes, error ? 0 : 200, error);
+            bytesRead.add(nBytes);
+          }
+        }
+        if (!measure) {
+          measuring.countDown();
+        } else {
+          allocated.add(threadAllocatedBytes() - allocStart);
+        }
+        return null;
+      }));
+    }
+    // Discard REST metrics recorded during warmup
+    measuring.await();
+    RestMetrics.getInstance().reset();
+    for (Future<?> fut : futs) {
+      fut.get();
+    }
+    exec.shutdown();
+    long elapsed = Math.max(1, System.currentTimeMillis() - measureStart);
+    return new Result(config, elapsed, bytesRead.sum(), allocated.sum(),
+                      opMetrics.snapshot(),
+                      RestMetrics.getInstance().snapshot());
+  }
+
+  // Look up the artifact by URL, then read all its content
+  private long fetch(RestLockssRepository repo, Artifact target)
+      throws Exception {
+    Artifact art = repo.getArtifact(RepositoryStub.NAMESPACE,
+                                    RepositoryStub.AUID, target.getUri());
+    if (art == null) {
+      throw new IllegalStateException("Not found: " + target.getUri());
+    }
+    ArtifactData ad = repo.getArtifactData(art, IncludeContent.ALWAYS);
+    try (InputStream in = ad.getInputStream()) {
+      return IOUtils.copyLarge(in, OutputStream.nullOutputStream());
+    } finally {
+      ad.release();
+    }
+  }
+
+  // Choose an artifact index, biased towards the hot set at the start of
+  // the list
+  private int pick(Random rnd, int n) {
+    int hot = Math.max(1, (int)(n * config.hotFraction));
+    if (hot >= n || rnd.nextDouble() < config.hotProbability) {
+      return rnd.nextInt(hot);
+    }
+    return hot + rnd.nextInt(n - hot);
+  }
+
+  private static long threadAllocatedBytes() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean)bean)
+        .getCurrentThreadAllocatedBytes();
+    }
+    return 0;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Config config = new Config();
+    String out = null;
+    for (String arg : args) {
+      if (arg.startsWith("out=")) {
+        out = arg.substring(4);
+      } else {
+        config.set(arg);
+      }
+    }
+    Result res = new RepositoryLoadHarness(config).run();
+    System.out.println(res);
+    if (out != null) {
+      new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+        .writeValue(new File(out), res.toMap());
+    }
+    System.exit(0);
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.lockss.util.rest.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.lockss.log.L4JLogger;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactPageInfo;
+import org.lockss.util.rest.repo.model.PageInfo;
+import org.lockss.util.rest.repo.util.ArtifactConstants;
+import org.mockserver.configuration.ConfigurationProperties;
+import org.mockserver.integration.ClientAndServer;
+import org.mockserver.model.HttpRequest;
+import org.mockserver.model.HttpResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * A local stub of the parts of the LOCKSS Repository REST API used to
+ * read artifacts: artifact enumeration and lookup
+ * ({@code /aus/{auid}/artifacts}), artifact data via the HTTP response
+ * endpoint ({@code /artifacts/{uuid}/response}) and via the multipart
+ * endpoint ({@code /artifacts/{uuid}}).  It serves a single AU whose
+ * artifacts have content sizes drawn from a distribution resembling a
+ * journal crawl: mostly small HTML, CSS and images, some larger images,
+ * a few multi-megabyte PDFs.
+ * <p>
+ * Responses are generated by in-process mockserver callbacks, so only a
+ * handful of expectations are registered regardless of the number of
+ * artifacts.
+ */
+public class RepositoryStub implements AutoCloseable {
+  private final static L4JLogger log = L4JLogger.getLogger();
+
+  public static final String NAMESPACE = "ns1";
+  public static final String AUID = "org|lockss|plugin|BenchPlugin&base_url~bench";
+
+  static final String BOUNDARY = "stub-boundary-7c1e9a";
+
+  // Content size classes: {percent of artifacts, min size, max size}
+  static final long[][] SIZE_CLASSES = {
+    {30, 1024, 10 * 1024},
+    {50, 5 * 1024, 40 * 1024},
+    {15, 50 * 1024, 500 * 1024},
+    {5, 1024 * 1024, 4 * 1024 * 1024},
+  };
+
+  static final Pattern RESPONSE_PATH =
+    Pattern.compile("/artifacts/([^/]+)/response");
+  static final Pattern ARTIFACT_PATH = Pattern.compile("/artifacts/([^/]+)");
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final List<Artifact> artifacts = new ArrayList<>();
+  private final Map<String, Artifact> byUuid = new HashMap<>();
+  private final Map<String, Artifact> byUrl = new HashMap<>();
+  private final byte[] content;
+  private final int defaultPageSize;
+  private ClientAndServer server;
+
+  /**
+   * @param numArtifacts    number of artifacts in the AU
+   * @param maxContentSize  cap on content size, to keep quick runs quick
+   * @param defaultPageSize artifacts per enumeration page if the client
+   *                        doesn't specify a limit
+   * @param seed            random seed for sizes
+   */
+  public RepositoryStub(int numArtifacts, long maxContentSize,
+                        int defaultPageSize, long seed) {
+    this.defaultPageSize = defaultPageSize;
+    Random rnd = new Random(seed);
+    long max = 0;
+    for (int ix = 0; ix < numArtifacts; ix++) {
+      long size = Math.min(randomSize(rnd), maxContentSize);
+      max = Math.max(max, size);
+      String uuid = String.format("art-%06d", ix);
+      String url = String.format("https://www.example.com/content/%d/%d.html",
+                                 ix / 100, ix);
+      Artifact art = new Artifact(uuid, NAMESPACE, AUID, url, 1, true,
+                                  null, size, "SHA-256:" + uuid);
+      art.setCollectionDate(1700000000000L + ix);
+      artifacts.add(art);
+      byUuid.put(uuid, art);
+      byUrl.put(url, art);
+    }
+    // All artifacts' content is a prefix of one random buffer
+    content = new byte[(int)max];
+    rnd.nextBytes(content);
+  }
+
+  static long randomSize(Random rnd) {
+    int pct = rnd.nextInt(100);
+    for (long[] cls : SIZE_CLASSES) {
+      if (pct < cls[0]) {
+        return cls[1] + (long)(rnd.nextDouble() * (cls[2] - cls[1]));
+      }
+      pct -= cls[0];
+    }
+    return SIZE_CLASSES[0][1];
+  }
+
+  /** Start the stub on a free port */
+  public RepositoryStub start() {
+    // Per-request logging would dominate the measurements
+    ConfigurationProperties.logLevel("WARN");
+    server = ClientAndServer.startClientAndServer();
+    server.when(request().withMethod("GET").withPath("/aus/[^/]+/artifacts"))
+      .respond(this::artifactsResponse);
+    server.when(request().withMethod("GET").withPath(RESPONSE_PATH.pattern()))
+      .respond(this::httpResponseResponse);
+    server.when(request().withMethod("GET").withPath(ARTIFACT_PATH.pattern()))
+      .respond(this::multipartResponse);
+    log.debug("Repository stub with {} artifacts on port {}",
+              artifacts.size(), getPort());
+    return this;
+  }
+
+  public int getPort() {
+    return server.getPort();
+  }
+
+  public String getUrl() {
+    return "http://localhost:" + getPort();
+  }
+
+  public List<Artifact> getArtifacts() {
+    return artifacts;
+  }
+
+  /** Total size of all artifacts' content */
+  public long getTotalContentSize() {
+    long res = 0;
+    for (Artifact art : artifacts) {
+      res += art.getContentLength();
+    }
+    return res;
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop();
+      server = null;
+    }
+  }
+
+  // Lookup by URL (version=latest) or a page of the enumeration.  The
+  // continuation token is the index of the page's first artifact.
+  HttpResponse artifactsResponse(HttpRequest req) throws IOException {
+    String url = req.getFirstQueryStringParameter("url");
+    ArtifactPageInfo page = new ArtifactPageInfo();
+    PageInfo pageInfo = new PageInfo();
+    if (url != null && !url.isEmpty()) {
+      Artifact art = byUrl.get(url);
+      page.setArtifacts(art == null
+                        ? Collections.emptyList()
+                        : Collections.singletonList(art));
+    } else {
+      String limit = req.getFirstQueryStringParameter("limit");
+      String token = req.getFirstQueryStringParameter("continuationToken");
+      int size = (limit == null || limit.isEmpty())
+        ? defaultPageSize : Integer.parseInt(limit);
+      int start = (token == null || token.isEmpty())
+        ? 0 : Integer.parseInt(token);
+      int end = Math.min(start + size, artifacts.size());
+      page.setArtifacts(new ArrayList<>(artifacts.subList(start, end)));
+      if (end < artifacts.size()) {
+        pageInfo.setContinuationToken(Integer.toString(end));
+      }
+    }
+    page.setPageInfo(pageInfo);
+    return response()
+      .withStatusCode(200)
+      .withHeader("Content-Type", "application/json")
+      .withBody(mapper.writeValueAsBytes(page));
+  }
+
+  HttpResponse httpResponseResponse(HttpRequest req) throws IOException {
+    Matcher m = RESPONSE_PATH.matcher(req.getPath().getValue());
+    Artifact art = m.matches() ? byUuid.get(m.group(1)) : null;
+    if (art == null) {
+      return notFound();
+    }
+    ByteArrayOutputStream baos =
+      new ByteArrayOutputStream((int)art.getContentLength() + 200);
+    baos.write(httpHeader(art));
+    baos.write(content, 0, (int)art.getContentLength());
+    return response()
+      .withStatusCode(200)
+      .withHeader("Content-Type", "application/http; msgtype=response")
+      .withBody(baos.toByteArray());
+  }
+
+  HttpResponse multipartResponse(HttpRequest req) throws IOException {
+    Matcher m = ARTIFACT_PATH.matcher(req.getPath().getValue());
+    Artifact art = m.matches() ? byUuid.get(m.group(1)) : null;
+    if (art == null) {
+      return notFound();
+    }
+    Map<String, Object> props = new LinkedHashMap<>();
+    props.put("namespace", art.getNamespace());
+    props.put("uuid", art.getUuid());
+    props.put("auid", art.getAuid());
+    props.put("uri", art.getUri());
+    props.put("version", art.getVersion());
+    props.put("contentLength", art.getContentLength());
+    props.put("contentDigest", art.getContentDigest());
+    props.put("collectionDate", art.getCollectionDate());
+
+    ByteArrayOutputStream baos =
+      new ByteArrayOutputStream((int)art.getContentLength() + 1000);
+    writePartHeader(baos, RestLockssRepository.MULTIPART_ARTIFACT_PROPS,
+                    "Content-Type: application/json");
+    baos.write(mapper.writeValueAsBytes(props));
+    writePartHeader(baos,
+                    RestLockssRepository.MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER,
+                    "Content-Type: application/http; msgtype=response");
+    baos.write(httpHeader(art));
+    writePartHeader(baos, RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD,
+                    ArtifactConstants.X_LOCKSS_CONTENT_TYPE + ": text/html");
+    baos.write(content, 0, (int)art.getContentLength());
+    baos.write(ascii("\r\n--" + BOUNDARY + "--\r\n"));
+    return response()
+      .withStatusCode(200)
+      .withHeader("Content-Type",
+                  "multipart/form-data; boundary=" + BOUNDARY)
+      .withBody(baos.toByteArray());
+  }
+
+  private void writePartHeader(ByteArrayOutputStream baos, String name,
+                               String contentTypeHeader)
+      throws IOException {
+    // The first boundary isn't preceded by CRLF
+    String delim = baos.size() == 0 ? "--" : "\r\n--";
+    baos.write(ascii(delim + BOUNDARY + "\r\n"
+                     + "Content-Disposition: form-data; name=\"" + name
+                     + "\"\r\n" + contentTypeHeader + "\r\n\r\n"));
+  }
+
+  private byte[] httpHeader(Artifact art) {
+    return ascii("HTTP/1.1 200 OK\r\n"
+                 + "Content-Type: text/html\r\n"
+                 + "Content-Length: " + art.getContentLength() + "\r\n"
+                 + "\r\n");
+  }
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private HttpResponse notFound() {
+    return response().withStatusCode(404);
+  }
+}
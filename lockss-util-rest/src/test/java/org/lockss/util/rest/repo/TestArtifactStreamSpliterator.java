@@ -0,0 +1,201 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest.repo;
+
+import org.junit.Test;
+import org.lockss.util.LockssUncheckedIOException;
+import org.lockss.util.rest.RestUtil;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Test class for LockssRepository.streamArtifacts() and
+ * org.lockss.util.rest.repo.ArtifactStreamSpliterator.
+ */
+public class TestArtifactStreamSpliterator extends LockssTestCase5 {
+
+  /** Serves namespaces, AUs and artifacts from a fixed structure */
+  static class MyRepo extends RestLockssRepository {
+    // namespace -> auids
+    Map<String, List<String>> aus = new LinkedHashMap<>();
+    int artsPerAu;
+    String failAuid;
+    String endlessAuid;
+    AtomicInteger produced = new AtomicInteger();
+
+    MyRepo(int artsPerAu) throws IOException {
+      super(new URL("http://localhost:24610"), RestUtil.getRestTemplate(),
+            null, null);
+      this.artsPerAu = artsPerAu;
+    }
+
+    MyRepo addAus(String namespace, String... auids) {
+      aus.put(namespace, Arrays.asList(auids));
+      return this;
+    }
+
+    @Override
+    public Iterable<String> getNamespaces() {
+      return aus.keySet();
+    }
+
+    @Override
+    public Iterable<String> getAuIds(String namespace) {
+      return aus.get(namespace);
+    }
+
+    @Override
+    public Iterable<Artifact> getArtifacts(String namespace, String auid)
+        throws IOException {
+      if (auid.equals(failAuid)) {
+        throw new IOException("Couldn't fetch " + auid);
+      }
+      boolean endless = auid.equals(endlessAuid);
+      return () -> new Iterator<Artifact>() {
+        int ix = 0;
+
+        public boolean hasNext() {
+          return endless || ix < artsPerAu;
+        }
+
+        public Artifact next() {
+          produced.incrementAndGet();
+          return makeArt(namespace, auid, ix++);
+        }
+      };
+    }
+  }
+
+  static Artifact makeArt(String namespace, String auid, int ix) {
+    return new Artifact("id" + ix, namespace, auid, "http://x.com/" + ix,
+                        1, true, "surl", 0, null);
+  }
+
+  static String artString(Artifact art) {
+    return art.getNamespace() + "/" + art.getAuid() + "/" + art.getUri();
+  }
+
+  List<String> expected(MyRepo repo, String onlyNamespace) {
+    List<String> res = new ArrayList<>();
+    for (Map.Entry<String, List<String>> ent : repo.aus.entrySet()) {
+      if (onlyNamespace != null && !onlyNamespace.equals(ent.getKey())) {
+        continue;
+      }
+      for (String auid : ent.getValue()) {
+        for (int ix = 0; ix < repo.artsPerAu; ix++) {
+          res.add(artString(makeArt(ent.getKey(), auid, ix)));
+        }
+      }
+    }
+    return res;
+  }
+
+  List<String> collect(Stream<Artifact> stream) {
+    try (Stream<Artifact> s = stream) {
+      return s.map(TestArtifactStreamSpliterator::artString)
+          .collect(Collectors.toList());
+    }
+  }
+
+  @Test
+  public void testOrdered() throws Exception {
+    MyRepo repo = new MyRepo(500)
+        .addAus("ns1", "a1", "a2", "a3")
+        .addAus("ns2", "b1", "b2");
+    assertEquals(expected(repo, null),
+                 collect(repo.streamArtifacts(null, 3, true)));
+    assertEquals(expected(repo, "ns2"),
+                 collect(repo.streamArtifacts("ns2", 2, true)));
+    assertEquals(expected(repo, null),
+                 collect(repo.streamArtifacts(null, 1, true)));
+  }
+
+  @Test
+  public void testUnordered() throws Exception {
+    MyRepo repo = new MyRepo(500)
+        .addAus("ns1", "a1", "a2", "a3")
+        .addAus("ns2", "b1", "b2");
+    List<String> res = collect(repo.streamArtifacts(null, 3, false));
+    assertEquals(expected(repo, null).size(), res.size());
+    assertEquals(new HashSet<>(expected(repo, null)), new HashSet<>(res));
+    assertEquals(new HashSet<>(expected(repo, "ns1")),
+                 new HashSet<>(collect(repo.streamArtifacts("ns1"))));
+  }
+
+  @Test
+  public void testEmpty() throws Exception {
+    MyRepo repo = new MyRepo(0).addAus("ns1", "a1").addAus("ns2");
+    assertEmpty(collect(repo.streamArtifacts(null, 2, true)));
+    assertEmpty(collect(repo.streamArtifacts(null, 2, false)));
+  }
+
+  @Test
+  public void testError() throws Exception {
+    MyRepo repo = new MyRepo(10).addAus("ns1", "a1", "a2", "a3");
+    repo.failAuid = "a2";
+    try (Stream<Artifact> s = repo.streamArtifacts(null, 2, true)) {
+      Iterator<Artifact> iter = s.iterator();
+      // a1's artifacts precede the error
+      for (int ix = 0; ix < 10; ix++) {
+        assertEquals("a1", iter.next().getAuid());
+      }
+      LockssUncheckedIOException ex =
+          assertThrows(LockssUncheckedIOException.class, () -> iter.next());
+      assertMatchesRE("Couldn't fetch a2", ex.getCause().getMessage());
+    }
+  }
+
+  // Fetching stops when the queues are full, and when the stream is
+  // closed
+  @Test
+  public void testBounded() throws Exception {
+    MyRepo repo = new MyRepo(10).addAus("ns1", "a1", "a2");
+    repo.endlessAuid = "a1";
+    int max = 2 * ArtifactStreamSpliterator.DEFAULT_QUEUE_SIZE + 2;
+    try (Stream<Artifact> s = repo.streamArtifacts("ns1", 2, true)) {
+      Iterator<Artifact> iter = s.iterator();
+      for (int ix = 0; ix < 5; ix++) {
+        assertEquals("a1", iter.next().getAuid());
+      }
+      Thread.sleep(500);
+      assertTrue(repo.produced.get() <= max + 5,
+                 "Produced " + repo.produced.get());
+    }
+    Thread.sleep(200);
+    int n = repo.produced.get();
+    Thread.sleep(200);
+    assertEquals(n, repo.produced.get());
+  }
+}
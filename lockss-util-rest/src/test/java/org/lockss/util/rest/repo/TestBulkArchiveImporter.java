@@ -0,0 +1,257 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.Test;
+import org.lockss.util.rest.RestUtil;
+import org.lockss.util.rest.repo.model.ImportStatus;
+import org.lockss.util.rest.repo.util.ImportStatusIterable;
+import org.lockss.util.test.FileTestUtil;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.*;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for org.lockss.util.rest.repo.BulkArchiveImporter.
+ */
+public class TestBulkArchiveImporter extends LockssTestCase5 {
+  static final String WARC_VERSION = "WARC/1.0\r\n";
+  static final String URI_HEADER = "WARC-Target-URI: ";
+
+  /** Returns a status for each record in each uploaded archive */
+  static class MyRepo extends RestLockssRepository {
+    List<String> uploads = Collections.synchronizedList(new ArrayList<>());
+    AtomicInteger concurrent = new AtomicInteger();
+    AtomicInteger maxConcurrent = new AtomicInteger();
+
+    MyRepo() throws IOException {
+      super(new URL("http://localhost:24610"), RestUtil.getRestTemplate(),
+            null, null);
+    }
+
+    @Override
+    public ImportStatusIterable addArtifacts(String namespace, String auId,
+                                             InputStream inputStream,
+                                             ArchiveType type,
+                                             boolean storeDuplicate,
+                                             String excludeStatusPattern)
+        throws IOException {
+      maxConcurrent.accumulateAndGet(concurrent.incrementAndGet(), Math::max);
+      try {
+        String warc = IOUtils.toString(inputStream, StandardCharsets.ISO_8859_1);
+        uploads.add(warc);
+        if (warc.contains("FAIL")) {
+          throw new IOException("Upload failed");
+        }
+        if (warc.contains("CRASH")) {
+          throw new AssertionError("Upload crashed");
+        }
+        ObjectMapper mapper = new ObjectMapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (int pos = warc.indexOf(WARC_VERSION); pos >= 0;
+             pos = warc.indexOf(WARC_VERSION, pos + 1)) {
+          int uriStart = warc.indexOf(URI_HEADER, pos) + URI_HEADER.length();
+          String uri = warc.substring(uriStart, warc.indexOf("\r\n", uriStart));
+          ImportStatus status = new ImportStatus()
+              .warcId("w")
+              .offset((long) pos)
+              .url(uri)
+              .status(uri.contains("dup")
+                      ? ImportStatus.StatusEnum.DUPLICATE
+                      : ImportStatus.StatusEnum.OK);
+          out.write(mapper.writeValueAsBytes(status));
+        }
+        return new ImportStatusIterable(new ByteArrayInputStream(out.toByteArray()));
+      } finally {
+        concurrent.decrementAndGet();
+      }
+    }
+  }
+
+  /** Writes a WARC file of n records, and records the offset of each */
+  File writeWarc(String name, int n, String content, Map<String, Long> offsets)
+      throws IOException {
+    StringBuilder sb = new StringBuilder();
+    for (int ix = 0; ix < n; ix++) {
+      String uri = "http://x.com/" + name + "/" + ix +
+          (ix % 5 == 4 ? "dup" : "");
+      String body = content + ix;
+      offsets.put(uri, (long) sb.length());
+      sb.append(WARC_VERSION)
+          .append("WARC-Type: resource\r\n")
+          .append(URI_HEADER).append(uri).append("\r\n")
+          .append("Content-Length: ").append(body.length()).append("\r\n")
+          .append("\r\n")
+          .append(body)
+          .append("\r\n\r\n");
+    }
+    File file = new File(getTempDir(), name + ".warc");
+    FileTestUtil.writeFile(file, sb.toString());
+    return file;
+  }
+
+  @Test
+  public void testSplit() throws Exception {
+    Map<String, Long> offsets = new HashMap<>();
+    // Content contains CRLFs and a blank line, which mustn't be mistaken
+    // for record boundaries
+    File file = writeWarc("a", 20, "line1\r\n\r\nWARC-ish\r\n", offsets);
+    String contents = IOUtils.toString(new FileInputStream(file),
+                                       StandardCharsets.ISO_8859_1);
+    BulkArchiveImporter importer =
+        new BulkArchiveImporter(new MyRepo(), "ns1", "auid1")
+        .setSplitSize(500);
+    List<BulkArchiveImporter.Segment> segs = importer.splitWarc(file);
+    assertTrue(segs.size() > 2);
+    long pos = 0;
+    for (BulkArchiveImporter.Segment seg : segs) {
+      assertEquals(pos, seg.offset);
+      assertTrue(contents.startsWith(WARC_VERSION, (int) seg.offset));
+      pos += seg.length;
+    }
+    assertEquals(file.length(), pos);
+    for (int ix = 0; ix < segs.size() - 1; ix++) {
+      assertTrue(segs.get(ix).length >= 500);
+    }
+
+    // Not split if small enough, compressed or splitting disabled
+    assertEquals(1, importer.setSplitSize(file.length()).splitWarc(file).size());
+    assertEquals(1, importer.setSplitSize(0).splitWarc(file).size());
+    File gz = new File(getTempDir(), "a.warc.gz");
+    FileTestUtil.writeFile(gz, contents);
+    assertEquals(1, importer.setSplitSize(500).splitWarc(gz).size());
+
+    // Not split if it isn't a WARC
+    File notWarc = new File(getTempDir(), "b.warc");
+    FileTestUtil.writeFile(notWarc, StringUtils.repeat("not a warc\r\n", 100));
+    assertEquals(1, importer.splitWarc(notWarc).size());
+
+    // Not split if a header line is too long
+    File longLine = new File(getTempDir(), "c.warc");
+    FileTestUtil.writeFile(longLine, WARC_VERSION + "WARC-Type: "
+                           + StringUtils.repeat("x", BulkArchiveImporter.MAX_HEADER_LINE)
+                           + "\r\n" + StringUtils.repeat("y", 1000));
+    assertEquals(1, importer.splitWarc(longLine).size());
+  }
+
+  @Test
+  public void testImport() throws Exception {
+    Map<String, Long> offsets = new HashMap<>();
+    File a = writeWarc("a", 30, StringUtils.repeat("x", 50), offsets);
+    File b = writeWarc("b", 7, "y", offsets);
+    MyRepo repo = new MyRepo();
+    BulkArchiveImporter importer =
+        new BulkArchiveImporter(repo, "ns1", "auid1")
+        .setConcurrency(3)
+        .setQueueSize(2)
+        .setSplitSize(1000);
+    Map<String, Long> received = new HashMap<>();
+    try (BulkArchiveImporter.ImportRun run =
+         importer.importWarcs(Arrays.asList(a, b))) {
+      for (ImportStatus status : run) {
+        assertNull(received.put(status.getUrl(), status.getOffset()));
+      }
+      BulkArchiveImporter.Progress prog = run.getProgress();
+      assertEquals(37, prog.getRecords());
+      assertEquals(7, prog.getDuplicates());
+      assertEquals(30, prog.getOk());
+      assertEquals(0, prog.getErrors());
+      assertEquals(a.length() + b.length(), prog.getBytes());
+      assertEquals(prog.getSegments(), prog.getSegmentsDone());
+      assertEquals(repo.uploads.size(), prog.getSegments());
+      assertTrue(prog.getSegments() > 2);
+    }
+    // Offsets are relative to the start of each file
+    assertEquals(offsets, received);
+    assertTrue(repo.maxConcurrent.get() <= 3);
+  }
+
+  @Test
+  public void testFailedSegment() throws Exception {
+    Map<String, Long> offsets = new HashMap<>();
+    File a = writeWarc("a", 5, "ok", offsets);
+    File b = writeWarc("b", 5, "FAIL", offsets);
+    BulkArchiveImporter importer =
+        new BulkArchiveImporter(new MyRepo(), "ns1", "auid1")
+        .setConcurrency(2);
+    List<ImportStatus> statuses = new ArrayList<>();
+    try (BulkArchiveImporter.ImportRun run =
+         importer.importWarcs(Arrays.asList(a, b))) {
+      run.forEach(statuses::add);
+      assertEquals(1, run.getProgress().getErrors());
+      assertEquals(6, run.getProgress().getRecords());
+      assertEquals(a.length(), run.getProgress().getBytes());
+    }
+    assertEquals(6, statuses.size());
+    ImportStatus err = statuses.stream()
+        .filter(s -> s.getStatus() == ImportStatus.StatusEnum.ERROR)
+        .findFirst().get();
+    assertEquals("b.warc", err.getWarcId());
+    assertMatchesRE("Upload failed", err.getStatusMessage());
+  }
+
+  @Test
+  public void testFailedWorker() throws Exception {
+    Map<String, Long> offsets = new HashMap<>();
+    File a = writeWarc("a", 5, "CRASH", offsets);
+    BulkArchiveImporter importer =
+        new BulkArchiveImporter(new MyRepo(), "ns1", "auid1");
+    try (BulkArchiveImporter.ImportRun run = importer.importWarcs(List.of(a))) {
+      CompletionException e =
+          assertThrows(CompletionException.class, () -> run.forEach(s -> {}));
+      assertMatchesRE("Upload crashed", e.getCause().getMessage());
+    }
+  }
+
+  @Test
+  public void testClose() throws Exception {
+    Map<String, Long> offsets = new HashMap<>();
+    File a = writeWarc("a", 200, "z", offsets);
+    BulkArchiveImporter importer =
+        new BulkArchiveImporter(new MyRepo(), "ns1", "auid1")
+        .setConcurrency(2)
+        .setQueueSize(1)
+        .setSplitSize(100);
+    BulkArchiveImporter.ImportRun run = importer.importWarcs(List.of(a));
+    Iterator<ImportStatus> iter = run.iterator();
+    assertTrue(iter.hasNext());
+    iter.next();
+    run.close();
+    assertFalse(iter.hasNext());
+    assertTrue(run.getProgress().getSegmentsDone() < run.getProgress().getSegments());
+    assertThrows(IllegalStateException.class, () -> run.iterator());
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.lockss.util.rest.repo;
+
+import org.junit.Test;
+import org.lockss.util.rest.RestMetrics;
+import org.lockss.util.test.LockssTestCase5;
+
+/**
+ * Short runs of {@link RepositoryLoadHarness}, to keep it working.
+ */
+public class TestRepositoryLoadHarness extends LockssTestCase5 {
+
+  RepositoryLoadHarness.Config smallConfig() {
+    return new RepositoryLoadHarness.Config()
+      .setNumArtifacts(40)
+      .setMaxContentSize(64 * 1024)
+      .setPageSize(15)
+      .setConcurrency(2)
+      .setWarmup(100)
+      .setDuration(500)
+      .setEnumerateFraction(0.1);
+  }
+
+  void assertRan(RepositoryLoadHarness.Result res) {
+    assertEquals(0, res.getTotalErrors(), res.toString());
+    RestMetrics.OpStats fetch =
+      res.getOps().get(RepositoryLoadHarness.OP_FETCH);
+    assertNotNull(fetch);
+    assertTrue(fetch.getCalls() > 0);
+    assertTrue(fetch.getBytesIn() > 0);
+    assertTrue(fetch.getP50() > 0);
+    assertTrue(res.getOpsPerSec() > 0);
+    assertFalse(res.getRestCalls().isEmpty());
+    assertNotNull(res.toMap().get("operations"));
+  }
+
+  @Test
+  public void testResponseEndpoint() throws Exception {
+    assertRan(new RepositoryLoadHarness(smallConfig()).run());
+  }
+
+  @Test
+  public void testMultipartEndpointCached() throws Exception {
+    assertRan(new RepositoryLoadHarness(smallConfig()
+                                        .setMultipart(true)
+                                        .setCache(true)
+                                        .setStream(true))
+              .run());
+  }
+}
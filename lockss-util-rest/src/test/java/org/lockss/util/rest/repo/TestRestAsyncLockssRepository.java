@@ -0,0 +1,175 @@
+/*
+
+ Copyright (c) 2026 Board of Trustees of Leland Stanford Jr. University,
+ all rights reserved.
+
+ Permission is hereby granted, free of charge, to any person obtaining a copy
+ of this software and associated documentation files (the "Software"), to deal
+ in the Software without restriction, including without limitation the rights
+ to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ copies of the Software, and to permit persons to whom the Software is
+ furnished to do so, subject to the following conditions:
+
+ The above copyright notice and this permission notice shall be included in
+ all copies or substantial portions of the Software.
+
+ THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.  IN NO EVENT SHALL
+ STANFORD UNIVERSITY BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR
+ IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+
+ Except as contained in this notice, the name of Stanford University shall not
+ be used in advertising or otherwise to promote the sale, use or other dealings
+ in this Software without prior written authorization from Stanford University.
+
+ */
+package org.lockss.util.rest.repo;
+
+import org.junit.Test;
+import org.lockss.util.rest.RestUtil;
+import org.lockss.util.rest.exception.LockssRestHttpException;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.AuSize;
+import org.lockss.util.rest.repo.util.ArtifactCache;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test class for org.lockss.util.rest.repo.RestAsyncLockssRepository.
+ */
+public class TestRestAsyncLockssRepository extends LockssTestCase5 {
+
+  /** Records the maximum number of concurrent auSize() calls, and the
+   * number of artifact lookups that reach the repository */
+  static class MyRepo extends RestLockssRepository {
+    AtomicInteger lookups = new AtomicInteger();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+
+    MyRepo() throws IOException {
+      super(new URL("http://localhost:24610"), RestUtil.getRestTemplate(),
+            null, null);
+    }
+
+    @Override
+    public AuSize auSize(String namespace, String auid) throws IOException {
+      int n = running.incrementAndGet();
+      maxRunning.accumulateAndGet(n, Math::max);
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      } finally {
+        running.decrementAndGet();
+      }
+      if ("fail".equals(auid)) {
+        throw new LockssRestHttpException("failed");
+      }
+      AuSize res = new AuSize();
+      res.setTotalWarcSize(123L);
+      return res;
+    }
+
+    @Override
+    public Artifact getArtifact(String namespace, String auid, String url) {
+      lookups.incrementAndGet();
+      return null;
+    }
+
+    @Override
+    public Artifact getArtifactVersion(String namespace, String auid,
+                                       String url, Integer version,
+                                       boolean includeUncommitted) {
+      lookups.incrementAndGet();
+      return null;
+    }
+  }
+
+  @Test
+  public void testMaxInFlight() throws Exception {
+    MyRepo repo = new MyRepo();
+    RestAsyncLockssRepository async =
+        new RestAsyncLockssRepository(repo, null, 3);
+    try {
+      List<CompletableFuture<AuSize>> futs = new ArrayList<>();
+      for (int ix = 0; ix < 10; ix++) {
+        futs.add(async.auSize("ns1", "auid" + ix));
+      }
+      // Wait for the first batch to start
+      long end = System.currentTimeMillis() + 10000;
+      while (repo.running.get() < 3 && System.currentTimeMillis() < end) {
+        Thread.sleep(10);
+      }
+      assertEquals(3, async.getInFlight());
+      repo.release.countDown();
+      for (CompletableFuture<AuSize> fut : futs) {
+        assertEquals(123L, fut.get(10, TimeUnit.SECONDS).getTotalWarcSize());
+      }
+      assertEquals(3, repo.maxRunning.get());
+      assertEquals(0, async.getInFlight());
+    } finally {
+      async.shutdown();
+    }
+  }
+
+  @Test
+  public void testException() throws Exception {
+    MyRepo repo = new MyRepo();
+    repo.release.countDown();
+    RestAsyncLockssRepository async = new RestAsyncLockssRepository(repo);
+    try {
+      CompletableFuture<AuSize> fut = async.auSize("ns1", "fail");
+      ExecutionException ex =
+          assertThrows(ExecutionException.class,
+                       () -> fut.get(10, TimeUnit.SECONDS));
+      assertClass(LockssRestHttpException.class, ex.getCause());
+    } finally {
+      async.shutdown();
+    }
+  }
+
+  @Test
+  public void testCachedNotFound() throws Exception {
+    MyRepo repo = new MyRepo();
+    ArtifactCache cache = repo.getArtifactCache().enable(true);
+    long gen = cache.getInvalidationGeneration();
+    cache.putLatestNotFound("ns1", "auid1", "u1", gen);
+    cache.putNotFound("ns1", "auid1", "u1", 2, gen);
+    RestAsyncLockssRepository async = new RestAsyncLockssRepository(repo);
+    try {
+      // Known to be missing; answered without a call to the repository
+      CompletableFuture<Artifact> fut1 = async.getArtifact("ns1", "auid1", "u1");
+      assertTrue(fut1.isDone());
+      assertNull(fut1.get());
+      CompletableFuture<Artifact> fut2 =
+          async.getArtifactVersion("ns1", "auid1", "u1", 2, false);
+      assertTrue(fut2.isDone());
+      assertNull(fut2.get());
+      assertEquals(0, repo.lookups.get());
+
+      // There might be an uncommitted version
+      assertNull(async.getArtifactVersion("ns1", "auid1", "u1", 2, true)
+                 .get(10, TimeUnit.SECONDS));
+      assertEquals(1, repo.lookups.get());
+    } finally {
+      async.shutdown();
+    }
+  }
+
+  @Test
+  public void testIllegal() throws Exception {
+    assertThrows(IllegalArgumentException.class,
+                 () -> new RestAsyncLockssRepository(null));
+    assertThrows(IllegalArgumentException.class,
+                 () -> new RestAsyncLockssRepository(new MyRepo(), null, 0));
+  }
+}
@@ -31,6 +31,7 @@ package org.lockss.util.rest.repo;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.lockss.util.LockssUncheckedIOException;
 import org.lockss.util.rest.RestUtil;
 import org.lockss.util.rest.repo.model.Artifact;
 import org.lockss.util.test.LockssTestCase5;
@@ -42,6 +43,7 @@ import org.springframework.test.web.client.response.MockRestResponseCreators;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.time.Duration;
 import java.util.NoSuchElementException;
 
 /**
@@ -182,4 +184,131 @@ public class TestRestLockssRepositoryArtifactIterator extends LockssTestCase5 {
     assertFalse(repoIterator.hasNext());
     assertThrows(NoSuchElementException.class, () -> {repoIterator.next();});
   }
+
+  /**
+   * Runs pagination tests with background prefetching.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  @Test
+  public void testPaginationPrefetch() throws Exception {
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint + "?namespace="+ NS1 +"&limit=1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"1\",\"uri\":\"uriA\",\"version\":3}], "
+	+ "\"pageInfo\":{\"continuationToken\":\"tok1\"}}",
+	MediaType.APPLICATION_JSON));
+
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint
+	+ "?namespace="+ NS1 +"&limit=1&continuationToken=tok1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"2\",\"uri\":\"uriB\",\"version\":2}], "
+	+ "\"pageInfo\":{\"continuationToken\":\"tok2\"}}",
+	MediaType.APPLICATION_JSON));
+
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint
+	+ "?namespace="+ NS1 +"&limit=1&continuationToken=tok2"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"3\",\"uri\":\"uriC\",\"version\":1}], "
+	+ "\"pageInfo\":{}}",
+	MediaType.APPLICATION_JSON));
+
+    repoIterator =
+	new RestLockssRepositoryArtifactIterator(restTemplate, builder, null,
+	    1, 2);
+
+    // The remaining pages are fetched without waiting for the consumer.
+    mockServer.verify(Duration.ofSeconds(10));
+
+    assertTrue(repoIterator.hasNext());
+    assertEquals("1", repoIterator.next().getUuid());
+    assertTrue(repoIterator.hasNext());
+    assertEquals("2", repoIterator.next().getUuid());
+    assertTrue(repoIterator.hasNext());
+    assertEquals("3", repoIterator.next().getUuid());
+    assertFalse(repoIterator.hasNext());
+    assertThrows(NoSuchElementException.class, () -> {repoIterator.next();});
+  }
+
+  /**
+   * Tests that an error fetching a prefetched page is reported to the
+   * consumer.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  @Test
+  public void testPrefetchError() throws Exception {
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint + "?namespace="+ NS1 +"&limit=1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"1\",\"uri\":\"uriA\",\"version\":3}], "
+	+ "\"pageInfo\":{\"continuationToken\":\"tok1\"}}",
+	MediaType.APPLICATION_JSON));
+
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint
+	+ "?namespace="+ NS1 +"&limit=1&continuationToken=tok1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withServerError());
+
+    repoIterator =
+	new RestLockssRepositoryArtifactIterator(restTemplate, builder, null,
+	    1, 2);
+
+    assertTrue(repoIterator.hasNext());
+    assertEquals("1", repoIterator.next().getUuid());
+    assertThrows(LockssUncheckedIOException.class,
+	() -> {repoIterator.hasNext();});
+    mockServer.verify();
+  }
+
+  /**
+   * Tests that an error fetching a page is reported to the consumer even
+   * if the prefetch queue is full of earlier pages when it happens.
+   * 
+   * @throws Exception
+   *           if there are problems.
+   */
+  @Test
+  public void testPrefetchErrorQueueFull() throws Exception {
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint + "?namespace="+ NS1 +"&limit=1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"1\",\"uri\":\"uriA\",\"version\":3}], "
+	+ "\"pageInfo\":{\"continuationToken\":\"tok1\"}}",
+	MediaType.APPLICATION_JSON));
+
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint
+	+ "?namespace="+ NS1 +"&limit=1&continuationToken=tok1"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withSuccess("{\"artifacts\":["
+	+ "{\"uuid\":\"2\",\"uri\":\"uriB\",\"version\":2}], "
+	+ "\"pageInfo\":{\"continuationToken\":\"tok2\"}}",
+	MediaType.APPLICATION_JSON));
+
+    mockServer.expect(MockRestRequestMatchers.requestTo(endpoint
+	+ "?namespace="+ NS1 +"&limit=1&continuationToken=tok2"))
+    .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+    .andRespond(MockRestResponseCreators.withServerError());
+
+    repoIterator =
+	new RestLockssRepositoryArtifactIterator(restTemplate, builder, null,
+	    1, 1);
+
+    // The second page fills the queue before the third page fails.
+    mockServer.verify(Duration.ofSeconds(10));
+    Thread.sleep(100);
+
+    assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      assertTrue(repoIterator.hasNext());
+      assertEquals("1", repoIterator.next().getUuid());
+      assertTrue(repoIterator.hasNext());
+      assertEquals("2", repoIterator.next().getUuid());
+      assertThrows(LockssUncheckedIOException.class,
+	  () -> {repoIterator.hasNext();});
+    });
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package org.lockss.util.rest.repo;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.lockss.util.ListUtil;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.util.ArtifactCache;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.net.URL;
+import java.util.*;
+
+import static org.lockss.util.rest.repo.RestLockssRepository.*;
+
+/**
+ * Test the handling of ArtifactCache messages by RestLockssRepository.
+ */
+public class TestRestLockssRepositoryCacheMessages extends LockssTestCase5 {
+  private final static String BASEURL = "http://localhost:24610";
+  private final static String NS1 = "ns1";
+  private final static String AUID1 = "AAUU1";
+  private final static String AUID2 = "AAUU2";
+
+  private RestLockssRepository repo;
+  private ArtifactCache cache;
+
+  @Before
+  public void makeRepo() throws Exception {
+    repo = new RestLockssRepository(new URL(BASEURL), null, null);
+    cache = repo.getArtifactCache();
+    cache.enable(true);
+  }
+
+  Artifact makeArt(String auid, String url, int version) {
+    return new Artifact("aidid", NS1, auid, url, version, Boolean.TRUE,
+                        "store_url", 123, null);
+  }
+
+  Map<String, String> invArtMsg(Artifact art) {
+    Map<String, String> map = new HashMap<>();
+    map.put(REST_ARTIFACT_CACHE_MSG_ACTION,
+            REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_ARTIFACT);
+    map.put(REST_ARTIFACT_CACHE_MSG_OP, "Commit");
+    map.put(REST_ARTIFACT_CACHE_MSG_KEY, art.makeKey());
+    return map;
+  }
+
+  Map<String, String> stringMap(Map<String, Object> map) {
+    Map<String, String> res = new HashMap<>();
+    for (Map.Entry<String, Object> ent : map.entrySet()) {
+      res.put(ent.getKey(), (String)ent.getValue());
+    }
+    return res;
+  }
+
+  @Test
+  public void testInvalidateMessages() throws Exception {
+    Artifact a1 = makeArt(AUID1, "u1", 1);
+    Artifact a2 = makeArt(AUID1, "u2", 1);
+    Artifact a3 = makeArt(AUID1, "u3", 1);
+    Artifact a4 = makeArt(AUID2, "u1", 1);
+    for (Artifact art : ListUtil.list(a1, a2, a3, a4)) {
+      cache.put(art);
+    }
+    repo.handleCacheMessage(invArtMsg(a1));
+    repo.handleCacheMessage(invArtMsg(a1));
+    repo.handleCacheMessage(stringMap(
+        makeInvalidateArtifactsMessage(ArtifactCache.InvalidateOp.Delete,
+                                       ListUtil.list(a2.makeKey(),
+                                                     a4.makeKey()))));
+    // Malformed messages don't prevent others in the batch being applied
+    Map<String, String> bad = invArtMsg(a3);
+    bad.remove(REST_ARTIFACT_CACHE_MSG_OP);
+    repo.handleCacheMessage(bad);
+    assertTrue(repo.awaitInvalidations(10000));
+    assertNull(cache.get(a1));
+    assertNull(cache.get(a2));
+    assertNull(cache.get(a4));
+    assertSame(a3, cache.get(a3));
+
+    Map<String, String> au = new HashMap<>();
+    au.put(REST_ARTIFACT_CACHE_MSG_ACTION,
+           REST_ARTIFACT_CACHE_MSG_ACTION_INVALIDATE_AU);
+    au.put(REST_ARTIFACT_CACHE_MSG_OP, "Commit");
+    au.put(REST_ARTIFACT_CACHE_MSG_KEY, AUID1);
+    repo.handleCacheMessage(au);
+    assertTrue(repo.awaitInvalidations(10000));
+    assertNull(cache.get(a3));
+  }
+
+  @Test
+  public void testAddInvalidation() throws Exception {
+    Artifact a1 = makeArt(AUID1, "u1", 1);
+    Artifact a2 = makeArt(AUID1, "u2", 1);
+    ArtifactCache.Invalidations inv = new ArtifactCache.Invalidations(1);
+    addInvalidation(inv, invArtMsg(a1));
+    addInvalidation(inv, stringMap(
+        makeInvalidateArtifactsMessage(ArtifactCache.InvalidateOp.Commit,
+                                       ListUtil.list(a1.makeKey(),
+                                                     a2.makeKey()))));
+    assertEquals(3, inv.size());
+    assertFalse(inv.isEmpty());
+
+    cache.put(a1);
+    cache.put(a2);
+    cache.put(makeArt(AUID1, "u3", 1));
+    cache.invalidate(inv);
+    // Two distinct keys in AUID1 exceed the threshold of 1, so the whole
+    // AU was invalidated
+    assertEquals(0, cache.getAuEntryCount(null, AUID1));
+  }
+
+  @Test
+  public void testEchoResp() throws Exception {
+    Map<String, String> map = new HashMap<>();
+    map.put(REST_ARTIFACT_CACHE_MSG_ACTION,
+            REST_ARTIFACT_CACHE_MSG_ACTION_ECHO_RESP);
+    map.put(REST_ARTIFACT_CACHE_MSG_KEY, "http://other.host:1234");
+    repo.handleCacheMessage(map);
+    assertFalse(repo.invalidateCheckCompleted);
+    map.put(REST_ARTIFACT_CACHE_MSG_KEY, BASEURL);
+    repo.handleCacheMessage(map);
+    assertTrue(repo.invalidateCheckCompleted);
+  }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+package org.lockss.util.rest.repo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.lockss.util.ListUtil;
+import org.lockss.util.SetUtil;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.test.LockssTestCase5;
+import org.mockserver.client.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.Header;
+import org.mockserver.verify.VerificationTimes;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Test the batch lookup {@link RestLockssRepository#getArtifacts(String,
+ * String, java.util.Collection)}.
+ */
+public class TestRestLockssRepositoryGetArtifacts extends LockssTestCase5 {
+  private final static String NS1 = "ns1";
+  private final static String AUID1 = "auid1";
+  private final static String ARTPATH = "/aus/" + AUID1 + "/artifacts";
+
+  @Rule
+  public MockServerRule msRule = new MockServerRule(this);
+
+  private MockServerClient msClient;
+
+  private MyRepo repo;
+
+  /** Records the threads getArtifact() is called in, and optionally
+   * blocks lookups until released */
+  static class MyRepo extends RestLockssRepository {
+    Set<Thread> threads = ConcurrentHashMap.newKeySet();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    volatile CountDownLatch gate;
+
+    MyRepo(int port) throws IOException {
+      super(new URL("http://localhost:" + port), null, null);
+    }
+
+    @Override
+    public Artifact getArtifact(String namespace, String auid, String url)
+        throws IOException {
+      threads.add(Thread.currentThread());
+      int n = running.incrementAndGet();
+      maxRunning.accumulateAndGet(n, Math::max);
+      try {
+        CountDownLatch g = gate;
+        if (g != null) {
+          g.await(10, TimeUnit.SECONDS);
+        }
+        if (url.startsWith("fail")) {
+          throw new IOException("Lookup failed: " + url);
+        }
+        return super.getArtifact(namespace, auid, url);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      } finally {
+        running.decrementAndGet();
+      }
+    }
+  }
+
+  @Before
+  public void makeRepo() throws Exception {
+    repo = new MyRepo(msRule.getPort());
+    repo.getArtifactCache().enable(true);
+  }
+
+  Artifact makeArt(String url, String uuid) {
+    return new Artifact(uuid, NS1, AUID1, url, 1, Boolean.TRUE,
+                        "store_url", 123, null);
+  }
+
+  String artJson(String url, String uuid) {
+    return "{\"artifacts\":[{\"uuid\":\"" + uuid + "\",\"namespace\":\""
+      + NS1 + "\",\"auid\":\"" + AUID1 + "\",\"uri\":\"" + url
+      + "\",\"version\":1,\"committed\":true}], \"pageInfo\":{}}";
+  }
+
+  void expectFound(String url, String uuid) {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath(ARTPATH)
+            .withQueryStringParameter("url", url))
+      .respond(response()
+               .withStatusCode(200)
+               .withHeaders(new Header("Content-Type", "application/json"))
+               .withBody(artJson(url, uuid)));
+  }
+
+  void expectNotFound(String url) {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath(ARTPATH)
+            .withQueryStringParameter("url", url))
+      .respond(response()
+               .withStatusCode(404));
+  }
+
+  void verifyRequested(String url, int times) {
+    msClient.verify(request()
+                    .withMethod("GET")
+                    .withPath(ARTPATH)
+                    .withQueryStringParameter("url", url),
+                    VerificationTimes.exactly(times));
+  }
+
+  @Test
+  public void testCachedAndFetched() throws Exception {
+    repo.getArtifactCache().putLatest(makeArt("u1", "id1"));
+    expectFound("u2", "id2");
+    expectFound("u3", "id3");
+    expectNotFound("u4");
+
+    Map<String, Artifact> res =
+      repo.getArtifacts(NS1, AUID1,
+                        ListUtil.list("u3", "u1", "u4", "u2", "u3", "u1"));
+    // In order of first occurrence, duplicates collapsed, 404 omitted
+    assertEquals(ListUtil.list("u3", "u1", "u2"),
+                 new ArrayList<>(res.keySet()));
+    assertEquals("id1", res.get("u1").getUuid());
+    assertEquals("id2", res.get("u2").getUuid());
+    assertEquals("id3", res.get("u3").getUuid());
+    // Cached URL not fetched, each other URL fetched once, concurrently
+    verifyRequested("u1", 0);
+    verifyRequested("u2", 1);
+    verifyRequested("u3", 1);
+    verifyRequested("u4", 1);
+    assertEquals(3, repo.threads.size());
+    for (Thread th : repo.threads) {
+      assertEquals("RepoBatchLookup", th.getName());
+    }
+
+    // Now all satisfied from the cache, including the 404
+    res = repo.getArtifacts(NS1, AUID1, ListUtil.list("u1", "u2", "u3", "u4"));
+    assertEquals(ListUtil.list("u1", "u2", "u3"),
+                 new ArrayList<>(res.keySet()));
+    verifyRequested("u2", 1);
+    verifyRequested("u3", 1);
+    verifyRequested("u4", 1);
+  }
+
+  @Test
+  public void testFailure() throws Exception {
+    expectFound("u1", "id1");
+    expectFound("u2", "id2");
+    IOException ex =
+      assertThrows(IOException.class,
+                   () -> repo.getArtifacts(NS1, AUID1,
+                                           ListUtil.list("u1", "fail1", "u2")));
+    // The lookup's own exception, not an ExecutionException wrapper
+    assertEquals("Lookup failed: fail1", ex.getMessage());
+  }
+
+  @Test
+  public void testSequential() throws Exception {
+    repo.setBatchLookupConcurrency(1);
+    assertEquals(1, repo.getBatchLookupConcurrency());
+    expectFound("u1", "id1");
+    expectFound("u2", "id2");
+    Map<String, Artifact> res =
+      repo.getArtifacts(NS1, AUID1, ListUtil.list("u1", "u2"));
+    assertEquals(ListUtil.list("u1", "u2"), new ArrayList<>(res.keySet()));
+    // Lookups were done in the calling thread
+    assertEquals(SetUtil.set(Thread.currentThread()), repo.threads);
+    assertEquals(1, repo.maxRunning.get());
+
+    assertThrows(IllegalArgumentException.class,
+                 () -> repo.setBatchLookupConcurrency(0));
+  }
+
+  // Run a batch of n blocked lookups and return the maximum number that
+  // ran at once
+  int runBlockedBatch(int n) throws Exception {
+    List<String> urls = new ArrayList<>();
+    for (int ix = 0; ix < n; ix++) {
+      String url = "b" + n + "-" + ix;
+      expectNotFound(url);
+      urls.add(url);
+    }
+    repo.maxRunning.set(0);
+    repo.gate = new CountDownLatch(1);
+    ExecutorService caller = Executors.newSingleThreadExecutor();
+    try {
+      Future<Map<String, Artifact>> fut =
+        caller.submit(() -> repo.getArtifacts(NS1, AUID1, urls));
+      // Give the lookups time to start, then let them proceed
+      long end = System.currentTimeMillis() + 1000;
+      while (repo.running.get() < n && System.currentTimeMillis() < end) {
+        Thread.sleep(10);
+      }
+      repo.gate.countDown();
+      assertTrue(fut.get(10, TimeUnit.SECONDS).isEmpty());
+    } finally {
+      caller.shutdown();
+    }
+    return repo.maxRunning.get();
+  }
+
+  @Test
+  public void testConcurrencyResize() throws Exception {
+    repo.setBatchLookupConcurrency(2);
+    assertEquals(2, runBlockedBatch(4));
+    // Pool already exists; growing it allows more concurrent lookups
+    repo.setBatchLookupConcurrency(4);
+    assertEquals(4, runBlockedBatch(6));
+    // and shrinking it fewer
+    repo.setBatchLookupConcurrency(3);
+    assertEquals(3, runBlockedBatch(6));
+  }
+}
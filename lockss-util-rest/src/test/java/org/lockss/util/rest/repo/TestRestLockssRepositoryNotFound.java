@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+package org.lockss.util.rest.repo;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.lockss.util.test.LockssTestCase5;
+import org.mockserver.client.MockServerClient;
+import org.mockserver.junit.MockServerRule;
+import org.mockserver.model.Header;
+import org.mockserver.verify.VerificationTimes;
+
+import java.net.URL;
+
+import static org.mockserver.model.HttpRequest.request;
+import static org.mockserver.model.HttpResponse.response;
+
+/**
+ * Test that {@link RestLockssRepository#getArtifact(String, String,
+ * String)} and {@link RestLockssRepository#getArtifactVersion(String,
+ * String, String, Integer, boolean)} cache the absence of an artifact,
+ * whether the service reports it with an empty list or a 404.
+ */
+public class TestRestLockssRepositoryNotFound extends LockssTestCase5 {
+  private final static String NS1 = "ns1";
+  private final static String AUID1 = "auid1";
+  private final static String ARTPATH = "/aus/" + AUID1 + "/artifacts";
+
+  @Rule
+  public MockServerRule msRule = new MockServerRule(this);
+
+  private MockServerClient msClient;
+
+  private RestLockssRepository repo;
+
+  @Before
+  public void makeRepo() throws Exception {
+    repo = new RestLockssRepository(new URL("http://localhost:"
+                                            + msRule.getPort()),
+                                    null, null);
+    repo.getArtifactCache().enable(true);
+  }
+
+  void expectEmpty(String url) {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath(ARTPATH)
+            .withQueryStringParameter("url", url))
+      .respond(response()
+               .withStatusCode(200)
+               .withHeaders(new Header("Content-Type", "application/json"))
+               .withBody("{\"artifacts\":[], \"pageInfo\":{}}"));
+  }
+
+  void expectNotFound(String url) {
+    msClient
+      .when(request()
+            .withMethod("GET")
+            .withPath(ARTPATH)
+            .withQueryStringParameter("url", url))
+      .respond(response()
+               .withStatusCode(404));
+  }
+
+  void verifyRequested(String url, int times) {
+    msClient.verify(request()
+                    .withMethod("GET")
+                    .withPath(ARTPATH)
+                    .withQueryStringParameter("url", url),
+                    VerificationTimes.exactly(times));
+  }
+
+  @Test
+  public void testGetArtifact() throws Exception {
+    expectEmpty("u1");
+    expectNotFound("u2");
+    assertNull(repo.getArtifact(NS1, AUID1, "u1"));
+    assertNull(repo.getArtifact(NS1, AUID1, "u2"));
+    assertTrue(repo.getArtifactCache().isLatestNotFound(NS1, AUID1, "u1"));
+    assertTrue(repo.getArtifactCache().isLatestNotFound(NS1, AUID1, "u2"));
+
+    // Satisfied from the cache
+    assertNull(repo.getArtifact(NS1, AUID1, "u1"));
+    assertNull(repo.getArtifact(NS1, AUID1, "u2"));
+    verifyRequested("u1", 1);
+    verifyRequested("u2", 1);
+  }
+
+  @Test
+  public void testGetArtifactVersion() throws Exception {
+    expectEmpty("u1");
+    expectNotFound("u2");
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u1", 2, false));
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u2", 2, false));
+    assertTrue(repo.getArtifactCache().isNotFound(NS1, AUID1, "u1", 2));
+    assertTrue(repo.getArtifactCache().isNotFound(NS1, AUID1, "u2", 2));
+
+    // Satisfied from the cache
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u1", 2, false));
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u2", 2, false));
+    verifyRequested("u1", 1);
+    verifyRequested("u2", 1);
+  }
+
+  @Test
+  public void testGetArtifactVersionUncommitted() throws Exception {
+    expectNotFound("u1");
+    // There might be an uncommitted version, so the negative result
+    // isn't used or cached
+    repo.getArtifactCache().putNotFound(NS1, AUID1, "u1", 2,
+        repo.getArtifactCache().getInvalidationGeneration());
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u1", 2, true));
+    assertNull(repo.getArtifactVersion(NS1, AUID1, "u1", 3, true));
+    assertFalse(repo.getArtifactCache().isNotFound(NS1, AUID1, "u1", 3));
+    verifyRequested("u1", 2);
+  }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+package org.lockss.util.rest.repo;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.lockss.util.rest.repo.LockssRepository.IncludeContent;
+import org.lockss.util.rest.repo.model.Artifact;
+import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.util.ArtifactCache;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * Test the per-call choice between a live and a replayable content
+ * stream in {@link RestLockssRepository#getArtifactData(Artifact,
+ * IncludeContent, boolean)}.
+ */
+public class TestRestLockssRepositoryStreaming extends LockssTestCase5 {
+
+  @Test
+  public void testResponseEndpoint() throws Exception {
+    testReplayable(false);
+  }
+
+  @Test
+  public void testMultipartEndpoint() throws Exception {
+    testReplayable(true);
+  }
+
+  void testReplayable(boolean multipart) throws Exception {
+    try (RepositoryStub stub = new RepositoryStub(4, 4096, 10, 1).start()) {
+      RestLockssRepository repo =
+        new RestLockssRepository(new URL(stub.getUrl()), null, null);
+      repo.setUseMultipartEndpoint(multipart);
+      // Content isn't cached, so only replayable ArtifactData is
+      ArtifactCache cache = repo.getArtifactCache().enable(true);
+      cache.setContentLimits(0, 0);
+      List<Artifact> arts = stub.getArtifacts();
+
+      // Buffered by default, live stream on request
+      assertFalse(repo.isStreamArtifactData());
+      assertCached(repo, arts.get(0),
+                   repo.getArtifactData(arts.get(0), IncludeContent.ALWAYS),
+                   true);
+      assertCached(repo, arts.get(1),
+                   repo.getArtifactData(arts.get(1), IncludeContent.ALWAYS,
+                                        false),
+                   false);
+
+      // Live stream by default, buffered on request
+      repo.setStreamArtifactData(true);
+      assertCached(repo, arts.get(2),
+                   repo.getArtifactData(arts.get(2), IncludeContent.ALWAYS),
+                   false);
+      assertCached(repo, arts.get(3),
+                   repo.getArtifactData(arts.get(3), IncludeContent.ALWAYS,
+                                        true),
+                   true);
+    }
+  }
+
+  void assertCached(RestLockssRepository repo, Artifact art, ArtifactData ad,
+                    boolean expCached) throws Exception {
+    try {
+      ArtifactData cached =
+        repo.getArtifactCache().getArtifactData(art.getNamespace(),
+                                                art.getUuid(), true);
+      if (expCached) {
+        assertSame(ad, cached);
+      } else {
+        assertNull(cached);
+      }
+      try (InputStream in = ad.getInputStream()) {
+        assertEquals(art.getContentLength(),
+                     IOUtils.copyLarge(in, OutputStream.nullOutputStream()));
+      }
+    } finally {
+      ad.release();
+    }
+  }
+}
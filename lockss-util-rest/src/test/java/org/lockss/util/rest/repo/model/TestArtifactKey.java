@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University,
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without modification,
+ * are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation and/or
+ * other materials provided with the distribution.
+ *
+ * 3. Neither the name of the copyright holder nor the names of its contributors
+ * may be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package org.lockss.util.rest.repo.model;
+
+import org.junit.jupiter.api.Test;
+import org.lockss.util.test.LockssTestCase5;
+
+public class TestArtifactKey extends LockssTestCase5 {
+
+  @Test
+  public void testEquality() {
+    ArtifactKey k1 = ArtifactKey.of("ns1", "auid", "http://x.com/a", 3);
+    ArtifactKey k2 = ArtifactKey.of(new String("ns1"), new String("auid"),
+                                    new String("http://x.com/a"), 3);
+    assertEquals(k1, k2);
+    assertEquals(k1.hashCode(), k2.hashCode());
+    assertNotEquals(k1, ArtifactKey.of("ns1", "auid", "http://x.com/a", 2));
+    assertNotEquals(k1, ArtifactKey.of("ns2", "auid", "http://x.com/a", 3));
+    assertNotEquals(k1, ArtifactKey.of("ns1", "auid2", "http://x.com/a", 3));
+    assertNotEquals(k1, ArtifactKey.of("ns1", "auid", "http://x.com/b", 3));
+    assertNotEquals(k1, ArtifactKey.of(null, "auid", "http://x.com/a", 3));
+    assertEquals(ArtifactKey.of(null, "auid", "u", 3),
+                 ArtifactKey.of(null, "auid", "u", 3));
+  }
+
+  @Test
+  public void testLatest() {
+    ArtifactKey k1 = ArtifactKey.of("ns1", "auid", "uri", 3);
+    assertFalse(k1.isLatest());
+    ArtifactKey latest = k1.toLatest();
+    assertTrue(latest.isLatest());
+    assertSame(latest, latest.toLatest());
+    assertEquals(ArtifactKey.latest("ns1", "auid", "uri"), latest);
+    assertEquals(ArtifactKey.latest("ns1", "auid", "uri").hashCode(),
+                 latest.hashCode());
+    assertEquals(ArtifactKey.LATEST, latest.getVersion());
+  }
+
+  @Test
+  public void testArtifact() {
+    Artifact art =
+        new Artifact("aidid", "ns1", "auid", "uri", 123, true, "surl", 0, null);
+    assertEquals(ArtifactKey.of("ns1", "auid", "uri", 123), ArtifactKey.of(art));
+    assertEquals(ArtifactKey.latest("ns1", "auid", "uri"),
+                 ArtifactKey.latestOf(art));
+    assertEquals(art.makeKey(), ArtifactKey.of(art).toString());
+    assertEquals(art.makeLatestKey(), ArtifactKey.latestOf(art).toString());
+  }
+
+  @Test
+  public void testFromString() {
+    ArtifactKey k1 = ArtifactKey.of("ns1", "a|u&id~x", "http://x.com:80/a:b", 7);
+    assertEquals("ns1:a|u&id~x:http://x.com:80/a:b:7", k1.toString());
+    assertEquals(k1, ArtifactKey.fromString(k1.toString()));
+    ArtifactKey k2 = ArtifactKey.latest(null, "auid", "uri");
+    assertEquals(k2, ArtifactKey.fromString(k2.toString()));
+    assertNull(ArtifactKey.fromString(null));
+    assertNull(ArtifactKey.fromString("ns:auid"));
+    assertNull(ArtifactKey.fromString("ns:auid:uri:"));
+    assertNull(ArtifactKey.fromString("ns:auid:uri:x"));
+  }
+
+  @Test
+  public void testIsInAu() {
+    ArtifactKey k1 = ArtifactKey.of("ns1", "auid", "uri", 3);
+    assertTrue(k1.isInAu("ns1", "auid"));
+    assertTrue(k1.isInAu(null, "auid"));
+    assertFalse(k1.isInAu("ns2", "auid"));
+    assertFalse(k1.isInAu("ns1", "auid2"));
+  }
+}
@@ -0,0 +1,166 @@
+/*
+
+Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.util.rest.repo.util;
+
+import org.apache.commons.collections4.map.LRUMap;
+import org.lockss.util.rest.repo.model.Artifact;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Multi-threaded throughput benchmark of {@link ArtifactCache} lookups,
+ * compared with the previous implementation, which synchronized every
+ * operation around commons-collections LRUMaps.  Not a unit test; run
+ * with
+ * <pre>
+ *   java -cp ... org.lockss.util.rest.repo.util.ArtifactCacheBenchmark [threads [seconds [cacheSize]]]
+ * </pre>
+ * Each thread performs a mix of 90% lookups and 10% stores over a key
+ * space twice the size of the cache.
+ */
+public class ArtifactCacheBenchmark {
+
+  /** The minimal operations the benchmark needs */
+  interface Cache {
+    Artifact get(String ns, String auid, String url, int version);
+    void put(Artifact art);
+  }
+
+  /** The previous, fully synchronized, two-map implementation */
+  static class SynchronizedLruCache implements Cache {
+    LRUMap<String,Artifact> artMap;
+    LRUMap<String,Artifact> artIterMap;
+
+    SynchronizedLruCache(int size) {
+      artMap = new LRUMap<>(size);
+      artIterMap = new LRUMap<>(size);
+    }
+
+    public synchronized Artifact get(String ns, String auid, String url,
+                                     int version) {
+      String key = Artifact.makeKey(ns, auid, url, version);
+      Artifact res = artMap.get(key);
+      if (res == null) {
+        res = artIterMap.get(key);
+      }
+      return res;
+    }
+
+    public synchronized void put(Artifact art) {
+      String key = art.makeKey();
+      if (artIterMap.containsKey(key)) {
+        artIterMap.put(key, art);
+      } else {
+        artMap.put(key, art);
+      }
+    }
+  }
+
+  static Cache wrap(ArtifactCache cache) {
+    return new Cache() {
+      public Artifact get(String ns, String auid, String url, int version) {
+        return cache.get(ns, auid, url, version);
+      }
+
+      public void put(Artifact art) {
+        cache.put(art);
+      }
+    };
+  }
+
+  static long run(Cache cache, Artifact[] arts, int nThreads, long millis)
+      throws Exception {
+    LongAdder ops = new LongAdder();
+    ExecutorService exec = Executors.newFixedThreadPool(nThreads);
+    CountDownLatch start = new CountDownLatch(1);
+    List<Future<?>> futs = new ArrayList<>();
+    long end[] = new long[1];
+    for (int t = 0; t < nThreads; t++) {
+      futs.add(exec.submit(() -> {
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        start.await();
+        long n = 0;
+        while (System.currentTimeMillis() < end[0]) {
+          for (int ix = 0; ix < 1000; ix++) {
+            Artifact art = arts[rnd.nextInt(arts.length)];
+            if (rnd.nextInt(10) == 0) {
+              cache.put(art);
+            } else {
+              cache.get(art.getNamespace(), art.getAuid(), art.getUri(),
+                        art.getVersion());
+            }
+          }
+          n += 1000;
+        }
+        ops.add(n);
+        return null;
+      }));
+    }
+    end[0] = System.currentTimeMillis() + millis;
+    start.countDown();
+    for (Future<?> fut : futs) {
+      fut.get();
+    }
+    exec.shutdown();
+    return ops.sum() * 1000 / millis;
+  }
+
+  public static void main(String[] args) throws Exception {
+    int nThreads = args.length > 0 ? Integer.parseInt(args[0])
+        : Runtime.getRuntime().availableProcessors();
+    long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+    int size = args.length > 2 ? Integer.parseInt(args[2]) : 500;
+
+    Artifact[] arts = new Artifact[size * 2];
+    for (int ix = 0; ix < arts.length; ix++) {
+      arts[ix] = new Artifact("id" + ix, "ns1", "auid" + (ix % 10),
+                              "http://example.com/" + ix, 1, Boolean.TRUE,
+                              "store_url", 123, null);
+    }
+
+    for (int threads = 1; threads <= nThreads; threads *= 2) {
+      // Warm up each once, then measure
+      run(new SynchronizedLruCache(size), arts, threads, 1000);
+      long sync = run(new SynchronizedLruCache(size), arts, threads,
+                      seconds * 1000);
+      run(wrap(new ArtifactCache(size, 20)), arts, threads, 1000);
+      long conc = run(wrap(new ArtifactCache(size, 20)), arts, threads,
+                      seconds * 1000);
+      System.out.printf("%2d threads: synchronized LRUMap %,12d ops/s, " +
+                        "ArtifactCache %,12d ops/s (%.2fx)%n",
+                        threads, sync, conc, (double)conc / sync);
+    }
+  }
+}
@@ -35,6 +35,8 @@ import org.lockss.log.L4JLogger;
 import org.lockss.util.*;
 import org.lockss.util.rest.repo.model.Artifact;
 import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.model.ArtifactKey;
+import org.lockss.util.time.TimeBase;
 import org.lockss.util.test.LockssTestCase5;
 
 public class TestArtifactCache extends LockssTestCase5 {
@@ -331,4 +333,311 @@ public class TestArtifactCache extends LockssTestCase5 {
     assertSame(ad2a, cache.getArtifactData(NS1, ARTID2, false));
   }
 
+  @Test
+  public void testContentCache() throws Exception {
+    cache.setContentLimits(20, 8);
+    ArtifactCache.Stats stats = cache.getStats();
+    assertEquals(20, stats.getMaxContentBytes());
+
+    ArtifactData ad1 = makeAD(URL1, ARTID1, "content");
+    ArtifactData ad1a = cache.putArtifactData(NS1, ARTID1, ad1);
+    // Content was read into the cache, a replacement returned
+    assertNotSame(ad1, ad1a);
+    assertFalse(ad1.hasContentInputStream());
+    assertEquals(7, cache.getContentBytes());
+    assertEquals(1, stats.getContentCacheStores());
+    assertEquals(7, stats.getDataBytesFetched());
+    assertEquals(ad1.getIdentifier(), ad1a.getIdentifier());
+    assertEquals(7, ad1a.getContentLength());
+    assertEquals("v1", ad1a.getHttpHeaders().getFirst("H1"));
+    assertInputStreamMatchesString("content", ad1a.getInputStream());
+
+    // Each hit returns a new ArtifactData with an unused InputStream
+    ArtifactData ad1b = cache.getArtifactData(NS1, ARTID1, true);
+    ArtifactData ad1c = cache.getArtifactData(NS1, ARTID1, true);
+    assertNotSame(ad1b, ad1c);
+    assertInputStreamMatchesString("content", ad1b.getInputStream());
+    assertInputStreamMatchesString("content", ad1c.getInputStream());
+    assertEquals(2, stats.getContentCacheHits());
+    assertEquals(2, stats.getDataCacheHits());
+    assertEquals(14, stats.getContentBytesHit());
+    assertEquals(14.0 / 21.0, stats.getDataCacheByteHitRatio(), 0.0001);
+    assertEquals(1.0, stats.getDataCacheHitRatio(), 0.0001);
+
+    // Too large for content cache, goes in ArtifactData cache
+    ArtifactData ad2 = makeAD(URL2, ARTID2, "too much content");
+    assertSame(ad2, cache.putArtifactData(NS1, ARTID2, ad2));
+    assertEquals(1, stats.getContentTooLarge());
+    assertEquals(7, cache.getContentBytes());
+    assertSame(ad2, cache.getArtifactData(NS1, ARTID2, true));
+
+    // Eviction is by total size
+    ArtifactData ad3 = makeAD(URL3, ARTID3, "content3");
+    cache.putArtifactData(NS1, ARTID3, ad3);
+    assertEquals(15, cache.getContentBytes());
+    ArtifactData ad4 = makeAD(URL1, "4d-5e-6f", "content4");
+    cache.putArtifactData(NS1, "4d-5e-6f", ad4);
+    assertEquals(16, cache.getContentBytes());
+    // ARTID1 was least recently used
+    assertNull(cache.getArtifactData(NS1, ARTID1, true));
+    assertInputStreamMatchesString("content3",
+				   cache.getArtifactData(NS1, ARTID3, true).getInputStream());
+
+    // An item larger than the whole content cache isn't cached, even if
+    // the item size limit allows it, and doesn't evict the others
+    cache.setContentLimits(20, 100);
+    ArtifactData ad5 = makeAD(URL2, "5e-6f-7a", "content larger than 20");
+    assertSame(ad5, cache.putArtifactData(NS1, "5e-6f-7a", ad5));
+    assertEquals(2, stats.getContentTooLarge());
+    assertEquals(16, cache.getContentBytes());
+
+    // Disabling the content cache
+    cache.setContentLimits(0, 8);
+    assertEquals(0, cache.getContentBytes());
+    assertNull(cache.getArtifactData(NS1, ARTID3, true));
+  }
+
+  // Content is read into a buffer sized from the content length, which
+  // must still work if the length is wrong
+  @Test
+  public void testCachedContentLengthMismatch() throws Exception {
+    cache.setContentLimits(100, 20);
+    ArtifactCache.Stats stats = cache.getStats();
+
+    // Content longer than its length isn't cached, but all of it can
+    // still be read
+    ArtifactData ad1 = makeAD(URL1, ARTID1, "longer content");
+    ad1.setContentLength(4);
+    ArtifactData ad1a = cache.putArtifactData(NS1, ARTID1, ad1);
+    assertNotSame(ad1, ad1a);
+    assertEquals(0, cache.getContentBytes());
+    assertEquals(0, stats.getContentCacheStores());
+    assertEquals(1, stats.getContentTooLarge());
+    assertSame(ad1a, cache.getArtifactData(NS1, ARTID1, true));
+    assertInputStreamMatchesString("longer content", ad1a.getInputStream());
+
+    ArtifactData ad1b = makeAD(URL1, ARTID1, "longer content");
+    ad1b.setContentLength(4);
+    assertThrows(ArtifactCache.ContentLengthExceededException.class,
+		 () -> ArtifactCache.CachedContent.fromArtifactData(ad1b));
+
+    ArtifactData ad2 = makeAD(URL2, ARTID2, "short");
+    ad2.setContentLength(100);
+    ArtifactCache.CachedContent cc2 =
+      ArtifactCache.CachedContent.fromArtifactData(ad2);
+    assertEquals(5, cc2.size());
+    assertInputStreamMatchesString("short",
+				   cc2.newArtifactData().getInputStream());
+  }
+
+  @Test
+  public void testNotFound() throws Exception {
+    TimeBase.setSimulated(1000);
+    try {
+      cache.setNotFoundLimits(10, 100);
+      ArtifactCache.Stats stats = cache.getStats();
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL1));
+      long gen = cache.getInvalidationGeneration();
+      cache.putLatestNotFound(NS1, AUID1, URL1, gen);
+      cache.putNotFound(NS1, AUID1, URL1, 2, gen);
+      cache.putLatestNotFound(NS1, AUID2, URL1, gen);
+      assertEquals(3, stats.getNotFoundStores());
+      assertTrue(cache.isLatestNotFound(NS1, AUID1, URL1));
+      assertTrue(cache.isNotFound(NS1, AUID1, URL1, 2));
+      assertFalse(cache.isNotFound(NS1, AUID1, URL1, 1));
+      assertFalse(cache.isLatestNotFound(NS2, AUID1, URL1));
+      assertEquals(2, stats.getNotFoundHits());
+
+      // Expires
+      TimeBase.step(100);
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL1));
+      gen = cache.getInvalidationGeneration();
+      cache.putLatestNotFound(NS1, AUID1, URL1, gen);
+      cache.putNotFound(NS1, AUID1, URL1, 2, gen);
+      assertTrue(cache.isLatestNotFound(NS1, AUID1, URL1));
+
+      // Storing the Artifact removes the negative results for it
+      cache.put(makeArt(NS1, AUID1, URL1, 2));
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL1));
+      assertFalse(cache.isNotFound(NS1, AUID1, URL1, 2));
+
+      // Invalidations remove negative results
+      gen = cache.getInvalidationGeneration();
+      cache.putNotFound(NS1, AUID1, URL2, 1, gen);
+      cache.invalidateArtifact(ArtifactCache.InvalidateOp.Commit,
+			       Artifact.makeKey(NS1, AUID1, URL2, 1));
+      assertFalse(cache.isNotFound(NS1, AUID1, URL2, 1));
+
+      gen = cache.getInvalidationGeneration();
+      cache.putLatestNotFound(NS1, AUID1, URL2, gen);
+      cache.putLatestNotFound(NS2, AUID1, URL2, gen);
+      cache.putLatestNotFound(NS1, AUID2, URL1, gen);
+      cache.invalidateAu(ArtifactCache.InvalidateOp.Delete, NS1, AUID1);
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL2));
+      assertTrue(cache.isLatestNotFound(NS2, AUID1, URL2));
+      assertTrue(cache.isLatestNotFound(NS1, AUID2, URL1));
+
+      cache.flush();
+      assertFalse(cache.isLatestNotFound(NS2, AUID1, URL2));
+      assertFalse(cache.isLatestNotFound(NS1, AUID2, URL1));
+
+      // A result from a lookup that started before an invalidation is
+      // discarded
+      gen = cache.getInvalidationGeneration();
+      cache.invalidateArtifact(ArtifactCache.InvalidateOp.Commit,
+			       Artifact.makeKey(NS1, AUID1, URL3, 1));
+      cache.putLatestNotFound(NS1, AUID1, URL3, gen);
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL3));
+
+      // Disabled
+      cache.setNotFoundLimits(0, 100);
+      gen = cache.getInvalidationGeneration();
+      cache.putLatestNotFound(NS1, AUID1, URL3, gen);
+      assertFalse(cache.isLatestNotFound(NS1, AUID1, URL3));
+    } finally {
+      TimeBase.setReal();
+    }
+  }
+
+  @Test
+  public void testAuIndex() throws Exception {
+    Artifact a1u1 = makeArt(NS1, AUID1, URL1, 1);
+    Artifact a1u2 = makeArt(NS1, AUID1, URL2, 1);
+    Artifact a2u1 = makeArt(NS1, AUID2, URL1, 1);
+    Artifact n2a1u1 = makeArt(NS2, AUID1, URL1, 1);
+    assertEquals(0, cache.getAuEntryCount(NS1, AUID1));
+    assertEmpty(cache.getCachedAuids());
+
+    cache.putLatest(a1u1);
+    cache.put(a1u2);
+    cache.put(a2u1);
+    cache.putIterLatest(n2a1u1);
+    assertEquals(3, cache.getAuEntryCount(NS1, AUID1));
+    assertEquals(2, cache.getAuEntryCount(NS2, AUID1));
+    assertEquals(5, cache.getAuEntryCount(null, AUID1));
+    assertEquals(1, cache.getAuEntryCount(NS1, AUID2));
+    assertEquals(SetUtil.set(AUID1, AUID2), cache.getCachedAuids());
+
+    // Invalidate in one namespace only
+    cache.invalidateAu(ArtifactCache.InvalidateOp.Commit, NS2, AUID1);
+    assertEquals(0, cache.getAuEntryCount(NS2, AUID1));
+    assertNull(cache.get(n2a1u1));
+    assertSame(a1u1, cache.get(a1u1));
+
+    cache.invalidateArtifact(ArtifactCache.InvalidateOp.Delete,
+			     a1u2.makeKey());
+    assertEquals(2, cache.getAuEntryCount(NS1, AUID1));
+
+    // Eviction removes entries from the index
+    for (int ii=1; ii<=10; ii++) {
+      cache.put(makeArt(NS1, AUID2, URL3, ii));
+    }
+    assertEquals(0, cache.getAuEntryCount(NS1, AUID1));
+    assertEquals(10, cache.getAuEntryCount(NS1, AUID2));
+    assertEquals(SetUtil.set(AUID2), cache.getCachedAuids());
+
+    cache.invalidateAu(ArtifactCache.InvalidateOp.Commit, AUID2);
+    assertEquals(0, cache.getAuEntryCount(null, AUID2));
+    assertNull(cache.get(NS1, AUID2, URL3, 10));
+    assertEmpty(cache.getCachedAuids());
+  }
+
+
+  @Test
+  public void testInvalidateBatch() throws Exception {
+    ArtifactCache.Stats stats = cache.getStats();
+    Artifact a1u1 = makeArt(NS1, AUID1, URL1, 1);
+    Artifact a1u2 = makeArt(NS1, AUID1, URL2, 1);
+    Artifact a1u3 = makeArt(NS1, AUID1, URL3, 1);
+    Artifact n2a1u1 = makeArt(NS2, AUID1, URL1, 1);
+    Artifact a2u1 = makeArt(NS1, AUID2, URL1, 1);
+    cache.putLatest(a1u1);
+    cache.putLatest(a1u2);
+    cache.put(a1u3);
+    cache.put(n2a1u1);
+    cache.put(a2u1);
+
+    // Empty batch does nothing
+    cache.invalidate(new ArtifactCache.Invalidations());
+    assertEquals(0, stats.getCacheInvalidateBatches());
+
+    // Duplicate keys are coalesced
+    ArtifactCache.Invalidations inv = new ArtifactCache.Invalidations(2);
+    inv.addArtifact(a1u1.makeKey());
+    inv.addArtifact(a1u1.makeKey());
+    inv.addArtifact(ArtifactKey.of(a1u2));
+    assertFalse(inv.addArtifact("malformed"));
+    assertEquals(3, inv.size());
+    assertEquals(SetUtil.set(ArtifactKey.of(a1u1), ArtifactKey.of(a1u2)),
+		 inv.getArtifactKeys());
+    assertTrue(inv.getAus().isEmpty());
+    long gen = cache.getInvalidationGeneration();
+    cache.invalidate(inv);
+    assertEquals(gen + 1, cache.getInvalidationGeneration());
+    assertEquals(1, stats.getCacheInvalidateBatches());
+    assertNull(cache.get(a1u1));
+    assertNull(cache.getLatest(NS1, AUID1, URL1));
+    assertNull(cache.get(a1u2));
+    assertSame(a1u3, cache.get(a1u3));
+    assertSame(n2a1u1, cache.get(n2a1u1));
+
+    // More than the threshold keys in one AU collapse to AU invalidation
+    // in that namespace
+    cache.putLatest(a1u1);
+    inv = new ArtifactCache.Invalidations(2);
+    inv.addArtifact(ArtifactKey.of(NS1, AUID1, "x1", 1));
+    inv.addArtifact(ArtifactKey.of(NS1, AUID1, "x2", 1));
+    inv.addArtifact(ArtifactKey.of(NS1, AUID1, "x3", 1));
+    inv.addArtifact(ArtifactKey.of(NS1, AUID2, "x1", 1));
+    assertEquals(MapUtil.map(AUID1, SetUtil.set(NS1)), inv.getAus());
+    assertEquals(SetUtil.set(ArtifactKey.of(NS1, AUID2, "x1", 1)),
+		 inv.getArtifactKeys());
+    cache.invalidate(inv);
+    assertEquals(0, cache.getAuEntryCount(NS1, AUID1));
+    assertSame(n2a1u1, cache.get(n2a1u1));
+    assertSame(a2u1, cache.get(a2u1));
+
+    // AU invalidation subsumes keys in the AU; all namespaces subsumes
+    // specific namespaces
+    cache.put(a1u3);
+    inv = new ArtifactCache.Invalidations();
+    inv.addArtifact(ArtifactKey.of(a2u1));
+    inv.addAu(NS2, AUID1);
+    inv.addAu(null, AUID1);
+    inv.addArtifact(ArtifactKey.of(n2a1u1));
+    assertEquals(MapUtil.map(AUID1, SetUtil.set((String)null)), inv.getAus());
+    assertEquals(SetUtil.set(ArtifactKey.of(a2u1)), inv.getArtifactKeys());
+    cache.invalidate(inv);
+    assertEquals(0, cache.getAuEntryCount(null, AUID1));
+    assertNull(cache.get(a2u1));
+    assertEmpty(cache.getCachedAuids());
+
+    // Flush subsumes everything
+    cache.put(a1u1);
+    cache.put(a2u1);
+    inv = new ArtifactCache.Invalidations();
+    inv.addArtifact(ArtifactKey.of(a1u1));
+    inv.addFlush();
+    cache.invalidate(inv);
+    assertEquals(1, stats.getCacheFlushes());
+    assertEmpty(cache.getCachedAuids());
+    assertEquals(4, stats.getCacheInvalidateBatches());
+  }
+
+  @Test
+  public void testInvalidateBatchNotFound() throws Exception {
+    cache.putLatestNotFound(NS1, AUID1, URL1,
+			    cache.getInvalidationGeneration());
+    cache.putNotFound(NS1, AUID2, URL2, 1,
+		      cache.getInvalidationGeneration());
+    assertTrue(cache.isLatestNotFound(NS1, AUID1, URL1));
+    assertTrue(cache.isNotFound(NS1, AUID2, URL2, 1));
+    ArtifactCache.Invalidations inv = new ArtifactCache.Invalidations();
+    inv.addArtifact(ArtifactKey.of(NS1, AUID1, URL1, 3));
+    inv.addAu(NS1, AUID2);
+    cache.invalidate(inv);
+    assertFalse(cache.isLatestNotFound(NS1, AUID1, URL1));
+    assertFalse(cache.isNotFound(NS1, AUID2, URL2, 1));
+  }
+
 }
@@ -34,16 +34,33 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.NullOutputStream;
 import org.apache.http.HttpResponse;
 import org.apache.http.ProtocolVersion;
+import org.apache.http.message.BasicHttpResponse;
 import org.apache.http.message.BasicStatusLine;
 import org.junit.jupiter.api.*;
 import org.lockss.log.L4JLogger;
+import org.lockss.util.io.FileRegionInputStream;
+import org.lockss.util.test.FileTestUtil;
 import org.lockss.util.test.LockssTestCase5;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 
+import org.lockss.util.rest.repo.LockssRepository;
+import org.lockss.util.rest.repo.RestLockssRepository;
 import org.lockss.util.rest.repo.model.ArtifactData;
+import org.lockss.util.rest.repo.model.ArtifactIdentifier;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.MultiValueMap;
 
 /**
  * Tests for {@link ArtifactDataUtil}.
@@ -86,6 +103,140 @@ public class TestArtifactDataUtil extends LockssTestCase5 {
         assertEquals(length1, length2);
     }
 
+    /**
+     * Tests that {@link ArtifactDataUtil#fromStreamingMultipartResponse(ResponseEntity)} parses the properties and
+     * header parts and leaves the payload part unread in the response body.
+     */
+    @Test
+    public void testFromStreamingMultipartResponse() throws Exception {
+        String boundary = "test-boundary";
+        String props = "{\"namespace\":\"ns1\",\"uuid\":\"uuid1\",\"auid\":\"auid1\"," +
+            "\"uri\":\"http://example.com/\",\"version\":3,\"contentLength\":11," +
+            "\"storeDate\":1234}";
+        String header = "HTTP/1.1 200 OK\r\nX-Foo: bar\r\n\r\n";
+        String body =
+            "--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + RestLockssRepository.MULTIPART_ARTIFACT_PROPS + "\"\r\n" +
+            "Content-Type: application/json\r\n\r\n" +
+            props + "\r\n" +
+            "--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + RestLockssRepository.MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER + "\"\r\n" +
+            "Content-Type: application/http\r\n\r\n" +
+            header + "\r\n" +
+            "--" + boundary + "\r\n" +
+            "Content-Disposition: form-data; name=\"" + RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD + "\"\r\n" +
+            ArtifactConstants.X_LOCKSS_CONTENT_TYPE + ": text/plain\r\n\r\n" +
+            "hello world\r\n" +
+            "--" + boundary + "--\r\n";
+
+        boolean[] closed = {false};
+        InputStream bodyStream =
+            new FilterInputStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8))) {
+                @Override
+                public void close() throws IOException {
+                    closed[0] = true;
+                    super.close();
+                }
+            };
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.setContentType(MediaType.parseMediaType("multipart/form-data; boundary=" + boundary));
+
+        ArtifactData ad = ArtifactDataUtil.fromStreamingMultipartResponse(
+            new ResponseEntity<>(bodyStream, responseHeaders, HttpStatus.OK));
+
+        assertEquals("ns1", ad.getIdentifier().getNamespace());
+        assertEquals("uuid1", ad.getIdentifier().getUuid());
+        assertEquals("auid1", ad.getIdentifier().getAuid());
+        assertEquals("http://example.com/", ad.getIdentifier().getUri());
+        assertEquals(3, (int) ad.getIdentifier().getVersion());
+        assertEquals(11, ad.getContentLength());
+        assertEquals(1234, ad.getStoreDate());
+        assertEquals(200, ad.getHttpStatus().getStatusCode());
+        assertEquals("bar", ad.getHttpHeaders().getFirst("X-Foo"));
+        assertEquals("text/plain", ad.getHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE));
+        assertFalse(closed[0]);
+
+        assertInputStreamMatchesString("hello world", ad.getInputStream());
+        ad.release();
+        assertTrue(closed[0]);
+    }
+
+    /**
+     * Tests that {@link ArtifactDataUtil#fromStreamingMultipartResponse(ResponseEntity)} closes the response body if
+     * the multipart Content-Type is missing.
+     */
+    @Test
+    public void testFromStreamingMultipartResponseNoContentType() throws Exception {
+        boolean[] closed = {false};
+        InputStream bodyStream =
+            new FilterInputStream(new ByteArrayInputStream("junk".getBytes(StandardCharsets.UTF_8))) {
+                @Override
+                public void close() throws IOException {
+                    closed[0] = true;
+                    super.close();
+                }
+            };
+
+        assertThrows(IOException.class,
+            () -> ArtifactDataUtil.fromStreamingMultipartResponse(
+                new ResponseEntity<>(bodyStream, new HttpHeaders(), HttpStatus.OK)));
+        assertTrue(closed[0]);
+    }
+
+    /**
+     * Tests that {@link ArtifactDataUtil#generateMultipartMapFromArtifactData(ArtifactData,
+     * LockssRepository.IncludeContent, long)} sends file-backed content as a {@link FileRegionResource} and writes the
+     * HTTP response header part directly.
+     */
+    @Test
+    public void testMultipartMapFromFileBackedArtifactData() throws Exception {
+        File file = getTempFile("content", ".txt");
+        FileTestUtil.writeFile(file, "hello world");
+
+        ArtifactData artifactData = new ArtifactData(
+            new ArtifactIdentifier("uuid1", "ns1", "auid1", "http://example.com/", 1),
+            new HttpHeaders(),
+            new FileRegionInputStream(file),
+            new BasicStatusLine(new ProtocolVersion("HTTP", 1, 1), 200, "OK"));
+
+        MultiValueMap<String, Object> parts =
+            ArtifactDataUtil.generateMultipartMapFromArtifactData(artifactData, LockssRepository.IncludeContent.ALWAYS, 0);
+
+        HttpEntity<?> payload = (HttpEntity<?>) parts.getFirst(RestLockssRepository.MULTIPART_ARTIFACT_PAYLOAD);
+        assertTrue(payload.getBody() instanceof FileRegionResource);
+        assertEquals(11, payload.getHeaders().getContentLength());
+        FileRegionResource resource = (FileRegionResource) payload.getBody();
+        assertEquals(11, resource.contentLength());
+        // Checking existence doesn't use up the stream
+        assertTrue(resource.exists());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resource.getInputStream().transferTo(out);
+        assertEquals("hello world", out.toString(StandardCharsets.UTF_8));
+        assertThrows(IllegalStateException.class, () -> resource.getInputStream());
+        assertFalse(artifactData.hasContentInputStream());
+
+        HttpEntity<?> header = (HttpEntity<?>) parts.getFirst(RestLockssRepository.MULTIPART_ARTIFACT_HTTP_RESPONSE_HEADER);
+        assertTrue(header.getBody() instanceof HttpResponseHeaderResource);
+        Resource headerResource = (Resource) header.getBody();
+        out = new ByteArrayOutputStream();
+        headerResource.getInputStream().transferTo(out);
+        HttpResponse httpResponse = new BasicHttpResponse(artifactData.getHttpStatus());
+        httpResponse.setHeaders(ArtifactDataUtil.transformHttpHeadersToHeaderArray(artifactData.getHttpHeaders()));
+        byte[] expected = ArtifactDataUtil.getHttpResponseHeader(httpResponse);
+        assertArrayEquals(expected, out.toByteArray());
+        // Read through the ordinary InputStream methods
+        assertArrayEquals(expected, IOUtils.toByteArray(headerResource.getInputStream()));
+
+        artifactData.release();
+
+        // A file-backed stream isn't bypassed if a digest is to be computed
+        ArtifactData digested = new ArtifactData(new HttpHeaders(), new FileRegionInputStream(file), null);
+        digested.setComputeDigestOnRead(true);
+        assertNull(digested.getContentFileRegion());
+        assertTrue(digested.hasContentInputStream());
+        digested.close();
+    }
+
     @Test
     public void getHttpResponseStreamFromArtifact() {
     }
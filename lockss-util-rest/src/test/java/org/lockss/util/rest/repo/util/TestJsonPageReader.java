@@ -0,0 +1,107 @@
+/*
+
+Copyright (c) 2026, Board of Trustees of Leland Stanford Jr. University
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice,
+this list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+this list of conditions and the following disclaimer in the documentation
+and/or other materials provided with the distribution.
+
+3. Neither the name of the copyright holder nor the names of its contributors
+may be used to endorse or promote products derived from this software without
+specific prior written permission.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE
+LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+POSSIBILITY OF SUCH DAMAGE.
+
+*/
+
+package org.lockss.util.rest.repo.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.junit.Test;
+import org.lockss.util.ListUtil;
+import org.lockss.util.rest.repo.model.ArtifactPageInfo;
+import org.lockss.util.rest.repo.model.AuidPageInfo;
+import org.lockss.util.test.LockssTestCase5;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+public class TestJsonPageReader extends LockssTestCase5 {
+
+  InputStream toStream(String s) {
+    return new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testArtifactPage() throws Exception {
+    ArtifactPageInfo api = JsonPageReader.readArtifactPage(toStream(
+        "{\"unknown\":{\"a\":[1,2]},\"artifacts\":["
+        + "{\"uuid\":\"1\",\"uri\":\"uriA\",\"version\":3,\"extra\":0},"
+        + "{\"uuid\":\"2\",\"uri\":\"uriB\",\"version\":2}], "
+        + "\"pageInfo\":{\"continuationToken\":\"tok\",\"totalCount\":2}}"));
+    assertEquals(2, api.getArtifacts().size());
+    assertEquals("1", api.getArtifacts().get(0).getUuid());
+    assertEquals("uriB", api.getArtifacts().get(1).getUri());
+    assertEquals(2, api.getArtifacts().get(1).getVersion().intValue());
+    assertEquals("tok", api.getPageInfo().getContinuationToken());
+
+    api = JsonPageReader.readArtifactPage(toStream(
+        "{\"artifacts\":[], \"pageInfo\":{}}"));
+    assertEmpty(api.getArtifacts());
+    assertNull(api.getPageInfo().getContinuationToken());
+
+    api = JsonPageReader.readArtifactPage(toStream("{\"artifacts\":null}"));
+    assertEmpty(api.getArtifacts());
+    assertNull(api.getPageInfo());
+  }
+
+  @Test
+  public void testAuidPage() throws Exception {
+    AuidPageInfo api = JsonPageReader.readAuidPage(toStream(
+        "{\"auids\":[\"au1\",\"au2\"],\"pageInfo\":{\"continuationToken\":\"t\"}}"));
+    assertEquals(ListUtil.list("au1", "au2"), api.getAuids());
+    assertEquals("t", api.getPageInfo().getContinuationToken());
+  }
+
+  // A response with no body yields a null stream, which is an empty page
+  @Test
+  public void testNoBody() throws Exception {
+    ArtifactPageInfo api = JsonPageReader.readArtifactPage(null);
+    assertTrue(api.getArtifacts().isEmpty());
+    assertNull(api.getPageInfo());
+    AuidPageInfo aupi = JsonPageReader.readAuidPage(null);
+    assertTrue(aupi.getAuids().isEmpty());
+    assertNull(aupi.getPageInfo());
+    // An empty body is malformed
+    assertThrows(JsonProcessingException.class,
+        () -> JsonPageReader.readAuidPage(toStream("")));
+  }
+
+  @Test
+  public void testMalformed() throws Exception {
+    assertThrows(JsonProcessingException.class,
+        () -> JsonPageReader.readArtifactPage(toStream("[]")));
+    assertThrows(JsonProcessingException.class,
+        () -> JsonPageReader.readArtifactPage(toStream(
+            "{\"artifacts\":[{\"uuid\":\"1\"}")));
+    assertThrows(JsonProcessingException.class,
+        () -> JsonPageReader.readAuidPage(toStream("{\"auids\":{}}")));
+  }
+}